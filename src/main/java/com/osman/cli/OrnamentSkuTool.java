@@ -1,5 +1,6 @@
 package com.osman.cli;
 
+import com.osman.core.pdf.PdfOpenPolicy;
 import org.apache.pdfbox.multipdf.Splitter;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
@@ -52,7 +53,7 @@ public final class OrnamentSkuTool {
                 Path tmpDir = tmpRoot.resolve("doc_" + docId);
                 Files.createDirectories(tmpDir);
 
-                try (PDDocument doc = PDDocument.load(input.toFile())) {
+                try (PDDocument doc = PdfOpenPolicy.shared().load(input.toFile())) {
                     List<Path> singlePageFiles = splitToSinglePages(doc, tmpDir);
                     singlePagesPerDoc.add(singlePageFiles);
                     List<Bundle> bundles = buildBundles(doc, docId, debug);
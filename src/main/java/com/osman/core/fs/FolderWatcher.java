@@ -0,0 +1,316 @@
+package com.osman.core.fs;
+
+import com.osman.logging.AppLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One {@link WatchService} and one thread shared by everything that follows changes under folder trees.
+ * <p>
+ * {@link #subscribe} registers every folder under the given roots down to a depth limit, including folders created
+ * later; a folder several subscribers watch is registered once. Subscribers hear of files created or modified and of
+ * paths deleted. Files already inside a newly created folder are reported as changed, since they may have landed
+ * before the folder was registered. If the event queue overflows, subscribers are told and then hear of every file
+ * under the roots again.
+ * <p>
+ * Callbacks run on the watcher thread, one subscriber after another, and each round of events ends with
+ * {@link Listener#batchDone()}, which also runs every {@value #TICK_MILLIS} ms while nothing happens. A slow callback
+ * holds every subscriber up, so long work belongs on the subscriber's own threads.
+ */
+public final class FolderWatcher {
+    private static final Logger LOGGER = AppLogger.get();
+    private static final long TICK_MILLIS = 250;
+
+    private static volatile FolderWatcher shared;
+
+    public interface Listener {
+        /** {@code file} already existed when subscribing; runs on the subscribing thread before it returns. */
+        default void fileFound(Path file) {
+        }
+
+        /** {@code file} was created or modified, or turned up in a new folder or after an overflow. */
+        void fileChanged(Path file);
+
+        /** {@code path} was deleted; {@code folder} when it was a watched folder, in which case its whole tree is gone. */
+        void deleted(Path path, boolean folder);
+
+        /** Events were lost; every file under the roots is reported through {@link #fileChanged} right after. */
+        default void overflowed() {
+        }
+
+        /** Ends each round of events; also runs periodically while the folders are quiet. */
+        default void batchDone() {
+        }
+    }
+
+    /**
+     * A subscriber's roots and depth limit. After {@link #close()} no further callbacks start, but one already under
+     * way on the watcher thread may still finish.
+     */
+    public final class Subscription implements Closeable {
+        private final List<Path> roots;
+        private final int maxDepth;
+        private final Listener listener;
+        private volatile boolean closed;
+
+        private Subscription(List<Path> roots, int maxDepth, Listener listener) {
+            this.roots = roots;
+            this.maxDepth = maxDepth;
+            this.listener = listener;
+        }
+
+        @Override
+        public void close() {
+            unsubscribe(this);
+        }
+
+        /** Whether events inside {@code folder} concern this subscription. */
+        private boolean watches(Path folder) {
+            for (Path root : roots) {
+                if (folder.startsWith(root) && folder.getNameCount() - root.getNameCount() < maxDepth) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void deliver(Runnable callback) {
+            if (closed) {
+                return;
+            }
+            try {
+                callback.run();
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Folder watch listener failed", ex);
+            }
+        }
+    }
+
+    private final Object lock = new Object();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final Map<WatchKey, Path> dirs = new HashMap<>();
+    private WatchService service;
+    private Thread thread;
+
+    public static FolderWatcher shared() {
+        FolderWatcher watcher = shared;
+        if (watcher == null) {
+            synchronized (FolderWatcher.class) {
+                watcher = shared;
+                if (watcher == null) {
+                    watcher = new FolderWatcher();
+                    shared = watcher;
+                }
+            }
+        }
+        return watcher;
+    }
+
+    /**
+     * Starts reporting changes in the folders under {@code roots} to {@code listener}. Folders more than
+     * {@code maxDepth - 1} levels below their root are not watched; {@link Integer#MAX_VALUE} watches whole trees.
+     */
+    public Subscription subscribe(Collection<Path> roots, int maxDepth, Listener listener) throws IOException {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be positive");
+        }
+        Subscription subscription = new Subscription(
+            roots.stream().filter(Objects::nonNull).toList(), maxDepth, Objects.requireNonNull(listener));
+        synchronized (lock) {
+            if (service == null) {
+                WatchService watchService = FileSystems.getDefault().newWatchService();
+                service = watchService;
+                thread = new Thread(() -> run(watchService), "Folder-Watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            subscriptions.add(subscription);
+            for (Path root : subscription.roots) {
+                if (Files.isDirectory(root)) {
+                    walk(root, List.of(subscription), (target, file) -> target.listener.fileFound(file));
+                }
+            }
+        }
+        return subscription;
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        synchronized (lock) {
+            subscription.closed = true;
+            if (!subscriptions.remove(subscription)) {
+                return;
+            }
+            if (subscriptions.isEmpty()) {
+                stop();
+                return;
+            }
+            Iterator<Map.Entry<WatchKey, Path>> it = dirs.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<WatchKey, Path> entry = it.next();
+                if (subscriptions.stream().noneMatch(s -> s.watches(entry.getValue()))) {
+                    entry.getKey().cancel();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void run(WatchService watchService) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.poll(TICK_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            List<Runnable> deliveries = new ArrayList<>();
+            List<Subscription> targets;
+            synchronized (lock) {
+                if (service != watchService) {
+                    return;
+                }
+                if (key != null) {
+                    handle(key, deliveries);
+                }
+                targets = List.copyOf(subscriptions);
+            }
+            deliveries.forEach(Runnable::run);
+            for (Subscription target : targets) {
+                target.deliver(target.listener::batchDone);
+            }
+        }
+    }
+
+    private void handle(WatchKey key, List<Runnable> deliveries) {
+        Path dir = dirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            List<Subscription> watching = subscriptions.stream().filter(s -> s.watches(dir)).toList();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                boolean folder = dirs.values().stream().anyMatch(d -> d.startsWith(path));
+                for (Subscription target : watching) {
+                    deliveries.add(() -> target.deliver(() -> target.listener.deleted(path, folder)));
+                }
+            } else if (Files.isDirectory(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    walk(path, watching, (target, file) ->
+                        deliveries.add(() -> target.deliver(() -> target.listener.fileChanged(file))));
+                }
+            } else {
+                for (Subscription target : watching) {
+                    deliveries.add(() -> target.deliver(() -> target.listener.fileChanged(path)));
+                }
+            }
+        }
+        if (!key.reset()) {
+            dirs.remove(key);
+        }
+        if (overflow) {
+            LOGGER.warning("Folder watch queue overflowed; reporting every file again.");
+            for (Subscription target : subscriptions) {
+                deliveries.add(() -> target.deliver(target.listener::overflowed));
+            }
+            Set<Path> roots = new LinkedHashSet<>();
+            subscriptions.forEach(s -> roots.addAll(s.roots));
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    walk(root, subscriptions, (target, file) ->
+                        deliveries.add(() -> target.deliver(() -> target.listener.fileChanged(file))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers the folders under {@code start} that any of {@code targets} watches, and hands each regular file in
+     * them to {@code onFile} once per target watching its folder.
+     */
+    private void walk(Path start, List<Subscription> targets, BiConsumer<Subscription, Path> onFile) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path folder, BasicFileAttributes attrs) {
+                    if (targets.stream().noneMatch(s -> s.watches(folder))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    try {
+                        WatchKey key = folder.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                        dirs.put(key, folder);
+                    } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException ex) {
+                        LOGGER.log(Level.FINE, "Cannot watch " + folder, ex);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        for (Subscription target : targets) {
+                            if (target.watches(file.getParent())) {
+                                onFile.accept(target, file);
+                            }
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Cannot watch " + start, ex);
+        }
+    }
+
+    private void stop() {
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Failed to close folder watch service", ex);
+            }
+            service = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        dirs.clear();
+    }
+}
@@ -20,27 +20,46 @@ public final class OrderDiscoveryService {
     private static final String OUTPUT_FOLDER_NAME = "Ready Designs";
     private static final Comparator<File> FILE_COMPARATOR =
         Comparator.comparing(File::getAbsolutePath, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Path> PATH_COMPARATOR =
+        Comparator.comparing((Path p) -> p.toAbsolutePath().toString(), String.CASE_INSENSITIVE_ORDER);
 
     public List<File> findOrderLeafFolders(File scanRoot, int maxDepth) {
         return discoverOrderFolders(scanRoot, maxDepth).orderFolders();
     }
 
     public OrderSearchResult discoverOrderFolders(File scanRoot, int maxDepth) {
-        LinkedHashSet<File> discovered = new LinkedHashSet<>();
-        LinkedHashSet<File> incomplete = new LinkedHashSet<>();
+        OrderPathSearchResult result = discoverOrderFolders(scanRoot == null ? null : scanRoot.toPath(), maxDepth);
+        List<File> orders = toSortedList(result.orderFolders().stream().map(Path::toFile).toList());
+        List<File> empty = toSortedList(result.incompleteOrderFolders().stream().map(Path::toFile).toList());
+        return new OrderSearchResult(orders, empty);
+    }
+
+    /**
+     * Path-based discovery so order folders inside a mounted archive (see {@link ZipOrderSource}) can be found
+     * without extracting them first.
+     */
+    public OrderPathSearchResult discoverOrderFolders(Path scanRoot, int maxDepth) {
+        LinkedHashSet<Path> discovered = new LinkedHashSet<>();
+        LinkedHashSet<Path> incomplete = new LinkedHashSet<>();
         collectOrderLeafFolders(scanRoot, discovered, incomplete, 0, Math.max(1, maxDepth));
         discovered.remove(scanRoot);
         incomplete.remove(scanRoot);
-        List<File> orders = toSortedList(discovered);
-        List<File> empty = toSortedList(incomplete);
-        return new OrderSearchResult(orders, empty);
+        List<Path> orders = new ArrayList<>(discovered);
+        List<Path> empty = new ArrayList<>(incomplete);
+        orders.sort(PATH_COMPARATOR);
+        empty.sort(PATH_COMPARATOR);
+        return new OrderPathSearchResult(orders, empty);
     }
 
     public boolean isOrderFolder(File dir) {
-        if (dir == null || !dir.isDirectory()) {
+        return dir != null && isOrderFolder(dir.toPath());
+    }
+
+    public boolean isOrderFolder(Path dir) {
+        if (dir == null || !Files.isDirectory(dir)) {
             return false;
         }
-        String name = dir.getName();
+        String name = ZipOrderSource.nameOf(dir);
         if (name.equalsIgnoreCase("images") ||
                 name.equalsIgnoreCase("img") ||
                 isReadyOutputFolderName(name)) {
@@ -49,42 +68,37 @@ public final class OrderDiscoveryService {
         return containsExtRecursively(dir, ".svg", 3) && containsExtRecursively(dir, ".json", 3);
     }
 
-    private void collectOrderLeafFolders(File dir,
-                                         Set<File> validOut,
-                                         Set<File> incompleteOut,
+    private void collectOrderLeafFolders(Path dir,
+                                         Set<Path> validOut,
+                                         Set<Path> incompleteOut,
                                          int depth,
                                          int maxDepth) {
-        if (dir == null || !dir.isDirectory()) {
+        if (dir == null || !Files.isDirectory(dir)) {
             return;
         }
         if (depth > maxDepth) {
             return;
         }
 
-        String dn = dir.getName();
+        String dn = ZipOrderSource.nameOf(dir);
         boolean isContainer = dn.equalsIgnoreCase("images") ||
                 dn.equalsIgnoreCase("img") ||
                 isReadyOutputFolderName(dn);
 
-        File[] subs = dir.listFiles(File::isDirectory);
-        if (subs == null) {
-            subs = new File[0];
-        }
-
-        List<File> potentialChildren = new ArrayList<>();
-        for (File sub : subs) {
-            String n = sub.getName();
-            if (n.startsWith(".") || n.equalsIgnoreCase("__MACOSX")) {
-                continue;
-            }
-            if (isReadyOutputFolderName(n)) {
-                continue;
-            }
-            potentialChildren.add(sub);
+        List<Path> potentialChildren = new ArrayList<>();
+        try (Stream<Path> subs = Files.list(dir)) {
+            subs.filter(Files::isDirectory).forEach(sub -> {
+                String n = ZipOrderSource.nameOf(sub);
+                if (n.startsWith(".") || n.equalsIgnoreCase("__MACOSX") || isReadyOutputFolderName(n)) {
+                    return;
+                }
+                potentialChildren.add(sub);
+            });
+        } catch (IOException ignored) {
         }
 
         boolean discoveredChildOrder = false;
-        for (File sub : potentialChildren) {
+        for (Path sub : potentialChildren) {
             if (isOrderFolder(sub)) {
                 validOut.add(sub);
                 discoveredChildOrder = true;
@@ -102,17 +116,14 @@ public final class OrderDiscoveryService {
             discoveredChildOrder = true;
         }
 
-        if (!discoveredChildOrder && looksLikeOrderFolder(dir)) {
+        if (!discoveredChildOrder && looksLikeOrderFolder(dn)) {
             incompleteOut.add(dir);
         }
     }
 
-    private boolean containsExtRecursively(File dir, String ext, int maxDepth) {
-        if (dir == null || !dir.isDirectory()) {
-            return false;
-        }
+    private boolean containsExtRecursively(Path dir, String ext, int maxDepth) {
         final String extLower = ext.toLowerCase(Locale.ROOT);
-        try (Stream<Path> stream = Files.walk(dir.toPath(), Math.max(1, maxDepth))) {
+        try (Stream<Path> stream = Files.walk(dir, Math.max(1, maxDepth))) {
             return stream
                     .filter(Files::isRegularFile)
                     .map(Path::getFileName)
@@ -137,18 +148,14 @@ public final class OrderDiscoveryService {
         return lower.startsWith("ready-") && lower.contains("_p");
     }
 
-    private boolean looksLikeOrderFolder(File dir) {
-        if (dir == null) {
-            return false;
-        }
-        String name = dir.getName();
+    private boolean looksLikeOrderFolder(String name) {
         if (name == null || name.isBlank()) {
             return false;
         }
         return name.matches(".*\\d{3}-\\d{7}-\\d{7}.*");
     }
 
-    private List<File> toSortedList(Set<File> files) {
+    private List<File> toSortedList(List<File> files) {
         List<File> list = new ArrayList<>(files);
         list.sort(FILE_COMPARATOR);
         return list;
@@ -164,4 +171,15 @@ public final class OrderDiscoveryService {
             return !incompleteOrderFolders.isEmpty();
         }
     }
+
+    public record OrderPathSearchResult(List<Path> orderFolders, List<Path> incompleteOrderFolders) {
+        public OrderPathSearchResult {
+            orderFolders = List.copyOf(orderFolders);
+            incompleteOrderFolders = List.copyOf(incompleteOrderFolders);
+        }
+
+        public boolean hasIncompleteFolders() {
+            return !incompleteOrderFolders.isEmpty();
+        }
+    }
 }
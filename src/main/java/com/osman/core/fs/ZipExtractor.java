@@ -1,20 +1,50 @@
 package com.osman.core.fs;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Enumeration;
+import java.util.Locale;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * Extracts zip archives with protection against Zip Slip attacks.
+ * <p>
+ * The destination is canonicalised once per archive; every entry is then checked with a purely lexical
+ * {@link Path#normalize()} so no per-entry filesystem round-trips are needed. Nested {@code .zip} entries are
+ * streamed straight into a sibling folder named after the archive instead of being written out and rescanned.
  */
 public final class ZipExtractor {
+    /**
+     * Written into a folder that was fully extracted from an archive that is being kept alongside it, so later
+     * passes over the same tree know not to extract that archive again.
+     */
+    public static final String EXTRACTED_MARKER = ".extracted";
+
+    static final int COPY_BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_NESTING_DEPTH = 4;
+
+    private static final ThreadLocal<ByteBuffer> COPY_BUFFER =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(COPY_BUFFER_SIZE));
+
     public interface Listener {
         void onFileExtracted(File file);
         void onEntrySkipped(String name, String reason);
+
+        /**
+         * Decides whether a nested archive entry should be expanded in place. Returning {@code false} writes the
+         * entry out as a regular file.
+         */
+        default boolean shouldExpandNested(String name) {
+            return true;
+        }
     }
 
     private ZipExtractor() {
@@ -24,50 +54,179 @@ public final class ZipExtractor {
         if (!destDir.exists() && !destDir.mkdirs()) {
             throw new IOException("Could not create folder: " + destDir);
         }
+        Path root = destDir.getCanonicalFile().toPath();
         try (ZipFile zf = new ZipFile(zipFile)) {
             Enumeration<? extends ZipEntry> entries = zf.entries();
             while (entries.hasMoreElements()) {
                 ZipEntry entry = entries.nextElement();
-                if (entry.getName().startsWith("__MACOSX/") || entry.getName().contains("/._")) {
+                if (isMetadataEntry(entry.getName())) {
                     continue;
                 }
-                File newFile = new File(destDir, entry.getName());
-                String destPath = destDir.getCanonicalPath() + File.separator;
-                String newPath = newFile.getCanonicalPath();
-                if (!newPath.startsWith(destPath)) {
-                    if (listener != null) {
-                        listener.onEntrySkipped(entry.getName(), "Zip entry outside target folder");
-                    }
+                Path target = resolveInside(root, root, entry.getName(), listener);
+                if (target == null) {
                     continue;
                 }
-
                 if (entry.isDirectory()) {
-                    if (!newFile.isDirectory() && !newFile.mkdirs()) {
-                        if (listener != null) {
-                            listener.onEntrySkipped(entry.getName(), "Could not create folder");
-                        }
-                    }
-                } else {
-                    File parent = newFile.getParentFile();
-                    if (!parent.isDirectory() && !parent.mkdirs()) {
-                        if (listener != null) {
-                            listener.onEntrySkipped(entry.getName(), "Could not create folder");
-                        }
-                        continue;
-                    }
-                    try (InputStream is = zf.getInputStream(entry);
-                         FileOutputStream fos = new FileOutputStream(newFile)) {
-                        byte[] buffer = new byte[8192];
-                        int len;
-                        while ((len = is.read(buffer)) > 0) {
-                            fos.write(buffer, 0, len);
-                        }
-                        if (listener != null) {
-                            listener.onFileExtracted(newFile);
-                        }
+                    createDirectory(target, entry.getName(), listener);
+                    continue;
+                }
+                if (isNestedArchive(entry.getName(), listener)) {
+                    try (InputStream is = zf.getInputStream(entry)) {
+                        expandNested(is, root, nestedDestination(target), entry.getName(), listener, 1);
                     }
+                    continue;
+                }
+                try (InputStream is = zf.getInputStream(entry)) {
+                    writeEntry(is, target, entry.getName(), listener);
+                }
+            }
+        }
+    }
+
+    /**
+     * Extracts an archive as it is read from {@code source}, e.g. straight off an HTTP response body. Bytes after
+     * the last local entry (the central directory) are left unread so the caller can verify or drain them.
+     */
+    public static void unzip(InputStream source, File destDir, Listener listener) throws IOException {
+        if (!destDir.exists() && !destDir.mkdirs()) {
+            throw new IOException("Could not create folder: " + destDir);
+        }
+        Path root = destDir.getCanonicalFile().toPath();
+        expandNested(source, root, root, null, listener, 0);
+    }
+
+    /**
+     * Returns {@code true} if {@code zipFile} was already extracted into its sibling folder and kept, as marked
+     * with {@link #EXTRACTED_MARKER}.
+     */
+    public static boolean isAlreadyExtracted(File zipFile) {
+        File parent = zipFile.getParentFile();
+        String baseName = zipFile.getName().replaceAll("(?i)\\.zip$", "");
+        return parent != null && new File(new File(parent, baseName), EXTRACTED_MARKER).isFile();
+    }
+
+    private static void expandNested(InputStream source,
+                                     Path root,
+                                     Path destination,
+                                     String archiveName,
+                                     Listener listener,
+                                     int depth) throws IOException {
+        if (depth > MAX_NESTING_DEPTH) {
+            notifySkipped(listener, archiveName, "Nested archive depth limit reached");
+            return;
+        }
+        // The nested stream is owned by the caller; ZipInputStream is intentionally not closed here.
+        ZipInputStream zis = new ZipInputStream(source);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            String displayName = archiveName == null ? entry.getName() : archiveName + "!/" + entry.getName();
+            if (isMetadataEntry(entry.getName())) {
+                continue;
+            }
+            Path target = resolveInside(root, destination, entry.getName(), listener);
+            if (target == null) {
+                continue;
+            }
+            if (entry.isDirectory()) {
+                createDirectory(target, displayName, listener);
+            } else if (isNestedArchive(entry.getName(), listener)) {
+                expandNested(zis, root, nestedDestination(target), displayName, listener, depth + 1);
+            } else {
+                writeEntry(zis, target, displayName, listener);
+            }
+        }
+    }
+
+    private static Path resolveInside(Path root, Path base, String entryName, Listener listener) {
+        Path target;
+        try {
+            target = base.resolve(entryName).normalize();
+        } catch (RuntimeException ex) {
+            notifySkipped(listener, entryName, "Invalid entry name");
+            return null;
+        }
+        if (!target.startsWith(root) || target.equals(root)) {
+            notifySkipped(listener, entryName, "Zip entry outside target folder");
+            return null;
+        }
+        return target;
+    }
+
+    private static void createDirectory(Path target, String entryName, Listener listener) {
+        if (Files.isDirectory(target)) {
+            return;
+        }
+        try {
+            Files.createDirectories(target);
+        } catch (IOException ex) {
+            notifySkipped(listener, entryName, "Could not create folder");
+        }
+    }
+
+    private static void writeEntry(InputStream is, Path target, String entryName, Listener listener) throws IOException {
+        Path parent = target.getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            try {
+                Files.createDirectories(parent);
+            } catch (IOException ex) {
+                notifySkipped(listener, entryName, "Could not create folder");
+                return;
+            }
+        }
+        copy(is, target);
+        if (listener != null) {
+            listener.onFileExtracted(target.toFile());
+        }
+    }
+
+    static long copy(InputStream is, Path target) throws IOException {
+        ByteBuffer buffer = COPY_BUFFER.get();
+        byte[] array = buffer.array();
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(target,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (true) {
+                // Fill the buffer as far as the stream allows before issuing a single large write.
+                int filled = 0;
+                int read;
+                while (filled < array.length && (read = is.read(array, filled, array.length - filled)) > 0) {
+                    filled += read;
+                }
+                if (filled == 0) {
+                    break;
+                }
+                buffer.clear().limit(filled);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                total += filled;
+                if (filled < array.length) {
+                    break;
                 }
             }
         }
+        return total;
+    }
+
+    private static boolean isMetadataEntry(String name) {
+        return name.startsWith("__MACOSX/") || name.contains("/._");
+    }
+
+    private static boolean isNestedArchive(String name, Listener listener) {
+        if (!name.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            return false;
+        }
+        return listener == null || listener.shouldExpandNested(name);
+    }
+
+    private static Path nestedDestination(Path archiveTarget) {
+        String baseName = archiveTarget.getFileName().toString().replaceAll("(?i)\\.zip$", "");
+        return archiveTarget.resolveSibling(baseName);
+    }
+
+    private static void notifySkipped(Listener listener, String name, String reason) {
+        if (listener != null) {
+            listener.onEntrySkipped(name, reason);
+        }
     }
 }
@@ -0,0 +1,124 @@
+package com.osman.core.fs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Exposes the contents of an order archive as {@link Path}s without extracting it to disk.
+ * <p>
+ * The archive is opened as a zip {@link FileSystem}; nested {@code .zip} entries are mounted as further file
+ * systems so order discovery and rendering can walk them like ordinary folders. Closing the source closes every
+ * mounted file system, innermost first.
+ */
+public final class ZipOrderSource implements Closeable {
+    private static final int NESTED_SCAN_DEPTH = 6;
+    private static final int MAX_NESTING_DEPTH = 4;
+
+    private final Path archive;
+    private final List<Path> roots;
+    private final Deque<FileSystem> mounted;
+
+    private ZipOrderSource(Path archive, List<Path> roots, Deque<FileSystem> mounted) {
+        this.archive = archive;
+        this.roots = List.copyOf(roots);
+        this.mounted = mounted;
+    }
+
+    public static ZipOrderSource open(Path archive) throws IOException {
+        Deque<FileSystem> mounted = new ArrayDeque<>();
+        List<Path> roots = new ArrayList<>();
+        try {
+            mount(archive, mounted, roots, 0);
+        } catch (IOException | RuntimeException ex) {
+            closeAll(mounted);
+            throw ex;
+        }
+        return new ZipOrderSource(archive, roots, mounted);
+    }
+
+    /** The archive this source was opened from. */
+    public Path archive() {
+        return archive;
+    }
+
+    /** Root of the outer archive followed by the root of every nested archive, in discovery order. */
+    public List<Path> roots() {
+        return roots;
+    }
+
+    /** Returns {@code true} if the given path lives inside a zip file system rather than on local disk. */
+    public static boolean isArchivePath(Path path) {
+        return path != null && path.getFileSystem() != FileSystems.getDefault();
+    }
+
+    /**
+     * Returns the last name element of {@code path}, or an empty string for a root. Zip file systems report
+     * directory names with a trailing separator; it is dropped so archive folders compare like local ones.
+     */
+    public static String nameOf(Path path) {
+        Path fileName = path.getFileName();
+        if (fileName == null) {
+            return "";
+        }
+        String name = fileName.toString();
+        return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeAll(mounted);
+    }
+
+    private static void mount(Path archive, Deque<FileSystem> mounted, List<Path> roots, int depth) throws IOException {
+        FileSystem fs = FileSystems.newFileSystem(archive);
+        mounted.push(fs);
+        Path root = fs.getPath("/");
+        roots.add(root);
+        if (depth >= MAX_NESTING_DEPTH) {
+            return;
+        }
+        List<Path> nested = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(root, NESTED_SCAN_DEPTH)) {
+            stream.filter(Files::isRegularFile)
+                .filter(p -> !isMetadataEntry(p))
+                .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".zip"))
+                .forEach(nested::add);
+        }
+        for (Path inner : nested) {
+            mount(inner, mounted, roots, depth + 1);
+        }
+    }
+
+    private static boolean isMetadataEntry(Path path) {
+        String value = path.toString();
+        return value.startsWith("/__MACOSX/") || value.contains("/._");
+    }
+
+    private static void closeAll(Deque<FileSystem> mounted) throws IOException {
+        IOException failure = null;
+        while (!mounted.isEmpty()) {
+            try {
+                mounted.pop().close();
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
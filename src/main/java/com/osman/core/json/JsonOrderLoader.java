@@ -8,6 +8,7 @@ import org.json.JSONObject;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Locale;
 
 /**
@@ -21,8 +22,18 @@ public final class JsonOrderLoader {
         if (jsonFile == null || orderDirectory == null) {
             throw new IllegalArgumentException("JSON file and order directory are required");
         }
+        return load(jsonFile.toPath(), orderDirectory.toPath());
+    }
+
+    /**
+     * Path-based variant so payloads can be read straight from a mounted order archive.
+     */
+    public static OrderPayload load(Path jsonFile, Path orderDirectory) throws IOException {
+        if (jsonFile == null || orderDirectory == null) {
+            throw new IllegalArgumentException("JSON file and order directory are required");
+        }
 
-        String content = Files.readString(jsonFile.toPath());
+        String content = Files.readString(jsonFile);
         JSONObject root = new JSONObject(content);
 
         String orderId = root.optString("orderId");
@@ -45,23 +56,32 @@ public final class JsonOrderLoader {
         }
 
         int quantity = root.optInt("quantity", 1);
-        String customerName = orderDirectory.getName();
+        Path directoryName = orderDirectory.getFileName();
+        String customerName = directoryName == null ? "" : stripTrailingSlash(directoryName.toString());
 
         OrderInfo info = new OrderInfo(orderId, customerName, fontName, quantity, orderItemId, label);
         int totalQuantity = QuantityCalculator.calculate(orderDirectory);
         String designSide = DesignSideResolver.resolveDesignSide(root);
-        ImageFileInfo images = readImageFileNames(jsonFile);
+        ImageFileInfo images = readImageFileNames(root);
         int mugOunces = readMugOunces(root);
 
         return new OrderPayload(info, totalQuantity, designSide, images, mugOunces);
     }
 
     public static ImageFileInfo readImageFileNames(File jsonFile) throws IOException {
-        String content = Files.readString(jsonFile.toPath());
+        return readImageFileNames(jsonFile.toPath());
+    }
+
+    public static ImageFileInfo readImageFileNames(Path jsonFile) throws IOException {
+        String content = Files.readString(jsonFile);
         JSONObject root = new JSONObject(content);
         return readImageFileNames(root);
     }
 
+    private static String stripTrailingSlash(String name) {
+        return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+    }
+
     private static ImageFileInfo readImageFileNames(JSONObject root) {
         String[] names = {null, null};
         if (root.has("customizationData")) {
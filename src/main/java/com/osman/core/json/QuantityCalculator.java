@@ -1,11 +1,17 @@
 package com.osman.core.json;
 
+import com.osman.core.fs.ZipOrderSource;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
 
 /**
  * Shared logic for counting the total quantity for single and multi-design orders.
@@ -15,32 +21,42 @@ public final class QuantityCalculator {
     }
 
     public static int calculate(File orderRoot) {
-        if (orderRoot == null || !orderRoot.isDirectory()) {
+        return orderRoot == null ? 1 : calculate(orderRoot.toPath());
+    }
+
+    public static int calculate(Path orderRoot) {
+        if (orderRoot == null || !Files.isDirectory(orderRoot)) {
             return 1;
         }
 
-        File customerFolder;
-        if (isDesignIdentifier(orderRoot.getName())) {
-            customerFolder = orderRoot.getParentFile();
+        Path customerFolder;
+        if (isDesignIdentifier(ZipOrderSource.nameOf(orderRoot))) {
+            customerFolder = orderRoot.getParent();
         } else {
             customerFolder = orderRoot;
         }
 
-        if (customerFolder == null || !customerFolder.isDirectory()) {
+        if (customerFolder == null || !Files.isDirectory(customerFolder)) {
             return 1;
         }
 
-        File[] designFolders = customerFolder.listFiles(file -> file.isDirectory() && folderContainsJson(file));
-        if (designFolders != null && designFolders.length > 0) {
+        List<Path> designFolders = new ArrayList<>();
+        try (Stream<Path> children = Files.list(customerFolder)) {
+            children.filter(Files::isDirectory)
+                .filter(QuantityCalculator::folderContainsJson)
+                .forEach(designFolders::add);
+        } catch (IOException ignored) {
+        }
+        if (!designFolders.isEmpty()) {
             int totalQuantity = 0;
-            for (File subfolder : designFolders) {
-                File jsonFile = findFirstJsonIn(subfolder);
+            for (Path subfolder : designFolders) {
+                Path jsonFile = findFirstJsonIn(subfolder);
                 totalQuantity += readQuantity(jsonFile);
             }
             return Math.max(totalQuantity, 1);
         }
 
-        File jsonFile = findFirstJsonIn(customerFolder);
+        Path jsonFile = findFirstJsonIn(customerFolder);
         return Math.max(readQuantity(jsonFile), 1);
     }
 
@@ -52,31 +68,30 @@ public final class QuantityCalculator {
         return baseName.matches("\\d+");
     }
 
-    private static boolean folderContainsJson(File directory) {
-        if (directory == null || !directory.isDirectory()) {
-            return false;
-        }
-        File[] jsonFiles = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".json"));
-        return jsonFiles != null && jsonFiles.length > 0;
+    private static boolean folderContainsJson(Path directory) {
+        return findFirstJsonIn(directory) != null;
     }
 
-    private static File findFirstJsonIn(File directory) {
-        if (directory == null || !directory.isDirectory()) {
+    private static Path findFirstJsonIn(Path directory) {
+        if (directory == null || !Files.isDirectory(directory)) {
             return null;
         }
-        File[] jsonFiles = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".json"));
-        if (jsonFiles != null && jsonFiles.length > 0) {
-            return jsonFiles[0];
+        try (Stream<Path> children = Files.list(directory)) {
+            return children
+                .filter(p -> ZipOrderSource.nameOf(p).toLowerCase(Locale.ROOT).endsWith(".json"))
+                .findFirst()
+                .orElse(null);
+        } catch (IOException e) {
+            return null;
         }
-        return null;
     }
 
-    private static int readQuantity(File jsonFile) {
+    private static int readQuantity(Path jsonFile) {
         if (jsonFile == null) {
             return 0;
         }
         try {
-            String content = Files.readString(jsonFile.toPath());
+            String content = Files.readString(jsonFile);
             JSONObject root = new JSONObject(content);
             return root.optInt("quantity", 1);
         } catch (IOException | JSONException e) {
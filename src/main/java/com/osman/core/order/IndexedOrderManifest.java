@@ -0,0 +1,260 @@
+package com.osman.core.order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only binary form of an {@link OrderQuantitiesManifest} for point lookups by order ID.
+ * <p>
+ * Layout (big-endian): a fixed header, a table of fixed-width order records sorted by the unsigned bytes of
+ * their zero-padded UTF-8 order ID, and a table of fixed-width item records referenced by index from the orders.
+ * {@link #find(String)} binary-searches the order table with absolute reads, so lookups are safe from any number
+ * of threads. The file is read onto the heap rather than mapped: on Windows a live mapping stops the file from
+ * being replaced, which would make every later {@link #convert} of the same manifest fail.
+ */
+public final class IndexedOrderManifest {
+    public static final String FILE_EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x4F514D58; // "OQMX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ORDER_FIELDS_SIZE = 3 * Integer.BYTES;
+    private static final int ITEM_FIELDS_SIZE = Integer.BYTES;
+
+    private final Path source;
+    private final ByteBuffer buffer;
+    private final int orderCount;
+    private final int itemCount;
+    private final int keyWidth;
+    private final int itemKeyWidth;
+    private final int orderTableOffset;
+    private final int itemTableOffset;
+
+    private IndexedOrderManifest(Path source, ByteBuffer buffer) throws IOException {
+        this.source = source;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an indexed order manifest: " + source);
+        }
+        this.orderCount = buffer.getInt(8);
+        this.itemCount = buffer.getInt(12);
+        this.keyWidth = buffer.getInt(16);
+        this.itemKeyWidth = buffer.getInt(20);
+        this.orderTableOffset = buffer.getInt(24);
+        this.itemTableOffset = buffer.getInt(28);
+        long expected = (long) itemTableOffset + (long) itemCount * itemRecordSize();
+        if (orderCount < 0 || itemCount < 0 || keyWidth < 0 || itemKeyWidth < 0
+            || orderTableOffset != HEADER_SIZE
+            || itemTableOffset != orderTableOffset + (long) orderCount * orderRecordSize()
+            || expected != buffer.capacity()) {
+            throw new IOException("Corrupt indexed order manifest: " + source);
+        }
+    }
+
+    public static IndexedOrderManifest open(Path path) throws IOException {
+        return new IndexedOrderManifest(path, ByteBuffer.wrap(Files.readAllBytes(path)).asReadOnlyBuffer());
+    }
+
+    /**
+     * Opens the index written next to {@code jsonManifest} if it reflects the manifest's current content: it must
+     * be at least as new as the snapshot and there must be no journaled updates pending. Returns {@code null}
+     * otherwise, in which case callers fall back to {@link OrderQuantitiesManifest#load(Path)}.
+     */
+    public static IndexedOrderManifest openIfCurrent(Path jsonManifest) {
+        Path index = indexPathFor(jsonManifest);
+        try {
+            if (!Files.isRegularFile(index) || !Files.isRegularFile(jsonManifest)) {
+                return null;
+            }
+            if (Files.getLastModifiedTime(index).compareTo(Files.getLastModifiedTime(jsonManifest)) < 0) {
+                return null;
+            }
+            Path journal = OrderQuantitiesJournal.journalFor(jsonManifest);
+            if (Files.exists(journal) && Files.size(journal) > 0) {
+                return null;
+            }
+            return open(index);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /** {@code order-quantities.json} becomes {@code order-quantities.idx} in the same folder. */
+    public static Path indexPathFor(Path jsonManifest) {
+        String name = jsonManifest.getFileName().toString().replaceAll("(?i)\\.json$", "");
+        return jsonManifest.resolveSibling(name + FILE_EXTENSION);
+    }
+
+    /** Loads the JSON manifest (snapshot plus journal) and writes its index next to it. */
+    public static Path convert(Path jsonManifest) throws IOException {
+        Path target = indexPathFor(jsonManifest);
+        write(OrderQuantitiesManifest.load(jsonManifest).orders(), target);
+        return target;
+    }
+
+    /** Writes the given orders as an index, replacing {@code target} atomically. */
+    public static void write(Collection<OrderQuantitiesManifest.OrderSummary> summaries, Path target) throws IOException {
+        List<Encoded> orders = new ArrayList<>(summaries.size());
+        int keyWidth = 0;
+        int itemKeyWidth = 0;
+        int itemCount = 0;
+        for (OrderQuantitiesManifest.OrderSummary summary : summaries) {
+            Encoded encoded = new Encoded(summary, summary.orderId().getBytes(StandardCharsets.UTF_8));
+            orders.add(encoded);
+            keyWidth = Math.max(keyWidth, encoded.key.length);
+            for (OrderQuantitiesManifest.ItemSummary item : summary.items()) {
+                itemKeyWidth = Math.max(itemKeyWidth, item.orderItemId().getBytes(StandardCharsets.UTF_8).length);
+                itemCount++;
+            }
+        }
+        orders.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+
+        int orderRecordSize = keyWidth + ORDER_FIELDS_SIZE;
+        int itemRecordSize = itemKeyWidth + ITEM_FIELDS_SIZE;
+        int itemTableOffset = Math.toIntExact(HEADER_SIZE + (long) orders.size() * orderRecordSize);
+        ByteBuffer out = ByteBuffer.allocate(Math.toIntExact(itemTableOffset + (long) itemCount * itemRecordSize));
+        out.putInt(MAGIC).putInt(VERSION).putInt(orders.size()).putInt(itemCount)
+            .putInt(keyWidth).putInt(itemKeyWidth).putInt(HEADER_SIZE).putInt(itemTableOffset);
+
+        int itemIndex = 0;
+        for (Encoded order : orders) {
+            List<OrderQuantitiesManifest.ItemSummary> items = order.summary.items();
+            putPadded(out, order.key, keyWidth);
+            out.putInt(order.summary.orderQuantity()).putInt(itemIndex).putInt(items.size());
+            int position = out.position();
+            out.position(itemTableOffset + itemIndex * itemRecordSize);
+            for (OrderQuantitiesManifest.ItemSummary item : items) {
+                putPadded(out, item.orderItemId().getBytes(StandardCharsets.UTF_8), itemKeyWidth);
+                out.putInt(item.itemQuantity());
+            }
+            out.position(position);
+            itemIndex += items.size();
+        }
+        out.position(0);
+
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path source() {
+        return source;
+    }
+
+    public int size() {
+        return orderCount;
+    }
+
+    public boolean contains(String orderId) {
+        return indexOf(orderId) >= 0;
+    }
+
+    /** Returns the summary for {@code orderId}, or {@code null} if the manifest does not list it. */
+    public OrderQuantitiesManifest.OrderSummary find(String orderId) {
+        int index = indexOf(orderId);
+        if (index < 0) {
+            return null;
+        }
+        int offset = orderTableOffset + index * orderRecordSize();
+        int orderQuantity = buffer.getInt(offset + keyWidth);
+        int firstItem = buffer.getInt(offset + keyWidth + Integer.BYTES);
+        int items = buffer.getInt(offset + keyWidth + 2 * Integer.BYTES);
+        if (firstItem < 0 || items < 0 || (long) firstItem + items > itemCount) {
+            return null;
+        }
+        List<OrderQuantitiesManifest.ItemSummary> summaries = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            int itemOffset = itemTableOffset + (firstItem + i) * itemRecordSize();
+            String itemId = readPadded(itemOffset, itemKeyWidth);
+            summaries.add(new OrderQuantitiesManifest.ItemSummary(itemId, buffer.getInt(itemOffset + itemKeyWidth)));
+        }
+        return new OrderQuantitiesManifest.OrderSummary(orderId, orderQuantity, List.copyOf(summaries));
+    }
+
+    private int indexOf(String orderId) {
+        if (orderId == null) {
+            return -1;
+        }
+        byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+        if (key.length > keyWidth) {
+            return -1;
+        }
+        int low = 0;
+        int high = orderCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKeyAt(orderTableOffset + mid * orderRecordSize(), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKeyAt(int offset, byte[] key) {
+        for (int i = 0; i < keyWidth; i++) {
+            int stored = buffer.get(offset + i) & 0xFF;
+            int wanted = i < key.length ? key[i] & 0xFF : 0;
+            if (stored != wanted) {
+                return stored - wanted;
+            }
+        }
+        return 0;
+    }
+
+    private String readPadded(int offset, int width) {
+        byte[] bytes = new byte[width];
+        int length = 0;
+        while (length < width) {
+            byte b = buffer.get(offset + length);
+            if (b == 0) {
+                break;
+            }
+            bytes[length++] = b;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int orderRecordSize() {
+        return keyWidth + ORDER_FIELDS_SIZE;
+    }
+
+    private int itemRecordSize() {
+        return itemKeyWidth + ITEM_FIELDS_SIZE;
+    }
+
+    private static void putPadded(ByteBuffer out, byte[] value, int width) {
+        out.put(value);
+        for (int i = value.length; i < width; i++) {
+            out.put((byte) 0);
+        }
+    }
+
+    private record Encoded(OrderQuantitiesManifest.OrderSummary summary, byte[] key) {
+    }
+}
@@ -27,11 +27,18 @@ public final class OrderContributionReader {
      * @return an {@link OrderContribution} or {@code null} if the file does not contain the expected fields.
      */
     public static OrderContribution readFromFile(File jsonFile) {
-        if (jsonFile == null || !jsonFile.isFile()) {
+        return jsonFile == null ? null : readFromFile(jsonFile.toPath());
+    }
+
+    /**
+     * Path-based variant of {@link #readFromFile(File)} that also accepts entries of a mounted archive.
+     */
+    public static OrderContribution readFromFile(Path jsonFile) {
+        if (jsonFile == null || !Files.isRegularFile(jsonFile)) {
             return null;
         }
         try {
-            String content = Files.readString(jsonFile.toPath());
+            String content = Files.readString(jsonFile);
             JSONObject root = new JSONObject(content);
             String orderId = root.optString("orderId", "").trim();
             String itemId = root.optString("orderItemId", "").trim();
@@ -53,14 +60,17 @@ public final class OrderContributionReader {
      * @return list of contributions (possibly empty).
      */
     public static List<OrderContribution> readAllFromFolder(File folder, int maxDepth) {
-        if (folder == null || !folder.isDirectory()) {
+        return folder == null ? List.of() : readAllFromFolder(folder.toPath(), maxDepth);
+    }
+
+    public static List<OrderContribution> readAllFromFolder(Path folder, int maxDepth) {
+        if (folder == null || !Files.isDirectory(folder)) {
             return List.of();
         }
         List<OrderContribution> contributions = new ArrayList<>();
-        try (Stream<Path> stream = Files.walk(folder.toPath(), Math.max(0, maxDepth))) {
+        try (Stream<Path> stream = Files.walk(folder, Math.max(0, maxDepth))) {
             stream.filter(Files::isRegularFile)
                 .filter(OrderContributionReader::isPotentialOrderJson)
-                .map(Path::toFile)
                 .map(OrderContributionReader::readFromFile)
                 .filter(Objects::nonNull)
                 .forEach(contributions::add);
@@ -69,7 +79,7 @@ public final class OrderContributionReader {
         return contributions;
     }
 
-    private static boolean isPotentialOrderJson(Path path) {
+    static boolean isPotentialOrderJson(Path path) {
         String fileName = path.getFileName() != null ? path.getFileName().toString() : "";
         String lower = fileName.toLowerCase(Locale.ROOT);
         if (!lower.endsWith(".json")) {
@@ -0,0 +1,288 @@
+package com.osman.core.order;
+
+import com.osman.core.fs.FolderWatcher;
+import com.osman.logging.AppLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Order ID to {@link OrderContribution}s from the Amazon Custom JSON files under a set of base folders, so looking up
+ * an order never walks the folders.
+ * <p>
+ * {@link #load(Collection)} walks the folders once (to {@link #MAX_DEPTH} levels, like the scans it replaces) and
+ * parses the JSON files on a bounded pool. When watching is on, a {@link FolderWatcher} subscription keeps the store
+ * current afterwards: created or modified JSON files are parsed again, deleted ones dropped and new folders picked
+ * up, and the listener is told which orders changed. An overflowed watch queue reloads everything.
+ * <p>
+ * Lookups are lock-free and safe from any thread. Contributions for one order come back sorted by file path.
+ */
+public final class OrderExpectationStore implements Closeable {
+    public static final int MAX_DEPTH = 8;
+
+    private static final Logger LOGGER = AppLogger.get();
+    private static final int DEFAULT_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final int workers;
+    private final boolean watch;
+    private final Consumer<Set<String>> listener;
+    private final Object updateLock = new Object();
+    private final Map<Path, OrderContribution> byFile = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Path, OrderContribution>> byOrder = new ConcurrentHashMap<>();
+    private final FolderWatcher folderWatcher;
+    private FolderWatcher.Subscription subscription;
+    private Events events;
+
+    /**
+     * @param watch    whether to keep the store current with a {@link FolderWatcher} after {@link #load}
+     * @param listener told, on the watcher thread, which order IDs changed after the initial load; may be
+     *                 {@code null}
+     */
+    public OrderExpectationStore(boolean watch, Consumer<Set<String>> listener) {
+        this(DEFAULT_WORKERS, watch, listener);
+    }
+
+    OrderExpectationStore(int workers, boolean watch, Consumer<Set<String>> listener) {
+        this(workers, watch, listener, FolderWatcher.shared());
+    }
+
+    OrderExpectationStore(int workers, boolean watch, Consumer<Set<String>> listener, FolderWatcher folderWatcher) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.workers = workers;
+        this.watch = watch;
+        this.listener = listener;
+        this.folderWatcher = folderWatcher;
+    }
+
+    /** Replaces the contents with the JSON files under {@code baseFolders} and, if enabled, starts watching them. */
+    public void load(Collection<Path> baseFolders) throws IOException {
+        synchronized (updateLock) {
+            stopWatching();
+            byFile.clear();
+            byOrder.clear();
+            List<Path> files = new ArrayList<>();
+            if (watch && !baseFolders.isEmpty()) {
+                // Subscribing walks the folders anyway, so the JSON files come from that same walk.
+                Events current = new Events();
+                events = current;
+                subscription = folderWatcher.subscribe(baseFolders, MAX_DEPTH, current);
+                files.addAll(current.found);
+                current.found.clear();
+            } else {
+                for (Path root : baseFolders) {
+                    if (root != null && Files.isDirectory(root)) {
+                        files.addAll(scan(root));
+                    }
+                }
+            }
+            parseAll(files);
+        }
+    }
+
+    /** The contributions for {@code orderId}, sorted by file path; empty when the order is unknown. */
+    public List<OrderContribution> find(String orderId) {
+        if (orderId == null) {
+            return List.of();
+        }
+        Map<Path, OrderContribution> contributions = byOrder.get(orderId);
+        return contributions == null ? List.of() : List.copyOf(contributions.values());
+    }
+
+    /** Every order ID with at least one contribution. */
+    public Set<String> orderIds() {
+        return Set.copyOf(byOrder.keySet());
+    }
+
+    public int size() {
+        return byOrder.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (updateLock) {
+            stopWatching();
+        }
+    }
+
+    /** Collects the JSON files under {@code root}, when not watching. */
+    private static List<Path> scan(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), MAX_DEPTH, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && OrderContributionReader.isPotentialOrderJson(file)) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    private void parseAll(List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, files.size()), r -> {
+            Thread t = new Thread(r, "OrderExpectation-Loader");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            int chunk = Math.max(1, (files.size() + workers * 4 - 1) / (workers * 4));
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < files.size(); from += chunk) {
+                List<Path> slice = files.subList(from, Math.min(files.size(), from + chunk));
+                futures.add(pool.submit(() -> slice.forEach(this::update)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading order JSON files");
+        } catch (ExecutionException ex) {
+            throw new IOException("Failed to load order JSON files: " + ex.getCause(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Re-reads {@code file}; returns the order IDs whose contributions changed. */
+    private Set<String> update(Path file) {
+        OrderContribution contribution = OrderContributionReader.readFromFile(file);
+        Set<String> changed = new LinkedHashSet<>(2);
+        OrderContribution previous = (contribution == null) ? byFile.remove(file) : byFile.put(file, contribution);
+        if (previous != null && (contribution == null || !previous.orderId().equals(contribution.orderId()))) {
+            removeFromOrder(previous.orderId(), file);
+            changed.add(previous.orderId());
+        }
+        if (contribution != null) {
+            byOrder.computeIfAbsent(contribution.orderId(), id -> new ConcurrentSkipListMap<>()).put(file, contribution);
+            if (!contribution.equals(previous)) {
+                changed.add(contribution.orderId());
+            }
+        }
+        return changed;
+    }
+
+    /** Drops every file at or under {@code path}; returns the order IDs that lost contributions. */
+    private Set<String> removeUnder(Path path) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<Path, OrderContribution> entry : new ArrayList<>(byFile.entrySet())) {
+            if (entry.getKey().startsWith(path) && byFile.remove(entry.getKey(), entry.getValue())) {
+                removeFromOrder(entry.getValue().orderId(), entry.getKey());
+                changed.add(entry.getValue().orderId());
+            }
+        }
+        return changed;
+    }
+
+    private void removeFromOrder(String orderId, Path file) {
+        byOrder.computeIfPresent(orderId, (id, files) -> {
+            files.remove(file);
+            return files.isEmpty() ? null : files;
+        });
+    }
+
+    /** Callbacks of one subscription, run on the watcher thread; those of a replaced one are ignored. */
+    private final class Events implements FolderWatcher.Listener {
+        /** JSON files met while subscribing, taken over by {@link #load}. */
+        private final List<Path> found = new ArrayList<>();
+        private final Set<String> changed = new LinkedHashSet<>();
+
+        @Override
+        public void fileFound(Path file) {
+            if (OrderContributionReader.isPotentialOrderJson(file)) {
+                found.add(file);
+            }
+        }
+
+        @Override
+        public void fileChanged(Path file) {
+            synchronized (updateLock) {
+                if (events == this && OrderContributionReader.isPotentialOrderJson(file)) {
+                    changed.addAll(update(file));
+                }
+            }
+        }
+
+        @Override
+        public void deleted(Path path, boolean folder) {
+            synchronized (updateLock) {
+                if (events == this) {
+                    changed.addAll(removeUnder(path));
+                }
+            }
+        }
+
+        /** Drops everything; the watcher reports every file again right after. */
+        @Override
+        public void overflowed() {
+            synchronized (updateLock) {
+                if (events == this) {
+                    changed.addAll(byOrder.keySet());
+                    byFile.clear();
+                    byOrder.clear();
+                }
+            }
+        }
+
+        @Override
+        public void batchDone() {
+            Set<String> orders;
+            synchronized (updateLock) {
+                if (events != this || changed.isEmpty()) {
+                    return;
+                }
+                orders = Set.copyOf(changed);
+                changed.clear();
+            }
+            if (listener != null) {
+                try {
+                    listener.accept(orders);
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Order expectation listener failed", ex);
+                }
+            }
+        }
+    }
+
+    private void stopWatching() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        events = null;
+    }
+}
@@ -0,0 +1,206 @@
+package com.osman.core.order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only journal kept next to an order quantities manifest.
+ * <p>
+ * Each record is one order summary serialised as a single JSON line; replaying the journal over the snapshot
+ * with last-record-wins semantics reproduces what a full rewrite would have produced. Appends and compaction hold
+ * an exclusive {@link FileChannel#lock() lock} on the journal and reads a shared one, so several application
+ * instances can share a batch folder. Compaction writes the merged snapshot to a temporary file, moves it over the
+ * manifest atomically, and only then truncates the journal, so a crash at any point leaves a readable manifest.
+ */
+final class OrderQuantitiesJournal {
+    static final String JOURNAL_SUFFIX = ".journal";
+    static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+
+    // FileChannel locks are held per JVM, so threads of the same process serialise on these first.
+    private static final Map<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private OrderQuantitiesJournal() {
+    }
+
+    record Contents(String snapshot, List<String> journal) {
+    }
+
+    static Path journalFor(Path manifest) {
+        return manifest.resolveSibling(manifest.getFileName() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Appends the given summaries as journal records. The snapshot is compacted right away when it does not yet
+     * exist, so the manifest is discoverable by name, and whenever the journal outgrows
+     * {@link #COMPACT_THRESHOLD_BYTES}.
+     */
+    static void append(Path manifest, Collection<OrderQuantitiesManifest.OrderSummary> summaries) throws IOException {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        StringBuilder records = new StringBuilder();
+        for (OrderQuantitiesManifest.OrderSummary summary : summaries) {
+            records.append(OrderQuantitiesManifest.toJson(summary)).append('\n');
+        }
+        withLock(manifest, channel -> {
+            long size = channel.size();
+            if (size > 0 && !endsWithNewline(channel, size)) {
+                // Terminate a record torn by an interrupted append so it cannot swallow the next one.
+                records.insert(0, '\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8));
+            channel.position(size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            if (!Files.exists(manifest) || channel.size() > COMPACT_THRESHOLD_BYTES) {
+                compactLocked(manifest, channel);
+            }
+            return null;
+        });
+    }
+
+    /** Folds the journal into the snapshot and empties it. */
+    static void compact(Path manifest) throws IOException {
+        if (!Files.exists(journalFor(manifest))) {
+            return;
+        }
+        withLock(manifest, channel -> {
+            compactLocked(manifest, channel);
+            return null;
+        });
+    }
+
+    /** Replaces the manifest with exactly the given summaries, discarding any journaled records. */
+    static void replace(Path manifest, Collection<OrderQuantitiesManifest.OrderSummary> summaries) throws IOException {
+        withLock(manifest, channel -> {
+            writeSnapshot(manifest, OrderQuantitiesManifest.toSnapshotJson(summaries));
+            channel.truncate(0);
+            channel.force(false);
+            return null;
+        });
+    }
+
+    /** Reads the snapshot and the journal records as one consistent pair. */
+    static Contents read(Path manifest) throws IOException {
+        Path journal = journalFor(manifest);
+        if (!Files.exists(journal)) {
+            // The journal is only ever truncated, never removed, so no compaction can be racing this read.
+            return new Contents(Files.readString(manifest), List.of());
+        }
+        return withSharedLock(manifest, channel -> {
+            String snapshot = Files.exists(manifest) ? Files.readString(manifest) : null;
+            List<String> records = readRecords(channel);
+            if (snapshot == null && records.isEmpty()) {
+                throw new NoSuchFileException(manifest.toString());
+            }
+            return new Contents(snapshot, records);
+        });
+    }
+
+    private interface LockedAction<T> {
+        T run(FileChannel journal) throws IOException;
+    }
+
+    private static <T> T withLock(Path manifest, LockedAction<T> action) throws IOException {
+        Path journal = journalFor(manifest).toAbsolutePath().normalize();
+        Path parent = journal.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return withLock(journal, false, action,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /** Runs {@code action} under a shared lock on a read-only channel, so a read-only batch folder stays readable. */
+    private static <T> T withSharedLock(Path manifest, LockedAction<T> action) throws IOException {
+        return withLock(journalFor(manifest).toAbsolutePath().normalize(), true, action, StandardOpenOption.READ);
+    }
+
+    private static <T> T withLock(Path journal, boolean shared, LockedAction<T> action, OpenOption... options)
+        throws IOException {
+        ReentrantLock localLock = LOCAL_LOCKS.computeIfAbsent(journal, key -> new ReentrantLock());
+        localLock.lock();
+        try (FileChannel channel = FileChannel.open(journal, options)) {
+            FileLock lock = channel.lock(0, Long.MAX_VALUE, shared);
+            try {
+                return action.run(channel);
+            } finally {
+                lock.release();
+            }
+        } finally {
+            localLock.unlock();
+        }
+    }
+
+    private static void compactLocked(Path manifest, FileChannel channel) throws IOException {
+        String snapshot = Files.exists(manifest) ? Files.readString(manifest) : null;
+        OrderQuantitiesManifest current =
+            OrderQuantitiesManifest.parse(manifest, new Contents(snapshot, readRecords(channel)));
+        writeSnapshot(manifest, OrderQuantitiesManifest.toSnapshotJson(current.orders()));
+        channel.truncate(0);
+        channel.force(false);
+    }
+
+    private static void writeSnapshot(Path manifest, String json) throws IOException {
+        Path parent = manifest.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, manifest.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            Files.move(temp, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static List<String> readRecords(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return List.of();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        List<String> records = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (!line.isBlank()) {
+                records.add(line);
+            }
+        }
+        return records;
+    }
+
+    private static boolean endsWithNewline(FileChannel channel, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, size - 1) == 1 && last.get(0) == '\n';
+    }
+}
@@ -5,11 +5,12 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,49 +47,107 @@ public final class OrderQuantitiesManifest {
         return ordersById.get(orderId);
     }
 
+    /**
+     * Loads the manifest snapshot and replays any journaled updates appended since it was last compacted
+     * (see {@link OrderQuantitiesJournal}). Later records for an order replace earlier ones.
+     */
     public static OrderQuantitiesManifest load(Path path) throws IOException {
+        return parse(path, OrderQuantitiesJournal.read(path));
+    }
+
+    static OrderQuantitiesManifest parse(Path path, OrderQuantitiesJournal.Contents contents) throws IOException {
+        Map<String, OrderSummary> ordersById = new LinkedHashMap<>();
         try {
-            String content = Files.readString(path);
-            JSONObject root = new JSONObject(content);
-            JSONArray ordersArray = root.optJSONArray("orders");
-            Map<String, OrderSummary> ordersById = new LinkedHashMap<>();
-            if (ordersArray != null) {
-                for (int i = 0; i < ordersArray.length(); i++) {
-                    JSONObject orderObj = ordersArray.optJSONObject(i);
-                    if (orderObj == null) {
-                        continue;
-                    }
-                    String orderId = orderObj.optString("orderId", "").trim();
-                    if (orderId.isEmpty()) {
-                        continue;
-                    }
-                    int orderQuantity = Math.max(orderObj.optInt("orderQuantity", 0), 0);
-                    JSONArray itemsArray = orderObj.optJSONArray("items");
-                    List<ItemSummary> items = new ArrayList<>();
-                    if (itemsArray != null) {
-                        for (int j = 0; j < itemsArray.length(); j++) {
-                            JSONObject itemObj = itemsArray.optJSONObject(j);
-                            if (itemObj == null) {
-                                continue;
-                            }
-                            String itemId = itemObj.optString("orderItemId", "").trim();
-                            if (itemId.isEmpty()) {
-                                continue;
-                            }
-                            int qty = Math.max(itemObj.optInt("itemQuantity", 0), 0);
-                            items.add(new ItemSummary(itemId, qty));
+            if (contents.snapshot() != null) {
+                JSONObject root = new JSONObject(contents.snapshot());
+                JSONArray ordersArray = root.optJSONArray("orders");
+                if (ordersArray != null) {
+                    for (int i = 0; i < ordersArray.length(); i++) {
+                        OrderSummary summary = fromJson(ordersArray.optJSONObject(i));
+                        if (summary != null) {
+                            ordersById.put(summary.orderId(), summary);
                         }
                     }
-                    if (orderQuantity <= 0) {
-                        orderQuantity = items.stream().mapToInt(ItemSummary::itemQuantity).sum();
-                    }
-                    ordersById.put(orderId, new OrderSummary(orderId, orderQuantity, List.copyOf(items)));
                 }
             }
-            return new OrderQuantitiesManifest(path, ordersById);
         } catch (JSONException ex) {
             throw new IOException("Failed to parse manifest " + path + ": " + ex.getMessage(), ex);
         }
+        for (String record : contents.journal()) {
+            OrderSummary summary;
+            try {
+                summary = fromJson(new JSONObject(record));
+            } catch (JSONException ex) {
+                // A torn final record from an interrupted append carries no usable data.
+                continue;
+            }
+            if (summary != null) {
+                ordersById.put(summary.orderId(), summary);
+            }
+        }
+        return new OrderQuantitiesManifest(path, ordersById);
+    }
+
+    static OrderSummary fromJson(JSONObject orderObj) {
+        if (orderObj == null) {
+            return null;
+        }
+        String orderId = orderObj.optString("orderId", "").trim();
+        if (orderId.isEmpty()) {
+            return null;
+        }
+        int orderQuantity = Math.max(orderObj.optInt("orderQuantity", 0), 0);
+        JSONArray itemsArray = orderObj.optJSONArray("items");
+        List<ItemSummary> items = new ArrayList<>();
+        if (itemsArray != null) {
+            for (int j = 0; j < itemsArray.length(); j++) {
+                JSONObject itemObj = itemsArray.optJSONObject(j);
+                if (itemObj == null) {
+                    continue;
+                }
+                String itemId = itemObj.optString("orderItemId", "").trim();
+                if (itemId.isEmpty()) {
+                    continue;
+                }
+                int qty = Math.max(itemObj.optInt("itemQuantity", 0), 0);
+                items.add(new ItemSummary(itemId, qty));
+            }
+        }
+        if (orderQuantity <= 0) {
+            orderQuantity = items.stream().mapToInt(ItemSummary::itemQuantity).sum();
+        }
+        return new OrderSummary(orderId, orderQuantity, List.copyOf(items));
+    }
+
+    static JSONObject toJson(OrderSummary summary) {
+        JSONObject orderObj = new JSONObject();
+        orderObj.put("orderId", summary.orderId());
+        orderObj.put("orderQuantity", summary.orderQuantity());
+        JSONArray itemsArray = new JSONArray();
+        List<ItemSummary> items = summary.items();
+        if (items != null) {
+            items.stream()
+                .sorted(Comparator.comparing(ItemSummary::orderItemId))
+                .forEach(item -> {
+                    JSONObject itemObj = new JSONObject();
+                    itemObj.put("orderItemId", item.orderItemId());
+                    itemObj.put("itemQuantity", item.itemQuantity());
+                    itemsArray.put(itemObj);
+                });
+        }
+        orderObj.put("items", itemsArray);
+        return orderObj;
+    }
+
+    static String toSnapshotJson(Collection<OrderSummary> summaries) {
+        JSONObject root = new JSONObject();
+        root.put("generatedAt", Instant.now().toString());
+        JSONArray ordersArray = new JSONArray();
+        summaries.stream()
+            .sorted(Comparator.comparing(OrderSummary::orderId))
+            .forEach(summary -> ordersArray.put(toJson(summary)));
+        root.put("orders", ordersArray);
+        return root.toString(2);
     }
 
     public record OrderSummary(String orderId, int orderQuantity, List<ItemSummary> items) {
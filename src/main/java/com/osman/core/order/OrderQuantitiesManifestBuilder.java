@@ -1,14 +1,8 @@
 package com.osman.core.order;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -36,6 +30,13 @@ public final class OrderQuantitiesManifestBuilder {
         }
     }
 
+    public void collectFromFolder(Path folder) {
+        List<OrderContribution> contributions = OrderContributionReader.readAllFromFolder(folder, DEFAULT_SCAN_DEPTH);
+        for (OrderContribution contribution : contributions) {
+            addContribution(contribution);
+        }
+    }
+
     public void addContribution(OrderContribution contribution) {
         if (contribution == null) {
             return;
@@ -55,11 +56,12 @@ public final class OrderQuantitiesManifestBuilder {
         return orders.isEmpty();
     }
 
+    /** Replaces the manifest at {@code target} with this builder's orders, atomically. */
     public void writeTo(Path target) throws IOException {
         if (isEmpty()) {
             return;
         }
-        writeManifest(target, toOrderSummaries());
+        OrderQuantitiesJournal.replace(target, toOrderSummaries());
     }
 
     public Collection<OrderQuantitiesManifest.OrderSummary> toOrderSummaries() {
@@ -69,21 +71,21 @@ public final class OrderQuantitiesManifestBuilder {
         return summaries;
     }
 
+    /**
+     * Records this builder's orders against the manifest at {@code target}, replacing earlier entries for the same
+     * orders. Only the new records are appended to the manifest's journal; the snapshot itself is rewritten when
+     * the journal is compacted.
+     */
     public void mergeInto(Path target) throws IOException {
         if (isEmpty()) {
             return;
         }
-        Map<String, OrderQuantitiesManifest.OrderSummary> merged = new LinkedHashMap<>();
-        if (Files.exists(target)) {
-            OrderQuantitiesManifest existing = OrderQuantitiesManifest.load(target);
-            for (OrderQuantitiesManifest.OrderSummary summary : existing.orders()) {
-                merged.put(summary.orderId(), summary);
-            }
-        }
-        for (OrderQuantitiesManifest.OrderSummary summary : toOrderSummaries()) {
-            merged.put(summary.orderId(), summary);
-        }
-        writeManifest(target, merged.values());
+        OrderQuantitiesJournal.append(target, toOrderSummaries());
+    }
+
+    /** Folds any journaled updates for the manifest at {@code target} into its snapshot. */
+    public static void compact(Path target) throws IOException {
+        OrderQuantitiesJournal.compact(target);
     }
 
     private OrderQuantitiesManifest.OrderSummary toSummary(String orderId, OrderAccumulator accumulator) {
@@ -94,48 +96,6 @@ public final class OrderQuantitiesManifestBuilder {
         return new OrderQuantitiesManifest.OrderSummary(orderId, accumulator.orderQuantity, List.copyOf(items));
     }
 
-    private void writeManifest(Path target, Collection<OrderQuantitiesManifest.OrderSummary> summaries) throws IOException {
-        JSONObject root = new JSONObject();
-        root.put("generatedAt", Instant.now().toString());
-        JSONArray ordersArray = new JSONArray();
-        summaries.stream()
-            .sorted(Comparator.comparing(OrderQuantitiesManifest.OrderSummary::orderId))
-            .forEach(summary -> ordersArray.put(toJson(summary)));
-        root.put("orders", ordersArray);
-
-        Path parent = target.getParent();
-        if (parent != null) {
-            Files.createDirectories(parent);
-        }
-        Files.writeString(
-            target,
-            root.toString(2),
-            StandardOpenOption.CREATE,
-            StandardOpenOption.TRUNCATE_EXISTING,
-            StandardOpenOption.WRITE
-        );
-    }
-
-    private JSONObject toJson(OrderQuantitiesManifest.OrderSummary summary) {
-        JSONObject orderObj = new JSONObject();
-        orderObj.put("orderId", summary.orderId());
-        orderObj.put("orderQuantity", summary.orderQuantity());
-        JSONArray itemsArray = new JSONArray();
-        List<OrderQuantitiesManifest.ItemSummary> items = summary.items();
-        if (items != null) {
-            items.stream()
-                .sorted(Comparator.comparing(OrderQuantitiesManifest.ItemSummary::orderItemId))
-                .forEach(item -> {
-                    JSONObject itemObj = new JSONObject();
-                    itemObj.put("orderItemId", item.orderItemId());
-                    itemObj.put("itemQuantity", item.itemQuantity());
-                    itemsArray.put(itemObj);
-                });
-        }
-        orderObj.put("items", itemsArray);
-        return orderObj;
-    }
-
     private String normalize(String value) {
         if (value == null) {
             return null;
@@ -0,0 +1,156 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PDFBox input reading a file through a {@link FileChannel} in buffered pages.
+ * <p>
+ * Unlike {@link org.apache.pdfbox.io.RandomAccessBufferedFileInputStream}, which holds a {@link java.io.RandomAccessFile},
+ * the channel is opened the NIO way, which on Windows lets other processes delete, rename or overwrite the file while
+ * it is open. A document parsed from it therefore never stops a carrier from replacing a label PDF. Nothing is
+ * mapped, so closing the document really lets go of the file.
+ */
+final class FileChannelRead implements RandomAccessRead {
+    private static final int PAGE_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long length;
+    private final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+    /** File offset of the first byte in {@link #page}. */
+    private long pageStart;
+    private int pageLength;
+    private long position;
+    private boolean closed;
+
+    FileChannelRead(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.length = channel.size();
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        int b = page.get((int) (position - pageStart)) & 0xFF;
+        position++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int offset = (int) (position - pageStart);
+        int count = Math.min(len, pageLength - offset);
+        page.get(offset, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (position < 0) {
+            throw new IOException("Invalid position " + position);
+        }
+        this.position = Math.min(position, length);
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return page.get((int) (position - pageStart)) & 0xFF;
+    }
+
+    @Override
+    public void rewind(int bytes) {
+        position -= bytes;
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int done = 0;
+        while (done < length) {
+            int count = read(bytes, done, length - done);
+            if (count < 0) {
+                throw new EOFException("Premature end of file reached");
+            }
+            done += count;
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean isEOF() {
+        return position >= length;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, length - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    /** Makes {@link #page} hold the byte at {@link #position}; {@code false} at the end of the file. */
+    private boolean fill() throws IOException {
+        if (position >= pageStart && position < pageStart + pageLength) {
+            return true;
+        }
+        if (position >= length) {
+            return false;
+        }
+        page.clear();
+        pageStart = position;
+        while (page.hasRemaining()) {
+            if (channel.read(page, pageStart + page.position()) < 0) {
+                break;
+            }
+        }
+        pageLength = page.position();
+        return pageLength > 0;
+    }
+}
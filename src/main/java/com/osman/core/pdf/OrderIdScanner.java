@@ -0,0 +1,211 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.contentstream.operator.text.BeginText;
+import org.apache.pdfbox.contentstream.operator.text.EndText;
+import org.apache.pdfbox.contentstream.operator.text.MoveText;
+import org.apache.pdfbox.contentstream.operator.text.MoveTextSetLeading;
+import org.apache.pdfbox.contentstream.operator.text.NextLine;
+import org.apache.pdfbox.contentstream.operator.text.SetFontAndSize;
+import org.apache.pdfbox.contentstream.operator.text.SetTextLeading;
+import org.apache.pdfbox.contentstream.operator.text.ShowText;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextAdjusted;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLine;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLineAndSpace;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds Amazon order IDs on a page without text layout.
+ * <p>
+ * Only the operators needed to track the current font and to show text are registered. Shown strings are
+ * decoded straight to Unicode and fed, in content-stream order, through a small automaton equivalent to
+ * {@code \b\d{3}[-]\d{7}[-]\d{7}\b} (with the same dash variants the regex accepts). Text positioning operators
+ * and wide {@code TJ} gaps act as word breaks. Nothing is sorted or measured, so pages whose IDs are only
+ * assembled by layout (pieces drawn out of order) come back empty and need the layout path instead.
+ * <p>
+ * Instances are not thread-safe; use one per thread.
+ */
+final class OrderIdScanner extends PDFStreamEngine {
+    private static final int[] GROUP_DIGITS = {3, 7, 7};
+    private static final int ID_LENGTH = 19;
+    private static final float GAP_THRESHOLD = 0.25f;
+
+    private final char[] candidate = new char[ID_LENGTH];
+    private final char[] lastDigits = new char[3];
+    private final StringBuilder lowerText = new StringBuilder();
+    private List<String> orderIds = new ArrayList<>();
+    private int group;
+    private int digits;
+    private int length;
+    private int run;
+    private boolean runAtBoundary;
+    private boolean previousWord;
+
+    OrderIdScanner() {
+        addOperator(new BeginText());
+        addOperator(new EndText());
+        addOperator(new SetFontAndSize());
+        addOperator(new SetTextLeading());
+        addOperator(new MoveText());
+        addOperator(new MoveTextSetLeading());
+        addOperator(new NextLine());
+        addOperator(new SetMatrix());
+        addOperator(new ShowText());
+        addOperator(new ShowTextAdjusted());
+        addOperator(new ShowTextLine());
+        addOperator(new ShowTextLineAndSpace());
+        addOperator(new Save());
+        addOperator(new Restore());
+        addOperator(new Concatenate());
+        addOperator(new DrawObject());
+    }
+
+    /** Scans one page; the returned IDs keep the dash characters as drawn. */
+    ShippingLabelExtractor.PageScan scan(PDPage page) throws IOException {
+        orderIds = new ArrayList<>();
+        lowerText.setLength(0);
+        reset();
+        run = 0;
+        previousWord = false;
+        processPage(page);
+        accept(' ');
+        return new ShippingLabelExtractor.PageScan(
+            ShippingLabelExtractor.containsIndexKeyword(lowerText),
+            List.copyOf(orderIds)
+        );
+    }
+
+    @Override
+    protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+        switch (operator.getName()) {
+            case "BT", "ET", "Td", "TD", "T*", "Tm", "'", "\"" -> accept(' ');
+            default -> {
+            }
+        }
+        super.processOperator(operator, operands);
+    }
+
+    @Override
+    protected void applyTextAdjustment(float tx, float ty) throws IOException {
+        float fontSize = getGraphicsState().getTextState().getFontSize();
+        if (fontSize != 0 && tx / fontSize > GAP_THRESHOLD) {
+            accept(' ');
+        }
+        super.applyTextAdjustment(tx, ty);
+    }
+
+    @Override
+    protected void showText(byte[] string) throws IOException {
+        PDFont font = getGraphicsState().getTextState().getFont();
+        if (font == null) {
+            return;
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(string);
+        while (in.available() > 0) {
+            int before = in.available();
+            int code = font.readCode(in);
+            if (in.available() == before) {
+                break;
+            }
+            String unicode = font.toUnicode(code);
+            if (unicode == null) {
+                continue;
+            }
+            for (int i = 0; i < unicode.length(); i++) {
+                accept(unicode.charAt(i));
+            }
+        }
+    }
+
+    private void accept(char c) {
+        appendLower(c);
+        if (c >= '0' && c <= '9') {
+            acceptDigit(c);
+            return;
+        }
+        boolean word = Character.isLetterOrDigit(c) || c == '_';
+        if (group == 2 && digits == GROUP_DIGITS[2] && !word) {
+            orderIds.add(new String(candidate, 0, length));
+            reset();
+        } else if (group >= 0 && group < 2 && digits == GROUP_DIGITS[group] && isDash(c)) {
+            candidate[length++] = c;
+            group++;
+            digits = 0;
+            run = 0;
+            previousWord = false;
+            return;
+        } else if (run == 3 && runAtBoundary && isDash(c)) {
+            // The last three digits were a complete word of their own: start over from them.
+            System.arraycopy(lastDigits, 0, candidate, 0, 3);
+            candidate[3] = c;
+            length = 4;
+            group = 1;
+            digits = 0;
+            run = 0;
+            previousWord = false;
+            return;
+        } else {
+            reset();
+        }
+        run = 0;
+        previousWord = word;
+    }
+
+    private void acceptDigit(char c) {
+        if (run == 0) {
+            runAtBoundary = !previousWord;
+        }
+        if (run < 3) {
+            lastDigits[run] = c;
+        }
+        run++;
+        if (group >= 0) {
+            if (digits < GROUP_DIGITS[group]) {
+                candidate[length++] = c;
+                digits++;
+            } else {
+                reset();
+            }
+        } else if (run == 1 && runAtBoundary) {
+            group = 0;
+            digits = 1;
+            candidate[0] = c;
+            length = 1;
+        }
+        previousWord = true;
+    }
+
+    private void reset() {
+        group = -1;
+        digits = 0;
+        length = 0;
+    }
+
+    private void appendLower(char c) {
+        if (Character.isWhitespace(c)) {
+            int last = lowerText.length() - 1;
+            if (last >= 0 && lowerText.charAt(last) != ' ') {
+                lowerText.append(' ');
+            }
+            return;
+        }
+        lowerText.append(Character.toLowerCase(c));
+    }
+
+    private static boolean isDash(char c) {
+        return c == '-' || (c >= '\u2010' && c <= '\u2015') || c == '\u2212';
+    }
+}
@@ -0,0 +1,44 @@
+package com.osman.core.pdf;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable order ID to packing slip location index built by {@link PackingSlipIndexer}.
+ *
+ * @param byOrder       where each order's slip pages are; the first file (in scan order) wins when several list it
+ * @param files         every slip PDF that was scanned
+ * @param distinctFiles number of distinct file contents among {@code files}
+ * @param failures      files that could not be read
+ */
+public record PackingSlipIndex(Map<String, SlipLocation> byOrder,
+                               List<Path> files,
+                               int distinctFiles,
+                               List<ShippingLabelExtractor.ScanFailure> failures) {
+    public static final PackingSlipIndex EMPTY = new PackingSlipIndex(Map.of(), List.of(), 0, List.of());
+
+    public PackingSlipIndex {
+        byOrder = Collections.unmodifiableMap(new LinkedHashMap<>(byOrder));
+        files = List.copyOf(files);
+        failures = List.copyOf(failures);
+    }
+
+    public SlipLocation find(String orderId) {
+        return orderId == null ? null : byOrder.get(orderId);
+    }
+
+    public int size() {
+        return byOrder.size();
+    }
+
+    public record SlipLocation(Path pdf, List<Integer> pages) {
+        public SlipLocation {
+            Objects.requireNonNull(pdf, "pdf");
+            pages = List.copyOf(pages);
+        }
+    }
+}
@@ -5,63 +5,113 @@ import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Utility routines for scanning Amazon packing slip PDFs and mapping order IDs to their pages.
+ * <p>
+ * A page opening with "Ship to" starts a new order; following pages without a header belong to it. This is the
+ * per-PDF extraction; {@link PackingSlipIndexer} runs it over whole folders of slips.
  */
 public final class PackingSlipIndexService {
+
     private static final Pattern ORDER_ID_RE = Pattern.compile("\\b(\\d{3}-\\d{7}-\\d{7})\\b");
+    private static final Pattern SHIP_TO_RE = Pattern.compile("(?i)\\bship\\s*to\\b");
 
     private PackingSlipIndexService() {
     }
 
     public static Map<String, List<Integer>> indexOrderToPages(File packingSlipPdf) throws IOException {
+        return index(packingSlipPdf.toPath()).orderPages();
+    }
+
+    public static PdfIndex index(Path packingSlipPdf) throws IOException {
         Map<String, List<Integer>> out = new LinkedHashMap<>();
-        try (PDDocument doc = PDDocument.load(packingSlipPdf)) {
+        int pageCount;
+        try (PDDocument doc = PdfOpenPolicy.shared().load(packingSlipPdf)) {
             PDFTextStripper stripper = new PDFTextStripper();
+            pageCount = doc.getNumberOfPages();
+
             String currentOrderId = null;
+            List<Integer> pendingPages = new ArrayList<>();
 
             for (int p = 1; p <= doc.getNumberOfPages(); p++) {
                 stripper.setStartPage(p);
                 stripper.setEndPage(p);
                 String pageText = stripper.getText(doc);
-                if (pageText == null || pageText.trim().length() < 200) {
+
+                String trimmed = (pageText == null) ? "" : pageText.trim();
+                if (trimmed.isEmpty()) continue;
+
+                String lower = trimmed.toLowerCase(Locale.ROOT);
+                boolean hasShipTo = SHIP_TO_RE.matcher(lower).find();
+                boolean looksLikeHeader = hasShipTo || lower.contains("order id") || ORDER_ID_RE.matcher(trimmed).find();
+                if (trimmed.length() < 120 && !looksLikeHeader) continue;
+
+                String headerOrderId = findOrderIdInPageHeader(pageText);
+                String anyOrderId = (headerOrderId != null) ? headerOrderId : extractFirstOrderId(pageText);
+
+                if (hasShipTo) {
+                    flushPending(out, currentOrderId, pendingPages);
+                    currentOrderId = (headerOrderId != null) ? headerOrderId : anyOrderId;
+                    pendingPages = new ArrayList<>();
+                    pendingPages.add(p);
+                    if (currentOrderId == null && anyOrderId != null) {
+                        currentOrderId = anyOrderId;
+                        flushPending(out, currentOrderId, pendingPages);
+                        pendingPages = new ArrayList<>();
+                    }
                     continue;
                 }
 
-                String foundOrderId = findOrderIdInPageHeader(pageText);
-                if (foundOrderId != null) {
-                    currentOrderId = foundOrderId;
+                if (currentOrderId == null && anyOrderId != null) {
+                    currentOrderId = anyOrderId;
+                    pendingPages.add(p);
+                    flushPending(out, currentOrderId, pendingPages);
+                    pendingPages = new ArrayList<>();
+                    continue;
                 }
 
-                if (currentOrderId != null) {
-                    out.computeIfAbsent(currentOrderId, k -> new ArrayList<>()).add(p);
-                }
+                pendingPages.add(p);
             }
+
+            flushPending(out, currentOrderId, pendingPages);
         }
-        return out;
+        return new PdfIndex(pageCount, PdfIndex.NO_INDEX_PAGE, out);
+    }
+
+    private static void flushPending(Map<String, List<Integer>> out, String orderId, List<Integer> pendingPages) {
+        if (orderId == null || pendingPages == null || pendingPages.isEmpty()) return;
+        out.computeIfAbsent(orderId, k -> new ArrayList<>()).addAll(pendingPages);
     }
 
     private static String findOrderIdInPageHeader(String text) {
-        if (text == null || text.isEmpty()) {
-            return null;
-        }
+        if (text == null || text.isEmpty()) return null;
         String[] lines = text.split("\\r?\\n");
-        for (int i = 0; i < Math.min(lines.length, 20); i++) {
+        String fallbackId = null;
+        int maxLines = Math.min(lines.length, 40);
+        for (int i = 0; i < maxLines; i++) {
             String line = lines[i];
-            if (line.toLowerCase().contains("order id:")) {
-                Matcher matcher = ORDER_ID_RE.matcher(line);
-                if (matcher.find()) {
-                    return matcher.group(1);
-                }
+            Matcher m = ORDER_ID_RE.matcher(line);
+            if (line.toLowerCase(Locale.ROOT).contains("order id")) {
+                if (m.find()) return m.group(1);
+            } else if (fallbackId == null && m.find()) {
+                fallbackId = m.group(1);
             }
         }
-        return null;
+        return fallbackId;
+    }
+
+    private static String extractFirstOrderId(String text) {
+        if (text == null || text.isEmpty()) return null;
+        Matcher matcher = ORDER_ID_RE.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
     }
 }
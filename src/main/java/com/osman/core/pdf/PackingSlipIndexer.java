@@ -0,0 +1,161 @@
+package com.osman.core.pdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Session-wide packing slip indexing: every slip PDF is extracted at most once per instance, however many times
+ * folders are rescanned and however many copies of the same file exist.
+ * <p>
+ * Files are identified by a SHA-256 of their content, so identical copies share one extraction. Each
+ * {@link #index(Collection)} call hashes and extracts on a bounded pool, goes through the {@link PdfIndexCache}
+ * when one is given, and returns an immutable {@link PackingSlipIndex}. Content hashes are remembered by path,
+ * size and modification time so unchanged files are not re-read on rescans.
+ */
+public final class PackingSlipIndexer {
+    private static final int DEFAULT_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final PdfIndexCache cache;
+    private final int workers;
+    private final PdfIndexCache.Indexer extractor;
+    private final ConcurrentHashMap<String, CompletableFuture<PdfIndex>> byContent = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, ContentHash> hashes = new ConcurrentHashMap<>();
+
+    public PackingSlipIndexer(PdfIndexCache cache) {
+        this(cache, DEFAULT_WORKERS, PackingSlipIndexService::index);
+    }
+
+    PackingSlipIndexer(PdfIndexCache cache, int workers, PdfIndexCache.Indexer extractor) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.cache = cache;
+        this.workers = workers;
+        this.extractor = extractor;
+    }
+
+    /** Indexes {@code slipPdfs}; unreadable files are reported in {@link PackingSlipIndex#failures()}. */
+    public PackingSlipIndex index(Collection<Path> slipPdfs) throws IOException {
+        List<Path> files = new ArrayList<>(new LinkedHashSet<>(slipPdfs));
+        if (files.isEmpty()) {
+            return PackingSlipIndex.EMPTY;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, files.size()), r -> {
+            Thread t = new Thread(r, "SlipIndex-Worker");
+            t.setDaemon(true);
+            return t;
+        });
+        Map<Path, Future<Outcome>> futures = new LinkedHashMap<>();
+        try {
+            for (Path file : files) {
+                futures.put(file, pool.submit(() -> indexOne(file)));
+            }
+            Map<String, PackingSlipIndex.SlipLocation> byOrder = new LinkedHashMap<>();
+            List<ShippingLabelExtractor.ScanFailure> failures = new ArrayList<>();
+            Set<String> contents = new HashSet<>();
+            for (Map.Entry<Path, Future<Outcome>> entry : futures.entrySet()) {
+                Path file = entry.getKey();
+                Outcome outcome = entry.getValue().get();
+                if (outcome.failure() != null) {
+                    failures.add(new ShippingLabelExtractor.ScanFailure(file, outcome.failure()));
+                    continue;
+                }
+                contents.add(outcome.contentHash());
+                for (Map.Entry<String, List<Integer>> order : outcome.index().orderPages().entrySet()) {
+                    byOrder.putIfAbsent(order.getKey(), new PackingSlipIndex.SlipLocation(file, order.getValue()));
+                }
+            }
+            return new PackingSlipIndex(byOrder, files, contents.size(), failures);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while indexing packing slips");
+        } catch (ExecutionException ex) {
+            throw new IOException("Failed to index packing slips: " + ex.getCause(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Outcome indexOne(Path file) throws InterruptedException {
+        String hash;
+        try {
+            hash = contentHash(file);
+        } catch (IOException ex) {
+            return Outcome.failed(String.valueOf(ex.getMessage()));
+        }
+        CompletableFuture<PdfIndex> mine = new CompletableFuture<>();
+        CompletableFuture<PdfIndex> existing = byContent.putIfAbsent(hash, mine);
+        if (existing == null) {
+            try {
+                mine.complete(cache != null
+                    ? cache.get(file, PdfIndexCache.Kind.PACKING_SLIPS, extractor)
+                    : extractor.index(file));
+            } catch (IOException | RuntimeException ex) {
+                // Forget the failure so a later scan can retry, e.g. once a half-copied file is complete.
+                byContent.remove(hash, mine);
+                mine.completeExceptionally(ex);
+            }
+            existing = mine;
+        }
+        try {
+            return new Outcome(hash, existing.get(), null);
+        } catch (ExecutionException ex) {
+            return Outcome.failed(String.valueOf(ex.getCause().getMessage()));
+        }
+    }
+
+    private String contentHash(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        ContentHash known = hashes.get(file);
+        if (known != null && known.size() == attributes.size() && known.modifiedMillis() == modified) {
+            return known.sha256();
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        hashes.put(file, new ContentHash(attributes.size(), modified, sha256));
+        return sha256;
+    }
+
+    private record ContentHash(long size, long modifiedMillis, String sha256) {
+    }
+
+    private record Outcome(String contentHash, PdfIndex index, String failure) {
+        static Outcome failed(String message) {
+            return new Outcome(null, null, message);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.osman.core.pdf;
+
+import com.osman.core.fs.FolderWatcher;
+import com.osman.logging.AppLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reports PDFs that appear or are replaced under a set of folders once they are fully written, and PDFs that are
+ * deleted.
+ * <p>
+ * The folders are followed through a {@link FolderWatcher} subscription, which covers folders created later. A
+ * created or modified PDF is only reported after its size and modification time have stayed the same for the
+ * configured quiet period, so files still being copied in are not read half-written. Ready and removed files are
+ * batched and handed to the listener on a thread of its own; the listener may take its time, since events keep
+ * queuing in the meantime. A removed path may be a whole folder. If the event queue overflows, every PDF under the
+ * roots is reported again. The listener also hears of each PDF the moment it starts changing or is deleted, so open
+ * handles can be closed before they get in the writer's way.
+ */
+public final class PdfArrivalWatcher implements Closeable {
+    private static final Logger LOGGER = AppLogger.get();
+
+    @FunctionalInterface
+    public interface Listener {
+        void pdfsChanged(List<Path> ready, List<Path> removed);
+
+        /**
+         * Called as soon as PDFs start changing or are deleted, well before they are reported ready, so whoever holds
+         * them open can let go and not stand in the way of the writer.
+         */
+        default void pdfsChanging(List<Path> pdfs) {
+        }
+    }
+
+    private final long stableNanos;
+    private final Listener listener;
+    private final FolderWatcher folderWatcher;
+    private final Object lock = new Object();
+    private FolderWatcher.Subscription subscription;
+    private Events events;
+    private ExecutorService reporter;
+    private final Map<Path, Candidate> pending = new LinkedHashMap<>();
+    private final Set<Path> removed = new LinkedHashSet<>();
+    private final List<Path> changing = new ArrayList<>();
+
+    public PdfArrivalWatcher(Duration stableFor, Listener listener) {
+        this(stableFor, listener, FolderWatcher.shared());
+    }
+
+    PdfArrivalWatcher(Duration stableFor, Listener listener, FolderWatcher folderWatcher) {
+        this.stableNanos = stableFor.toNanos();
+        this.listener = listener;
+        this.folderWatcher = folderWatcher;
+    }
+
+    /** Starts watching {@code folders} (and everything below them), replacing any earlier folders. */
+    public void watch(Collection<Path> folders) throws IOException {
+        synchronized (lock) {
+            stop();
+            if (folders.isEmpty()) {
+                return;
+            }
+            if (reporter == null) {
+                reporter = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "PdfArrival-Watcher");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+            }
+            Events current = new Events();
+            events = current;
+            subscription = folderWatcher.subscribe(folders, Integer.MAX_VALUE, current);
+        }
+    }
+
+    /** PDFs seen changing that are not yet reported. */
+    public int pending() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            stop();
+            if (reporter != null) {
+                reporter.shutdownNow();
+                reporter = null;
+            }
+        }
+    }
+
+    /** Callbacks of one subscription; those of a replaced one are ignored. */
+    private final class Events implements FolderWatcher.Listener {
+        /** Set while an overflow re-reports every file, which should not count as every PDF changing. */
+        private boolean rescanning;
+
+        @Override
+        public void fileChanged(Path file) {
+            synchronized (lock) {
+                if (events == this && isPdf(file) && track(file) && !rescanning) {
+                    changing.add(file);
+                }
+            }
+        }
+
+        @Override
+        public void deleted(Path path, boolean folder) {
+            synchronized (lock) {
+                if (events != this) {
+                    return;
+                }
+                pending.keySet().removeIf(p -> p.startsWith(path));
+                if (isPdf(path) || folder) {
+                    removed.add(path);
+                }
+                if (isPdf(path)) {
+                    changing.add(path);
+                }
+            }
+        }
+
+        @Override
+        public void overflowed() {
+            synchronized (lock) {
+                rescanning = true;
+            }
+        }
+
+        @Override
+        public void batchDone() {
+            List<Path> ready = new ArrayList<>();
+            List<Path> gone;
+            List<Path> started;
+            ExecutorService target;
+            synchronized (lock) {
+                if (events != this) {
+                    return;
+                }
+                rescanning = false;
+                collectStable(ready);
+                gone = List.copyOf(removed);
+                started = List.copyOf(changing);
+                removed.clear();
+                changing.clear();
+                target = reporter;
+            }
+            if (listener != null && target != null && (!ready.isEmpty() || !gone.isEmpty() || !started.isEmpty())) {
+                target.execute(() -> report(ready, gone, started));
+            }
+        }
+    }
+
+    private void report(List<Path> ready, List<Path> gone, List<Path> started) {
+        try {
+            if (!started.isEmpty()) {
+                listener.pdfsChanging(started);
+            }
+            if (!ready.isEmpty() || !gone.isEmpty()) {
+                listener.pdfsChanged(List.copyOf(ready), gone);
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "PDF arrival listener failed", ex);
+        }
+    }
+
+    /** Moves candidates whose size and modification time have held still long enough into {@code ready}. */
+    private void collectStable(List<Path> ready) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Candidate>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Candidate> entry = it.next();
+            Candidate seen = entry.getValue();
+            Candidate current = Candidate.of(entry.getKey(), now);
+            if (current == null) {
+                it.remove();
+            } else if (current.size() != seen.size() || current.modifiedMillis() != seen.modifiedMillis()) {
+                entry.setValue(current);
+            } else if (current.size() > 0 && now - seen.since() >= stableNanos) {
+                it.remove();
+                ready.add(entry.getKey());
+            }
+        }
+    }
+
+    /** Starts or restarts the quiet period of {@code pdf}; {@code true} if it was not pending yet. */
+    private boolean track(Path pdf) {
+        Candidate candidate = Candidate.of(pdf, System.nanoTime());
+        return candidate != null && pending.put(pdf, candidate) == null;
+    }
+
+    private void stop() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        events = null;
+        pending.clear();
+        removed.clear();
+        changing.clear();
+    }
+
+    private static boolean isPdf(Path path) {
+        Path name = path.getFileName();
+        return name != null && name.toString().toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+
+    private record Candidate(long size, long modifiedMillis, long since) {
+        static Candidate of(Path pdf, long now) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(pdf, BasicFileAttributes.class);
+                return attrs.isRegularFile()
+                    ? new Candidate(attrs.size(), attrs.lastModifiedTime().toMillis(), now)
+                    : null;
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.osman.core.pdf;
+
+import com.osman.logging.AppLogger;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps recently used PDFs open so rendering consecutive pages of the same file does not parse it again.
+ * <p>
+ * Documents are keyed by canonical path and opened through {@link PdfOpenPolicy}. A {@link PDDocument} is not
+ * thread-safe, so {@link #withDocument(File, DocumentTask)} runs tasks on the same document one at a time; different
+ * documents are used in parallel. At most {@link #maxOpen()} documents stay open: beyond that, and once a document
+ * has been idle for {@link #idleTimeout()}, the least recently used idle ones are closed. A document whose size or
+ * modification time changed is reopened.
+ * <p>
+ * The shared pool reads {@code -DpdfPoolMaxOpen} (default 4) and {@code -DpdfPoolIdleSeconds} (default 120).
+ */
+public final class PdfDocumentPool implements Closeable {
+    private static final Logger LOGGER = AppLogger.get();
+    private static final int DEFAULT_MAX_OPEN = 4;
+    private static final long DEFAULT_IDLE_SECONDS = 120;
+
+    private static volatile PdfDocumentPool shared;
+
+    private final PdfOpenPolicy policy;
+    private final int maxOpen;
+    private final Duration idleTimeout;
+    /** Access-ordered, so iteration starts at the least recently used handle. Guarded by {@code this}. */
+    private final LinkedHashMap<Path, Handle> handles = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong opens = new AtomicLong();
+
+    @FunctionalInterface
+    public interface DocumentTask<T> {
+        T apply(PDDocument document) throws IOException;
+    }
+
+    public PdfDocumentPool(PdfOpenPolicy policy, int maxOpen, Duration idleTimeout) {
+        if (maxOpen < 1) {
+            throw new IllegalArgumentException("maxOpen must be positive");
+        }
+        this.policy = policy;
+        this.maxOpen = maxOpen;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public static PdfDocumentPool shared() {
+        PdfDocumentPool pool = shared;
+        if (pool == null) {
+            synchronized (PdfDocumentPool.class) {
+                pool = shared;
+                if (pool == null) {
+                    pool = new PdfDocumentPool(
+                        PdfOpenPolicy.shared(),
+                        Math.max(1, Integer.getInteger("pdfPoolMaxOpen", DEFAULT_MAX_OPEN)),
+                        Duration.ofSeconds(Long.getLong("pdfPoolIdleSeconds", DEFAULT_IDLE_SECONDS))
+                    );
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    public int maxOpen() {
+        return maxOpen;
+    }
+
+    public Duration idleTimeout() {
+        return idleTimeout;
+    }
+
+    /** Runs {@code task} on the pooled document for {@code pdf}, opening it first if needed. */
+    public <T> T withDocument(File pdf, DocumentTask<T> task) throws IOException {
+        File canonical = pdf.getCanonicalFile();
+        Handle handle = acquire(canonical.toPath(), canonical.length(), canonical.lastModified());
+        try {
+            handle.lock.lock();
+            try {
+                if (handle.document == null) {
+                    try {
+                        handle.document = policy.load(canonical);
+                        opens.incrementAndGet();
+                    } catch (IOException | RuntimeException ex) {
+                        discard(handle);
+                        throw ex;
+                    }
+                }
+                return task.apply(handle.document);
+            } finally {
+                handle.lock.unlock();
+            }
+        } finally {
+            release(handle);
+        }
+    }
+
+    /** Closes the pooled document for {@code pdf}, or marks it for closing once its current task finishes. */
+    public void invalidate(File pdf) throws IOException {
+        Path key = pdf.getCanonicalFile().toPath();
+        Handle closable = null;
+        synchronized (this) {
+            Handle handle = handles.get(key);
+            if (handle != null) {
+                handles.remove(key);
+                handle.retired = true;
+                if (handle.borrowers == 0) {
+                    closable = handle;
+                }
+            }
+        }
+        if (closable != null) {
+            closeQuietly(closable);
+        }
+    }
+
+    /** Number of documents currently open. */
+    public synchronized int openCount() {
+        int count = 0;
+        for (Handle handle : handles.values()) {
+            if (handle.document != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Number of times a document was opened, for diagnostics. */
+    long opens() {
+        return opens.get();
+    }
+
+    /** Closes every idle document; documents in use are closed when their task finishes. */
+    @Override
+    public void close() {
+        List<Handle> closable = new ArrayList<>();
+        synchronized (this) {
+            for (Handle handle : handles.values()) {
+                handle.retired = true;
+                if (handle.borrowers == 0) {
+                    closable.add(handle);
+                }
+            }
+            handles.clear();
+        }
+        closable.forEach(PdfDocumentPool::closeQuietly);
+    }
+
+    private Handle acquire(Path key, long size, long modified) {
+        List<Handle> closable = new ArrayList<>();
+        Handle handle;
+        synchronized (this) {
+            handle = handles.get(key);
+            if (handle != null && (handle.size != size || handle.modified != modified)) {
+                handles.remove(key);
+                handle.retired = true;
+                if (handle.borrowers == 0) {
+                    closable.add(handle);
+                }
+                handle = null;
+            }
+            if (handle == null) {
+                handle = new Handle(key, size, modified);
+                handles.put(key, handle);
+            }
+            handle.borrowers++;
+            handle.lastUsedNanos = System.nanoTime();
+            collectEvictable(closable);
+        }
+        closable.forEach(PdfDocumentPool::closeQuietly);
+        return handle;
+    }
+
+    private void release(Handle handle) {
+        List<Handle> closable = new ArrayList<>();
+        synchronized (this) {
+            handle.borrowers--;
+            handle.lastUsedNanos = System.nanoTime();
+            if (handle.borrowers == 0 && handle.retired) {
+                closable.add(handle);
+            }
+            collectEvictable(closable);
+        }
+        closable.forEach(PdfDocumentPool::closeQuietly);
+    }
+
+    private synchronized void discard(Handle handle) {
+        handles.remove(handle.key, handle);
+        handle.retired = true;
+    }
+
+    /** Removes idle handles that are over capacity or past the idle timeout, least recently used first. */
+    private void collectEvictable(List<Handle> into) {
+        long now = System.nanoTime();
+        int excess = handles.size() - maxOpen;
+        Iterator<Handle> it = handles.values().iterator();
+        while (it.hasNext()) {
+            Handle handle = it.next();
+            if (handle.borrowers > 0) {
+                continue;
+            }
+            if (excess > 0 || now - handle.lastUsedNanos >= idleTimeout.toNanos()) {
+                it.remove();
+                handle.retired = true;
+                into.add(handle);
+                excess--;
+            }
+        }
+    }
+
+    private static void closeQuietly(Handle handle) {
+        // No borrowers and out of the map, so nobody else can reach the document any more.
+        PDDocument document = handle.document;
+        handle.document = null;
+        if (document == null) {
+            return;
+        }
+        try {
+            document.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Failed to close pooled PDF " + handle.key, ex);
+        }
+    }
+
+    private static final class Handle {
+        final Path key;
+        final long size;
+        final long modified;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile PDDocument document;
+        int borrowers;
+        long lastUsedNanos;
+        boolean retired;
+
+        Handle(Path key, long size, long modified) {
+            this.key = key;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
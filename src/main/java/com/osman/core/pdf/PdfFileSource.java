@@ -0,0 +1,148 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A PDF file that several threads each parse their own {@link PDDocument} from.
+ * <p>
+ * Files the {@link PdfOpenPolicy} keeps in main memory anyway are read onto the heap once and every {@link #open()}
+ * parses an independent view of those bytes. Larger files are read through a {@link FileChannelRead} per document.
+ * Nothing is memory-mapped: on Windows a live mapping stops the file from being deleted or replaced until the
+ * buffer happens to be garbage collected, which locked carriers out of label PDFs the indexer had already finished.
+ */
+final class PdfFileSource {
+    private final Path path;
+    private final long size;
+    /** The file's bytes, or {@code null} when each document reads the file itself. */
+    private final ByteBuffer bytes;
+
+    private PdfFileSource(Path path, long size, ByteBuffer bytes) {
+        this.path = path;
+        this.size = size;
+        this.bytes = bytes;
+    }
+
+    static PdfFileSource of(Path pdf) throws IOException {
+        long size = Files.size(pdf);
+        if (size <= Math.min(Integer.MAX_VALUE, PdfOpenPolicy.shared().mixedThresholdBytes())) {
+            byte[] content = Files.readAllBytes(pdf);
+            return new PdfFileSource(pdf, content.length, ByteBuffer.wrap(content).asReadOnlyBuffer());
+        }
+        return new PdfFileSource(pdf, size, null);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    PDDocument open() throws IOException {
+        String name = String.valueOf(path.getFileName());
+        if (bytes != null) {
+            return PdfOpenPolicy.shared().parse(new BufferRead(bytes.duplicate()), size, name);
+        }
+        FileChannelRead source = new FileChannelRead(path);
+        try {
+            return PdfOpenPolicy.shared().parse(source, source.length(), name);
+        } catch (IOException | RuntimeException ex) {
+            source.close();
+            throw ex;
+        }
+    }
+
+    private static final class BufferRead implements RandomAccessRead {
+        private final ByteBuffer buffer;
+        private boolean closed;
+
+        private BufferRead(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b) {
+            return read(b, 0, b.length);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long getPosition() {
+            return buffer.position();
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+            if (position < 0) {
+                throw new IOException("Invalid position " + position);
+            }
+            buffer.position((int) Math.min(position, buffer.limit()));
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public int peek() {
+            return buffer.hasRemaining() ? buffer.get(buffer.position()) & 0xFF : -1;
+        }
+
+        @Override
+        public void rewind(int bytes) {
+            buffer.position(buffer.position() - bytes);
+        }
+
+        @Override
+        public byte[] readFully(int length) throws IOException {
+            if (buffer.remaining() < length) {
+                throw new EOFException("Premature end of buffer reached");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        @Override
+        public boolean isEOF() {
+            return !buffer.hasRemaining();
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.osman.core.pdf;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What indexing one label or packing slip PDF produced.
+ *
+ * @param pageCount      number of pages in the PDF
+ * @param indexStartPage first page of the trailing order list ("Successful Label Purchase"), or {@code -1} when
+ *                       the mapping was read from the pages themselves
+ * @param orderPages     order ID to 1-based page numbers, in discovery order
+ */
+public record PdfIndex(int pageCount, int indexStartPage, Map<String, List<Integer>> orderPages) {
+    public static final int NO_INDEX_PAGE = -1;
+
+    public PdfIndex {
+        Objects.requireNonNull(orderPages, "orderPages");
+    }
+}
@@ -0,0 +1,356 @@
+package com.osman.core.pdf;
+
+import com.osman.logging.AppLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Disk cache of {@link PdfIndex} results so unchanged label and packing slip PDFs are not text-extracted again.
+ * <p>
+ * Each PDF gets one entry file per {@link Kind}, named after a hash of its absolute path. An entry records the
+ * PDF's size, modification time and a hash of sampled blocks (head, tail and a few evenly spaced blocks in between);
+ * it is only used when all three still match the file on disk, otherwise the PDF is indexed again and the entry
+ * rewritten. Label entries also record how much of the {@link RasterOrderIdReader} fallback was available (off,
+ * barcodes only, or barcodes and OCR), since pages without text index differently under each; an entry written
+ * under another setting is a miss. Entries are written to a temp file and moved into place, and carry a checksum, so
+ * a torn or foreign file is simply treated as a miss. Cache I/O failures never fail the lookup itself.
+ */
+public final class PdfIndexCache {
+    private static final Logger LOGGER = AppLogger.get();
+    private static final String DIR_PROPERTY = "pdfIndexCacheDir";
+    private static final int MAGIC = 0x4F504958; // "OPIX"
+    /** Bump when extraction changes in a way that makes older entries wrong. */
+    private static final int VERSION = 4;
+    private static final int EDGE_SAMPLE_BYTES = 64 * 1024;
+    private static final int INNER_SAMPLE_BYTES = 4 * 1024;
+    private static final int INNER_SAMPLES = 8;
+
+    private static volatile PdfIndexCache shared;
+
+    private final Path directory;
+    private final IntSupplier labelFallback;
+
+    public enum Kind {
+        LABELS("labels"),
+        PACKING_SLIPS("slips");
+
+        private final String suffix;
+
+        Kind(String suffix) {
+            this.suffix = suffix;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Indexer {
+        PdfIndex index(Path pdf) throws IOException;
+    }
+
+    public PdfIndexCache(Path directory) {
+        this(directory, PdfIndexCache::rasterFallbackLevel);
+    }
+
+    /** @param labelFallback the raster fallback level label entries are stored and looked up under */
+    PdfIndexCache(Path directory, IntSupplier labelFallback) {
+        this.directory = directory;
+        this.labelFallback = labelFallback;
+    }
+
+    /** Cache under {@code ~/.osman/pdf-index-cache}, or the directory named by {@code -DpdfIndexCacheDir}. */
+    public static PdfIndexCache shared() {
+        PdfIndexCache cache = shared;
+        if (cache == null) {
+            synchronized (PdfIndexCache.class) {
+                cache = shared;
+                if (cache == null) {
+                    String override = System.getProperty(DIR_PROPERTY);
+                    Path dir = override != null && !override.isBlank()
+                        ? Paths.get(override)
+                        : Paths.get(System.getProperty("user.home"), ".osman", "pdf-index-cache");
+                    cache = new PdfIndexCache(dir);
+                    shared = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /** Label index for {@code pdf}, from the cache when the file is unchanged. */
+    public PdfIndex labels(Path pdf) throws IOException {
+        return get(pdf, Kind.LABELS, ShippingLabelExtractor::index);
+    }
+
+    /** Like {@link #labels(Path)}, indexing a miss on at most {@code maxWorkers} threads. */
+    public PdfIndex labels(Path pdf, int maxWorkers) throws IOException {
+        return get(pdf, Kind.LABELS, path -> ShippingLabelExtractor.index(path, maxWorkers));
+    }
+
+    /** Returns the cached index for {@code pdf}, running {@code indexer} and storing its result on a miss. */
+    public PdfIndex get(Path pdf, Kind kind, Indexer indexer) throws IOException {
+        if (pdf.getFileSystem() != FileSystems.getDefault()) {
+            // Paths inside mounted archives are not unique across archives; those are never cached.
+            return indexer.index(pdf);
+        }
+        Path absolute = pdf.toAbsolutePath().normalize();
+        Fingerprint fingerprint = fingerprintOrNull(absolute);
+        if (fingerprint != null) {
+            PdfIndex cached = read(absolute, kind, fingerprint);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        PdfIndex fresh = indexer.index(pdf);
+        if (fingerprint != null) {
+            // Only store the result if the file did not change while it was being indexed.
+            Fingerprint after = fingerprintOrNull(absolute);
+            if (fingerprint.equals(after)) {
+                write(absolute, kind, fingerprint, fresh);
+            }
+        }
+        return fresh;
+    }
+
+    /** Returns the cached index for {@code pdf} if there is a valid entry, without indexing on a miss. */
+    public PdfIndex peek(Path pdf, Kind kind) {
+        if (pdf.getFileSystem() != FileSystems.getDefault()) {
+            return null;
+        }
+        Path absolute = pdf.toAbsolutePath().normalize();
+        Fingerprint fingerprint = fingerprintOrNull(absolute);
+        return fingerprint != null ? read(absolute, kind, fingerprint) : null;
+    }
+
+    /** 0 when the raster fallback is off, 1 when it can only read barcodes, 2 when it can also run OCR. */
+    static int rasterFallbackLevel() {
+        if (!RasterOrderIdReader.enabled()) {
+            return 0;
+        }
+        return RasterOrderIdReader.ocrAvailable() ? 2 : 1;
+    }
+
+    private int fallbackLevel(Kind kind) {
+        return kind == Kind.LABELS ? labelFallback.getAsInt() : 0;
+    }
+
+    Path entryPath(Path absolutePdf, Kind kind) {
+        byte[] digest = sha1(absolutePdf.toString().getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(HexFormat.of().formatHex(digest) + "-" + kind.suffix + ".idx");
+    }
+
+    private PdfIndex read(Path absolutePdf, Kind kind, Fingerprint fingerprint) {
+        Path entry = entryPath(absolutePdf, kind);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entry);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Unable to read PDF index cache entry " + entry, ex);
+            return null;
+        }
+        try {
+            return decode(bytes, absolutePdf, fingerprint, fallbackLevel(kind));
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.FINE, "Discarding unreadable PDF index cache entry " + entry, ex);
+            return null;
+        }
+    }
+
+    private void write(Path absolutePdf, Kind kind, Fingerprint fingerprint, PdfIndex index) {
+        Path entry = entryPath(absolutePdf, kind);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            // Taken after indexing, so a result indexed while OCR broke down is not filed under OCR.
+            byte[] bytes = encode(absolutePdf, fingerprint, fallbackLevel(kind), index);
+            temp = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Unable to write PDF index cache entry " + entry, ex);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(Path absolutePdf, Fingerprint fingerprint, int fallback, PdfIndex index)
+        throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(absolutePdf.toString());
+        out.writeLong(fingerprint.size());
+        out.writeLong(fingerprint.modifiedMillis());
+        out.write(fingerprint.sampleHash());
+        out.writeByte(fallback);
+        out.writeInt(index.pageCount());
+        out.writeInt(index.indexStartPage());
+        out.writeInt(index.orderPages().size());
+        for (Map.Entry<String, List<Integer>> entry : index.orderPages().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (int page : entry.getValue()) {
+                out.writeInt(page);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static PdfIndex decode(byte[] bytes, Path absolutePdf, Fingerprint fingerprint, int fallback)
+        throws IOException {
+        if (bytes.length < Long.BYTES) {
+            return null;
+        }
+        int bodyLength = bytes.length - Long.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bodyLength);
+        if (crc.getValue() != ByteBuffer.wrap(bytes, bodyLength, Long.BYTES).getLong()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bodyLength));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        if (!absolutePdf.toString().equals(in.readUTF())
+            || in.readLong() != fingerprint.size()
+            || in.readLong() != fingerprint.modifiedMillis()) {
+            return null;
+        }
+        byte[] sampleHash = new byte[fingerprint.sampleHash().length];
+        in.readFully(sampleHash);
+        if (!Arrays.equals(sampleHash, fingerprint.sampleHash()) || in.readByte() != fallback) {
+            return null;
+        }
+        int pageCount = in.readInt();
+        int indexStartPage = in.readInt();
+        int orders = in.readInt();
+        Map<String, List<Integer>> orderPages = new LinkedHashMap<>();
+        for (int i = 0; i < orders; i++) {
+            String orderId = in.readUTF();
+            int count = in.readInt();
+            List<Integer> pages = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                pages.add(in.readInt());
+            }
+            orderPages.put(orderId, pages);
+        }
+        return new PdfIndex(pageCount, indexStartPage, orderPages);
+    }
+
+    private static Fingerprint fingerprintOrNull(Path pdf) {
+        try {
+            return Fingerprint.of(pdf);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static byte[] sha1(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(bytes);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-1 not available", ex);
+        }
+    }
+
+    private record Fingerprint(long size, long modifiedMillis, byte[] sampleHash) {
+
+        static Fingerprint of(Path pdf) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(pdf, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                throw new IOException("Not a file: " + pdf);
+            }
+            long size = attributes.size();
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-1 not available", ex);
+            }
+            try (FileChannel channel = FileChannel.open(pdf, StandardOpenOption.READ)) {
+                if (size <= 2L * EDGE_SAMPLE_BYTES + INNER_SAMPLES * INNER_SAMPLE_BYTES) {
+                    sample(channel, 0, (int) size, digest);
+                } else {
+                    sample(channel, 0, EDGE_SAMPLE_BYTES, digest);
+                    long innerStart = EDGE_SAMPLE_BYTES;
+                    long innerSpan = size - 2L * EDGE_SAMPLE_BYTES - INNER_SAMPLE_BYTES;
+                    for (int i = 0; i < INNER_SAMPLES; i++) {
+                        sample(channel, innerStart + innerSpan * i / (INNER_SAMPLES - 1), INNER_SAMPLE_BYTES, digest);
+                    }
+                    sample(channel, size - EDGE_SAMPLE_BYTES, EDGE_SAMPLE_BYTES, digest);
+                }
+            }
+            return new Fingerprint(size, attributes.lastModifiedTime().toMillis(), digest.digest());
+        }
+
+        private static void sample(FileChannel channel, long position, int length, MessageDigest digest) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("File shrank while fingerprinting");
+                }
+            }
+            buffer.flip();
+            digest.update(buffer);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Fingerprint that
+                && size == that.size
+                && modifiedMillis == that.modifiedMillis
+                && Arrays.equals(sampleHash, that.sampleHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Arrays.hashCode(sampleHash);
+        }
+    }
+}
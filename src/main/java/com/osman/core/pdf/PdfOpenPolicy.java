@@ -0,0 +1,323 @@
+package com.osman.core.pdf;
+
+import com.osman.logging.AppLogger;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccess;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The one way PDFs are opened for indexing, rendering and printing.
+ * <p>
+ * PDFBox copies every stream of a parsed document into a scratch buffer, which by default lives on the heap, so a
+ * 300 MB carrier PDF costs roughly 300 MB of heap for as long as it is open. Files up to
+ * {@link #mixedThresholdBytes()} keep that default. Larger files get a mixed setting: up to
+ * {@link #mainMemoryCapBytes()} of scratch on the heap, the rest in temp files under {@link #scratchDirectory()}.
+ * <p>
+ * The shared policy reads {@code -DpdfMixedThresholdMb} (default 64), {@code -DpdfMemoryCapMb} (default 16) and
+ * {@code -DpdfScratchDir} (default {@code osman-pdf-scratch} in the system temp directory). Scratch use of every open
+ * document is metered; see {@link #memoryOf(PDDocument)}. Peak use is logged at {@code FINE} when a document closes.
+ */
+public final class PdfOpenPolicy {
+    private static final Logger LOGGER = AppLogger.get();
+    private static final long MB = 1024L * 1024L;
+    private static final long DEFAULT_MIXED_THRESHOLD_MB = 64;
+    private static final long DEFAULT_MEMORY_CAP_MB = 16;
+
+    private static volatile PdfOpenPolicy shared;
+
+    private final long mixedThresholdBytes;
+    private final long mainMemoryCapBytes;
+    private final Path scratchDirectory;
+    private final Map<PDDocument, MeteredScratchFile> openDocuments = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public PdfOpenPolicy(long mixedThresholdBytes, long mainMemoryCapBytes, Path scratchDirectory) {
+        if (mixedThresholdBytes < 0 || mainMemoryCapBytes < 0) {
+            throw new IllegalArgumentException("Thresholds must not be negative");
+        }
+        this.mixedThresholdBytes = mixedThresholdBytes;
+        this.mainMemoryCapBytes = mainMemoryCapBytes;
+        this.scratchDirectory = scratchDirectory;
+    }
+
+    public static PdfOpenPolicy shared() {
+        PdfOpenPolicy policy = shared;
+        if (policy == null) {
+            synchronized (PdfOpenPolicy.class) {
+                policy = shared;
+                if (policy == null) {
+                    String scratch = System.getProperty("pdfScratchDir");
+                    policy = new PdfOpenPolicy(
+                        Long.getLong("pdfMixedThresholdMb", DEFAULT_MIXED_THRESHOLD_MB) * MB,
+                        Long.getLong("pdfMemoryCapMb", DEFAULT_MEMORY_CAP_MB) * MB,
+                        scratch != null && !scratch.isBlank()
+                            ? Paths.get(scratch)
+                            : Paths.get(System.getProperty("java.io.tmpdir"), "osman-pdf-scratch")
+                    );
+                    shared = policy;
+                }
+            }
+        }
+        return policy;
+    }
+
+    public long mixedThresholdBytes() {
+        return mixedThresholdBytes;
+    }
+
+    public long mainMemoryCapBytes() {
+        return mainMemoryCapBytes;
+    }
+
+    public Path scratchDirectory() {
+        return scratchDirectory;
+    }
+
+    /** Scratch setting for a PDF of {@code fileSize} bytes. */
+    public MemoryUsageSetting memoryUsageFor(long fileSize) {
+        if (fileSize <= mixedThresholdBytes) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+        return MemoryUsageSetting.setupMixed(mainMemoryCapBytes).setTempDir(scratchDirectory.toFile());
+    }
+
+    /**
+     * Opens {@code pdf} through a {@link FileChannelRead}, so the open document (often one held by
+     * {@link PdfDocumentPool}) never stops another process from replacing or deleting the file on Windows.
+     */
+    public PDDocument load(File pdf) throws IOException {
+        FileChannelRead source = new FileChannelRead(pdf.toPath());
+        try {
+            return parse(source, source.length(), pdf.getName());
+        } catch (IOException | RuntimeException ex) {
+            source.close();
+            throw ex;
+        }
+    }
+
+    public PDDocument load(Path pdf) throws IOException {
+        if (pdf.getFileSystem() == FileSystems.getDefault()) {
+            return load(pdf.toFile());
+        }
+        // No java.io.File behind archive entries: the bytes are copied into scratch, so the setting matters twice.
+        long size = Files.size(pdf);
+        MeteredScratchFile scratch = newScratch(size, String.valueOf(pdf.getFileName()));
+        try (InputStream in = Files.newInputStream(pdf)) {
+            RandomAccessRead source = scratch.createBuffer(in);
+            return parse(source, scratch);
+        } catch (IOException | RuntimeException ex) {
+            scratch.close();
+            throw ex;
+        }
+    }
+
+    /** Parses {@code source}; the returned document closes {@code source} when it is closed. */
+    PDDocument parse(RandomAccessRead source, long fileSize, String name) throws IOException {
+        MeteredScratchFile scratch = newScratch(fileSize, name);
+        try {
+            return parse(source, scratch);
+        } catch (IOException | RuntimeException ex) {
+            scratch.close();
+            throw ex;
+        }
+    }
+
+    /** Scratch use of {@code document} if it was opened through this policy and is still open, otherwise null. */
+    public DocumentMemory memoryOf(PDDocument document) {
+        MeteredScratchFile scratch = openDocuments.get(document);
+        return scratch != null && !document.getDocument().isClosed() ? scratch.snapshot() : null;
+    }
+
+    private PDDocument parse(RandomAccessRead source, MeteredScratchFile scratch) throws IOException {
+        PDFParser parser = new PDFParser(source, scratch);
+        parser.parse();
+        PDDocument document = parser.getPDDocument();
+        openDocuments.put(document, scratch);
+        return document;
+    }
+
+    private MeteredScratchFile newScratch(long fileSize, String name) throws IOException {
+        MemoryUsageSetting setting = memoryUsageFor(fileSize);
+        if (setting.useTempFile()) {
+            Files.createDirectories(scratchDirectory);
+        }
+        return new MeteredScratchFile(setting, name);
+    }
+
+    /**
+     * Scratch bytes held by one open document. {@code heapBytes} is an estimate: mixed scratch fills its heap
+     * allowance before spilling, so everything above the cap is on disk.
+     */
+    public record DocumentMemory(String name, boolean mixed, long scratchBytes, long peakScratchBytes, long heapBytes) {
+    }
+
+    /** Counts the bytes held by the buffers PDFBox allocates from this scratch file. */
+    private static final class MeteredScratchFile extends ScratchFile {
+        private final String name;
+        private final boolean mixed;
+        private final long heapCap;
+        private final AtomicLong current = new AtomicLong();
+        private final AtomicLong peak = new AtomicLong();
+
+        private MeteredScratchFile(MemoryUsageSetting setting, String name) throws IOException {
+            super(setting);
+            this.name = name;
+            this.mixed = setting.useTempFile();
+            this.heapCap = setting.isMainMemoryRestricted() ? setting.getMaxMainMemoryBytes() : Long.MAX_VALUE;
+        }
+
+        @Override
+        public RandomAccess createBuffer() throws IOException {
+            return new MeteredBuffer(super.createBuffer(), this);
+        }
+
+        @Override
+        public RandomAccess createBuffer(InputStream input) throws IOException {
+            return new MeteredBuffer(super.createBuffer(input), this);
+        }
+
+        private void adjust(long delta) {
+            if (delta != 0) {
+                peak.accumulateAndGet(current.addAndGet(delta), Math::max);
+            }
+        }
+
+        DocumentMemory snapshot() {
+            long bytes = current.get();
+            return new DocumentMemory(name, mixed, bytes, peak.get(), Math.min(bytes, heapCap));
+        }
+
+        @Override
+        public void close() throws IOException {
+            DocumentMemory memory = snapshot();
+            LOGGER.log(Level.FINE, () -> String.format("Closed PDF %s: peak scratch %.1f MB (%s)",
+                memory.name(), memory.peakScratchBytes() / (double) MB, memory.mixed() ? "mixed" : "heap only"));
+            super.close();
+        }
+    }
+
+    private static final class MeteredBuffer implements RandomAccess {
+        private final RandomAccess delegate;
+        private final MeteredScratchFile owner;
+        private long accounted;
+
+        private MeteredBuffer(RandomAccess delegate, MeteredScratchFile owner) throws IOException {
+            this.delegate = delegate;
+            this.owner = owner;
+            sync();
+        }
+
+        private void sync() throws IOException {
+            long length = delegate.isClosed() ? 0 : delegate.length();
+            owner.adjust(length - accounted);
+            accounted = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            sync();
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            delegate.write(b);
+            sync();
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int length) throws IOException {
+            delegate.write(b, offset, length);
+            sync();
+        }
+
+        @Override
+        public void clear() throws IOException {
+            delegate.clear();
+            sync();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b) throws IOException {
+            return delegate.read(b);
+        }
+
+        @Override
+        public int read(byte[] b, int offset, int length) throws IOException {
+            return delegate.read(b, offset, length);
+        }
+
+        @Override
+        public long getPosition() throws IOException {
+            return delegate.getPosition();
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+            delegate.seek(position);
+        }
+
+        @Override
+        public long length() throws IOException {
+            return delegate.length();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return delegate.isClosed();
+        }
+
+        @Override
+        public int peek() throws IOException {
+            return delegate.peek();
+        }
+
+        @Override
+        public void rewind(int bytes) throws IOException {
+            delegate.rewind(bytes);
+        }
+
+        @Override
+        public byte[] readFully(int length) throws IOException {
+            return delegate.readFully(length);
+        }
+
+        @Override
+        public boolean isEOF() throws IOException {
+            return delegate.isEOF();
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            owner.adjust(-accounted);
+            accounted = 0;
+            delegate.close();
+        }
+    }
+}
@@ -9,20 +9,32 @@ import java.io.File;
 import java.io.IOException;
 
 /**
- * Thin wrapper around PDFBox rendering so UIs can request page previews safely.
+ * Thin wrapper around PDFBox rendering so UIs can request page previews safely. Files are opened through
+ * {@link PdfDocumentPool}, so rendering further pages of the same PDF does not parse it again.
  */
 public final class PdfPageRenderer {
     private PdfPageRenderer() {
     }
 
     public static BufferedImage renderPage(File pdfFile, int pageIndex, float dpi) throws IOException {
-        try (PDDocument doc = PDDocument.load(pdfFile)) {
-            return renderPage(doc, pageIndex, dpi);
-        }
+        return PdfDocumentPool.shared().withDocument(pdfFile, doc -> renderPage(doc, pageIndex, dpi));
     }
 
     public static BufferedImage renderPage(PDDocument document, int pageIndex, float dpi) throws IOException {
+        return renderPage(document, pageIndex, dpi, ImageType.RGB);
+    }
+
+    /**
+     * Renders straight into a raster of {@code type}; {@link ImageType#GRAY} or {@link ImageType#BINARY} when color
+     * is not needed saves the RGB raster and a conversion pass.
+     */
+    public static BufferedImage renderPage(File pdfFile, int pageIndex, float dpi, ImageType type) throws IOException {
+        return PdfDocumentPool.shared().withDocument(pdfFile, doc -> renderPage(doc, pageIndex, dpi, type));
+    }
+
+    public static BufferedImage renderPage(PDDocument document, int pageIndex, float dpi, ImageType type)
+        throws IOException {
         PDFRenderer renderer = new PDFRenderer(document);
-        return renderer.renderImageWithDPI(pageIndex, dpi, ImageType.RGB);
+        return renderer.renderImageWithDPI(pageIndex, dpi, type);
     }
 }
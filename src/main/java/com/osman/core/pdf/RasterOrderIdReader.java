@@ -0,0 +1,254 @@
+package com.osman.core.pdf;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.osman.logging.AppLogger;
+import net.sourceforge.tess4j.ITesseract;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Last resort for label pages whose text layer yields no order ID, typically image-only pages from some carriers.
+ * <p>
+ * Pages are rasterized in grayscale at {@link #DPI} on the calling thread (a {@link PDDocument} cannot be shared),
+ * then decoded on a small bounded pool: first every barcode ZXing finds on the page, then, if none carries an
+ * order ID, Tesseract OCR. OCR needs {@code eng.traineddata} in a {@code tessdata} folder (the one next to the
+ * application, {@code -DtessdataDir}, or {@code TESSDATA_PREFIX}) and the Tesseract native library; without them
+ * only barcodes are read. {@code -DlabelRasterFallback=false} turns the fallback off.
+ */
+final class RasterOrderIdReader {
+    static final int DPI = 150;
+
+    private static final Logger LOGGER = AppLogger.get();
+    private static final String DASHES = ShippingLabelExtractor.DASH_CHAR_CLASS;
+    private static final Pattern ORDER_ID =
+        Pattern.compile("(?<![0-9A-Za-z])(\\d{3})[" + DASHES + "](\\d{7})[" + DASHES + "](\\d{7})(?![0-9A-Za-z])");
+    /** OCR tends to put stray spaces around dashes. */
+    private static final Pattern OCR_ORDER_ID =
+        Pattern.compile("(?<!\\d)(\\d{3}) ?[" + DASHES + "] ?(\\d{7}) ?[" + DASHES + "] ?(\\d{7})(?!\\d)");
+    private static final int WORKERS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors()));
+    private static final ExecutorService POOL = createPool();
+    private static final Map<DecodeHintType, Object> HINTS = createHints();
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("labelRasterFallback"));
+    private static final Path TESSDATA = locateTessdata();
+    private static final ThreadLocal<ITesseract> TESSERACT = ThreadLocal.withInitial(RasterOrderIdReader::newTesseract);
+    private static volatile boolean ocrBroken;
+
+    private static final AtomicLong PAGES_TRIED = new AtomicLong();
+    private static final AtomicLong BARCODE_HITS = new AtomicLong();
+    private static final AtomicLong OCR_HITS = new AtomicLong();
+
+    enum Source { BARCODE, OCR }
+
+    record PageResult(Source source, List<String> orderIds) {
+    }
+
+    private RasterOrderIdReader() {
+    }
+
+    static boolean enabled() {
+        return ENABLED;
+    }
+
+    static boolean ocrAvailable() {
+        return TESSDATA != null && !ocrBroken;
+    }
+
+    static ShippingLabelExtractor.FallbackStats stats() {
+        return new ShippingLabelExtractor.FallbackStats(PAGES_TRIED.get(), BARCODE_HITS.get(), OCR_HITS.get());
+    }
+
+    /** Reads {@code pages} (1-based) of {@code doc}; pages where nothing was found are absent from the result. */
+    static Map<Integer, PageResult> readPages(PDDocument doc, List<Integer> pages, String name) throws IOException {
+        PDFRenderer renderer = new PDFRenderer(doc);
+        // Caps the number of rendered pages waiting for a worker.
+        Semaphore inFlight = new Semaphore(WORKERS * 2);
+        Map<Integer, Future<PageResult>> futures = new LinkedHashMap<>();
+        try {
+            for (int page : pages) {
+                inFlight.acquire();
+                BufferedImage image;
+                try {
+                    image = renderer.renderImageWithDPI(page - 1, DPI, ImageType.GRAY);
+                } catch (IOException | RuntimeException ex) {
+                    inFlight.release();
+                    throw ex;
+                }
+                futures.put(page, POOL.submit(() -> {
+                    try {
+                        return read(image);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            Map<Integer, PageResult> results = new LinkedHashMap<>();
+            int barcodes = 0;
+            int ocr = 0;
+            for (Map.Entry<Integer, Future<PageResult>> entry : futures.entrySet()) {
+                PageResult result = entry.getValue().get();
+                if (result != null) {
+                    results.put(entry.getKey(), result);
+                    if (result.source() == Source.BARCODE) {
+                        barcodes++;
+                    } else {
+                        ocr++;
+                    }
+                }
+            }
+            PAGES_TRIED.addAndGet(pages.size());
+            BARCODE_HITS.addAndGet(barcodes);
+            OCR_HITS.addAndGet(ocr);
+            LOGGER.info(String.format("Image fallback for %s: %d of %d page(s) without text resolved (%d barcode, %d OCR%s).",
+                name, results.size(), pages.size(), barcodes, ocr, ocrAvailable() ? "" : ", OCR unavailable"));
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading label images of " + name);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to read label images of " + name + ": " + cause, cause);
+        } finally {
+            futures.values().forEach(future -> future.cancel(true));
+        }
+    }
+
+    static PageResult read(BufferedImage image) {
+        List<String> ids = decodeBarcodes(image);
+        if (!ids.isEmpty()) {
+            return new PageResult(Source.BARCODE, ids);
+        }
+        ids = ocr(image);
+        return ids.isEmpty() ? null : new PageResult(Source.OCR, ids);
+    }
+
+    private static List<String> decodeBarcodes(BufferedImage image) {
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        Result[] results;
+        try {
+            results = new GenericMultipleBarcodeReader(new MultiFormatReader()).decodeMultiple(bitmap, HINTS);
+        } catch (NotFoundException ex) {
+            return List.of();
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (Result result : results) {
+            collect(ORDER_ID, result.getText(), ids);
+        }
+        return List.copyOf(ids);
+    }
+
+    private static List<String> ocr(BufferedImage image) {
+        if (!ocrAvailable()) {
+            return List.of();
+        }
+        String text;
+        try {
+            text = TESSERACT.get().doOCR(image);
+        } catch (TesseractException ex) {
+            LOGGER.log(Level.FINE, "OCR failed on label page", ex);
+            return List.of();
+        } catch (LinkageError ex) {
+            ocrBroken = true;
+            LOGGER.warning("Tesseract native library unavailable; label OCR disabled: " + ex.getMessage());
+            return List.of();
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        collect(OCR_ORDER_ID, text, ids);
+        return List.copyOf(ids);
+    }
+
+    private static void collect(Pattern pattern, String text, Set<String> into) {
+        if (text == null) {
+            return;
+        }
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            into.add(matcher.group(1) + "-" + matcher.group(2) + "-" + matcher.group(3));
+        }
+    }
+
+    private static ITesseract newTesseract() {
+        Tesseract tesseract = new Tesseract();
+        tesseract.setDatapath(TESSDATA.toString());
+        tesseract.setLanguage("eng");
+        // Sparse text: labels are scattered blocks, not paragraphs.
+        tesseract.setPageSegMode(11);
+        tesseract.setVariable("user_defined_dpi", String.valueOf(DPI));
+        return tesseract;
+    }
+
+    private static Path locateTessdata() {
+        List<Path> candidates = new ArrayList<>();
+        String property = System.getProperty("tessdataDir");
+        if (property != null && !property.isBlank()) {
+            candidates.add(Paths.get(property));
+        }
+        String prefix = System.getenv("TESSDATA_PREFIX");
+        if (prefix != null && !prefix.isBlank()) {
+            candidates.add(Paths.get(prefix));
+            candidates.add(Paths.get(prefix, "tessdata"));
+        }
+        candidates.add(Paths.get("tessdata"));
+        for (Path candidate : candidates) {
+            if (Files.isRegularFile(candidate.resolve("eng.traineddata"))) {
+                return candidate.toAbsolutePath();
+            }
+        }
+        return null;
+    }
+
+    private static Map<DecodeHintType, Object> createHints() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        return hints;
+    }
+
+    private static ExecutorService createPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "LabelRaster-Worker");
+                t.setDaemon(true);
+                return t;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
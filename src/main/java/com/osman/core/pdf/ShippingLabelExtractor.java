@@ -4,16 +4,24 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.regex.Matcher;
@@ -24,7 +32,7 @@ import java.util.regex.Pattern;
  */
 public final class ShippingLabelExtractor {
 
-    private static final String DASH_CHAR_CLASS = "\\-\\u2010\\u2011\\u2012\\u2013\\u2014\\u2015\\u2212";
+    static final String DASH_CHAR_CLASS = "\\-\\u2010\\u2011\\u2012\\u2013\\u2014\\u2015\\u2212";
     private static final Pattern ORDER_ID_PATTERN =
         Pattern.compile("\\b\\d{3}[" + DASH_CHAR_CLASS + "]\\d{7}[" + DASH_CHAR_CLASS + "]\\d{7}\\b");
     private static final Pattern PACKING_SLIP_PATTERN =
@@ -35,116 +43,256 @@ public final class ShippingLabelExtractor {
         "successful label purchase",
         "list of orders"
     };
+    private static final int MAX_WORKERS = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final int MIN_PAGES_PER_WORKER = 32;
+    private static final int INDEX_PROBE_PAGES = 4;
+    private static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r, "LabelIndex-Worker");
+        t.setDaemon(true);
+        return t;
+    };
 
     private ShippingLabelExtractor() {
     }
 
     public static Map<String, List<Integer>> extractOrderIdToPages(Path pdf) throws IOException {
+        return index(pdf).orderPages();
+    }
+
+    /** Indexes a label PDF; packing slips are recognised by name and come back empty. */
+    public static PdfIndex index(Path pdf) throws IOException {
+        return index(pdf, MAX_WORKERS);
+    }
+
+    /**
+     * Like {@link #index(Path)}, parsing a large PDF on at most {@code maxWorkers} threads, the calling one included.
+     * Callers indexing several files at once pass their share of the processors.
+     */
+    public static PdfIndex index(Path pdf, int maxWorkers) throws IOException {
         if (pdf == null || !Files.isRegularFile(pdf)) {
             throw new IOException("Labels PDF not found: " + pdf);
         }
         if (isPackingSlipFile(pdf)) {
-            return new LinkedHashMap<>();
+            return new PdfIndex(0, PdfIndex.NO_INDEX_PAGE, new LinkedHashMap<>());
         }
 
-        try (PDDocument document = PDDocument.load(pdf.toFile())) {
-            return extractOrderIdToPages(document);
+        if (pdf.getFileSystem() != FileSystems.getDefault()) {
+            // PDFs read from a mounted order archive have no backing java.io.File.
+            try (PDDocument document = PdfOpenPolicy.shared().load(pdf)) {
+                return index(document, String.valueOf(pdf.getFileName()));
+            }
         }
+        return index(PdfFileSource.of(pdf), Math.max(1, Math.min(MAX_WORKERS, maxWorkers)));
     }
 
-    public static Map<String, List<Integer>> extractOrderIdToPages(PDDocument doc) throws IOException {
-        Map<String, List<Integer>> map = new LinkedHashMap<>();
-        int pageCount = doc.getNumberOfPages();
-        if (pageCount <= 0) {
-            return map;
-        }
+    static Map<String, List<Integer>> extractOrderIdToPages(PdfFileSource source, int maxWorkers) throws IOException {
+        return index(source, maxWorkers).orderPages();
+    }
 
-        PDFTextStripper stripper = new PDFTextStripper();
-        stripper.setSortByPosition(true);
+    /**
+     * Indexes a PDF with up to {@code maxWorkers} threads, each parsing its own {@link PDDocument} from
+     * {@code source} and extracting a contiguous page range. Per-page results are merged in page order, so the
+     * result is identical to {@link #extractOrderIdToPages(PDDocument)}. Bundles whose index pages sit at the end
+     * are still handled sequentially since only those few pages need to be read.
+     */
+    static PdfIndex index(PdfFileSource source, int maxWorkers) throws IOException {
+        try (PDDocument first = source.open()) {
+            int pageCount = first.getNumberOfPages();
+            int workers = Math.min(maxWorkers, pageCount / MIN_PAGES_PER_WORKER);
+            if (workers <= 1) {
+                return index(first, String.valueOf(source.path().getFileName()));
+            }
+            PageReader reader = new PageReader(first);
+            if (hasIndexNearEnd(reader, pageCount)) {
+                return index(first, reader, String.valueOf(source.path().getFileName()));
+            }
+            PageScan[] scans = scanPagesInParallel(source, first, pageCount, workers);
+            PdfIndex merged = mergePageScans(pageCount, page -> scans[page - 1], reader);
+            return withImageFallback(first, merged, scans, reader, String.valueOf(source.path().getFileName()));
+        }
+    }
 
-        if (pageCount == 1) {
-            collectOrderIdsFromAllPages(stripper, doc, map);
-            return map;
+    private static boolean hasIndexNearEnd(PageReader reader, int pageCount) throws IOException {
+        for (int p = pageCount; p >= Math.max(1, pageCount - INDEX_PROBE_PAGES + 1); p--) {
+            if (reader.laidOut(p).indexKeyword()) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        int indexStartPage = -1;
-        for (int p = pageCount; p >= 1; p--) {
-            String pageText = extractPageText(stripper, doc, p);
-            if (pageText == null) {
-                continue;
+    private static PageScan[] scanPagesInParallel(PdfFileSource source,
+                                                  PDDocument first,
+                                                  int pageCount,
+                                                  int workers) throws IOException {
+        PageScan[] scans = new PageScan[pageCount];
+        ExecutorService pool = Executors.newFixedThreadPool(workers - 1, THREAD_FACTORY);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 1; w < workers; w++) {
+                int from = rangeStart(w, workers, pageCount);
+                int to = rangeStart(w + 1, workers, pageCount) - 1;
+                futures.add(pool.submit(() -> {
+                    try (PDDocument doc = source.open()) {
+                        scanPages(doc, from, to, scans);
+                    }
+                    return null;
+                }));
             }
-            String lower = pageText.toLowerCase(Locale.ROOT);
-            boolean matchesKeyword = false;
-            for (String keyword : INDEX_KEYWORDS) {
-                if (lower.contains(keyword)) {
-                    matchesKeyword = true;
-                    break;
-                }
+            // The calling thread takes the first range on the document it already opened.
+            scanPages(first, 1, rangeStart(1, workers, pageCount) - 1, scans);
+            for (Future<?> future : futures) {
+                future.get();
             }
-            if (matchesKeyword) {
-                indexStartPage = p;
-                break;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while indexing " + source.path());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
             }
+            throw new IOException("Failed to index " + source.path() + ": " + cause, cause);
+        } finally {
+            pool.shutdownNow();
         }
+        return scans;
+    }
+
+    private static int rangeStart(int worker, int workers, int pageCount) {
+        return 1 + (int) ((long) worker * pageCount / workers);
+    }
 
-        if (indexStartPage == -1) {
-            collectOrderIdsFromAllPages(stripper, doc, map);
-            return map;
+    private static void scanPages(PDDocument doc, int fromPage, int toPage, PageScan[] target) throws IOException {
+        PageReader reader = new PageReader(doc);
+        for (int p = fromPage; p <= toPage; p++) {
+            target[p - 1] = reader.scan(p);
         }
+    }
 
-        StringBuilder fullIndexText = new StringBuilder();
-        for (int p = indexStartPage; p <= pageCount; p++) {
-            String pageText = extractPageText(stripper, doc, p);
-            if (pageText != null) {
-                fullIndexText.append(pageText).append(System.lineSeparator());
+    private interface PageLookup {
+        PageScan get(int page) throws IOException;
+    }
+
+    /**
+     * If a page near the end opens the order list ("Successful Label Purchase"), the IDs listed from there on map
+     * in order to pages 1..n. Otherwise every page maps to the IDs printed on it.
+     * <p>
+     * The index pages are always read from position-sorted text through {@code layout}: content-stream order need
+     * not match the order the list is printed in, and mapping by it would silently attach labels to the wrong orders.
+     */
+    private static PdfIndex mergePageScans(int pageCount, PageLookup pages, PageReader layout) throws IOException {
+        Map<String, List<Integer>> map = new LinkedHashMap<>();
+        if (pageCount > 1) {
+            int indexStartPage = findIndexStartPage(pageCount, pages, layout);
+            if (indexStartPage != -1) {
+                List<String> orderIds = new ArrayList<>();
+                for (int p = indexStartPage; p <= pageCount; p++) {
+                    orderIds.addAll(layout.laidOut(p).orderIds());
+                }
+                int ordersToMapCount = Math.min(orderIds.size(), indexStartPage - 1);
+                for (int i = 0; i < ordersToMapCount; i++) {
+                    map.computeIfAbsent(orderIds.get(i), k -> new ArrayList<>()).add(i + 1);
+                }
+                if (!map.isEmpty()) {
+                    return new PdfIndex(pageCount, indexStartPage, map);
+                }
             }
         }
-
-        List<String> orderIds = new ArrayList<>();
-        Matcher matcher = ORDER_ID_PATTERN.matcher(fullIndexText.toString());
-        while (matcher.find()) {
-            orderIds.add(matcher.group());
+        for (int p = 1; p <= pageCount; p++) {
+            for (String raw : pages.get(p).orderIds()) {
+                List<Integer> pageList = map.computeIfAbsent(normalizeOrderId(raw), key -> new ArrayList<>());
+                if (!pageList.contains(p)) {
+                    pageList.add(p);
+                }
+            }
         }
+        return new PdfIndex(pageCount, PdfIndex.NO_INDEX_PAGE, map);
+    }
 
-        if (!orderIds.isEmpty()) {
-            int labelPageCount = indexStartPage - 1;
-            int ordersToMapCount = Math.min(orderIds.size(), labelPageCount);
-            for (int i = 0; i < ordersToMapCount; i++) {
-                String orderId = orderIds.get(i);
-                int pageNum = i + 1;
-                map.computeIfAbsent(orderId, k -> new ArrayList<>()).add(pageNum);
+    /**
+     * Finds the page that opens the order list. The fast scans only see keywords drawn in reading order, so when
+     * none of them has one, the last {@link #INDEX_PROBE_PAGES} pages, and any list-like pages before them, are
+     * checked again on position-sorted text.
+     */
+    private static int findIndexStartPage(int pageCount, PageLookup pages, PageReader layout) throws IOException {
+        for (int p = pageCount; p >= 1; p--) {
+            if (pages.get(p).indexKeyword()) {
+                return p;
             }
-            if (!map.isEmpty()) {
-                return map;
+        }
+        for (int p = pageCount; p >= 1; p--) {
+            if (p <= pageCount - INDEX_PROBE_PAGES && pages.get(p).orderIds().size() < 2) {
+                break;
+            }
+            if (layout.laidOut(p).indexKeyword()) {
+                return p;
             }
         }
+        return -1;
+    }
 
-        collectOrderIdsFromAllPages(stripper, doc, map);
-        return map;
+    /**
+     * Maps order IDs to label pages. Each page is read with the layout-free {@link OrderIdScanner}; full
+     * {@link PDFTextStripper} extraction only runs for pages where that finds no order ID. Pages are scanned lazily,
+     * so a bundle whose index sits at the end only has its last pages read.
+     */
+    public static Map<String, List<Integer>> extractOrderIdToPages(PDDocument doc) throws IOException {
+        return index(doc).orderPages();
+    }
+
+    public static PdfIndex index(PDDocument doc) throws IOException {
+        return index(doc, "document");
     }
 
-    private static void collectOrderIdsFromPage(Map<String, List<Integer>> target, String pageText, int pageNumber) {
-        if (pageText == null || pageText.isBlank()) {
-            return;
+    private static PdfIndex index(PDDocument doc, String name) throws IOException {
+        return index(doc, new PageReader(doc), name);
+    }
+
+    private static PdfIndex index(PDDocument doc, PageReader reader, String name) throws IOException {
+        PageScan[] scans = new PageScan[doc.getNumberOfPages()];
+        PdfIndex merged = mergePageScans(scans.length, page -> {
+            if (scans[page - 1] == null) {
+                scans[page - 1] = reader.scan(page);
+            }
+            return scans[page - 1];
+        }, reader);
+        return withImageFallback(doc, merged, scans, reader, name);
+    }
+
+    /**
+     * Pages that still have no order ID after text extraction are rasterized and read by
+     * {@link RasterOrderIdReader}; whatever it finds is merged as if the page had carried the text. Bundles mapped
+     * through an index page are left alone, since their label pages need no text of their own.
+     */
+    private static PdfIndex withImageFallback(PDDocument doc, PdfIndex merged, PageScan[] scans, PageReader layout,
+                                              String name) throws IOException {
+        if (merged.indexStartPage() != PdfIndex.NO_INDEX_PAGE || !RasterOrderIdReader.enabled()) {
+            return merged;
         }
-        Matcher matcher = ORDER_ID_PATTERN.matcher(pageText);
-        while (matcher.find()) {
-            String orderId = normalizeOrderId(matcher.group());
-            List<Integer> pages = target.computeIfAbsent(orderId, key -> new ArrayList<>());
-            if (!pages.contains(pageNumber)) {
-                pages.add(pageNumber);
+        List<Integer> missing = new ArrayList<>();
+        for (int p = 1; p <= scans.length; p++) {
+            if (scans[p - 1] != null && scans[p - 1].orderIds().isEmpty()) {
+                missing.add(p);
             }
         }
+        if (missing.isEmpty()) {
+            return merged;
+        }
+        Map<Integer, RasterOrderIdReader.PageResult> found = RasterOrderIdReader.readPages(doc, missing, name);
+        if (found.isEmpty()) {
+            return merged;
+        }
+        return mergePageScans(scans.length, page -> {
+            RasterOrderIdReader.PageResult result = found.get(page);
+            PageScan text = scans[page - 1];
+            return result != null ? new PageScan(text.indexKeyword(), result.orderIds()) : text;
+        }, layout);
     }
 
-    private static void collectOrderIdsFromAllPages(PDFTextStripper stripper,
-                                                   PDDocument doc,
-                                                   Map<String, List<Integer>> target) throws IOException {
-        int totalPages = doc.getNumberOfPages();
-        for (int p = 1; p <= totalPages; p++) {
-            String pageText = extractPageText(stripper, doc, p);
-            collectOrderIdsFromPage(target, pageText, p);
-        }
+    /** Pages read by the image fallback since startup, for reporting how often it pays off. */
+    public static FallbackStats fallbackStats() {
+        return RasterOrderIdReader.stats();
     }
 
     private static String normalizeOrderId(String raw) {
@@ -155,13 +303,22 @@ public final class ShippingLabelExtractor {
     }
 
     public static ScanResult scan(Path input) throws IOException {
+        return scan(input, null);
+    }
+
+    /** Like {@link #scan(Path)}, reusing {@code cache} entries for PDFs that have not changed. */
+    public static ScanResult scan(Path input, PdfIndexCache cache) throws IOException {
         if (input == null) {
             return new ScanResult(Map.of(), Map.of(), List.of(), List.of());
         }
-        return scan(List.of(input));
+        return scan(List.of(input), cache);
     }
 
     public static ScanResult scan(Collection<Path> inputs) throws IOException {
+        return scan(inputs, null);
+    }
+
+    public static ScanResult scan(Collection<Path> inputs, PdfIndexCache cache) throws IOException {
         if (inputs == null || inputs.isEmpty()) {
             return new ScanResult(Map.of(), Map.of(), List.of(), List.of());
         }
@@ -179,11 +336,11 @@ public final class ShippingLabelExtractor {
                 try (Stream<Path> stream = Files.walk(input)) {
                     stream.filter(Files::isRegularFile)
                         .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
-                        .forEach(p -> processFile(p, labels, duplicates, skippedPackingSlips, failures));
+                        .forEach(p -> processFile(p, cache, labels, duplicates, skippedPackingSlips, failures));
                 }
             } else if (Files.isRegularFile(input)
                 && input.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf")) {
-                processFile(input, labels, duplicates, skippedPackingSlips, failures);
+                processFile(input, cache, labels, duplicates, skippedPackingSlips, failures);
             }
         }
 
@@ -203,6 +360,7 @@ public final class ShippingLabelExtractor {
     }
 
     private static void processFile(Path pdf,
+                                    PdfIndexCache cache,
                                     Map<String, LabelEntry> labels,
                                     Map<String, List<LabelEntry>> duplicates,
                                     List<Path> skippedPackingSlips,
@@ -212,7 +370,9 @@ public final class ShippingLabelExtractor {
                 skippedPackingSlips.add(pdf);
                 return;
             }
-            Map<String, List<Integer>> orderPages = extractOrderIdToPages(pdf);
+            Map<String, List<Integer>> orderPages = cache != null
+                ? cache.labels(pdf).orderPages()
+                : extractOrderIdToPages(pdf);
             for (Map.Entry<String, List<Integer>> entry : orderPages.entrySet()) {
                 LabelEntry candidate = new LabelEntry(pdf, List.copyOf(entry.getValue()));
                 LabelEntry existing = labels.putIfAbsent(entry.getKey(), candidate);
@@ -258,6 +418,78 @@ public final class ShippingLabelExtractor {
         return stripper.getText(doc);
     }
 
+    static boolean containsIndexKeyword(CharSequence lowerCaseText) {
+        String text = lowerCaseText.toString();
+        for (String keyword : INDEX_KEYWORDS) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Reads pages of one document, fast path first. Not thread-safe. */
+    private static final class PageReader {
+        private final PDDocument doc;
+        private final OrderIdScanner scanner = new OrderIdScanner();
+        private final Map<Integer, PageScan> laidOut = new HashMap<>();
+        private PDFTextStripper stripper;
+
+        private PageReader(PDDocument doc) {
+            this.doc = doc;
+        }
+
+        PageScan scan(int page) throws IOException {
+            PageScan fast = scanner.scan(doc.getPage(page - 1));
+            return fast.orderIds().isEmpty() ? laidOut(page) : fast;
+        }
+
+        /** The page read from position-sorted text, with its order IDs in reading order. */
+        PageScan laidOut(int page) throws IOException {
+            PageScan scan = laidOut.get(page);
+            if (scan == null) {
+                if (stripper == null) {
+                    stripper = new PDFTextStripper();
+                    stripper.setSortByPosition(true);
+                }
+                scan = PageScan.of(extractPageText(stripper, doc, page));
+                laidOut.put(page, scan);
+            }
+            return scan;
+        }
+    }
+
+    /** What one page contributes to the index: whether it opens the order list, and its raw order IDs. */
+    record PageScan(boolean indexKeyword, List<String> orderIds) {
+        static PageScan of(String pageText) {
+            if (pageText == null || pageText.isBlank()) {
+                return new PageScan(false, List.of());
+            }
+            boolean keyword = containsIndexKeyword(pageText.toLowerCase(Locale.ROOT));
+            List<String> ids = new ArrayList<>();
+            Matcher matcher = ORDER_ID_PATTERN.matcher(pageText);
+            while (matcher.find()) {
+                ids.add(matcher.group());
+            }
+            return new PageScan(keyword, List.copyOf(ids));
+        }
+    }
+
+    public record FallbackStats(long pagesTried, long barcodeHits, long ocrHits) {
+        public long hits() {
+            return barcodeHits + ocrHits;
+        }
+
+        public double hitRate() {
+            return pagesTried == 0 ? 0 : hits() / (double) pagesTried;
+        }
+
+        public FallbackStats since(FallbackStats earlier) {
+            return new FallbackStats(pagesTried - earlier.pagesTried, barcodeHits - earlier.barcodeHits,
+                ocrHits - earlier.ocrHits);
+        }
+    }
+
     public record LabelEntry(Path pdfPath, List<Integer> pages) {
         public LabelEntry {
             Objects.requireNonNull(pdfPath, "pdfPath");
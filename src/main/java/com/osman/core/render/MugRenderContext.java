@@ -1,5 +1,6 @@
 package com.osman.core.render;
 
+import com.osman.core.fs.ZipOrderSource;
 import com.osman.core.json.JsonOrderLoader;
 import com.osman.core.json.OrderPayload;
 import com.osman.core.model.OrderInfo;
@@ -24,14 +25,12 @@ import java.util.stream.Stream;
 
 final class MugRenderContext implements AutoCloseable {
 
-
-
     private static final Logger LOGGER = AppLogger.get();
 
     private final OrderPayload payload;
     private final OrderInfo orderInfo;
     private final MugTemplate template;
-    private final File svgFile;
+    private final Path svgFile;
     private final Set<String> declaredImageNames;
     private final File finalOutputFile;
     private final File tempWorkingDir;
@@ -41,7 +40,7 @@ final class MugRenderContext implements AutoCloseable {
     private MugRenderContext(OrderPayload payload,
                              OrderInfo orderInfo,
                              MugTemplate template,
-                             File svgFile,
+                             Path svgFile,
                              Set<String> declaredImageNames,
                              File finalOutputFile,
                              File tempWorkingDir,
@@ -58,8 +57,12 @@ final class MugRenderContext implements AutoCloseable {
         this.drawRight = drawRight;
     }
 
-    static MugRenderContext prepare(File jsonFile,
-                                    File orderRoot,
+    /**
+     * Resolves order assets through {@link Path}s so the order may live on disk or inside a mounted archive;
+     * the rendered PNG and the scratch folder always go to {@code outputDirectory} on local disk.
+     */
+    static MugRenderContext prepare(Path jsonFile,
+                                    Path orderRoot,
                                     File outputDirectory,
                                     String customerNameForFile,
                                     String fileNameSuffix) throws Exception {
@@ -69,9 +72,9 @@ final class MugRenderContext implements AutoCloseable {
 
         Files.createDirectories(outputDirectory.toPath());
 
-        File svgFile = findNearestSvg(jsonFile.getParentFile(), orderRoot);
+        Path svgFile = findNearestSvg(jsonFile.getParent(), orderRoot);
         if (svgFile == null) {
-            throw new IOException("SVG Couldn't Find: " + jsonFile.getAbsolutePath());
+            throw new IOException("SVG Couldn't Find: " + describe(jsonFile));
         }
 
         try {
@@ -120,7 +123,7 @@ final class MugRenderContext implements AutoCloseable {
         return template;
     }
 
-    File svgFile() {
+    Path svgFile() {
         return svgFile;
     }
 
@@ -153,7 +156,7 @@ final class MugRenderContext implements AutoCloseable {
         deleteDirectoryQuietly(tempWorkingDir);
     }
 
-    private static String deriveOutputBaseName(File orderRoot,
+    private static String deriveOutputBaseName(Path orderRoot,
                                                File outputDir,
                                                String customerName,
                                                OrderInfo info) {
@@ -163,7 +166,7 @@ final class MugRenderContext implements AutoCloseable {
         } catch (IOException ignored) {
         }
         if (isBlank(baseName)) {
-            String folderCandidate = sanitizeName(orderRoot.getName());
+            String folderCandidate = sanitizeName(ZipOrderSource.nameOf(orderRoot));
             if (!folderCandidate.equalsIgnoreCase("images")
                 && !folderCandidate.equalsIgnoreCase("img")
                 && !folderCandidate.equalsIgnoreCase("photos")) {
@@ -192,14 +195,13 @@ final class MugRenderContext implements AutoCloseable {
         return value == null || value.trim().isEmpty();
     }
 
-    private static String deriveNameFromPhotos(File orderDirectory, String orderId) throws IOException {
+    private static String deriveNameFromPhotos(Path orderDirectory, String orderId) throws IOException {
         if (orderDirectory == null || orderId == null) {
             return null;
         }
-        try (Stream<Path> stream = Files.walk(orderDirectory.toPath(), 3)) {
+        try (Stream<Path> stream = Files.walk(orderDirectory, 3)) {
             Optional<String> name = stream.filter(Files::isRegularFile)
-                .map(Path::toFile)
-                .map(File::getName)
+                .map(ZipOrderSource::nameOf)
                 .filter(n -> n.toLowerCase(Locale.ROOT).endsWith(".png")
                     && n.toLowerCase(Locale.ROOT).contains(orderId.toLowerCase(Locale.ROOT)))
                 .map(MugRenderContext::extractNameAroundOrderId)
@@ -258,13 +260,13 @@ final class MugRenderContext implements AutoCloseable {
     }
 
     private static void verifyDeclaredImageAssets(OrderPayload payload,
-                                                  File svgFile,
-                                                  File orderRoot) throws IOException {
+                                                  Path svgFile,
+                                                  Path orderRoot) throws IOException {
         if (payload == null || payload.images() == null) {
             return;
         }
         List<String> missing = new ArrayList<>();
-        File svgParent = (svgFile == null) ? orderRoot : svgFile.getParentFile();
+        Path svgParent = (svgFile == null) ? orderRoot : svgFile.getParent();
         JsonOrderLoader.ImageFileInfo images = payload.images();
         collectMissingImage(images.frontImageFile(), "front image", svgParent, orderRoot, missing);
         collectMissingImage(images.backImageFile(), "back image", svgParent, orderRoot, missing);
@@ -294,32 +296,28 @@ final class MugRenderContext implements AutoCloseable {
 
     private static void collectMissingImage(String assetName,
                                             String label,
-                                            File svgParent,
-                                            File orderRoot,
+                                            Path svgParent,
+                                            Path orderRoot,
                                             List<String> missing) throws IOException {
         if (assetName == null || assetName.isBlank() || isRemoteReference(assetName)) {
             return;
         }
         if (!assetExists(svgParent, orderRoot, assetName)) {
-            String parentDesc = (svgParent != null) ? svgParent.getAbsolutePath() : "<unknown>";
-            String orderDesc = (orderRoot != null) ? orderRoot.getAbsolutePath() : "<unknown>";
+            String parentDesc = (svgParent != null) ? describe(svgParent) : "<unknown>";
+            String orderDesc = (orderRoot != null) ? describe(orderRoot) : "<unknown>";
             missing.add("%s '%s' not found under %s or %s".formatted(label, assetName, parentDesc, orderDesc));
         }
     }
 
-    private static boolean assetExists(File svgParent, File orderRoot, String assetName) throws IOException {
-        if (svgParent != null) {
-            File direct = new File(svgParent, assetName);
-            if (direct.exists()) {
-                return true;
-            }
+    private static boolean assetExists(Path svgParent, Path orderRoot, String assetName) throws IOException {
+        if (svgParent != null && existsQuietly(svgParent, assetName)) {
+            return true;
         }
         if (orderRoot != null) {
-            File rootDirect = new File(orderRoot, assetName);
-            if (rootDirect.exists()) {
+            if (existsQuietly(orderRoot, assetName)) {
                 return true;
             }
-            try (Stream<Path> stream = Files.walk(orderRoot.toPath(), 4)) {
+            try (Stream<Path> stream = Files.walk(orderRoot, 4)) {
                 final String needle = assetName.toLowerCase(Locale.ROOT);
                 return stream.filter(Files::isRegularFile)
                     .anyMatch(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).equals(needle));
@@ -333,24 +331,35 @@ final class MugRenderContext implements AutoCloseable {
         return lower.startsWith("http://") || lower.startsWith("https://");
     }
 
-    private static File findNearestSvg(File startDir, File rootFallback) {
-        File result = findFileByExtension(startDir, ".svg");
+    private static boolean existsQuietly(Path base, String assetName) {
+        try {
+            return Files.exists(base.resolve(assetName));
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private static String describe(Path path) {
+        return ZipOrderSource.isArchivePath(path) ? path.toUri().toString() : path.toAbsolutePath().toString();
+    }
+
+    private static Path findNearestSvg(Path startDir, Path rootFallback) {
+        Path result = findFileByExtension(startDir, ".svg");
         if (result != null) {
             return result;
         }
         return findFileByExtension(rootFallback, ".svg");
     }
 
-    private static File findFileByExtension(File directory, String extension) {
-        if (directory == null || !directory.isDirectory()) {
+    private static Path findFileByExtension(Path directory, String extension) {
+        if (directory == null || !Files.isDirectory(directory)) {
             return null;
         }
         final String extLower = extension.toLowerCase(Locale.ROOT);
-        try (Stream<Path> stream = Files.walk(directory.toPath(), 3)) {
+        try (Stream<Path> stream = Files.walk(directory, 3)) {
             return stream.filter(Files::isRegularFile)
                 .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(extLower))
                 .findFirst()
-                .map(Path::toFile)
                 .orElse(null);
         } catch (IOException e) {
             return null;
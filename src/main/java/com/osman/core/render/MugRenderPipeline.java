@@ -1,5 +1,6 @@
 package com.osman.core.render;
 
+import com.osman.core.fs.ZipOrderSource;
 import com.osman.core.render.SvgPreprocessor.ProcessedSvg;
 import com.osman.core.render.TemplateRegistry.MugTemplate;
 import com.osman.logging.AppLogger;
@@ -54,7 +55,7 @@ final class MugRenderPipeline {
 
             BufferedImage masterImage = renderSvgToImage(
                 processedSvg.content(),
-                context.svgFile().getParentFile(),
+                baseDirectoryFor(context),
                 context.template().renderSize,
                 context.template().renderSize
             );
@@ -78,6 +79,15 @@ final class MugRenderPipeline {
         return context.finalOutputFile().getAbsolutePath();
     }
 
+    private static File baseDirectoryFor(MugRenderContext context) {
+        // Batik cannot resolve relative references through a zip file system; sanitized images are already
+        // absolute temp-file URIs, so relative lookups fall back to the scratch folder.
+        if (ZipOrderSource.isArchivePath(context.svgFile())) {
+            return context.tempWorkingDir();
+        }
+        return context.svgFile().toFile().getParentFile();
+    }
+
     private static void setupHighQualityRendering(Graphics2D g2d) {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
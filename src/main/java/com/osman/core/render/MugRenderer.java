@@ -1,5 +1,7 @@
 package com.osman.core.render;
 
+import com.osman.core.fs.ZipOrderSource;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -20,51 +22,53 @@ public final class MugRenderer {
                                                   File outputDirectory,
                                                   String customerNameForFile,
                                                   String fileNameSuffix) throws Exception {
-        if (!orderDirectory.isDirectory()) {
-            throw new IllegalArgumentException("The provided order path is not a directory. " + orderDirectory.getAbsolutePath());
+        return processOrderFolder(orderDirectory.toPath(), outputDirectory, customerNameForFile, fileNameSuffix);
+    }
+
+    public static List<String> processOrderFolderMulti(File orderDirectory,
+                                                       File outputDirectory,
+                                                       String customerNameForFile,
+                                                       String fileNameSuffix) throws Exception {
+        return processOrderFolder(orderDirectory, outputDirectory, customerNameForFile, fileNameSuffix);
+    }
+
+    /**
+     * Renders an order folder addressed by {@link Path}, which may live inside a mounted order archive
+     * (see {@link ZipOrderSource}). Outputs are still written to {@code outputDirectory} on local disk.
+     */
+    public static List<String> processOrderFolder(Path orderDirectory,
+                                                  File outputDirectory,
+                                                  String customerNameForFile,
+                                                  String fileNameSuffix) throws Exception {
+        if (!Files.isDirectory(orderDirectory)) {
+            throw new IllegalArgumentException("The provided order path is not a directory. " + describe(orderDirectory));
         }
         if (!outputDirectory.isDirectory()) {
             throw new IllegalArgumentException("The specified order path is not recognized as a directory. " + outputDirectory.getAbsolutePath());
         }
 
-        List<File> jsonFiles = findJsonFiles(orderDirectory);
+        List<Path> jsonFiles = findJsonFiles(orderDirectory);
         if (jsonFiles.isEmpty()) {
-            throw new IOException("There is No SVG in File " + orderDirectory.getAbsolutePath());
+            throw new IOException("There is No SVG in File " + describe(orderDirectory));
         }
 
         List<String> outputs = new ArrayList<>();
-        for (File jsonFile : jsonFiles) {
+        for (Path jsonFile : jsonFiles) {
             outputs.add(renderFromJson(jsonFile, orderDirectory, outputDirectory, customerNameForFile, fileNameSuffix));
         }
         return outputs;
     }
 
-    public static List<String> processOrderFolderMulti(File orderDirectory,
-                                                       File outputDirectory,
-                                                       String customerNameForFile,
-                                                       String fileNameSuffix) throws Exception {
-        return processOrderFolder(orderDirectory, outputDirectory, customerNameForFile, fileNameSuffix);
-    }
-
-    private static List<File> findJsonFiles(File directory) throws IOException {
-        List<File> jsonFiles = new ArrayList<>();
-        try (Stream<Path> stream = Files.walk(directory.toPath(), 6)) {
-            stream.filter(Files::isRegularFile)
-                    .map(Path::toFile)
-                    .filter(f -> f.getName().toLowerCase(Locale.ROOT).endsWith(".json"))
-                    .forEach(jsonFiles::add);
-        }
-        if (jsonFiles.isEmpty()) {
-            File singleJson = findFileByExtension(directory, ".json");
-            if (singleJson != null) {
-                jsonFiles.add(singleJson);
-            }
+    private static List<Path> findJsonFiles(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory, 6)) {
+            return stream.filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json"))
+                .toList();
         }
-        return jsonFiles;
     }
 
-    private static String renderFromJson(File jsonFile,
-                                         File orderRoot,
+    private static String renderFromJson(Path jsonFile,
+                                         Path orderRoot,
                                          File outputDirectory,
                                          String customerNameForFile,
                                          String fileNameSuffix) throws Exception {
@@ -79,17 +83,7 @@ public final class MugRenderer {
         }
     }
 
-    private static File findFileByExtension(File directory, String extension) throws IOException {
-        if (directory == null || !directory.isDirectory()) {
-            return null;
-        }
-        final String extLower = extension.toLowerCase(Locale.ROOT);
-        try (Stream<Path> stream = Files.walk(directory.toPath(), 3)) {
-            return stream.filter(Files::isRegularFile)
-                .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(extLower))
-                .findFirst()
-                .map(Path::toFile)
-                .orElse(null);
-        }
+    private static String describe(Path path) {
+        return ZipOrderSource.isArchivePath(path) ? path.toUri().toString() : path.toAbsolutePath().toString();
     }
 }
@@ -1,5 +1,6 @@
 package com.osman.core.render;
 
+import com.osman.core.fs.ZipOrderSource;
 import com.osman.core.model.OrderInfo;
 import com.osman.logging.AppLogger;
 
@@ -8,6 +9,9 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -34,7 +38,18 @@ public final class SvgPreprocessor {
                                           OrderInfo orderInfo,
                                           Set<String> declaredImageNames,
                                           File tempDir) throws IOException {
-        String content = Files.readString(svgFile.toPath());
+        return preprocess(svgFile.toPath(), orderInfo, declaredImageNames, tempDir);
+    }
+
+    /**
+     * Path-based variant; images referenced from an SVG inside a mounted archive are read from the archive and
+     * only the copy handed to ImageMagick is staged in {@code tempDir}.
+     */
+    public static ProcessedSvg preprocess(Path svgFile,
+                                          OrderInfo orderInfo,
+                                          Set<String> declaredImageNames,
+                                          File tempDir) throws IOException {
+        String content = Files.readString(svgFile);
         content = content.replace("FONT_PLACEHOLDER", orderInfo.getFontName());
         content = normalizeVidalokaFamily(content);
         if (content.contains(BLANK_LOGO_URL)) {
@@ -60,11 +75,11 @@ public final class SvgPreprocessor {
             }
 
             boolean remoteReference = isRemoteReference(href);
-            File originalImageFile = remoteReference ? null : new File(svgFile.getParentFile(), href);
+            Path originalImageFile = remoteReference ? null : resolveImage(svgFile.getParent(), href);
             String normalizedHref = normalizeImageName(href);
             boolean declaredRequired = normalizedHref != null && normalizedDeclaredImages.contains(normalizedHref);
-            if (!remoteReference && (originalImageFile == null || !originalImageFile.exists())) {
-                String expectedPath = (originalImageFile == null) ? href : originalImageFile.getAbsolutePath();
+            if (!remoteReference && (originalImageFile == null || !Files.exists(originalImageFile))) {
+                String expectedPath = (originalImageFile == null) ? href : originalImageFile.toAbsolutePath().toString();
                 if (declaredRequired) {
                     LOGGER.log(Level.WARNING, () -> "SVG references missing declared image '" + href + "' expected at " + expectedPath);
                 } else {
@@ -75,7 +90,7 @@ public final class SvgPreprocessor {
                 continue;
             }
 
-            BufferedImage sanitizedImage = remoteReference ? null : ImageMagickAdapter.sanitize(originalImageFile);
+            BufferedImage sanitizedImage = remoteReference ? null : sanitize(originalImageFile, tempDir, tempFiles);
             if (sanitizedImage != null) {
                 File tempPngFile = File.createTempFile("magick_", ".png", tempDir);
                 ImageIO.write(sanitizedImage, "png", tempPngFile);
@@ -94,6 +109,31 @@ public final class SvgPreprocessor {
         return new ProcessedSvg(withFallbacks, tempFiles);
     }
 
+    private static Path resolveImage(Path baseDirectory, String href) {
+        if (baseDirectory == null) {
+            return null;
+        }
+        try {
+            return baseDirectory.resolve(href);
+        } catch (InvalidPathException ex) {
+            return null;
+        }
+    }
+
+    private static BufferedImage sanitize(Path image, File tempDir, List<File> tempFiles) throws IOException {
+        if (!ZipOrderSource.isArchivePath(image)) {
+            return ImageMagickAdapter.sanitize(image.toFile());
+        }
+        // ImageMagick runs out of process, so archive entries are staged next to the other render scratch files.
+        String name = image.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String suffix = dot >= 0 ? name.substring(dot) : ".img";
+        File staged = File.createTempFile("asset_", suffix, tempDir);
+        tempFiles.add(staged);
+        Files.copy(image, staged.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return ImageMagickAdapter.sanitize(staged);
+    }
+
     private static Set<String> normalizeDeclaredImageNames(Set<String> declaredImageNames) {
         Set<String> normalized = new HashSet<>();
         if (declaredImageNames == null || declaredImageNames.isEmpty()) {
@@ -1,5 +1,6 @@
 package com.osman.integration.amazon;
 
+import com.osman.core.fs.ZipExtractor;
 import com.osman.logging.AppLogger;
 
 import com.osman.integration.amazon.AmazonOrderRecord;
@@ -7,7 +8,9 @@ import com.osman.integration.amazon.ShippingLayoutPlanner;
 import com.osman.integration.amazon.ShippingLayoutPlanner.MixMetadata;
 import com.osman.integration.amazon.ShippingLayoutPlanner.ShippingSpeed;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -16,6 +19,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.Collection;
@@ -26,6 +30,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Handles the filesystem layout and downloading of customer assets.
@@ -33,9 +38,14 @@ import java.util.logging.Logger;
 public class  AmazonOrderDownloadService {
     private static final Logger LOGGER = AppLogger.get();
     private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+    private static final String PARTIAL_SUFFIX = ".part";
 
     private final HttpClient httpClient;
     private final Path baseDirectory;
+    private volatile boolean extractWhileDownloading;
+    private volatile boolean keepArchives = true;
+    private volatile int maxAttempts = 3;
 
     public AmazonOrderDownloadService() {
         this(HttpClient.newBuilder()
@@ -50,6 +60,27 @@ public class  AmazonOrderDownloadService {
         this.baseDirectory = baseDirectory == null ? defaultBaseDirectory() : baseDirectory;
     }
 
+    /**
+     * When enabled, each archive is extracted into a folder next to it while the body is still arriving instead
+     * of being buffered and extracted afterwards. The folder is published only once the download is complete.
+     */
+    public void setExtractWhileDownloading(boolean extractWhileDownloading) {
+        this.extractWhileDownloading = extractWhileDownloading;
+    }
+
+    /**
+     * Whether the zip itself is kept when extracting while downloading. Kept archives are marked as extracted so
+     * they are not unpacked a second time.
+     */
+    public void setKeepArchives(boolean keepArchives) {
+        this.keepArchives = keepArchives;
+    }
+
+    /** Number of times an item is requested before giving up on a truncated or failed transfer. */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
     /**
      * Downloads every item in the batch. Returns the root directory that was created for the run.
      */
@@ -231,33 +262,160 @@ public class  AmazonOrderDownloadService {
     }
 
     protected Path downloadSingleItem(Path orderFolder, CustomerOrderItem item) throws IOException, InterruptedException {
-        Path targetFile = resolveTargetFile(orderFolder, item.orderItemId());
-        HttpRequest request = HttpRequest.newBuilder()
+        int attempts = maxAttempts;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return extractWhileDownloading
+                    ? downloadAndExtract(orderFolder, item)
+                    : downloadToFile(orderFolder, item);
+            } catch (IOException ex) {
+                if (attempt >= attempts || !isRetryable(ex)) {
+                    throw ex;
+                }
+                LOGGER.warning("Download of " + item.orderItemId() + " failed (attempt " + attempt + " of "
+                    + attempts + "), retrying: " + ex.getMessage());
+                Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+            }
+        }
+    }
+
+    private Path downloadToFile(Path orderFolder, CustomerOrderItem item) throws IOException, InterruptedException {
+        Path targetFile = resolveTargetFile(orderFolder, item.orderItemId(), false);
+        Path partial = targetFile.resolveSibling(targetFile.getFileName() + PARTIAL_SUFFIX);
+        try {
+            // Streamed to disk rather than buffered so the heap stays flat regardless of archive size.
+            HttpResponse<Path> response = httpClient.send(newRequest(item), HttpResponse.BodyHandlers.ofFile(partial));
+            checkStatus(response, item);
+            Files.move(partial, targetFile, StandardCopyOption.ATOMIC_MOVE);
+            return targetFile;
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private Path downloadAndExtract(Path orderFolder, CustomerOrderItem item) throws IOException, InterruptedException {
+        boolean keep = keepArchives;
+        Path archive = resolveTargetFile(orderFolder, item.orderItemId(), true);
+        String baseName = archive.getFileName().toString().replaceAll("\\.zip$", "");
+        Path staging = orderFolder.resolve("." + baseName + ".partial");
+        Path partial = keep ? archive.resolveSibling(archive.getFileName() + PARTIAL_SUFFIX) : null;
+        deleteRecursively(staging);
+
+        boolean published = false;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(newRequest(item), HttpResponse.BodyHandlers.ofInputStream());
+            try (DownloadTeeInputStream body = new DownloadTeeInputStream(response.body(), partial)) {
+                checkStatus(response, item);
+                ZipExtractor.unzip(body, staging.toFile(), new ZipExtractor.Listener() {
+                    @Override
+                    public void onFileExtracted(File file) {
+                    }
+
+                    @Override
+                    public void onEntrySkipped(String name, String reason) {
+                        LOGGER.warning("Skipped " + name + " in " + item.orderItemId() + ": " + reason);
+                    }
+                });
+                body.drain();
+                long expected = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+                if (expected >= 0 && body.count() != expected) {
+                    throw new TruncatedDownloadException(item.orderItemId() + ": received " + body.count()
+                        + " of " + expected + " bytes");
+                }
+                if (!body.endsWithCentralDirectory()) {
+                    throw new TruncatedDownloadException(item.orderItemId() + ": archive ends before its central directory");
+                }
+            }
+
+            Path folder = orderFolder.resolve(baseName);
+            if (keep) {
+                Files.createFile(staging.resolve(ZipExtractor.EXTRACTED_MARKER));
+            }
+            Files.move(staging, folder, StandardCopyOption.ATOMIC_MOVE);
+            if (keep) {
+                Files.move(partial, archive, StandardCopyOption.ATOMIC_MOVE);
+            }
+            published = true;
+            return folder;
+        } finally {
+            if (!published) {
+                deleteRecursively(staging);
+                if (partial != null) {
+                    Files.deleteIfExists(partial);
+                }
+            }
+        }
+    }
+
+    private static HttpRequest newRequest(CustomerOrderItem item) {
+        return HttpRequest.newBuilder()
             .uri(URI.create(item.downloadUrl()))
             .timeout(REQUEST_TIMEOUT)
             .GET()
             .build();
+    }
 
-        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
-        if (response.statusCode() >= 200 && response.statusCode() < 300) {
-            Files.write(targetFile, response.body());
-            return targetFile;
+    private static void checkStatus(HttpResponse<?> response, CustomerOrderItem item) throws IOException {
+        int status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            throw new UnexpectedStatusException(status, "Unexpected status " + status + " for " + item.downloadUrl());
         }
+    }
 
-        throw new IOException("Unexpected status " + response.statusCode() + " for " + item.downloadUrl());
+    private static boolean isRetryable(IOException ex) {
+        if (ex instanceof UnexpectedStatusException statusError) {
+            return statusError.status >= 500 || statusError.status == 429;
+        }
+        return true;
     }
 
-    private static Path resolveTargetFile(Path orderFolder, String orderItemId) throws IOException {
-        String baseName = orderItemId + ".zip";
-        Path target = orderFolder.resolve(baseName);
+    /**
+     * Picks {@code <id>.zip}, or {@code <id>_N.zip} if taken. When the archive is extracted next to itself the
+     * folder of the same base name has to be free as well.
+     */
+    private static Path resolveTargetFile(Path orderFolder, String orderItemId, boolean reserveFolder) {
+        Path target = orderFolder.resolve(orderItemId + ".zip");
+        Path folder = orderFolder.resolve(orderItemId);
         int duplicateIndex = 1;
-        while (Files.exists(target)) {
+        while (Files.exists(target) || (reserveFolder && Files.exists(folder))) {
             target = orderFolder.resolve(orderItemId + "_" + duplicateIndex + ".zip");
+            folder = orderFolder.resolve(orderItemId + "_" + duplicateIndex);
             duplicateIndex++;
         }
         return target;
     }
 
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /** Raised when a response body ends before the archive it carries is complete. */
+    public static final class TruncatedDownloadException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public TruncatedDownloadException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class UnexpectedStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private UnexpectedStatusException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
     private static Path createOrderFolder(Path imagesFolder, CustomerGroup customer, CustomerOrder order) throws IOException {
         String orderIdSegment = order.orderId().replaceAll("[^A-Za-z0-9-]", "_");
         String recipientName = order.items().stream()
@@ -0,0 +1,120 @@
+package com.osman.integration.amazon;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Passes an HTTP body through to an extractor while counting bytes, optionally copying them to a file, and
+ * remembering the tail of the stream so a complete zip (one that ends in its end-of-central-directory record)
+ * can be told apart from a truncated one. Memory use is bounded by the tail window regardless of body size.
+ */
+final class DownloadTeeInputStream extends FilterInputStream {
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int TAIL_SIZE = EOCD_SIZE + MAX_COMMENT_LENGTH;
+    private static final int DRAIN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel copy;
+    private final byte[] tail = new byte[TAIL_SIZE];
+    private int tailPosition;
+    private long count;
+
+    DownloadTeeInputStream(InputStream in, Path copyTarget) throws IOException {
+        super(in);
+        this.copy = copyTarget == null ? null : FileChannel.open(copyTarget,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            record(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, DRAIN_BUFFER_SIZE)];
+        int read = read(buffer, 0, buffer.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /** Reads whatever the extractor left unread, typically the central directory. */
+    void drain() throws IOException {
+        byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+        while (read(buffer, 0, buffer.length) >= 0) {
+            // keep reading until the body ends
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the bytes seen so far end with an end-of-central-directory record whose comment
+     * length runs exactly to the end of the stream.
+     */
+    boolean endsWithCentralDirectory() {
+        int length = (int) Math.min(count, TAIL_SIZE);
+        byte[] window = new byte[length];
+        int start = Math.floorMod(tailPosition - length, TAIL_SIZE);
+        for (int i = 0; i < length; i++) {
+            window[i] = tail[(start + i) % TAIL_SIZE];
+        }
+        for (int i = length - EOCD_SIZE; i >= 0; i--) {
+            if (window[i] == 'P' && window[i + 1] == 'K' && window[i + 2] == 5 && window[i + 3] == 6) {
+                int commentLength = (window[i + 20] & 0xFF) | (window[i + 21] & 0xFF) << 8;
+                if (i + EOCD_SIZE + commentLength == length) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (copy != null) {
+                copy.close();
+            }
+        }
+    }
+
+    private void record(byte[] b, int off, int len) throws IOException {
+        count += len;
+        if (copy != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                copy.write(buffer);
+            }
+        }
+        int from = len > TAIL_SIZE ? off + len - TAIL_SIZE : off;
+        for (int i = from; i < off + len; i++) {
+            tail[tailPosition] = b[i];
+            tailPosition = (tailPosition + 1) % TAIL_SIZE;
+        }
+    }
+}
@@ -79,6 +79,8 @@ public class AmazonImportPanel extends JPanel {
     private final JButton downloadSelectedButton = new JButton("Download Selected Item Types");
     private final JButton generatePackingSlipsButton = new JButton("Generate Packing Slips");
     private final JCheckBox includeLateToggle = new JCheckBox("Next Day Orders");
+    private final JCheckBox extractWhileDownloadingToggle = new JCheckBox("Extract while downloading");
+    private final JCheckBox keepArchivesToggle = new JCheckBox("Keep zip files", true);
     private final JProgressBar progressBar = new JProgressBar(0, 100);
     private final JTextArea logArea = new JTextArea();
     private final DefaultTreeModel treeModel = new DefaultTreeModel(new DefaultMutableTreeNode("No data"));
@@ -110,6 +112,11 @@ public class AmazonImportPanel extends JPanel {
         actionsRow.add(generatePackingSlipsButton);
         includeLateToggle.setToolTipText("When selected, include Next-Day orders.");
         actionsRow.add(includeLateToggle);
+        extractWhileDownloadingToggle.setToolTipText("Unpack each zip as it arrives instead of after the download.");
+        actionsRow.add(extractWhileDownloadingToggle);
+        keepArchivesToggle.setToolTipText("Also keep the downloaded zip next to the extracted folder.");
+        keepArchivesToggle.setEnabled(false);
+        actionsRow.add(keepArchivesToggle);
         actionsRow.add(statusLabel);
         topPanel.add(actionsRow, BorderLayout.SOUTH);
 
@@ -184,6 +191,13 @@ public class AmazonImportPanel extends JPanel {
             }
         });
         includeLateToggle.setSelected(includeLateShipments);
+
+        extractWhileDownloadingToggle.addItemListener(e -> {
+            boolean selected = extractWhileDownloadingToggle.isSelected();
+            downloadService.setExtractWhileDownloading(selected);
+            keepArchivesToggle.setEnabled(selected && extractWhileDownloadingToggle.isEnabled());
+        });
+        keepArchivesToggle.addItemListener(e -> downloadService.setKeepArchives(keepArchivesToggle.isSelected()));
     }
 
     private void chooseFileAndParse() {
@@ -549,6 +563,8 @@ public class AmazonImportPanel extends JPanel {
         downloadSelectedButton.setEnabled(enabled && hasData);
         generatePackingSlipsButton.setEnabled(enabled && hasData);
         includeLateToggle.setEnabled(enabled);
+        extractWhileDownloadingToggle.setEnabled(enabled);
+        keepArchivesToggle.setEnabled(enabled && extractWhileDownloadingToggle.isSelected());
         progressBar.setEnabled(enabled);
     }
 
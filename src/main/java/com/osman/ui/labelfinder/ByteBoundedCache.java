@@ -0,0 +1,135 @@
+package com.osman.ui.labelfinder;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory LRU cache bounded by the estimated size of its values rather than their number.
+ * <p>
+ * Putting a value evicts least recently used entries until the total is back under {@code maxBytes}; evicted
+ * entries are handed to the eviction listener. A value larger than the whole budget is not kept at all.
+ */
+final class ByteBoundedCache<K, V> {
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final BiConsumer<K, V> onEvict;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    record Stats(long hits, long misses, long evictions, int entries, long bytes, long maxBytes) {
+    }
+
+    private record Entry<V>(V value, long bytes) {
+    }
+
+    ByteBoundedCache(long maxBytes, ToLongFunction<V> weigher, BiConsumer<K, V> onEvict) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.onEvict = onEvict;
+    }
+
+    V get(K key) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.value();
+            }
+            misses++;
+            return null;
+        }
+    }
+
+    void put(K key, V value) {
+        Map<K, V> evicted = new LinkedHashMap<>();
+        synchronized (this) {
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                bytes -= previous.bytes();
+            }
+            long size = Math.max(0, weigher.applyAsLong(value));
+            if (size <= maxBytes) {
+                entries.put(key, new Entry<>(value, size));
+                bytes += size;
+            } else {
+                evicted.put(key, value);
+                evictions++;
+            }
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = it.next();
+                it.remove();
+                bytes -= eldest.getValue().bytes();
+                evicted.put(eldest.getKey(), eldest.getValue().value());
+                evictions++;
+            }
+        }
+        // Outside the lock: listeners may do I/O.
+        if (onEvict != null) {
+            evicted.forEach(onEvict);
+        }
+    }
+
+    /** Whether {@code key} is cached, without counting a hit or miss or touching its recency. */
+    synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        bytes -= entry.bytes();
+        return entry.value();
+    }
+
+    /** Drops every entry matching {@code filter} without telling the eviction listener; returns how many. */
+    synchronized int removeIf(BiPredicate<? super K, ? super V> filter) {
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = it.next();
+            if (filter.test(entry.getKey(), entry.getValue().value())) {
+                it.remove();
+                bytes -= entry.getValue().bytes();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), bytes, maxBytes);
+    }
+
+    /** Width x height x bytes per pixel of the image's backing buffer; 0 for {@code null}. */
+    static long estimateBytes(BufferedImage image) {
+        if (image == null) {
+            return 0;
+        }
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        int bytesPerElement = Math.max(1, DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+        double elementsPerPixel = (double) buffer.getSize() * buffer.getNumBanks()
+            / Math.max(1L, (long) image.getWidth() * image.getHeight());
+        long bytesPerPixel = Math.max(1, Math.round(Math.ceil(elementsPerPixel * bytesPerElement)));
+        return (long) image.getWidth() * image.getHeight() * bytesPerPixel;
+    }
+}
@@ -4,8 +4,13 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Composes the combined label and slip view. {@link Plan} lays the view out from the page sizes and draws it in one
+ * pass; the chained helpers below allocate an intermediate image per step and are kept for simple one-off stacks.
+ */
 final class ImageComposition {
     static final Color COMBINED_BACKGROUND = Color.WHITE;
     static final Color LABEL_BORDER = Color.RED;
@@ -96,4 +101,157 @@ final class ImageComposition {
         g.dispose();
         return bordered;
     }
+
+    /**
+     * Layout of a composed view, worked out from the source image sizes before any pixel is drawn: groups of images
+     * stacked top to bottom, each inside a solid border, with background gaps between images and between groups.
+     * Empty groups and {@code null} images are skipped. The result looks exactly like {@link #withBorder},
+     * {@link #stackMany} and {@link #stackImagesVertically} chained together, but {@link #render()} allocates only
+     * the target image and {@link #paint(Graphics2D)} can draw straight into any graphics.
+     */
+    static final class Plan {
+        record Placement(BufferedImage image, int x, int y, Color border, int thickness) {
+            int outerWidth() {
+                return image.getWidth() + thickness * 2;
+            }
+
+            int outerHeight() {
+                return image.getHeight() + thickness * 2;
+            }
+        }
+
+        private final List<Placement> placements;
+        private final int width;
+        private final int height;
+        private final Color background;
+
+        private Plan(List<Placement> placements, int width, int height, Color background) {
+            this.placements = placements;
+            this.width = width;
+            this.height = height;
+            this.background = background;
+        }
+
+        /** Starts a plan whose groups are {@code groupGap} pixels apart on {@code background}. */
+        static Builder builder(int groupGap, Color background) {
+            return new Builder(groupGap, background);
+        }
+
+        int width() {
+            return width;
+        }
+
+        int height() {
+            return height;
+        }
+
+        boolean isEmpty() {
+            return placements.isEmpty();
+        }
+
+        List<Placement> placements() {
+            return placements;
+        }
+
+        /**
+         * The composed view in a single newly allocated image; {@code null} when there is nothing to draw. The image
+         * is {@link BufferedImage#TYPE_BYTE_GRAY} when every source is gray and every colour neutral, and RGB as soon
+         * as anything in colour is composited.
+         */
+        BufferedImage render() {
+            if (isEmpty()) {
+                return null;
+            }
+            int type = isGray() ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+            BufferedImage output = new BufferedImage(width, height, type);
+            Graphics2D g = output.createGraphics();
+            try {
+                paint(g);
+            } finally {
+                g.dispose();
+            }
+            return output;
+        }
+
+        boolean isGray() {
+            if (!isNeutral(background)) {
+                return false;
+            }
+            for (Placement placement : placements) {
+                if (placement.image().getType() != BufferedImage.TYPE_BYTE_GRAY
+                    || (placement.thickness() > 0 && !isNeutral(placement.border()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isNeutral(Color color) {
+            return color.getRed() == color.getGreen() && color.getGreen() == color.getBlue();
+        }
+
+        /** Draws the view with its top-left corner at the origin of {@code g}. */
+        void paint(Graphics2D g) {
+            if (isEmpty()) {
+                return;
+            }
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+            for (Placement placement : placements) {
+                int t = placement.thickness();
+                g.setColor(placement.border());
+                if (placement.image().getColorModel().hasAlpha()) {
+                    // Translucent pixels show the border colour underneath, as with addBorder.
+                    g.fillRect(placement.x(), placement.y(), placement.outerWidth(), placement.outerHeight());
+                } else if (t > 0) {
+                    int w = placement.outerWidth();
+                    int h = placement.outerHeight();
+                    g.fillRect(placement.x(), placement.y(), w, t);
+                    g.fillRect(placement.x(), placement.y() + h - t, w, t);
+                    g.fillRect(placement.x(), placement.y() + t, t, h - t * 2);
+                    g.fillRect(placement.x() + w - t, placement.y() + t, t, h - t * 2);
+                }
+                g.drawImage(placement.image(), placement.x() + t, placement.y() + t, null);
+            }
+        }
+
+        static final class Builder {
+            private final int groupGap;
+            private final Color background;
+            private final List<Placement> placements = new ArrayList<>();
+            private int width;
+            private int height;
+
+            private Builder(int groupGap, Color background) {
+                this.groupGap = groupGap;
+                this.background = background;
+            }
+
+            /** Adds {@code images} below everything added so far, {@code gap} pixels apart, each in a border. */
+            Builder group(List<BufferedImage> images, Color border, int thickness, int gap) {
+                if (images == null) {
+                    return this;
+                }
+                boolean first = true;
+                for (BufferedImage image : images) {
+                    if (image == null) {
+                        continue;
+                    }
+                    if (!placements.isEmpty()) {
+                        height += first ? groupGap : gap;
+                    }
+                    first = false;
+                    Placement placement = new Placement(image, 0, height, border, thickness);
+                    placements.add(placement);
+                    width = Math.max(width, placement.outerWidth());
+                    height += placement.outerHeight();
+                }
+                return this;
+            }
+
+            Plan build() {
+                return new Plan(Collections.unmodifiableList(new ArrayList<>(placements)), width, height, background);
+            }
+        }
+    }
 }
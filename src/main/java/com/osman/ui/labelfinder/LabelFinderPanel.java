@@ -1,14 +1,18 @@
 package com.osman.ui.labelfinder;
 
-import com.osman.PackSlipExtractor;
-import com.osman.PdfLinker;
 import com.osman.config.PreferencesStore;
+import com.osman.core.order.IndexedOrderManifest;
 import com.osman.core.order.OrderContribution;
-import com.osman.core.order.OrderContributionReader;
+import com.osman.core.order.OrderExpectationStore;
 import com.osman.core.order.OrderQuantitiesManifest;
+import com.osman.core.pdf.PackingSlipIndex;
+import com.osman.core.pdf.PackingSlipIndexer;
+import com.osman.core.pdf.PdfArrivalWatcher;
+import com.osman.core.pdf.PdfDocumentPool;
+import com.osman.core.pdf.PdfIndexCache;
+import com.osman.core.pdf.ShippingLabelExtractor;
 import com.osman.logging.AppLogger;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
@@ -24,9 +28,11 @@ import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,21 +40,26 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.FileHandler;
@@ -58,8 +69,10 @@ import java.util.stream.Stream;
 
 public class LabelFinderPanel extends JPanel {
     private static final Logger LOGGER = AppLogger.get();
-    private static final Path SCAN_LOG_PATH = Paths.get("label-finder-scans.log");
-    private static final Logger SCAN_LOGGER = createScanLogger();
+    private static final int LABEL_INDEX_THREADS = Integer.getInteger("labelIndexThreads",
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    private static final int LABEL_PAGE_WORKERS =
+        Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, LABEL_INDEX_THREADS));
     static final ExecutorService RENDER_EXECUTOR = Executors.newFixedThreadPool(
         Math.max(2, Runtime.getRuntime().availableProcessors()),
         r -> {
@@ -73,25 +86,33 @@ public class LabelFinderPanel extends JPanel {
         return t;
     });
 
-    private static Logger createScanLogger() {
-        Logger logger = Logger.getLogger("com.osman.labelfinder.scan");
-        logger.setUseParentHandlers(false);
-        logger.setLevel(Level.INFO);
-        if (logger.getHandlers().length > 0) {
-            return logger;
-        }
-        try {
-            Path parent = SCAN_LOG_PATH.getParent();
-            if (parent != null) {
-                Files.createDirectories(parent);
+    /**
+     * Per-scan log written to {@code -DscanLog} (default {@code label-finder-scans.log} in the working directory).
+     * The file is only opened on the first logged scan, so code that merely loads the panel class leaves no log.
+     */
+    private static final class ScanLog {
+        static final Logger LOGGER = create(Paths.get(System.getProperty("scanLog", "label-finder-scans.log")));
+
+        private static Logger create(Path path) {
+            Logger logger = Logger.getLogger("com.osman.labelfinder.scan");
+            logger.setUseParentHandlers(false);
+            logger.setLevel(Level.INFO);
+            if (logger.getHandlers().length > 0) {
+                return logger;
             }
-            FileHandler handler = new FileHandler(SCAN_LOG_PATH.toString(), true);
-            handler.setFormatter(new SimpleFormatter());
-            logger.addHandler(handler);
-        } catch (IOException ex) {
-            LOGGER.log(Level.WARNING, "Failed to initialize scan log file", ex);
+            try {
+                Path parent = path.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                FileHandler handler = new FileHandler(path.toString(), true);
+                handler.setFormatter(new SimpleFormatter());
+                logger.addHandler(handler);
+            } catch (IOException ex) {
+                LabelFinderPanel.LOGGER.log(Level.WARNING, "Failed to initialize scan log file", ex);
+            }
+            return logger;
         }
-        return logger;
     }
 
     private final JTextField orderIdField;
@@ -109,6 +130,10 @@ public class LabelFinderPanel extends JPanel {
     private final DualImagePanel photoView;
     private final Map<String, OrderExpectation> expectationIndex;
     private final Map<String, OrderQuantitiesManifest.OrderSummary> manifestOrderSummaries;
+    private final List<IndexedOrderManifest> indexedManifests;
+    /** Order JSON contributions under the base folders, kept current while {@code -DexpectationWatch} (default on). */
+    private final OrderExpectationStore expectationStore = new OrderExpectationStore(
+        Boolean.parseBoolean(System.getProperty("expectationWatch", "true")), this::onOrderJsonChanged);
     private final Map<String, OrderScanState> scanProgress;
     private final LabelFinderWorkflow workflow;
     private volatile String activeOrderId;
@@ -116,19 +141,71 @@ public class LabelFinderPanel extends JPanel {
     private int bannerExpected;
     private String bannerOrderId;
     private File baseDir;
-    private Map<String, PageGroup> labelGroups;
-    private Map<String, PageGroup> slipGroups;
-    private List<File> slipCandidates;
-    private final Map<File, Map<String, List<Integer>>> slipPageCache;
+    /** Replaced by a fresh immutable map as label PDFs are indexed, so it may be partial while indexing runs. */
+    private volatile Map<String, PageGroup> labelGroups = Map.of();
+    /** Label PDFs {@link #labelGroups} was built from, in merge order: the last file listing an order wins. */
+    private volatile List<File> labelFiles = List.of();
+    private final PdfIndexCache pdfIndexCache = PdfIndexCache.shared();
+    /**
+     * Indexes label PDFs on {@code -DlabelIndexThreads} threads (default up to 4). Each parses the pages of a large
+     * file on its share of the processors, so the open documents stay near one per processor in total.
+     */
+    private final LabelIndexBuilder labelIndexBuilder = new LabelIndexBuilder(
+        pdf -> pdfIndexCache.labels(pdf, LABEL_PAGE_WORKERS).orderPages(), LABEL_INDEX_THREADS);
+    private SwingWorker<Void, IndexProgress> indexWorker;
+    /** Label PDFs indexed so far while {@link #indexWorker} runs; both 0 when no indexing is in progress. */
+    private volatile int indexedLabelFiles;
+    private volatile int totalLabelFiles;
+    private final PackingSlipIndexer slipIndexer = new PackingSlipIndexer(pdfIndexCache);
+    private volatile PackingSlipIndex slipIndex = PackingSlipIndex.EMPTY;
+    /**
+     * Indexes label and slip PDFs that land or are replaced after a full index, once they have been unchanged for
+     * {@code -DpdfStableMillis} (default 2000). On while {@code -DlivePdfWatch} (default on).
+     */
+    private final PdfArrivalWatcher pdfWatcher = Boolean.parseBoolean(System.getProperty("livePdfWatch", "true"))
+        ? new PdfArrivalWatcher(Duration.ofMillis(Long.getLong("pdfStableMillis", 2000)),
+            new PdfArrivalWatcher.Listener() {
+                @Override
+                public void pdfsChanged(List<Path> ready, List<Path> removed) {
+                    onPdfsChanged(ready, removed);
+                }
+
+                @Override
+                public void pdfsChanging(List<Path> pdfs) {
+                    onPdfsChanging(pdfs);
+                }
+            })
+        : null;
+    /** Serializes live updates with full indexing; guards the fields below. */
+    private final Object liveIndexLock = new Object();
+    private long fullIndexTicket;
+    private boolean fullIndexRunning;
+    /** PDF changes seen while a full index runs, applied once it finishes. */
+    private final Set<Path> deferredReadyPdfs = new LinkedHashSet<>();
+    private final Set<Path> deferredRemovedPdfs = new LinkedHashSet<>();
+    private volatile ShippingLabelExtractor.FallbackStats lastLabelFallback;
     private LabelLocation currentLabelLocation;
     private BufferedImage combinedPreview;
+    /** The render behind {@link #combinedPreview}, so a sharper one can replace it. */
+    private RenderedOrder shownPreview;
     private List<BufferedImage> labelPreviewPages;
     private List<BufferedImage> slipPreviewPages;
     private PageGroup labelPrintSource;
     private PageGroup slipPrintSource;
-    private static final int FIND_DELAY_MS = 500;
-    private static final int PREVIEW_DPI = 75;
-    private static final int PRINT_DPI = 150;
+    static final int FIND_DELAY_MS = 500;
+    /**
+     * Scans first show the order at {@code -DpreviewFastDpi} (default 50), then at the DPI that fills the width of
+     * the preview on this screen, at most {@code -DpreviewMaxDpi} (default 300), rendered in the background.
+     */
+    static final int PREVIEW_FAST_DPI = Integer.getInteger("previewFastDpi", 50);
+    private static final int PREVIEW_MIN_DPI = 40;
+    private static final int PREVIEW_MAX_DPI = Integer.getInteger("previewMaxDpi", 300);
+    /** How far the shown DPI may be from the target before the preview is rendered again. */
+    private static final double PREVIEW_DPI_TOLERANCE = 0.15;
+    private static final int PREVIEW_BORDER = 8;
+    private static final int PREVIEW_GAP = 12;
+    static final int PRINT_DPI = 150;
+    private static final Pattern PACKING_SLIP_NAME = Pattern.compile("(?i)^Amazon(?:\\s*\\(\\d+\\))?\\.pdf$");
 
     private static final String PREF_WIN_BOUNDS       = "winBounds";        // x,y,w,h
     private static final String PREF_DIVIDER_LOCATION = "dividerLocation";  // JSplitPane divider
@@ -138,7 +215,27 @@ public class LabelFinderPanel extends JPanel {
     private static final int MAX_SCAN_HISTORY = 500;
     private final Deque<String> scanHistory = new ArrayDeque<>();
     private final Map<String, CompletedOrderInfo> completedOrders = new LinkedHashMap<>();
-    private final Map<String, RenderedOrder> renderCache;
+    /** Finished previews by order ID, bounded by {@code -DorderPreviewCacheMb} (default 128). */
+    private final ByteBoundedCache<String, RenderedOrder> renderCache;
+    /** Renders the next {@code -DprefetchOrders} (default 3) orders in label order after each scan. */
+    private final OrderPrefetcher prefetcher;
+    /** Single-order print PDFs built after indexing when {@code -DprintArtifacts=true}. */
+    private final PrintArtifactCache printArtifacts = PrintArtifactCache.fromSystemProperties(PRINT_DPI);
+    /** Photos decoded at the size of the photo view, off the EDT. */
+    private final PhotoThumbnailCache photoThumbnails = PhotoThumbnailCache.fromSystemProperties();
+    /** Bumped for every photo view request so late decodes of an earlier selection are dropped. */
+    private long photoRequest;
+    private final Timer photoResizeTimer;
+    /** Last preview DPI and device scale worked out for the preview viewport; prefetches render at these. */
+    private volatile int previewTargetDpi = 75;
+    private volatile double previewScale = 1.0;
+    /** Bumped for every scan and refinement so stale background refinements are dropped. */
+    private final AtomicLong previewRefinement = new AtomicLong();
+    private final Timer previewResizeTimer;
+    private final JScrollPane combinedScroll;
+    /** Order IDs sorted by label PDF and page, the order packers usually scan in. */
+    private volatile List<String> labelOrder = List.of();
+    private long scanStartedNanos;
     private SwingWorker<RenderedOrder, Void> activeRenderWorker;
     private final Timer findDelayTimer;
 
@@ -169,6 +266,14 @@ public class LabelFinderPanel extends JPanel {
             findSingleOrderFlow();
         });
         findDelayTimer.setRepeats(false);
+        photoResizeTimer = new Timer(250, event -> loadSelectedPhotos(true));
+        photoResizeTimer.setRepeats(false);
+        previewResizeTimer = new Timer(250, event -> {
+            if (shownPreview != null) {
+                refinePreview(activeOrderId, shownPreview);
+            }
+        });
+        previewResizeTimer.setRepeats(false);
         JPanel controlsRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
         controlsRow.setBorder(new EmptyBorder(6, 6, 6, 6));
         controlsRow.add(new JLabel("Order ID:"));
@@ -200,7 +305,7 @@ public class LabelFinderPanel extends JPanel {
         photoPanel.setBorder(new EmptyBorder(0, 0, 8, 0));
         photoPanel.add(photosScroll, BorderLayout.CENTER);
         combinedPanel = new ImagePanel();
-        JScrollPane combinedScroll = new JScrollPane(combinedPanel);
+        combinedScroll = new JScrollPane(combinedPanel);
         combinedScroll.setBorder(BorderFactory.createTitledBorder("Shipping Label & Slip"));
         JPanel leftPanel = new JPanel(new BorderLayout(8, 8));
         leftPanel.add(photoPanel, BorderLayout.NORTH);
@@ -208,12 +313,28 @@ public class LabelFinderPanel extends JPanel {
         photoView = new DualImagePanel();
         expectationIndex = new ConcurrentHashMap<>();
         manifestOrderSummaries = new ConcurrentHashMap<>();
+        indexedManifests = new CopyOnWriteArrayList<>();
         scanProgress = new ConcurrentHashMap<>();
-        slipCandidates = new ArrayList<>();
-        slipPageCache = new ConcurrentHashMap<>();
-        renderCache = new ConcurrentHashMap<>();
+        renderCache = new ByteBoundedCache<>(Long.getLong("orderPreviewCacheMb", 128) * 1024L * 1024L,
+            RenderedOrder::estimateBytes, null);
+        prefetcher = new OrderPrefetcher(this::renderOrderForPrefetch, renderCache::put,
+            Integer.getInteger("prefetchOrders", 3));
         activeRenderWorker = null;
         activeOrderId = null;
+        combinedScroll.getViewport().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                // A wider preview needs the pages at a higher DPI to stay sharp.
+                previewResizeTimer.restart();
+            }
+        });
+        photoView.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                // A larger view may need the photos decoded at a finer step.
+                photoResizeTimer.restart();
+            }
+        });
         JScrollPane photoViewScroll = new JScrollPane(photoView);
         mainSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftPanel, photoViewScroll);
 
@@ -263,6 +384,7 @@ public class LabelFinderPanel extends JPanel {
     private void clearAllViews() {
         activeOrderId = null;
         combinedPreview = null;
+        shownPreview = null;
         combinedPanel.setImage(null);
         photoView.setImages(null, null);
         photosModel.clear();
@@ -288,6 +410,7 @@ public class LabelFinderPanel extends JPanel {
             return;
         }
         combinedPreview = null;
+        shownPreview = null;
         combinedPanel.setImage(null);
         labelPreviewPages = new ArrayList<>();
         slipPreviewPages = new ArrayList<>();
@@ -334,6 +457,7 @@ public class LabelFinderPanel extends JPanel {
         }
         baseDir = getPrimaryBaseFolder();
         ProgressSnapshot snapshot = preserveProgress ? snapshotProgressCaches() : null;
+        cancelIndexWorker();
         cancelActiveRenderWorker();
         clearAllViews();
         workflow.clearPhotoIndex();
@@ -346,20 +470,45 @@ public class LabelFinderPanel extends JPanel {
         String scanningMessage = (workflow.baseFolders().size() == 1) ? "Scanning folder..." : "Scanning folders...";
         setStatusMessage(scanningMessage);
         final ProgressSnapshot progressSnapshot = snapshot;
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+        SwingWorker<Void, IndexProgress> worker = new SwingWorker<>() {
+            private boolean scanningOpened;
+
             @Override
             protected Void doInBackground() throws Exception {
                 workflow.rebuildPhotoIndex();
-                buildLabelAndSlipIndices();
+                // Expectations and slips first, so orders are fully usable as soon as their labels are indexed.
                 rebuildExpectations();
+                buildLabelAndSlipIndices(this::isCancelled, this::publish);
                 return null;
             }
             @Override
+            protected void process(List<IndexProgress> chunks) {
+                if (isCancelled() || indexWorker != this) {
+                    return;
+                }
+                IndexProgress latest = chunks.get(chunks.size() - 1);
+                setStatusMessage(String.format(Locale.ROOT, "Indexing labels: %d of %d PDFs, %d labels found%s",
+                    latest.indexedFiles(), latest.totalFiles(), latest.labels(),
+                    scanningOpened || latest.labels() == 0 ? "..." : "; indexed orders can be scanned now."));
+                if (!scanningOpened && latest.labels() > 0) {
+                    // Let packers start on the orders indexed so far while the rest finish.
+                    scanningOpened = true;
+                    restoreProgressSnapshot(progressSnapshot);
+                    orderIdField.setEnabled(true);
+                    findButton.setEnabled(true);
+                    orderIdField.requestFocusInWindow();
+                }
+            }
+            @Override
             protected void done() {
+                if (isCancelled() || indexWorker != this) {
+                    return;
+                }
+                indexWorker = null;
                 try {
                     get();
-                    int photoCount = workflow.photoIndexSize();
-                    setStatusMessage("Indexed " + labelGroups.size() + " labels, " + slipGroups.size() + " packing slips, " + photoCount + " photos.");
+                    setStatusMessage(indexedStatusMessage());
+                    startPrintArtifacts();
                 }
                 catch (Exception e) {
                     Throwable cause = e.getCause() != null ? e.getCause() : e;
@@ -367,7 +516,11 @@ public class LabelFinderPanel extends JPanel {
                     JOptionPane.showMessageDialog(frame, "Error while scanning:\n" + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 }
                 finally {
-                    restoreProgressSnapshot(progressSnapshot);
+                    indexedLabelFiles = 0;
+                    totalLabelFiles = 0;
+                    if (!scanningOpened) {
+                        restoreProgressSnapshot(progressSnapshot);
+                    }
                     setUIEnabled(true);
                     orderIdField.requestFocusInWindow();
                     orderIdField.selectAll();
@@ -375,6 +528,7 @@ public class LabelFinderPanel extends JPanel {
             }
         }
         ;
+        indexWorker = worker;
         worker.execute();
     }
     private void chooseBaseFolder() {
@@ -442,10 +596,26 @@ public class LabelFinderPanel extends JPanel {
         showUnscannedButton.setEnabled(enabled);
         photosList.setEnabled(enabled);
     }
-    private void buildLabelAndSlipIndices() {
-        labelGroups = new HashMap<>();
-        slipGroups = new HashMap<>();
-        slipCandidates = new ArrayList<>();
+    /**
+     * Indexes packing slips, then label PDFs in parallel. {@code labelGroups} is replaced with each partial label
+     * index as it is published, and {@code progress} gets the label progress after every file. The base folders are
+     * watched from the start, and PDFs that land meanwhile are indexed as soon as this finishes.
+     */
+    private void buildLabelAndSlipIndices(BooleanSupplier cancelled, Consumer<IndexProgress> progress)
+        throws IOException {
+        long ticket = beginFullIndex();
+        try {
+            indexLabelsAndSlips(cancelled, progress);
+        } finally {
+            endFullIndex(ticket, cancelled.getAsBoolean());
+        }
+    }
+
+    private void indexLabelsAndSlips(BooleanSupplier cancelled, Consumer<IndexProgress> progress)
+        throws IOException {
+        labelGroups = Map.of();
+        labelFiles = List.of();
+        slipIndex = PackingSlipIndex.EMPTY;
         if (!hasBaseFolders()) {
             setStatusMessage("Base folder invalid.");
             return;
@@ -464,37 +634,277 @@ public class LabelFinderPanel extends JPanel {
                 return;
             }
         }
-        Pattern packingSlipName = Pattern.compile("(?i)^Amazon(?:\\s*\\(\\d+\\))?\\.pdf$");
-        Pattern packingSlipFolder = Pattern.compile("(?i)^(?:\\d{2}\\s*[PRWB]|mix).*");
-        for (File pdf : pdfs) {
-            String name = pdf.getName();
-            File parent = pdf.getParentFile();
-            String parentName = parent != null ? parent.getName() : "";
-            String lowerName = name.toLowerCase(Locale.ROOT);
-            boolean looksLikePackingSlip = packingSlipName.matcher(name).matches()
-                || lowerName.startsWith("amazon");
-            if (looksLikePackingSlip) {
-                slipCandidates.add(pdf);
-                Map<String, List<Integer>> cached = slipPageCache.get(pdf);
-                if (cached != null) {
-                    for (Map.Entry<String, List<Integer>> e : cached.entrySet()) {
-                        slipGroups.put(e.getKey(), new PageGroup(pdf, new ArrayList<>(e.getValue())));
-                    }
-                }
+        ShippingLabelExtractor.FallbackStats fallbackBefore = ShippingLabelExtractor.fallbackStats();
+        List<Path> slipPdfs = new ArrayList<>();
+        List<File> labelPdfs = new ArrayList<>();
+        // In walk order, so live updates can put a changed file back in the same merge position.
+        for (File pdf : LabelIndexBuilder.inWalkOrder(pdfs, workflow.baseFolders())) {
+            if (isPackingSlipPdf(pdf)) {
+                slipPdfs.add(pdf.toPath());
             }
             else {
-                try {
-                    Map<String, List<Integer>> m = PdfLinker.buildOrderIdToPagesMap(pdf);
-                    for (Map.Entry<String, List<Integer>> e : m.entrySet()) {
-                        labelGroups.put(e.getKey(), new PageGroup(pdf, new ArrayList<>(e.getValue())));
+                labelPdfs.add(pdf);
+            }
+        }
+        try {
+            PackingSlipIndex slips = slipIndexer.index(slipPdfs);
+            if (cancelled.getAsBoolean()) {
+                throw new InterruptedIOException("Indexing cancelled");
+            }
+            slipIndex = slips;
+            for (ShippingLabelExtractor.ScanFailure failure : slipIndex.failures()) {
+                LOGGER.warning("Could not index packing slip " + failure.pdfPath() + ": " + failure.message());
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            setStatusMessage("Error indexing packing slips: " + e.getMessage());
+            return;
+        }
+        totalLabelFiles = labelPdfs.size();
+        long started = System.nanoTime();
+        Map<String, PageGroup> labels;
+        try {
+            labels = labelIndexBuilder.build(labelPdfs, cancelled, (done, total, pdf, partial) -> {
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+                indexedLabelFiles = done;
+                if (partial != null) {
+                    labelGroups = partial;
+                }
+                progress.accept(new IndexProgress(done, total, labelGroups.size()));
+            });
+        } finally {
+            lastLabelFallback = ShippingLabelExtractor.fallbackStats().since(fallbackBefore);
+        }
+        if (cancelled.getAsBoolean()) {
+            throw new InterruptedIOException("Indexing cancelled");
+        }
+        labelGroups = labels;
+        labelFiles = List.copyOf(labelPdfs);
+        LOGGER.info(String.format(Locale.ROOT, "Indexed %d label PDFs (%d labels) in %d ms.",
+            labelPdfs.size(), labelGroups.size(), (System.nanoTime() - started) / 1_000_000));
+        labelOrder = sortedLabelOrder(labelGroups);
+        setStatusMessage(indexedStatusMessage());
+    }
+
+    static boolean isPackingSlipPdf(File pdf) {
+        String name = pdf.getName();
+        return PACKING_SLIP_NAME.matcher(name).matches() || name.toLowerCase(Locale.ROOT).startsWith("amazon");
+    }
+
+    static List<String> sortedLabelOrder(Map<String, PageGroup> labels) {
+        return labels.entrySet().stream()
+            .sorted(Comparator
+                .comparing((Map.Entry<String, PageGroup> e) -> e.getValue().file().getPath())
+                .thenComparing(e -> e.getValue().pages().isEmpty() ? 0 : e.getValue().pages().get(0)))
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    /** Starts watching the base folders and holds live updates back until the matching {@link #endFullIndex}. */
+    private long beginFullIndex() {
+        long ticket;
+        synchronized (liveIndexLock) {
+            ticket = ++fullIndexTicket;
+            fullIndexRunning = true;
+            deferredReadyPdfs.clear();
+            deferredRemovedPdfs.clear();
+        }
+        if (pdfWatcher != null) {
+            List<Path> roots = new ArrayList<>();
+            for (File root : workflow.baseFolders()) {
+                if (root != null && root.isDirectory()) {
+                    roots.add(root.toPath().toAbsolutePath());
+                }
+            }
+            try {
+                pdfWatcher.watch(roots);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Cannot watch base folders for new PDFs; refresh to pick them up.", ex);
+            }
+        }
+        return ticket;
+    }
+
+    /** Applies the PDF changes held back during the full index, unless it was cancelled or superseded. */
+    private void endFullIndex(long ticket, boolean cancelled) {
+        synchronized (liveIndexLock) {
+            if (ticket != fullIndexTicket) {
+                return;
+            }
+            fullIndexRunning = false;
+            List<Path> ready = new ArrayList<>(deferredReadyPdfs);
+            List<Path> removed = new ArrayList<>(deferredRemovedPdfs);
+            deferredReadyPdfs.clear();
+            deferredRemovedPdfs.clear();
+            if (!cancelled) {
+                applyPdfChanges(ready, removed);
+            }
+        }
+    }
+
+    /**
+     * Called on the watcher thread as soon as PDFs start changing or are deleted. Closes their pooled documents right
+     * away rather than when they are re-indexed, so an open handle never keeps a carrier from replacing a label PDF.
+     */
+    private void onPdfsChanging(List<Path> pdfs) {
+        for (Path path : pdfs) {
+            try {
+                PdfDocumentPool.shared().invalidate(path.toFile());
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Could not close pooled document " + path, ex);
+            }
+        }
+    }
+
+    /** Called on the watcher thread with PDFs that finished landing or were removed. */
+    private void onPdfsChanged(List<Path> ready, List<Path> removed) {
+        synchronized (liveIndexLock) {
+            if (fullIndexRunning) {
+                deferredReadyPdfs.addAll(ready);
+                deferredRemovedPdfs.addAll(removed);
+                return;
+            }
+            applyPdfChanges(ready, removed);
+        }
+    }
+
+    /**
+     * Indexes the {@code ready} PDFs and swaps fresh label and slip maps in, rebuilt from the files still indexed
+     * outside any {@code ready} or {@code removed} path plus the ready ones, so an order a removed file listed keeps
+     * its pages in another file that lists it. Cached renders and print artifacts of touched files are dropped
+     * first, so nothing stale is shown or printed. Runs with {@link #liveIndexLock} held.
+     */
+    private void applyPdfChanges(Collection<Path> ready, Collection<Path> removed) {
+        Set<Path> touched = new LinkedHashSet<>();
+        ready.forEach(path -> touched.add(path.toAbsolutePath()));
+        removed.forEach(path -> touched.add(path.toAbsolutePath()));
+        if (touched.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<File> newLabels = new ArrayList<>();
+        List<Path> newSlips = new ArrayList<>();
+        for (Path path : ready) {
+            File pdf = path.toFile().getAbsoluteFile();
+            if (isPackingSlipPdf(pdf)) {
+                newSlips.add(pdf.toPath());
+            } else {
+                newLabels.add(pdf);
+            }
+        }
+        for (Path path : touched) {
+            PdfPageRenderCache.invalidate(path);
+            try {
+                PdfDocumentPool.shared().invalidate(path.toFile());
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Could not close pooled document " + path, ex);
+            }
+        }
+        printArtifacts.invalidate(touched);
+
+        Set<String> changedOrders = new LinkedHashSet<>();
+        try {
+            List<File> indexedLabels = labelFiles;
+            boolean labelsTouched = !newLabels.isEmpty()
+                || indexedLabels.stream().anyMatch(file -> isUnderAny(file, touched));
+            if (labelsTouched) {
+                List<File> files = new ArrayList<>();
+                for (File file : indexedLabels) {
+                    if (!isUnderAny(file, touched)) {
+                        files.add(file);
                     }
                 }
-                catch (IOException ignored) {
+                files.addAll(newLabels);
+                files = LabelIndexBuilder.inWalkOrder(files, workflow.baseFolders());
+                // Unchanged files come from the index cache, so orders a removed file listed fall back to the
+                // remaining file that lists them instead of disappearing.
+                Map<String, PageGroup> current = labelGroups;
+                Map<String, PageGroup> next = labelIndexBuilder.build(files, () -> false, null);
+                Set<String> labelOrders = new LinkedHashSet<>(current.keySet());
+                labelOrders.addAll(next.keySet());
+                for (String orderId : labelOrders) {
+                    if (!Objects.equals(current.get(orderId), next.get(orderId))) {
+                        changedOrders.add(orderId);
+                    }
                 }
+                labelGroups = next;
+                labelFiles = List.copyOf(files);
+                labelOrder = sortedLabelOrder(next);
+            }
+
+            PackingSlipIndex slips = slipIndex;
+            boolean slipsTouched = !newSlips.isEmpty()
+                || slips.files().stream().anyMatch(file -> isUnderAny(file.toFile(), touched));
+            if (slipsTouched) {
+                List<Path> slipFiles = new ArrayList<>();
+                for (Path file : slips.files()) {
+                    if (!isUnderAny(file.toFile(), touched)) {
+                        slipFiles.add(file);
+                    }
+                }
+                slipFiles.addAll(newSlips);
+                PackingSlipIndex updated = slipIndexer.index(slipFiles);
+                Set<String> slipOrders = new LinkedHashSet<>(slips.byOrder().keySet());
+                slipOrders.addAll(updated.byOrder().keySet());
+                for (String orderId : slipOrders) {
+                    if (!Objects.equals(slips.find(orderId), updated.find(orderId))) {
+                        changedOrders.add(orderId);
+                    }
+                }
+                slipIndex = updated;
             }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Could not index new PDFs " + ready + "; refresh to pick them up.", ex);
         }
+        renderCache.removeIf((orderId, order) -> changedOrders.contains(orderId)
+            || isUnderAny(order.labelSource(), touched) || isUnderAny(order.slipSource(), touched));
+        LOGGER.info(String.format(Locale.ROOT,
+            "Indexed %d new or replaced PDFs (%d removed), %d orders changed, in %d ms.", ready.size(), removed.size(), changedOrders.size(), (System.nanoTime() - started) / 1_000_000));
+    }
+
+    private static boolean isUnderAny(PageGroup group, Collection<Path> paths) {
+        return group != null && isUnderAny(group.file(), paths);
+    }
+
+    private static boolean isUnderAny(File file, Collection<Path> paths) {
+        if (file == null) {
+            return false;
+        }
+        Path path = file.toPath().toAbsolutePath();
+        for (Path candidate : paths) {
+            if (path.startsWith(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void cancelIndexWorker() {
+        SwingWorker<Void, IndexProgress> worker = indexWorker;
+        indexWorker = null;
+        if (worker != null) {
+            worker.cancel(true);
+        }
+        indexedLabelFiles = 0;
+        totalLabelFiles = 0;
+    }
+
+    /** Label indexing progress published by the refresh worker. */
+    private record IndexProgress(int indexedFiles, int totalFiles, int labels) {
+    }
+
+    private String indexedStatusMessage() {
         int photoCount = workflow.photoIndexSize();
-        setStatusMessage("Indexed " + labelGroups.size() + " labels, " + slipGroups.size() + " packing slips, " + photoCount + " photos.");
+        String status = "Indexed " + labelGroups.size() + " labels, " + slipIndex.size() + " packing slips, " + photoCount + " photos.";
+        ShippingLabelExtractor.FallbackStats fallback = lastLabelFallback;
+        if (fallback != null && fallback.pagesTried() > 0) {
+            status += String.format(" Image-only label pages read: %d of %d (%.0f%%).",
+                fallback.hits(), fallback.pagesTried(), fallback.hitRate() * 100);
+        }
+        return status;
     }
     private void onFind() {
         if (findDelayTimer.isRunning()) {
@@ -511,8 +921,12 @@ public class LabelFinderPanel extends JPanel {
             orderIdField.requestFocusInWindow();
             return;
         }
+        ScanLookup lookup = lookUpScan(scanInput, labelGroups, slipIndex, workflow, renderCache, prefetcher);
+        previewRefinement.incrementAndGet();
+        scanStartedNanos = System.nanoTime();
         activeOrderId = orderId;
         combinedPreview = null;
+        shownPreview = null;
         combinedPanel.setImage(null);
         printButton.setEnabled(false);
         labelPreviewPages = new ArrayList<>();
@@ -521,9 +935,12 @@ public class LabelFinderPanel extends JPanel {
         slipPrintSource = null;
         currentLabelLocation = null;
 
-        PageGroup labelGroup = (labelGroups != null) ? labelGroups.get(orderId) : null;
-        if (labelGroup == null) {
-            String missingLabel = "Order " + orderId + ": shipping label not found.";
+        if (lookup.labelGroup() == null) {
+            scanStartedNanos = 0;
+            String missingLabel = (totalLabelFiles > 0)
+                ? "Order " + orderId + ": shipping label not indexed yet (" + indexedLabelFiles + " of "
+                    + totalLabelFiles + " label PDFs done)."
+                : "Order " + orderId + ": shipping label not found.";
             setStatusMessage(missingLabel);
             showScanError("Missing Shipping Label", missingLabel);
             logScanEvent(orderId, scanInput, false, false, 0, 0, null, false, false, missingLabel);
@@ -533,12 +950,48 @@ public class LabelFinderPanel extends JPanel {
             return;
         }
 
-        PageGroup cachedSlipGroup = (slipGroups != null) ? slipGroups.get(orderId) : null;
-
         photoView.setImages(null, null);
-        List<Path> photoMatches = workflow.collectPhotosFromIndex(orderId);
-        int photoMatchCount = photoMatches.size();
-        displayPhotosForOrder(orderId, photoMatches, false);
+        int photoMatchCount = lookup.photos().size();
+        displayPhotosForOrder(orderId, lookup.photos(), false);
+
+        RenderedOrder cached = lookup.cached();
+        if (cached != null) {
+            applyRenderedOrder(orderId, scanInput, cached, photoMatchCount, true, true);
+            // Prefetched at the DPI of the time, or left at the fast pass by an earlier scan.
+            refinePreview(orderId, cached);
+            return;
+        }
+
+        setStatusMessage("Rendering order " + orderId + "...");
+        startOrderRendering(orderId, scanInput, lookup.labelGroup(), lookup.slipGroup(), photoMatchCount);
+    }
+
+    /**
+     * What a scan resolves to before anything is shown. {@code labelGroup} is {@code null} when the order has no
+     * indexed label; the slip, photos and cached preview are then not looked up.
+     */
+    record ScanLookup(PageGroup labelGroup, PageGroup slipGroup, List<Path> photos, RenderedOrder cached) {
+    }
+
+    /**
+     * The part of a find that does not touch Swing: stops prefetching for the previous scan and looks up the order's
+     * label, packing slip, photos and cached preview, telling {@code prefetcher} whether the preview was cached. The
+     * scan latency harness calls this as well, so it measures the same lookups.
+     */
+    static ScanLookup lookUpScan(ScanInput scanInput,
+                                 Map<String, PageGroup> labels,
+                                 PackingSlipIndex slips,
+                                 LabelFinderWorkflow workflow,
+                                 ByteBoundedCache<String, RenderedOrder> renderCache,
+                                 OrderPrefetcher prefetcher) {
+        String orderId = scanInput.orderId();
+        prefetcher.cancel();
+        PageGroup labelGroup = labels.get(orderId);
+        if (labelGroup == null) {
+            return new ScanLookup(null, null, List.of(), null);
+        }
+        PageGroup slipGroup = toPageGroup(slips.find(orderId));
+        List<Path> photos = workflow.collectPhotosFromIndex(orderId);
 
         long lookupStart = System.nanoTime();
         RenderedOrder cached = renderCache.get(orderId);
@@ -547,13 +1000,8 @@ public class LabelFinderPanel extends JPanel {
             orderId,
             (lookupEnd - lookupStart) / 1_000_000.0,
             cached != null ? "HIT" : "MISS"));
-        if (cached != null) {
-            applyRenderedOrder(orderId, scanInput, cached, photoMatchCount, true, true);
-            return;
-        }
-
-        setStatusMessage("Rendering order " + orderId + "...");
-        startOrderRendering(orderId, scanInput, labelGroup, cachedSlipGroup, photoMatchCount);
+        prefetcher.recordScan(orderId, cached != null);
+        return new ScanLookup(labelGroup, slipGroup, photos, cached);
     }
 
     private void startOrderRendering(String orderId,
@@ -562,92 +1010,18 @@ public class LabelFinderPanel extends JPanel {
                                      PageGroup cachedSlipGroup,
                                      int photoMatchCount) {
         cancelActiveRenderWorker();
+        int fastDpi = Math.min(PREVIEW_FAST_DPI, previewTargetDpi);
+        double scale = previewScale;
+        PackingSlipIndex slips = slipIndex;
         SwingWorker<RenderedOrder, Void> worker = new SwingWorker<>() {
             private boolean slipFound = false;
 
             @Override
             protected RenderedOrder doInBackground() throws Exception {
-                CompletableFuture<List<BufferedImage>> labelFuture = CompletableFuture.supplyAsync(() ->
-                    PdfPageRenderCache.renderPages(labelGroup.file(), labelGroup.pages(), PREVIEW_DPI, true)
-                , RENDER_EXECUTOR);
-                CompletableFuture<PageGroup> slipGroupFuture = CompletableFuture.supplyAsync(() -> {
-                    try {
-                        return resolveSlipGroup(orderId, cachedSlipGroup);
-                    } catch (IOException ex) {
-                        throw new CompletionException(ex);
-                    }
-                }, RENDER_EXECUTOR);
-                List<BufferedImage> labelPages;
-                PageGroup slipGroupResolved;
-                try {
-                    labelPages = labelFuture.get();
-                    if (isCancelled()) {
-                        slipGroupFuture.cancel(true);
-                        return null;
-                    }
-                    slipGroupResolved = slipGroupFuture.get();
-                } catch (InterruptedException e) {
-                    labelFuture.cancel(true);
-                    slipGroupFuture.cancel(true);
-                    Thread.currentThread().interrupt();
-                    return null;
-                } catch (ExecutionException e) {
-                    labelFuture.cancel(true);
-                    slipGroupFuture.cancel(true);
-                    Throwable cause = e.getCause();
-                    if (cause instanceof MissingPackingSlipException missing) {
-                        throw missing;
-                    }
-                    if (cause instanceof IOException io) {
-                        throw io;
-                    }
-                    if (cause instanceof RuntimeException runtime) {
-                        throw runtime;
-                    }
-                    if (cause instanceof Error error) {
-                        throw error;
-                    }
-                    throw new RuntimeException(cause);
-                }
-                if (slipGroupResolved == null || slipGroupResolved.pages() == null || slipGroupResolved.pages().isEmpty()) {
-                    throw new MissingPackingSlipException(orderId);
-                }
-                slipFound = true;
-                if (isCancelled()) {
-                    return null;
-                }
-                List<BufferedImage> slipPages = PdfPageRenderCache.renderPages(slipGroupResolved.file(), slipGroupResolved.pages(), PREVIEW_DPI, true);
-                if (isCancelled()) {
-                    return null;
-                }
-                BufferedImage labelImg = ImageComposition.stackMany(
-                    ImageComposition.withBorder(labelPages, ImageComposition.LABEL_BORDER, 8),
-                    12,
-                    ImageComposition.COMBINED_BACKGROUND
-                );
-                BufferedImage slipImg = ImageComposition.stackMany(
-                    ImageComposition.withBorder(slipPages, ImageComposition.SLIP_BORDER, 8),
-                    12,
-                    ImageComposition.COMBINED_BACKGROUND
-                );
-                BufferedImage combined = ImageComposition.stackImagesVertically(
-                    labelImg,
-                    slipImg,
-                    12,
-                    ImageComposition.COMBINED_BACKGROUND
-                );
-                Integer firstPage = (labelGroup.pages() != null && !labelGroup.pages().isEmpty()) ? labelGroup.pages().get(0) : null;
-                LabelLocation location = (firstPage != null) ? new LabelLocation(labelGroup.file(), firstPage) : null;
-                PageGroup labelSnapshot = snapshotPageGroup(labelGroup);
-                PageGroup slipSnapshot = snapshotPageGroup(slipGroupResolved);
-                return new RenderedOrder(
-                    Collections.unmodifiableList(new ArrayList<>(labelPages)),
-                    Collections.unmodifiableList(new ArrayList<>(slipPages)),
-                    combined,
-                    location,
-                    labelSnapshot,
-                    slipSnapshot
-                );
+                RenderedOrder render = renderFastPreview(orderId, labelGroup, cachedSlipGroup, slips, fastDpi, scale,
+                    this::isCancelled);
+                slipFound = render != null;
+                return render;
             }
 
             @Override
@@ -665,6 +1039,7 @@ public class LabelFinderPanel extends JPanel {
                         return;
                     }
                     applyRenderedOrder(orderId, scanInput, render, photoMatchCount, true, slipFound);
+                    refinePreview(orderId, render);
                 }
                 catch (CancellationException ignored) {
                 }
@@ -703,46 +1078,234 @@ public class LabelFinderPanel extends JPanel {
         worker.execute();
     }
 
-    private PageGroup resolveSlipGroup(String orderId, PageGroup cached) throws IOException {
-        if (cached != null && cached.pages() != null && !cached.pages().isEmpty()) {
-            return cached;
+    /**
+     * The first preview of a scanned order at {@code dpi}, rendering the label pages while the slip is resolved,
+     * falling back to {@code slips} when {@code slipGroup} has no pages. Returns {@code null} once {@code cancelled}
+     * turns true.
+     *
+     * @throws MissingPackingSlipException if the order has no packing slip pages
+     */
+    static RenderedOrder renderFastPreview(String orderId,
+                                           PageGroup labelGroup,
+                                           PageGroup slipGroup,
+                                           PackingSlipIndex slips,
+                                           int dpi,
+                                           double scale,
+                                           BooleanSupplier cancelled) throws Exception {
+        CompletableFuture<List<BufferedImage>> labelFuture = CompletableFuture.supplyAsync(() ->
+            PdfPageRenderCache.renderPreviewPages(labelGroup.file(), labelGroup.pages(), dpi)
+        , RENDER_EXECUTOR);
+        CompletableFuture<PageGroup> slipGroupFuture = CompletableFuture.supplyAsync(() ->
+            resolveSlipGroup(orderId, slipGroup, slips)
+        , RENDER_EXECUTOR);
+        List<BufferedImage> labelPages;
+        PageGroup slipGroupResolved;
+        try {
+            labelPages = labelFuture.get();
+            if (cancelled.getAsBoolean()) {
+                slipGroupFuture.cancel(true);
+                return null;
+            }
+            slipGroupResolved = slipGroupFuture.get();
+        } catch (InterruptedException e) {
+            labelFuture.cancel(true);
+            slipGroupFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            labelFuture.cancel(true);
+            slipGroupFuture.cancel(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof MissingPackingSlipException missing) {
+                throw missing;
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
         }
-        if (orderId == null || orderId.isBlank()) {
+        if (slipGroupResolved == null || slipGroupResolved.pages() == null || slipGroupResolved.pages().isEmpty()) {
+            throw new MissingPackingSlipException(orderId);
+        }
+        if (cancelled.getAsBoolean()) {
             return null;
         }
-        synchronized (slipPageCache) {
-            if (slipGroups == null) {
-                slipGroups = new HashMap<>();
+        List<BufferedImage> slipPages = PdfPageRenderCache.renderPreviewPages(slipGroupResolved.file(), slipGroupResolved.pages(), dpi);
+        if (cancelled.getAsBoolean()) {
+            return null;
+        }
+        return composeRenderedOrder(labelGroup, labelPages, slipGroupResolved, slipPages, dpi, scale);
+    }
+
+    private static RenderedOrder composeRenderedOrder(PageGroup labelGroup,
+                                                      List<BufferedImage> labelPages,
+                                                      PageGroup slipGroup,
+                                                      List<BufferedImage> slipPages,
+                                                      int dpi,
+                                                      double scale) {
+        int border = (int) Math.round(PREVIEW_BORDER * scale);
+        int gap = (int) Math.round(PREVIEW_GAP * scale);
+        BufferedImage combined = ImageComposition.Plan.builder(gap, ImageComposition.COMBINED_BACKGROUND)
+            .group(labelPages, ImageComposition.LABEL_BORDER, border, gap)
+            .group(slipPages, ImageComposition.SLIP_BORDER, border, gap)
+            .build()
+            .render();
+        Integer firstPage = (labelGroup.pages() != null && !labelGroup.pages().isEmpty()) ? labelGroup.pages().get(0) : null;
+        LabelLocation location = (firstPage != null) ? new LabelLocation(labelGroup.file(), firstPage) : null;
+        return new RenderedOrder(
+            Collections.unmodifiableList(new ArrayList<>(labelPages)),
+            Collections.unmodifiableList(new ArrayList<>(slipPages)),
+            combined,
+            location,
+            snapshotPageGroup(labelGroup),
+            snapshotPageGroup(slipGroup),
+            dpi,
+            scale
+        );
+    }
+
+    /**
+     * Renders {@code shown} again in the background at the DPI that fills the preview, and swaps it in if the order
+     * is still showing {@code shown} by then. Does nothing when {@code shown} is already close enough.
+     */
+    private void refinePreview(String orderId, RenderedOrder shown) {
+        if (orderId == null || shownPreview != shown
+            || !hasPages(shown.labelSource()) || !hasPages(shown.slipSource())) {
+            return;
+        }
+        double scale = deviceScale();
+        int dpi = previewDpiFor(shown, scale);
+        previewTargetDpi = dpi;
+        previewScale = scale;
+        if (!needsRefinement(shown, dpi, scale)) {
+            return;
+        }
+        long generation = previewRefinement.incrementAndGet();
+        PageGroup labelSource = shown.labelSource();
+        PageGroup slipSource = shown.slipSource();
+        CompletableFuture.supplyAsync(() ->
+            renderPreview(labelSource, slipSource, dpi, scale, () -> generation != previewRefinement.get())
+        , RENDER_EXECUTOR).whenComplete((refined, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                LOGGER.log(Level.FINE, "Could not refine the preview of order " + orderId, error);
+                return;
             }
-            PageGroup existing = slipGroups.get(orderId);
-            if (existing != null && existing.pages() != null && !existing.pages().isEmpty()) {
-                return existing;
+            if (refined == null || generation != previewRefinement.get()) {
+                return;
             }
-            if (slipCandidates == null || slipCandidates.isEmpty()) {
-                return null;
+            if (renderCache.containsKey(orderId)) {
+                // Not released after printing in the meantime.
+                renderCache.put(orderId, refined);
             }
-            for (File pdf : slipCandidates) {
-                if (pdf == null || !pdf.isFile()) {
-                    continue;
-                }
-                Map<String, List<Integer>> indexed = slipPageCache.get(pdf);
-                if (indexed == null) {
-                    indexed = PackSlipExtractor.indexOrderToPages(pdf);
-                    slipPageCache.put(pdf, indexed);
-                }
-                if (indexed == null || indexed.isEmpty()) {
-                    continue;
-                }
-                for (Map.Entry<String, List<Integer>> entry : indexed.entrySet()) {
-                    slipGroups.putIfAbsent(entry.getKey(), new PageGroup(pdf, new ArrayList<>(entry.getValue())));
-                }
-                PageGroup resolved = slipGroups.get(orderId);
-                if (resolved != null && resolved.pages() != null && !resolved.pages().isEmpty()) {
-                    return resolved;
-                }
+            if (orderId.equals(activeOrderId) && shownPreview == shown) {
+                showPreview(refined);
             }
-            return slipGroups.get(orderId);
+        }));
+    }
+
+    /** Whether {@code shown} is far enough from {@code dpi} or {@code scale} to be rendered again. */
+    static boolean needsRefinement(RenderedOrder shown, int dpi, double scale) {
+        return Math.abs(dpi - shown.dpi()) > dpi * PREVIEW_DPI_TOLERANCE || scale != shown.scale();
+    }
+
+    /** DPI at which the widest page of {@code render} fills the width of the preview viewport in device pixels. */
+    private int previewDpiFor(RenderedOrder render, double scale) {
+        int widest = 0;
+        for (BufferedImage page : render.labelPages()) {
+            widest = Math.max(widest, page.getWidth());
+        }
+        for (BufferedImage page : render.slipPages()) {
+            widest = Math.max(widest, page.getWidth());
+        }
+        int viewWidth = combinedScroll.getViewport().getExtentSize().width;
+        if (widest <= 0 || viewWidth <= 0 || render.dpi() <= 0) {
+            return previewTargetDpi;
         }
+        double pixels = (viewWidth - 2 * PREVIEW_BORDER) * scale;
+        int dpi = (int) Math.floor(pixels * render.dpi() / widest);
+        return Math.max(PREVIEW_MIN_DPI, Math.min(PREVIEW_MAX_DPI, dpi));
+    }
+
+    /** Device pixels per logical pixel of the screen showing the preview, e.g. 2 on a Retina display. */
+    private double deviceScale() {
+        GraphicsConfiguration configuration = combinedPanel.getGraphicsConfiguration();
+        return configuration == null ? 1.0 : configuration.getDefaultTransform().getScaleX();
+    }
+
+    private void showPreview(RenderedOrder render) {
+        shownPreview = render;
+        combinedPreview = render.combinedPreview();
+        labelPreviewPages = new ArrayList<>(render.labelPages());
+        slipPreviewPages = new ArrayList<>(render.slipPages());
+        combinedPanel.setImage(combinedPreview, render.scale());
+    }
+
+    /** Same preview as a real scan, built off the EDT for {@link OrderPrefetcher}; {@code null} if incomplete. */
+    private RenderedOrder renderOrderForPrefetch(String orderId, BooleanSupplier cancelled) {
+        Map<String, PageGroup> labels = labelGroups;
+        PageGroup labelGroup = (labels != null) ? labels.get(orderId) : null;
+        PageGroup slipGroup = toPageGroup(slipIndex.find(orderId));
+        return renderPreview(labelGroup, slipGroup, previewTargetDpi, previewScale, cancelled);
+    }
+
+    /**
+     * Renders and composes the preview of one order on the calling thread; {@code null} if either side has no pages
+     * or {@code cancelled} turns true between the label and slip pages.
+     */
+    static RenderedOrder renderPreview(PageGroup labelGroup,
+                                       PageGroup slipGroup,
+                                       int dpi,
+                                       double scale,
+                                       BooleanSupplier cancelled) {
+        if (!hasPages(labelGroup) || !hasPages(slipGroup)) {
+            return null;
+        }
+        List<BufferedImage> labelPages = PdfPageRenderCache.renderPreviewPages(labelGroup.file(), labelGroup.pages(), dpi);
+        if (cancelled.getAsBoolean()) {
+            return null;
+        }
+        List<BufferedImage> slipPages = PdfPageRenderCache.renderPreviewPages(slipGroup.file(), slipGroup.pages(), dpi);
+        if (cancelled.getAsBoolean() || labelPages.isEmpty() || slipPages.isEmpty()) {
+            return null;
+        }
+        return composeRenderedOrder(labelGroup, labelPages, slipGroup, slipPages, dpi, scale);
+    }
+
+    private void schedulePrefetch(String scannedOrderId) {
+        boolean anyExpected = !expectationIndex.isEmpty() || !indexedManifests.isEmpty();
+        prefetchAfter(scannedOrderId, labelOrder, orderId -> !completedOrders.containsKey(orderId)
+            && (!anyExpected || hasExpectation(orderId)), renderCache, prefetcher);
+    }
+
+    /** Prefetches the orders after {@code scannedOrderId} in {@code labelOrder} that are {@code open} and not cached. */
+    static void prefetchAfter(String scannedOrderId,
+                              List<String> labelOrder,
+                              Predicate<String> open,
+                              ByteBoundedCache<String, RenderedOrder> renderCache,
+                              OrderPrefetcher prefetcher) {
+        List<String> next = OrderPrefetcher.predict(labelOrder, scannedOrderId,
+            orderId -> open.test(orderId) && !renderCache.containsKey(orderId), prefetcher.depth());
+        prefetcher.prefetch(next);
+    }
+
+    private static PageGroup resolveSlipGroup(String orderId, PageGroup cached, PackingSlipIndex slips) {
+        if (cached != null && cached.pages() != null && !cached.pages().isEmpty()) {
+            return cached;
+        }
+        if (orderId == null || orderId.isBlank()) {
+            return null;
+        }
+        return toPageGroup(slips.find(orderId));
+    }
+
+    static PageGroup toPageGroup(PackingSlipIndex.SlipLocation location) {
+        return location == null ? null : new PageGroup(location.pdf().toFile(), new ArrayList<>(location.pages()));
     }
 
     private void applyRenderedOrder(String orderId,
@@ -758,11 +1321,17 @@ public class LabelFinderPanel extends JPanel {
         labelPreviewPages = new ArrayList<>(render.labelPages());
         slipPreviewPages = new ArrayList<>(render.slipPages());
         combinedPreview = render.combinedPreview();
+        shownPreview = render;
         currentLabelLocation = render.labelLocation();
         labelPrintSource = render.labelSource();
         slipPrintSource = render.slipSource();
 
-        combinedPanel.setImage(combinedPreview);
+        combinedPanel.setImage(combinedPreview, render.scale());
+        if (scanStartedNanos != 0) {
+            prefetcher.recordDisplay(System.nanoTime() - scanStartedNanos);
+            scanStartedNanos = 0;
+        }
+        schedulePrefetch(orderId);
         boolean hasPrintableContent = hasPrintableMaterial();
         printButton.setEnabled(hasPrintableContent);
 
@@ -891,7 +1460,7 @@ public class LabelFinderPanel extends JPanel {
         return hasPages(labelPrintSource) || hasPages(slipPrintSource);
     }
 
-    private boolean hasPages(PageGroup group) {
+    private static boolean hasPages(PageGroup group) {
         return group != null && group.pages() != null && !group.pages().isEmpty() && group.file() != null;
     }
     private void logScanEvent(String orderId,
@@ -952,11 +1521,12 @@ public class LabelFinderPanel extends JPanel {
             basePath,
             status
         );
-        SCAN_LOGGER.info(logMessage);
+        ScanLog.LOGGER.info(logMessage);
     }
     private void printCombined() {
         List<PageRenderSource> printSources = collectPrintPageSources();
         BufferedImage fallbackImage = printSources.isEmpty() ? combinedPreview : null;
+        List<Path> stripPhotos = livePhotoStrip(printSources);
         if (printSources.isEmpty() && fallbackImage == null) {
             setStatusMessage("Nothing to print.");
             return;
@@ -966,7 +1536,6 @@ public class LabelFinderPanel extends JPanel {
         job.setJobName("Shipping Label & Slip (4x6)");
         boolean landscape = determineLandscapeForPrint();
         PageFormat pf = create4x6PageFormat(job, landscape);
-        job.setPrintable(new PdfAndImagePrintable(printSources, fallbackImage, PRINT_DPI), pf);
 
         if (!job.printDialog()) {
             setStatusMessage("Print job canceled.");
@@ -976,10 +1545,10 @@ public class LabelFinderPanel extends JPanel {
         printButton.setEnabled(false);
         setStatusMessage("Printing...");
         final String orderId = activeOrderId;
-        submitPrintJob(job).whenComplete((success, throwable) -> SwingUtilities.invokeLater(() -> {
-            boolean printed = throwable == null && Boolean.TRUE.equals(success);
+        submitPrintJob(job, pf, printSources, fallbackImage, stripPhotos).whenComplete((outcome, throwable) -> SwingUtilities.invokeLater(() -> {
+            boolean printed = throwable == null && outcome != null;
             if (printed) {
-                setStatusMessage("Print job sent.");
+                setStatusMessage("Print job sent (" + outcome.describe() + ").");
                 releaseRenderedOrder(orderId, true);
             } else {
                 String message = (throwable != null && throwable.getCause() != null)
@@ -992,18 +1561,29 @@ public class LabelFinderPanel extends JPanel {
         }));
     }
 
-    private CompletableFuture<Boolean> submitPrintJob(PrinterJob job) {
+    private CompletableFuture<LabelPrintJob.Outcome> submitPrintJob(PrinterJob job,
+                                                                    PageFormat pf,
+                                                                    List<PageRenderSource> printSources,
+                                                                    BufferedImage fallbackImage,
+                                                                    List<Path> stripPhotos) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                job.print();
-                return Boolean.TRUE;
+                return LabelPrintJob.print(job, pf, printSources, lastPrintPage(fallbackImage, stripPhotos),
+                    PRINT_DPI);
             } catch (PrinterException ex) {
                 throw new CompletionException(ex);
             }
         }, PRINT_EXECUTOR);
     }
 
-    private PageGroup snapshotPageGroup(PageGroup group) {
+    /** The image printed after the PDF pages: {@code fallbackImage}, or else the photo strip if there is one. */
+    static BufferedImage lastPrintPage(BufferedImage fallbackImage, List<Path> stripPhotos) {
+        return (fallbackImage == null && !stripPhotos.isEmpty())
+            ? PrintArtifactCache.composePhotoStrip(stripPhotos, PRINT_DPI)
+            : fallbackImage;
+    }
+
+    private static PageGroup snapshotPageGroup(PageGroup group) {
         if (group == null) {
             return null;
         }
@@ -1011,14 +1591,81 @@ public class LabelFinderPanel extends JPanel {
         return new PageGroup(group.file(), pagesCopy);
     }
 
+    /**
+     * The pages to print for the shown order: its prebuilt print artifact when there is one for the same label and
+     * slip pages, otherwise the label and slip pages themselves.
+     */
     private List<PageRenderSource> collectPrintPageSources() {
+        return printSources(printArtifacts, activeOrderId, labelPrintSource, slipPrintSource);
+    }
+
+    /** The pages to print for {@code orderId}: its print artifact for these pages if built, else the pages themselves. */
+    static List<PageRenderSource> printSources(PrintArtifactCache artifacts,
+                                               String orderId,
+                                               PageGroup labelGroup,
+                                               PageGroup slipGroup) {
+        PrintArtifactCache.Artifact artifact = artifacts.find(orderId, labelGroup, slipGroup);
+        if (artifact != null) {
+            return artifact.sources();
+        }
+        return printSources(labelGroup, slipGroup);
+    }
+
+    /** The label pages then the slip pages, as printed when there is no print artifact for the order. */
+    static List<PageRenderSource> printSources(PageGroup labelGroup, PageGroup slipGroup) {
         List<PageRenderSource> sources = new ArrayList<>();
-        appendSources(sources, labelPrintSource);
-        appendSources(sources, slipPrintSource);
+        appendSources(sources, labelGroup);
+        appendSources(sources, slipGroup);
         return sources;
     }
 
-    private void appendSources(List<PageRenderSource> target, PageGroup group) {
+    /**
+     * Photos for the strip page composed at print time when photo strips are on and {@code printSources} did not come
+     * from an artifact, which already ends with its strip.
+     */
+    private List<Path> livePhotoStrip(List<PageRenderSource> printSources) {
+        return livePhotoStrip(printArtifacts, workflow, activeOrderId, printSources);
+    }
+
+    static List<Path> livePhotoStrip(PrintArtifactCache artifacts,
+                                     LabelFinderWorkflow workflow,
+                                     String orderId,
+                                     List<PageRenderSource> printSources) {
+        if (!artifacts.photoStrip() || printSources.isEmpty() || orderId == null) {
+            return List.of();
+        }
+        return artifacts.owns(printSources.get(0).file())
+            ? List.of()
+            : workflow.collectReadyDesignPhotos(orderId);
+    }
+
+    /** Queues print artifacts for every order not yet completed, in the order packers usually scan them. */
+    private void startPrintArtifacts() {
+        startPrintArtifacts(printArtifacts, labelOrder, labelGroups, slipIndex, workflow, completedOrders::containsKey);
+    }
+
+    static void startPrintArtifacts(PrintArtifactCache artifacts,
+                                    List<String> labelOrder,
+                                    Map<String, PageGroup> labels,
+                                    PackingSlipIndex slips,
+                                    LabelFinderWorkflow workflow,
+                                    Predicate<String> completed) {
+        if (!artifacts.enabled()) {
+            return;
+        }
+        List<PrintArtifactCache.Job> jobs = new ArrayList<>();
+        for (String orderId : labelOrder) {
+            if (completed.test(orderId)) {
+                continue;
+            }
+            List<Path> photos = artifacts.photoStrip() ? workflow.collectReadyDesignPhotos(orderId) : List.of();
+            jobs.add(new PrintArtifactCache.Job(orderId, snapshotPageGroup(labels.get(orderId)),
+                toPageGroup(slips.find(orderId)), photos));
+        }
+        artifacts.start(jobs);
+    }
+
+    private static void appendSources(List<PageRenderSource> target, PageGroup group) {
         if (!hasPages(group)) {
             return;
         }
@@ -1055,6 +1702,7 @@ public class LabelFinderPanel extends JPanel {
                                 OrderScanState stateForOrder) {
         List<PageRenderSource> printSources = collectPrintPageSources();
         BufferedImage fallbackImage = printSources.isEmpty() ? combinedPreview : null;
+        List<Path> stripPhotos = livePhotoStrip(printSources);
         if (printSources.isEmpty() && fallbackImage == null) {
             setStatusMessage("Nothing to print.");
             logScanEvent(orderId, scanInput, labelFound, slipFound, photoMatchCount, designMatchCount, scanUpdate, expectationMissing, false, "No printable content for scan.");
@@ -1067,15 +1715,14 @@ public class LabelFinderPanel extends JPanel {
         job.setJobName("Shipping Label & Slip (4x6) - Direct");
         boolean landscape = determineLandscapeForPrint();
         PageFormat pf = create4x6PageFormat(job, landscape);
-        job.setPrintable(new PdfAndImagePrintable(printSources, fallbackImage, PRINT_DPI), pf);
 
         setStatusMessage("Sending to printer...");
         orderIdField.setText("");
         orderIdField.requestFocusInWindow();
         printButton.setEnabled(false);
 
-        submitPrintJob(job).whenComplete((result, throwable) -> SwingUtilities.invokeLater(() -> {
-            boolean printed = throwable == null && Boolean.TRUE.equals(result);
+        submitPrintJob(job, pf, printSources, fallbackImage, stripPhotos).whenComplete((result, throwable) -> SwingUtilities.invokeLater(() -> {
+            boolean printed = throwable == null && result != null;
             String completionMessage = null;
             String errorMessage = null;
             if (printed) {
@@ -1128,25 +1775,56 @@ public class LabelFinderPanel extends JPanel {
         }));
     }
     void cleanup() {
+        photoResizeTimer.stop();
+        previewResizeTimer.stop();
+        previewRefinement.incrementAndGet();
+        cancelIndexWorker();
+        expectationStore.close();
+        if (pdfWatcher != null) {
+            pdfWatcher.close();
+        }
         cancelActiveRenderWorker();
     }
     private void renderSelectedPhotos() {
+        loadSelectedPhotos(false);
+    }
+    /**
+     * Shows the first two selected photos, decoded on the photo pool at the size of their tile in the view.
+     *
+     * @param keepShown whether to leave the current photos up until the new ones are ready, e.g. on resize
+     */
+    private void loadSelectedPhotos(boolean keepShown) {
+        long request = ++photoRequest;
         List<Path> selected = photosList.getSelectedValuesList();
         if (selected == null || selected.isEmpty()) {
             photoView.setImages(null, null);
             return;
         }
-        try {
-            BufferedImage a = ImageIO.read(selected.get(0).toFile());
-            BufferedImage b = selected.size() > 1 ? ImageIO.read(selected.get(1).toFile()) : null;
-            photoView.setImages(a, b);
-            if (selected.size() > 2) {
-                setStatusMessage("Only the first 2 selected photos are shown.");
-            }
-        }
-        catch (IOException ex) {
+        if (!keepShown) {
             photoView.setImages(null, null);
         }
+        if (selected.size() > 2 && !keepShown) {
+            setStatusMessage("Only the first 2 selected photos are shown.");
+        }
+        Path second = selected.size() > 1 ? selected.get(1) : null;
+        int tileWidth = Math.max(photoView.getWidth(), 400) / (second != null ? 2 : 1);
+        int tileHeight = Math.max(photoView.getHeight(), 400);
+        CompletableFuture<BufferedImage> a = photoThumbnails.load(selected.get(0), tileWidth, tileHeight);
+        CompletableFuture<BufferedImage> b = (second != null)
+            ? photoThumbnails.load(second, tileWidth, tileHeight)
+            : CompletableFuture.completedFuture(null);
+        a.thenCombine(b, (imageA, imageB) -> new BufferedImage[] {imageA, imageB})
+            .whenComplete((images, error) -> SwingUtilities.invokeLater(() -> {
+                if (request != photoRequest) {
+                    return;
+                }
+                if (error != null) {
+                    LOGGER.log(Level.FINE, "Could not load photos " + selected, error);
+                    photoView.setImages(null, null);
+                } else {
+                    photoView.setImages(images[0], images[1]);
+                }
+            }));
     }
     private void displayPhotosForOrder(String orderId, List<Path> matches, boolean preserveSelection) {
         List<Path> previouslySelected = preserveSelection ? new ArrayList<>(photosList.getSelectedValuesList()) : Collections.emptyList();
@@ -1257,15 +1935,17 @@ public class LabelFinderPanel extends JPanel {
         cancelActiveRenderWorker();
         expectationIndex.clear();
         manifestOrderSummaries.clear();
+        indexedManifests.clear();
         scanProgress.clear();
         completedOrders.clear();
         scanHistory.clear();
         bannerOrderId = null;
         updateProgressBanner(0, 0);
+        prefetcher.clear();
+        printArtifacts.clear();
         renderCache.clear();
         PdfPageRenderCache.clear();
-        slipPageCache.clear();
-        slipCandidates = new ArrayList<>();
+        slipIndex = PackingSlipIndex.EMPTY;
     }
     private ProgressSnapshot snapshotProgressCaches() {
         if (scanProgress.isEmpty() && completedOrders.isEmpty() && scanHistory.isEmpty()) {
@@ -1368,6 +2048,7 @@ public class LabelFinderPanel extends JPanel {
     private void rebuildExpectations() {
         expectationIndex.clear();
         manifestOrderSummaries.clear();
+        indexedManifests.clear();
         if (!hasBaseFolders()) {
             return;
         }
@@ -1375,25 +2056,24 @@ public class LabelFinderPanel extends JPanel {
         for (File root : workflow.baseFolders()) {
             manifestOrders.addAll(loadManifestOrders(root));
         }
+        List<Path> roots = new ArrayList<>();
         for (File root : workflow.baseFolders()) {
-            if (root == null || !root.isDirectory()) {
-                continue;
+            if (root != null && root.isDirectory()) {
+                roots.add(root.toPath());
             }
-            try (Stream<Path> stream = Files.walk(root.toPath(), 8)) {
-                stream.filter(Files::isRegularFile)
-                    .filter(LabelFinderPanel::isPotentialOrderJson)
-                    .forEach(path -> {
-                        OrderContribution contribution = OrderContributionReader.readFromFile(path.toFile());
-                        if (contribution == null) {
-                            return;
-                        }
-                        if (manifestOrders.contains(contribution.orderId())) {
-                            return;
-                        }
-                        registerContribution(contribution);
-                    });
+        }
+        try {
+            expectationStore.load(roots);
+        }
+        catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Could not load order JSON files: " + ex.getMessage(), ex);
+        }
+        for (String orderId : expectationStore.orderIds()) {
+            if (manifestOrders.contains(orderId) || findIndexedSummary(orderId) != null) {
+                continue;
             }
-            catch (IOException ignored) {
+            for (OrderContribution contribution : expectationStore.find(orderId)) {
+                registerContribution(contribution);
             }
         }
     }
@@ -1417,38 +2097,56 @@ public class LabelFinderPanel extends JPanel {
             return null;
         }
         OrderQuantitiesManifest.OrderSummary summary = manifestOrderSummaries.get(orderId);
+        if (summary == null) {
+            summary = findIndexedSummary(orderId);
+        }
         if (summary != null) {
             OrderExpectation expectation = buildExpectationFromSummary(summary);
             if (expectation != null && !expectation.isEmpty()) {
                 return expectation;
             }
         }
-        if (!hasBaseFolders()) {
-            return null;
-        }
+        return expectationFromStore(orderId);
+    }
+    /** The order's expectation from its JSON contributions alone; {@code null} when it has none. */
+    private OrderExpectation expectationFromStore(String orderId) {
         OrderExpectation expectation = new OrderExpectation(orderId);
-        for (File root : workflow.baseFolders()) {
-            if (root == null || !root.isDirectory()) {
+        for (OrderContribution contribution : expectationStore.find(orderId)) {
+            expectation.registerItem(contribution.orderItemId(), contribution.itemQuantity());
+        }
+        return expectation.isEmpty() ? null : expectation;
+    }
+    private void onOrderJsonChanged(Set<String> orderIds) {
+        SwingUtilities.invokeLater(() -> applyOrderJsonChanges(orderIds));
+    }
+    /**
+     * Brings the expectations of orders whose JSON files changed on disk up to date, including the progress of
+     * orders being scanned. Orders covered by a quantities manifest keep the manifest's numbers.
+     */
+    private void applyOrderJsonChanges(Set<String> orderIds) {
+        boolean progressChanged = false;
+        for (String orderId : orderIds) {
+            if (manifestOrderSummaries.containsKey(orderId) || findIndexedSummary(orderId) != null
+                || completedOrders.containsKey(orderId)) {
                 continue;
             }
-            try (Stream<Path> stream = Files.walk(root.toPath(), 8)) {
-                stream.filter(Files::isRegularFile)
-                    .filter(LabelFinderPanel::isPotentialOrderJson)
-                    .forEach(path -> {
-                        OrderContribution contribution = OrderContributionReader.readFromFile(path.toFile());
-                        if (contribution == null) {
-                            return;
-                        }
-                        if (!orderId.equals(contribution.orderId())) {
-                            return;
-                        }
-                        expectation.registerItem(contribution.orderItemId(), contribution.itemQuantity());
-                    });
+            OrderExpectation expectation = expectationFromStore(orderId);
+            if (expectation == null) {
+                expectationIndex.remove(orderId);
+                continue;
             }
-            catch (IOException ignored) {
+            expectationIndex.put(orderId, expectation);
+            OrderScanState state = scanProgress.get(orderId);
+            if (state != null) {
+                state.reconcileExpectation(expectation);
+                progressChanged = true;
             }
         }
-        return expectation.isEmpty() ? null : expectation;
+        if (progressChanged) {
+            int[] totals = calculateProgressTotals(scanProgress, completedOrders);
+            updateProgressBanner(totals[0], totals[1]);
+        }
+        LOGGER.fine(() -> "Order JSON changed for " + orderIds.size() + " order(s).");
     }
     private Set<String> loadManifestOrders(File root) {
         Set<String> coveredOrders = new LinkedHashSet<>();
@@ -1470,6 +2168,12 @@ public class LabelFinderPanel extends JPanel {
             if (path == null || !Files.isRegularFile(path)) {
                 continue;
             }
+            IndexedOrderManifest indexed = IndexedOrderManifest.openIfCurrent(path);
+            if (indexed != null) {
+                // Looked up per order on demand instead of being loaded up front.
+                indexedManifests.add(indexed);
+                continue;
+            }
             try {
                 OrderQuantitiesManifest manifest = OrderQuantitiesManifest.load(path);
                 for (OrderQuantitiesManifest.OrderSummary summary : manifest.orders()) {
@@ -1494,6 +2198,22 @@ public class LabelFinderPanel extends JPanel {
         }
         return coveredOrders;
     }
+    /**
+     * Whether {@code orderId} has quantity data, including orders of an indexed manifest, which only reach
+     * {@link #expectationIndex} once they are scanned.
+     */
+    private boolean hasExpectation(String orderId) {
+        return expectationIndex.containsKey(orderId) || findIndexedSummary(orderId) != null;
+    }
+    private OrderQuantitiesManifest.OrderSummary findIndexedSummary(String orderId) {
+        for (IndexedOrderManifest indexed : indexedManifests) {
+            OrderQuantitiesManifest.OrderSummary summary = indexed.find(orderId);
+            if (summary != null) {
+                return summary;
+            }
+        }
+        return null;
+    }
     private List<Path> ancestorManifestCandidates(File root) {
         List<Path> candidates = new ArrayList<>();
         File current = root;
@@ -1531,11 +2251,6 @@ public class LabelFinderPanel extends JPanel {
         }
         return expectation.isEmpty() ? null : expectation;
     }
-    private static boolean isPotentialOrderJson(Path path) {
-        String fileName = path.getFileName() != null ? path.getFileName().toString() : "";
-        String lower = fileName.toLowerCase(Locale.ROOT);
-        return lower.endsWith(".json") && !lower.equals(OrderQuantitiesManifest.DEFAULT_FILENAME);
-    }
     private ScanUpdate trackScanProgress(String orderId, String itemKey, String rawItemId) {
         CompletedOrderInfo archived = completedOrders.get(orderId);
         if (archived != null) {
@@ -1722,7 +2437,7 @@ public class LabelFinderPanel extends JPanel {
     private static String combineOrderAndItem(String orderId, String itemIdentifier) {
         return orderId + "^" + itemIdentifier;
     }
-    private ScanInput parseScanInput(String rawInput) {
+    static ScanInput parseScanInput(String rawInput) {
         if (rawInput == null) {
             return new ScanInput("", null, null);
         }
@@ -1860,7 +2575,7 @@ public class LabelFinderPanel extends JPanel {
         }
         return update.itemDisplay;
     }
-    private record ScanInput(String orderId, String rawItemId, String itemKey) {
+    record ScanInput(String orderId, String rawItemId, String itemKey) {
         ScanInput {
             orderId = (orderId == null) ? "" : orderId;
             rawItemId = (rawItemId == null || rawItemId.isBlank()) ? null : rawItemId;
@@ -2230,13 +2945,24 @@ public class LabelFinderPanel extends JPanel {
      */
     private static class ImagePanel extends JPanel {
         private BufferedImage image;
+        private double scale = 1.0;
         /**
          * Updates the image displayed on the panel and repaints.
          *
          * @param img image to display, or {@code null} to clear the panel
          */
         public void setImage(BufferedImage img) {
+            setImage(img, 1.0);
+        }
+        /**
+         * Updates the image displayed on the panel and repaints.
+         *
+         * @param img image to display, or {@code null} to clear the panel
+         * @param deviceScale image pixels per logical pixel, so a HiDPI image is drawn one pixel per device pixel
+         */
+        public void setImage(BufferedImage img, double deviceScale) {
             this.image = img;
+            this.scale = (deviceScale > 0) ? deviceScale : 1.0;
             revalidate();
             repaint();
         }
@@ -2245,18 +2971,26 @@ public class LabelFinderPanel extends JPanel {
          */
         @Override
         public Dimension getPreferredSize() {
-            return image == null ? new Dimension(900, 1200) : new Dimension(image.getWidth(), image.getHeight());
+            return image == null ? new Dimension(900, 1200) : new Dimension(logicalWidth(), logicalHeight());
         }
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
             if (image != null) {
-                int x = Math.max((getWidth() - image.getWidth()) / 2, 0);
-                int y = Math.max((getHeight() - image.getHeight()) / 2, 0);
+                int width = logicalWidth();
+                int height = logicalHeight();
+                int x = Math.max((getWidth() - width) / 2, 0);
+                int y = Math.max((getHeight() - height) / 2, 0);
                 ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-                g.drawImage(image, x, y, this);
+                g.drawImage(image, x, y, width, height, this);
             }
         }
+        private int logicalWidth() {
+            return (int) Math.ceil(image.getWidth() / scale);
+        }
+        private int logicalHeight() {
+            return (int) Math.ceil(image.getHeight() / scale);
+        }
     }
     /**
      * Panel capable of rendering up to two photos side by side while preserving aspect ratio.
@@ -25,9 +25,9 @@ final class LabelFinderWorkflow {
 
     private final List<File> baseFolders = new ArrayList<>();
     private final Set<String> photoRefreshInFlight = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /** Serializes index updates; lookups read {@link #photoIndex} without locking. */
     private final Object photoIndexLock = new Object();
-    private List<PhotoIndexEntry> photoIndex = new ArrayList<>();
-    private Set<Path> photoIndexPaths = new LinkedHashSet<>();
+    private volatile PhotoIndex photoIndex = PhotoIndex.EMPTY;
 
     List<File> baseFolders() {
         return Collections.unmodifiableList(baseFolders);
@@ -152,93 +152,54 @@ final class LabelFinderWorkflow {
         if (candidates == null || candidates.isEmpty()) {
             return Collections.emptyList();
         }
-        List<Path> newEntries = new ArrayList<>();
         synchronized (photoIndexLock) {
-            if (photoIndex == null) {
-                photoIndex = new ArrayList<>();
-            }
-            if (photoIndexPaths == null) {
-                photoIndexPaths = new LinkedHashSet<>();
-            }
+            PhotoIndex current = photoIndex;
+            LinkedHashSet<Path> newEntries = new LinkedHashSet<>();
             for (Path candidate : candidates) {
                 if (candidate == null) {
                     continue;
                 }
                 Path normalized = candidate.toAbsolutePath().normalize();
-                if (photoIndexPaths.add(normalized)) {
-                    photoIndex.add(new PhotoIndexEntry(normalized, normalized.getFileName().toString().toLowerCase(Locale.ROOT)));
+                if (!current.contains(normalized)) {
                     newEntries.add(normalized);
                 }
             }
             if (!newEntries.isEmpty()) {
-                photoIndex.sort(Comparator.comparing(PhotoIndexEntry::lowerName));
+                photoIndex = current.withAdded(newEntries);
             }
+            return new ArrayList<>(newEntries);
         }
-        return newEntries;
     }
 
     List<Path> collectPhotosFromIndex(String orderId) {
         if (orderId == null || orderId.isBlank()) {
             return Collections.emptyList();
         }
-        String needle = orderId.toLowerCase(Locale.ROOT);
-        synchronized (photoIndexLock) {
-            if (photoIndex == null || photoIndex.isEmpty()) {
-                return Collections.emptyList();
-            }
-            List<Path> matches = new ArrayList<>();
-            for (PhotoIndexEntry entry : photoIndex) {
-                if (entry.lowerName().contains(needle)) {
-                    matches.add(entry.path());
-                }
-            }
-            return matches;
-        }
+        return photoIndex.matching(orderId.toLowerCase(Locale.ROOT));
     }
 
     List<Path> collectAllPhotosFromIndex() {
-        synchronized (photoIndexLock) {
-            if (photoIndex == null || photoIndex.isEmpty()) {
-                return Collections.emptyList();
-            }
-            List<Path> out = new ArrayList<>(photoIndex.size());
-            for (PhotoIndexEntry entry : photoIndex) {
-                out.add(entry.path());
-            }
-            return out;
-        }
+        return photoIndex.all();
     }
 
     List<Path> collectReadyDesignPhotos(String orderId) {
         if (orderId == null || orderId.isBlank()) {
             return Collections.emptyList();
         }
-        String needle = "(" + orderId.toLowerCase(Locale.ROOT) + ")";
-        synchronized (photoIndexLock) {
-            if (photoIndex == null || photoIndex.isEmpty()) {
-                return Collections.emptyList();
-            }
-            List<Path> out = new ArrayList<>();
-            for (PhotoIndexEntry entry : photoIndex) {
-                if (!entry.lowerName().contains(needle)) {
-                    continue;
-                }
-                Path path = entry.path();
-                String fileName = path.getFileName().toString();
-                boolean isXn = XN_READY_NAME.matcher(fileName).matches();
-                boolean inReadyDir = isReadyDesignPath(path);
-                if (isXn || inReadyDir) {
-                    out.add(path);
-                }
+        List<Path> out = new ArrayList<>();
+        for (Path path : photoIndex.matching("(" + orderId.toLowerCase(Locale.ROOT) + ")")) {
+            String fileName = path.getFileName().toString();
+            boolean isXn = XN_READY_NAME.matcher(fileName).matches();
+            boolean inReadyDir = isReadyDesignPath(path);
+            if (isXn || inReadyDir) {
+                out.add(path);
             }
-            return out;
         }
+        return out;
     }
 
     int photoIndexSize() {
-        synchronized (photoIndexLock) {
-            return photoIndex == null ? 0 : photoIndex.size();
-        }
+        return photoIndex.size();
     }
 
     void rebuildPhotoIndex() throws IOException {
@@ -257,19 +218,9 @@ final class LabelFinderWorkflow {
                     .forEach(p -> seen.add(p.toAbsolutePath().normalize()));
             }
         }
-        List<PhotoIndexEntry> indexed = new ArrayList<>(seen.size());
-        LinkedHashSet<Path> pathSet = new LinkedHashSet<>(seen.size());
-        for (Path path : seen) {
-            Path normalized = path.toAbsolutePath().normalize();
-            if (pathSet.add(normalized)) {
-                String lower = normalized.getFileName().toString().toLowerCase(Locale.ROOT);
-                indexed.add(new PhotoIndexEntry(normalized, lower));
-            }
-        }
-        indexed.sort(Comparator.comparing(PhotoIndexEntry::lowerName));
+        PhotoIndex indexed = PhotoIndex.of(seen);
         synchronized (photoIndexLock) {
             photoIndex = indexed;
-            photoIndexPaths = pathSet;
         }
     }
 
@@ -317,11 +268,7 @@ final class LabelFinderWorkflow {
 
     void clearPhotoIndex() {
         synchronized (photoIndexLock) {
-            photoIndex = new ArrayList<>();
-            photoIndexPaths = new LinkedHashSet<>();
+            photoIndex = PhotoIndex.EMPTY;
         }
     }
-
-    private record PhotoIndexEntry(Path path, String lowerName) {
-    }
 }
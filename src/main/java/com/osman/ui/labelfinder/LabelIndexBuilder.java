@@ -0,0 +1,179 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.logging.AppLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds the order ID to label page index from many label PDFs on a bounded pool.
+ * <p>
+ * Files are indexed concurrently but merged as if one after another in the given order, so an order listed in
+ * several PDFs maps to the last one, exactly like a sequential build. After each file the listener gets the progress
+ * and, at most every {@link #PUBLISH_INTERVAL_MS} ms and always for the last file, an immutable snapshot of what has
+ * been indexed so far, which can already be used to look orders up. Unreadable files are skipped.
+ */
+final class LabelIndexBuilder {
+    static final long PUBLISH_INTERVAL_MS = 250;
+
+    private static final Logger LOGGER = AppLogger.get();
+
+    @FunctionalInterface
+    interface LabelSource {
+        /** 1-based label pages by order ID in {@code pdf}. */
+        Map<String, List<Integer>> orderPages(Path pdf) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * Called on the building thread after each file. {@code partial} is the index so far, or {@code null} when
+         * no snapshot is published for this file.
+         */
+        void onProgress(int indexedFiles, int totalFiles, File pdf, Map<String, PageGroup> partial);
+    }
+
+    private final LabelSource source;
+    private final int workers;
+
+    LabelIndexBuilder(LabelSource source, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.source = source;
+        this.workers = workers;
+    }
+
+    /**
+     * Indexes {@code pdfs}. Stops with an {@link InterruptedIOException} when the calling thread is interrupted or
+     * {@code cancelled} turns true; in-flight files are abandoned.
+     */
+    Map<String, PageGroup> build(List<File> pdfs, BooleanSupplier cancelled, Listener listener) throws IOException {
+        List<File> files = new ArrayList<>(new LinkedHashSet<>(pdfs));
+        if (files.isEmpty()) {
+            return Map.of();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, files.size()), r -> {
+            Thread t = new Thread(r, "LabelIndex-Worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Result> completion = new ExecutorCompletionService<>(pool);
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                int position = i;
+                File pdf = files.get(i);
+                completion.submit(() -> new Result(position, pdf, indexOne(pdf)));
+            }
+            Map<String, PageGroup> merged = new HashMap<>();
+            Map<String, Integer> owners = new HashMap<>();
+            long lastPublish = 0;
+            for (int done = 1; done <= files.size(); done++) {
+                Result result = take(completion, cancelled);
+                for (Map.Entry<String, List<Integer>> e : result.orderPages().entrySet()) {
+                    Integer owner = owners.get(e.getKey());
+                    if (owner == null || owner < result.position()) {
+                        owners.put(e.getKey(), result.position());
+                        merged.put(e.getKey(), new PageGroup(result.pdf(), new ArrayList<>(e.getValue())));
+                    }
+                }
+                if (listener != null) {
+                    long now = System.nanoTime();
+                    boolean publish = done == files.size()
+                        || now - lastPublish >= TimeUnit.MILLISECONDS.toNanos(PUBLISH_INTERVAL_MS);
+                    if (publish) {
+                        lastPublish = now;
+                    }
+                    listener.onProgress(done, files.size(), result.pdf(),
+                        publish ? Collections.unmodifiableMap(new HashMap<>(merged)) : null);
+                }
+            }
+            return Collections.unmodifiableMap(merged);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * {@code files} in the order a full index walks them: by the first of {@code roots} each file is under (files
+     * under none come last), then by path within it. A live update that orders its files this way merges them
+     * exactly as a refresh would, so a replaced PDF keeps its place instead of overriding the files after it.
+     */
+    static List<File> inWalkOrder(Collection<File> files, List<File> roots) {
+        List<Path> rootPaths = new ArrayList<>(roots.size());
+        for (File root : roots) {
+            if (root != null) {
+                rootPaths.add(root.getAbsoluteFile().toPath());
+            }
+        }
+        Comparator<File> order = Comparator
+            .comparingInt((File file) -> rootIndex(file.getAbsoluteFile().toPath(), rootPaths))
+            .thenComparing(file -> file.getAbsoluteFile().toPath());
+        List<File> sorted = new ArrayList<>(new LinkedHashSet<>(files));
+        sorted.sort(order);
+        return sorted;
+    }
+
+    private static int rootIndex(Path file, List<Path> roots) {
+        for (int i = 0; i < roots.size(); i++) {
+            if (file.startsWith(roots.get(i))) {
+                return i;
+            }
+        }
+        return roots.size();
+    }
+
+    private Map<String, List<Integer>> indexOne(File pdf) {
+        try {
+            Map<String, List<Integer>> pages = source.orderPages(pdf.toPath());
+            return pages == null ? Map.of() : pages;
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.FINE, "Could not index label PDF " + pdf, ex);
+            return Map.of();
+        }
+    }
+
+    private static Result take(CompletionService<Result> completion, BooleanSupplier cancelled) throws IOException {
+        try {
+            while (true) {
+                if (cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Label indexing cancelled");
+                }
+                Future<Result> next = completion.poll(100, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    return next.get();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Label indexing cancelled");
+        } catch (ExecutionException ex) {
+            throw new IOException("Failed to index label PDFs: " + ex.getCause(), ex.getCause());
+        }
+    }
+
+    private record Result(int position, File pdf, Map<String, List<Integer>> orderPages) {
+    }
+}
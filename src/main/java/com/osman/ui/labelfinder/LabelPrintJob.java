@@ -0,0 +1,165 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.config.PreferencesStore;
+import com.osman.logging.AppLogger;
+
+import javax.print.PrintService;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterAbortException;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Prints label and slip pages, as vector PDF by default and rasterized at the print DPI for printers that cannot
+ * handle that.
+ * <p>
+ * Raster printing is used when {@code -DlabelPrintMode=raster} is set or the printer is listed in the
+ * {@value #PREF_RASTER_PRINTERS} preference. A vector job that fails before its first page is spooled is retried
+ * once as raster and the printer is added to that preference, so the next job goes straight to raster. A job the
+ * user cancelled, or one that fails after pages went out, is not retried: that would print those pages twice.
+ */
+final class LabelPrintJob {
+    static final String PREF_RASTER_PRINTERS = "rasterPrinters";
+
+    private static final Logger LOGGER = AppLogger.get();
+
+    enum Mode { VECTOR, RASTER }
+
+    /**
+     * @param firstPageMillis from starting the job until the first page was painted for the printer
+     */
+    record Outcome(Mode mode, String printer, int pages, long firstPageMillis, long totalMillis, boolean fellBack) {
+        String describe() {
+            return String.format(Locale.ROOT, "%s, first page %d ms, %d ms total%s",
+                mode.name().toLowerCase(Locale.ROOT), firstPageMillis, totalMillis,
+                fellBack ? ", vector failed" : "");
+        }
+    }
+
+    private LabelPrintJob() {
+    }
+
+    static Outcome print(PrinterJob job,
+                         PageFormat pf,
+                         List<PageRenderSource> sources,
+                         BufferedImage fallback,
+                         int rasterDpi) throws PrinterException {
+        PrintService service = job.getPrintService();
+        String printer = (service != null) ? service.getName() : "";
+        Mode mode = modeFor(printer, System.getProperty("labelPrintMode"),
+            PreferencesStore.global().getString(PREF_RASTER_PRINTERS).orElse(""));
+        return print(job, pf, mode, printer, sources, fallback, rasterDpi, LabelPrintJob::rememberRasterPrinter);
+    }
+
+    static Outcome print(PrinterJob job, PageFormat pf, Mode mode, String printer,
+                         List<PageRenderSource> sources, BufferedImage fallback, int rasterDpi,
+                         Consumer<String> rasterPrinters) throws PrinterException {
+        if (mode == Mode.VECTOR) {
+            TimedPrintable vector = new TimedPrintable(printable(Mode.VECTOR, sources, fallback, rasterDpi));
+            try {
+                return run(job, pf, vector, Mode.VECTOR, printer, false);
+            } catch (PrinterAbortException ex) {
+                throw ex;
+            } catch (PrinterException ex) {
+                if (vector.pages > 0) {
+                    throw ex;
+                }
+                LOGGER.warning("Vector print on '" + printer + "' failed, retrying as raster: " + ex.getMessage());
+                rasterPrinters.accept(printer);
+            }
+            return run(job, pf, Mode.RASTER, printer, sources, fallback, rasterDpi, true);
+        }
+        return run(job, pf, Mode.RASTER, printer, sources, fallback, rasterDpi, false);
+    }
+
+    static Mode modeFor(String printer, String forcedMode, String rasterPrinters) {
+        if ("raster".equalsIgnoreCase(forcedMode)) {
+            return Mode.RASTER;
+        }
+        if ("vector".equalsIgnoreCase(forcedMode)) {
+            return Mode.VECTOR;
+        }
+        return parsePrinters(rasterPrinters).contains(printer) ? Mode.RASTER : Mode.VECTOR;
+    }
+
+    static Printable printable(Mode mode, List<PageRenderSource> sources, BufferedImage fallback, int rasterDpi) {
+        return (mode == Mode.VECTOR)
+            ? new VectorPdfPrintable(sources, fallback)
+            : new PdfAndImagePrintable(sources, fallback, rasterDpi);
+    }
+
+    static Outcome run(PrinterJob job, PageFormat pf, Mode mode, String printer,
+                       List<PageRenderSource> sources, BufferedImage fallback, int rasterDpi,
+                       boolean fellBack) throws PrinterException {
+        return run(job, pf, new TimedPrintable(printable(mode, sources, fallback, rasterDpi)), mode, printer, fellBack);
+    }
+
+    private static Outcome run(PrinterJob job, PageFormat pf, TimedPrintable timed, Mode mode, String printer,
+                               boolean fellBack) throws PrinterException {
+        job.setPrintable(timed, pf);
+        timed.start = System.nanoTime();
+        job.print();
+        long end = System.nanoTime();
+        long firstPage = (timed.firstPageDone > 0) ? timed.firstPageDone : end;
+        Outcome outcome = new Outcome(mode, printer, timed.pages, (firstPage - timed.start) / 1_000_000,
+            (end - timed.start) / 1_000_000, fellBack);
+        LOGGER.info("Printed " + outcome.pages() + " page(s) on '" + printer + "' (" + outcome.describe() + ").");
+        return outcome;
+    }
+
+    private static void rememberRasterPrinter(String printer) {
+        if (printer == null || printer.isBlank()) {
+            return;
+        }
+        PreferencesStore prefs = PreferencesStore.global();
+        Set<String> printers = parsePrinters(prefs.getString(PREF_RASTER_PRINTERS).orElse(""));
+        if (printers.add(printer)) {
+            prefs.putString(PREF_RASTER_PRINTERS, String.join(",", printers));
+        }
+    }
+
+    private static Set<String> parsePrinters(String value) {
+        if (value == null || value.isBlank()) {
+            return new LinkedHashSet<>();
+        }
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /** Notes when the first page has been painted and how many pages were. */
+    private static final class TimedPrintable implements Printable {
+        private final Printable delegate;
+        volatile long start;
+        volatile long firstPageDone;
+        volatile int pages;
+
+        TimedPrintable(Printable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int print(Graphics g, PageFormat pf, int pageIndex) throws PrinterException {
+            int result = delegate.print(g, pf, pageIndex);
+            if (result == PAGE_EXISTS) {
+                if (pageIndex == 0 && firstPageDone == 0) {
+                    firstPageDone = System.nanoTime();
+                }
+                pages = Math.max(pages, pageIndex + 1);
+            }
+            return result;
+        }
+    }
+}
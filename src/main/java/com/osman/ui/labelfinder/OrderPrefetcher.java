@@ -0,0 +1,184 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.logging.AppLogger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renders the orders most likely to be scanned next while the packer handles the current one.
+ * <p>
+ * Orders tend to be scanned in label PDF page order, so after each scan the next few unscanned orders in that order
+ * are rendered and handed to the panel's preview cache. Prefetching is low priority: one order at a time from a
+ * single minimum-priority coordinator thread, which also renders the pages, so prefetching never holds up
+ * {@link LabelFinderPanel#RENDER_EXECUTOR}. {@link #cancel()} (called when a real scan arrives) drops queued orders and
+ * stops the current one between pages; a page already rendering is left to finish, since the real scan may be
+ * waiting on the same render.
+ * <p>
+ * Also keeps the prefetch hit rate and the median scan-to-display latency, logged every
+ * {@link #REPORT_EVERY} scans.
+ */
+final class OrderPrefetcher {
+    static final int REPORT_EVERY = 25;
+
+    private static final Logger LOGGER = AppLogger.get();
+    private static final int LATENCY_WINDOW = 512;
+
+    @FunctionalInterface
+    interface OrderRenderer {
+        /** Renders {@code orderId}, or returns {@code null} if it cannot be rendered or {@code cancelled} turns true. */
+        RenderedOrder render(String orderId, BooleanSupplier cancelled) throws IOException;
+    }
+
+    record Stats(long scans, long cacheHits, long prefetchHits, long prefetched, double medianLatencyMs) {
+        double hitRate() {
+            return scans == 0 ? 0.0 : (double) prefetchHits / scans;
+        }
+    }
+
+    private final OrderRenderer renderer;
+    private final BiConsumer<String, RenderedOrder> sink;
+    private final int depth;
+    private final ExecutorService coordinator;
+    private final AtomicLong generation = new AtomicLong();
+    /** Orders whose cached preview came from a prefetch and has not been scanned yet. */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long scans;
+    private long cacheHits;
+    private long prefetchHits;
+    private int latencyCount;
+
+    OrderPrefetcher(OrderRenderer renderer, BiConsumer<String, RenderedOrder> sink, int depth) {
+        this.renderer = renderer;
+        this.sink = sink;
+        this.depth = depth;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "LabelFinder-Prefetch");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.coordinator = pool;
+    }
+
+    /**
+     * The first {@code k} orders after {@code current} in {@code labelOrder} accepted by {@code wanted}; from the start
+     * of {@code labelOrder} when {@code current} is not in it.
+     */
+    static List<String> predict(List<String> labelOrder, String current, Predicate<String> wanted, int k) {
+        List<String> next = new ArrayList<>(k);
+        if (k <= 0 || labelOrder == null || labelOrder.isEmpty()) {
+            return next;
+        }
+        int start = labelOrder.indexOf(current) + 1;
+        for (int i = start; i < labelOrder.size() && next.size() < k; i++) {
+            String orderId = labelOrder.get(i);
+            if (!orderId.equals(current) && wanted.test(orderId)) {
+                next.add(orderId);
+            }
+        }
+        return next;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    /** Replaces any earlier prefetch with {@code orders}, rendered in the given order. */
+    void prefetch(List<String> orders) {
+        long ticket = generation.incrementAndGet();
+        if (orders.isEmpty() || depth <= 0) {
+            return;
+        }
+        List<String> batch = List.copyOf(orders.subList(0, Math.min(depth, orders.size())));
+        coordinator.execute(() -> run(ticket, batch));
+    }
+
+    /** Stops queued and running prefetches as soon as possible. */
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    void clear() {
+        cancel();
+        pending.clear();
+    }
+
+    /** Records a scan that found its label; {@code fromCache} when the preview came from the preview cache. */
+    synchronized void recordScan(String orderId, boolean fromCache) {
+        scans++;
+        boolean wasPrefetched = pending.remove(orderId);
+        if (fromCache) {
+            cacheHits++;
+            if (wasPrefetched) {
+                prefetchHits++;
+            }
+        }
+    }
+
+    /** Records the time from a scan to its preview being shown. */
+    void recordDisplay(long nanos) {
+        Stats snapshot = null;
+        synchronized (this) {
+            latencies[latencyCount % LATENCY_WINDOW] = nanos;
+            latencyCount++;
+            if (latencyCount % REPORT_EVERY == 0) {
+                snapshot = stats();
+            }
+        }
+        if (snapshot != null) {
+            LOGGER.info(String.format("Prefetch: %d of %d scans shown from prefetched renders (%.0f%%), %d cache hits, "
+                    + "%d orders prefetched; median scan-to-display %.1f ms.",
+                snapshot.prefetchHits(), snapshot.scans(), snapshot.hitRate() * 100, snapshot.cacheHits(),
+                snapshot.prefetched(), snapshot.medianLatencyMs()));
+        }
+    }
+
+    synchronized Stats stats() {
+        int n = Math.min(latencyCount, LATENCY_WINDOW);
+        double median = 0.0;
+        if (n > 0) {
+            long[] window = Arrays.copyOf(latencies, n);
+            Arrays.sort(window);
+            median = (n % 2 == 1 ? window[n / 2] : (window[n / 2 - 1] + window[n / 2]) / 2.0) / 1_000_000.0;
+        }
+        return new Stats(scans, cacheHits, prefetchHits, prefetched.get(), median);
+    }
+
+    private void run(long ticket, List<String> orders) {
+        BooleanSupplier cancelled = () -> generation.get() != ticket;
+        for (String orderId : orders) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            try {
+                RenderedOrder render = renderer.render(orderId, cancelled);
+                if (render == null) {
+                    continue;
+                }
+                sink.accept(orderId, render);
+                pending.add(orderId);
+                prefetched.incrementAndGet();
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.FINE, "Prefetch of order " + orderId + " failed", ex);
+            }
+        }
+    }
+}
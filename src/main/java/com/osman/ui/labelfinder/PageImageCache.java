@@ -0,0 +1,256 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.logging.AppLogger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Rendered page images: a byte-bounded in-memory LRU tier, optionally backed by a spill tier on local disk.
+ * <p>
+ * Grayscale pages evicted from memory are written as PNG (lossless, and small for mostly white label and slip
+ * pages) to a per-process folder under the spill directory and read back on the next request. Color renders are
+ * not spilled, since storing them as grayscale would change what gets printed. The spill tier has its own byte
+ * budget and drops its least recently used files first. Folders left behind by processes that are no longer
+ * running are removed when the cache is created.
+ */
+final class PageImageCache<K> {
+    private static final Logger LOGGER = AppLogger.get();
+
+    private final ByteBoundedCache<K, BufferedImage> memory;
+    private final Path spillDirectory;
+    private final long maxSpillBytes;
+    /** Guarded by {@code this}; access-ordered. */
+    private final LinkedHashMap<K, SpillEntry> spilled = new LinkedHashMap<>(64, 0.75f, true);
+    private long spillBytes;
+    private long spillWrites;
+    private long spillHits;
+    private long spillEvictions;
+    private long fileCounter;
+
+    record Stats(ByteBoundedCache.Stats memory, long spillWrites, long spillHits, long spillEvictions,
+                 int spilledPages, long spillBytes) {
+        long hits() {
+            return memory.hits() + spillHits;
+        }
+
+        long misses() {
+            return memory.misses() - spillHits;
+        }
+
+        long evictions() {
+            return memory.evictions();
+        }
+    }
+
+    private record SpillEntry(Path file, long bytes) {
+    }
+
+    /**
+     * @param spillRoot {@code null} to keep pages in memory only
+     */
+    PageImageCache(long maxMemoryBytes, Path spillRoot, long maxSpillBytes) {
+        this.memory = new ByteBoundedCache<>(maxMemoryBytes, ByteBoundedCache::estimateBytes, this::spill);
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillDirectory = (spillRoot == null || maxSpillBytes <= 0) ? null : prepareSpillDirectory(spillRoot);
+    }
+
+    BufferedImage get(K key) {
+        BufferedImage image = memory.get(key);
+        if (image != null || spillDirectory == null) {
+            return image;
+        }
+        SpillEntry entry;
+        synchronized (this) {
+            entry = spilled.remove(key);
+            if (entry != null) {
+                spillBytes -= entry.bytes();
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        try {
+            image = ImageIO.read(entry.file().toFile());
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Failed to read spilled page " + entry.file(), ex);
+        } finally {
+            deleteQuietly(entry.file());
+        }
+        if (image == null) {
+            return null;
+        }
+        synchronized (this) {
+            spillHits++;
+        }
+        memory.put(key, image);
+        return image;
+    }
+
+    void put(K key, BufferedImage image) {
+        if (image == null) {
+            return;
+        }
+        removeSpilled(key);
+        memory.put(key, image);
+    }
+
+    void clear() {
+        memory.clear();
+        List<Path> files = new ArrayList<>();
+        synchronized (this) {
+            spilled.values().forEach(entry -> files.add(entry.file()));
+            spilled.clear();
+            spillBytes = 0;
+        }
+        files.forEach(PageImageCache::deleteQuietly);
+    }
+
+    /** Drops the pages whose key matches {@code filter} from both tiers. */
+    void removeIf(Predicate<? super K> filter) {
+        memory.removeIf((key, image) -> filter.test(key));
+        List<Path> files = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<K, SpillEntry>> it = spilled.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, SpillEntry> entry = it.next();
+                if (filter.test(entry.getKey())) {
+                    it.remove();
+                    spillBytes -= entry.getValue().bytes();
+                    files.add(entry.getValue().file());
+                }
+            }
+        }
+        files.forEach(PageImageCache::deleteQuietly);
+    }
+
+    Stats stats() {
+        ByteBoundedCache.Stats memoryStats = memory.stats();
+        synchronized (this) {
+            return new Stats(memoryStats, spillWrites, spillHits, spillEvictions, spilled.size(), spillBytes);
+        }
+    }
+
+    private void spill(K key, BufferedImage image) {
+        if (spillDirectory == null || image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            return;
+        }
+        Path file;
+        synchronized (this) {
+            file = spillDirectory.resolve("page-" + (fileCounter++) + ".png");
+        }
+        long size;
+        try {
+            if (!ImageIO.write(image, "png", file.toFile())) {
+                return;
+            }
+            size = Files.size(file);
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Failed to spill page image to " + file, ex);
+            deleteQuietly(file);
+            return;
+        }
+        List<Path> dropped = new ArrayList<>();
+        synchronized (this) {
+            SpillEntry previous = spilled.put(key, new SpillEntry(file, size));
+            if (previous != null) {
+                spillBytes -= previous.bytes();
+                dropped.add(previous.file());
+            }
+            spillBytes += size;
+            spillWrites++;
+            Iterator<SpillEntry> it = spilled.values().iterator();
+            while (spillBytes > maxSpillBytes && it.hasNext()) {
+                SpillEntry eldest = it.next();
+                it.remove();
+                spillBytes -= eldest.bytes();
+                dropped.add(eldest.file());
+                spillEvictions++;
+            }
+        }
+        dropped.forEach(PageImageCache::deleteQuietly);
+    }
+
+    private void removeSpilled(K key) {
+        if (spillDirectory == null) {
+            return;
+        }
+        SpillEntry entry;
+        synchronized (this) {
+            entry = spilled.remove(key);
+            if (entry != null) {
+                spillBytes -= entry.bytes();
+            }
+        }
+        if (entry != null) {
+            deleteQuietly(entry.file());
+        }
+    }
+
+    private static Path prepareSpillDirectory(Path root) {
+        try {
+            return processDirectory(root);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Page spill directory unavailable, keeping pages in memory only: " + root, ex);
+            return null;
+        }
+    }
+
+    /**
+     * An empty {@code pid-<this process>} folder under {@code root}, after removing the folders of processes that are
+     * no longer running.
+     */
+    static Path processDirectory(Path root) throws IOException {
+        Files.createDirectories(root);
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, "pid-*")) {
+            for (Path dir : dirs) {
+                if (isStale(dir)) {
+                    deleteTree(dir);
+                }
+            }
+        }
+        Path dir = root.resolve("pid-" + ProcessHandle.current().pid());
+        deleteTree(dir);
+        return Files.createDirectories(dir);
+    }
+
+    private static boolean isStale(Path dir) {
+        try {
+            long pid = Long.parseLong(dir.getFileName().toString().substring("pid-".length()));
+            return pid != ProcessHandle.current().pid() && ProcessHandle.of(pid).map(p -> !p.isAlive()).orElse(true);
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(PageImageCache::deleteQuietly);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Failed to delete " + file, ex);
+        }
+    }
+}
@@ -33,6 +33,7 @@ final class PdfAndImagePrintable implements Printable {
         if (pageIndex < sources.size()) {
             PageRenderSource source = sources.get(pageIndex);
             try {
+                // Full colour: a page may be the print artifact's photo strip, not just a black and white label.
                 image = PdfPageRenderCache.getOrRenderPage(source.file(), source.pageIndexZeroBased(), dpi);
             } catch (IOException ex) {
                 throw new PrinterException("Failed to render page: " + ex.getMessage());
@@ -45,7 +46,12 @@ final class PdfAndImagePrintable implements Printable {
             return NO_SUCH_PAGE;
         }
 
-        Graphics2D g2d = (Graphics2D) g;
+        drawFitted((Graphics2D) g, pf, image);
+        return PAGE_EXISTS;
+    }
+
+    /** Draws {@code image} scaled to fit and centered in the imageable area of {@code pf}. */
+    static void drawFitted(Graphics2D g2d, PageFormat pf, BufferedImage image) {
         g2d.translate(pf.getImageableX(), pf.getImageableY());
         double pw = pf.getImageableWidth();
         double ph = pf.getImageableHeight();
@@ -56,6 +62,5 @@ final class PdfAndImagePrintable implements Printable {
         int dy = (int) ((ph - dh) / 2.0);
         g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
         g2d.drawImage(image, dx, dy, dw, dh, null);
-        return PAGE_EXISTS;
     }
 }
@@ -1,27 +1,43 @@
 package com.osman.ui.labelfinder;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
+import com.osman.core.pdf.PdfDocumentPool;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Rendered PDF pages shared by previews and printing. Finished renders live in a {@link PageImageCache} bounded by
+ * {@code -DpageCacheMb} (default 256) with a disk spill tier of {@code -DpageSpillMb} (default 1024, 0 disables)
+ * under {@code -DpageSpillDir} (default {@code osman-page-spill} in the system temp directory). Concurrent requests
+ * for a page that is still rendering share that render. Grayscale pages are rendered straight into a one byte per
+ * pixel raster rather than converted from RGB. Preview pages are scaled down from a sharper cached render of the same
+ * page when there is one, rather than rendered again.
+ */
 final class PdfPageRenderCache {
 
     private static final Logger LOGGER = Logger.getLogger(PdfPageRenderCache.class.getName());
-    private static final ConcurrentHashMap<RenderCacheKey, CompletableFuture<BufferedImage>> CACHE = new ConcurrentHashMap<>();
+    private static final long MB = 1024L * 1024L;
+    private static final PageImageCache<RenderCacheKey> PAGES = createPageCache();
+    private static final ConcurrentHashMap<RenderCacheKey, CompletableFuture<BufferedImage>> IN_FLIGHT = new ConcurrentHashMap<>();
+    /** DPIs each page has been cached at; may still name renders the page cache has since dropped. */
+    private static final ConcurrentHashMap<PageId, ConcurrentSkipListSet<Integer>> CACHED_DPIS =
+        new ConcurrentHashMap<>();
 
     private PdfPageRenderCache() {
     }
@@ -32,47 +48,59 @@ final class PdfPageRenderCache {
 
     static BufferedImage getOrRenderPage(File pdf, int pageIndexZeroBased, int dpi, boolean grayscale) throws IOException {
         RenderCacheKey key = new RenderCacheKey(pdf, pageIndexZeroBased, dpi, grayscale);
-        CompletableFuture<BufferedImage> future = CACHE.computeIfAbsent(key, k ->
-            CompletableFuture.supplyAsync(() -> {
-                try (PDDocument doc = PDDocument.load(pdf)) {
+        BufferedImage cached = PAGES.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<BufferedImage> started = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> future = IN_FLIGHT.putIfAbsent(key, started);
+        if (future == null) {
+            // Rendered on the calling thread: callers are often render pool threads themselves, and waiting there
+            // for a render queued behind them on the same pool could starve it.
+            future = started;
+            try {
+                started.complete(PdfDocumentPool.shared().withDocument(pdf, doc -> {
                     PDFRenderer renderer = new PDFRenderer(doc);
                     renderer.setSubsamplingAllowed(true);
-                    BufferedImage rendered = renderer.renderImageWithDPI(pageIndexZeroBased, dpi);
-                    if (grayscale && rendered != null) {
-                        return toGrayscale(rendered);
-                    }
-                    return rendered;
-                }
-                catch (IOException ex) {
-                    throw new CompletionException(ex);
-                }
-            }, LabelFinderPanel.RENDER_EXECUTOR)
-        );
+                    return renderer.renderImageWithDPI(pageIndexZeroBased, dpi,
+                        grayscale ? ImageType.GRAY : ImageType.RGB);
+                }));
+            }
+            catch (IOException | RuntimeException | Error ex) {
+                started.completeExceptionally(ex);
+            }
+        }
         try {
-            return future.get();
+            BufferedImage image = future.get();
+            if (IN_FLIGHT.get(key) == future) {
+                // Not invalidated while rendering, and not already cached by another waiter.
+                cache(key, image);
+            }
+            IN_FLIGHT.remove(key, future);
+            return image;
         }
         catch (InterruptedException e) {
             future.cancel(true);
-            CACHE.remove(key, future);
+            IN_FLIGHT.remove(key, future);
             Thread.currentThread().interrupt();
             throw new IOException("Interrupted while rendering PDF page", e);
         }
         catch (CancellationException e) {
-            CACHE.remove(key, future);
+            IN_FLIGHT.remove(key, future);
             throw new IOException("Rendering cancelled", e);
         }
         catch (ExecutionException e) {
-            CACHE.remove(key, future);
+            IN_FLIGHT.remove(key, future);
             Throwable cause = e.getCause();
-            if (cause instanceof CompletionException completion && completion.getCause() != null) {
-                cause = completion.getCause();
-            }
             if (cause instanceof IOException io) {
                 throw io;
             }
             if (cause instanceof RuntimeException runtime) {
                 throw runtime;
             }
+            if (cause instanceof Error error) {
+                throw error;
+            }
             throw new IOException("Failed to render PDF page", cause);
         }
     }
@@ -82,6 +110,44 @@ final class PdfPageRenderCache {
     }
 
     static List<BufferedImage> renderPages(File pdf, List<Integer> pages1Based, int dpi, boolean grayscale) {
+        return renderPages(pdf, pages1Based, dpi, grayscale, false);
+    }
+
+    /**
+     * Grayscale preview pages at {@code dpi}. A page cached at the nearest DPI at least as high is scaled down from
+     * that render instead of being rendered again.
+     */
+    static List<BufferedImage> renderPreviewPages(File pdf, List<Integer> pages1Based, int dpi) {
+        return renderPages(pdf, pages1Based, dpi, true, true);
+    }
+
+    /** A grayscale preview page at {@code dpi}, reusing a sharper cached render; see {@link #renderPreviewPages}. */
+    static BufferedImage getOrScalePage(File pdf, int pageIndexZeroBased, int dpi) throws IOException {
+        RenderCacheKey key = new RenderCacheKey(pdf, pageIndexZeroBased, dpi, true);
+        BufferedImage cached = PAGES.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        ConcurrentSkipListSet<Integer> dpis = CACHED_DPIS.get(new PageId(key.path(), pageIndexZeroBased, true));
+        if (dpis != null) {
+            for (Integer sharperDpi : dpis.tailSet(dpi, false)) {
+                BufferedImage sharper = PAGES.get(new RenderCacheKey(key.path(), pageIndexZeroBased, sharperDpi, true));
+                if (sharper == null) {
+                    dpis.remove(sharperDpi);
+                    continue;
+                }
+                BufferedImage scaled = scaleDown(sharper,
+                    Math.max(1, (int) Math.floor(sharper.getWidth() * (double) dpi / sharperDpi)),
+                    Math.max(1, (int) Math.floor(sharper.getHeight() * (double) dpi / sharperDpi)));
+                cache(key, scaled);
+                return scaled;
+            }
+        }
+        return getOrRenderPage(pdf, pageIndexZeroBased, dpi, true);
+    }
+
+    private static List<BufferedImage> renderPages(File pdf, List<Integer> pages1Based, int dpi, boolean grayscale,
+                                                   boolean reuseSharper) {
         List<BufferedImage> out = new ArrayList<>();
         if (pdf == null || pages1Based == null || pages1Based.isEmpty()) {
             return out;
@@ -92,7 +158,9 @@ final class PdfPageRenderCache {
                 continue;
             }
             try {
-                BufferedImage img = getOrRenderPage(pdf, pageIndexZeroBased, dpi, grayscale);
+                BufferedImage img = reuseSharper
+                    ? getOrScalePage(pdf, pageIndexZeroBased, dpi)
+                    : getOrRenderPage(pdf, pageIndexZeroBased, dpi, grayscale);
                 if (img != null) {
                     out.add(img);
                 }
@@ -111,18 +179,61 @@ final class PdfPageRenderCache {
     }
 
     static void clear() {
-        CACHE.clear();
+        IN_FLIGHT.clear();
+        PAGES.clear();
+        CACHED_DPIS.clear();
     }
 
-    private static BufferedImage toGrayscale(BufferedImage source) {
-        BufferedImage gray = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D g2 = gray.createGraphics();
-        try {
-            g2.drawImage(source, 0, 0, null);
-        } finally {
-            g2.dispose();
-        }
-        return gray;
+    /** Forgets every render of a PDF at or under {@code path}, e.g. after the file was replaced on disk. */
+    static void invalidate(Path path) {
+        Path target = path.toAbsolutePath();
+        IN_FLIGHT.keySet().removeIf(key -> Path.of(key.path()).startsWith(target));
+        PAGES.removeIf(key -> Path.of(key.path()).startsWith(target));
+        CACHED_DPIS.keySet().removeIf(page -> Path.of(page.path()).startsWith(target));
+    }
+
+    static PageImageCache.Stats stats() {
+        return PAGES.stats();
+    }
+
+    private static void cache(RenderCacheKey key, BufferedImage image) {
+        PAGES.put(key, image);
+        CACHED_DPIS.computeIfAbsent(new PageId(key.path(), key.pageIndex(), key.grayscale()),
+            page -> new ConcurrentSkipListSet<>()).add(key.dpi());
+    }
+
+    /** Bilinear steps of at most half the size each, so thin lines and barcode bars survive large reductions. */
+    private static BufferedImage scaleDown(BufferedImage source, int width, int height) {
+        int type = (source.getType() == BufferedImage.TYPE_CUSTOM) ? BufferedImage.TYPE_INT_RGB : source.getType();
+        BufferedImage current = source;
+        do {
+            int w = Math.max(width, current.getWidth() / 2);
+            int h = Math.max(height, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > width || current.getHeight() > height);
+        return current;
+    }
+
+    private static PageImageCache<RenderCacheKey> createPageCache() {
+        String spillDir = System.getProperty("pageSpillDir");
+        return new PageImageCache<>(
+            Long.getLong("pageCacheMb", 256) * MB,
+            (spillDir != null && !spillDir.isBlank())
+                ? Path.of(spillDir)
+                : Path.of(System.getProperty("java.io.tmpdir"), "osman-page-spill"),
+            Long.getLong("pageSpillMb", 1024) * MB
+        );
+    }
+
+    private record PageId(String path, int pageIndex, boolean grayscale) {
     }
 
     private record RenderCacheKey(String path, int pageIndex, int dpi, boolean grayscale) {
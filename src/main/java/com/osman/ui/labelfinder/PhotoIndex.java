@@ -0,0 +1,269 @@
+package com.osman.ui.labelfinder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable snapshot of the indexed photos, answering "which photo file names contain this text" without scanning
+ * every name.
+ * <p>
+ * Photos are kept sorted by lower-cased file name. Every Amazon order ID in a name is extracted once when the photo is
+ * indexed, so a lookup whose text contains an order ID only checks the photos filed under that ID. Other text goes
+ * through a trigram index over the names, built on first use. Either way the results are exactly the photos whose
+ * lower-cased name contains the text, in name order.
+ * <p>
+ * {@link #withAdded(Collection)} returns a new snapshot. Small additions are kept in a separate sorted list next to
+ * the indexed photos and folded in once they grow past an eighth of the index, so adding a few photos does not
+ * re-index all of them.
+ */
+final class PhotoIndex {
+    static final PhotoIndex EMPTY = new PhotoIndex(new Base(List.of()), List.of());
+
+    private static final int MIN_DELTA_BEFORE_MERGE = 256;
+    private static final int GRAM = 3;
+    /** Lookahead, so overlapping IDs in one name are all found. */
+    private static final Pattern ORDER_ID = Pattern.compile("(?=(\\d{3}-\\d{7}-\\d{7}))");
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(Entry::lowerName);
+
+    record Entry(Path path, String lowerName) {
+    }
+
+    /** The indexed photos, shared by every snapshot that only adds to them. */
+    private final Base base;
+    private final List<Entry> delta;
+    private final Set<Path> deltaPaths;
+
+    private PhotoIndex(Base base, List<Entry> sortedDelta) {
+        this.base = base;
+        this.delta = sortedDelta;
+        Set<Path> added = new HashSet<>();
+        for (Entry entry : sortedDelta) {
+            added.add(entry.path());
+        }
+        this.deltaPaths = Collections.unmodifiableSet(added);
+    }
+
+    /** Indexes {@code photos}, which must be normalized absolute paths; duplicates are dropped. */
+    static PhotoIndex of(Collection<Path> photos) {
+        List<Entry> sorted = new ArrayList<>(photos.size());
+        for (Path path : new LinkedHashSet<>(photos)) {
+            sorted.add(entry(path));
+        }
+        sorted.sort(BY_NAME);
+        return new PhotoIndex(new Base(List.copyOf(sorted)), List.of());
+    }
+
+    /** A snapshot that also holds {@code photos} (normalized absolute paths not yet in this one). */
+    PhotoIndex withAdded(Collection<Path> photos) {
+        if (photos.isEmpty()) {
+            return this;
+        }
+        List<Entry> added = new ArrayList<>(photos.size());
+        for (Path path : new LinkedHashSet<>(photos)) {
+            if (!contains(path)) {
+                added.add(entry(path));
+            }
+        }
+        if (added.isEmpty()) {
+            return this;
+        }
+        added.sort(BY_NAME);
+        List<Entry> newDelta = merge(delta, added);
+        if (newDelta.size() > Math.max(MIN_DELTA_BEFORE_MERGE, base.entries.size() / 8)) {
+            return new PhotoIndex(new Base(List.copyOf(merge(base.entries, newDelta))), List.of());
+        }
+        return new PhotoIndex(base, List.copyOf(newDelta));
+    }
+
+    boolean contains(Path path) {
+        return base.paths.contains(path) || deltaPaths.contains(path);
+    }
+
+    int size() {
+        return base.entries.size() + delta.size();
+    }
+
+    List<Path> all() {
+        return toPaths(merge(base.entries, delta));
+    }
+
+    /** Photos whose lower-cased file name contains {@code lowerText}, in name order. */
+    List<Path> matching(String lowerText) {
+        if (lowerText == null || lowerText.isEmpty()) {
+            return List.of();
+        }
+        List<Entry> fromIndex = new ArrayList<>();
+        Matcher id = ORDER_ID.matcher(lowerText);
+        if (id.find()) {
+            for (Entry entry : base.byOrderId.getOrDefault(id.group(1), List.of())) {
+                if (entry.lowerName().contains(lowerText)) {
+                    fromIndex.add(entry);
+                }
+            }
+        } else if (lowerText.length() >= GRAM) {
+            for (int position : base.candidates(lowerText)) {
+                Entry entry = base.entries.get(position);
+                if (entry.lowerName().contains(lowerText)) {
+                    fromIndex.add(entry);
+                }
+            }
+        } else {
+            for (Entry entry : base.entries) {
+                if (entry.lowerName().contains(lowerText)) {
+                    fromIndex.add(entry);
+                }
+            }
+        }
+        List<Entry> fromDelta = new ArrayList<>();
+        for (Entry entry : delta) {
+            if (entry.lowerName().contains(lowerText)) {
+                fromDelta.add(entry);
+            }
+        }
+        return toPaths(merge(fromIndex, fromDelta));
+    }
+
+    private static List<String> orderIds(String lowerName) {
+        List<String> ids = new ArrayList<>(1);
+        Matcher matcher = ORDER_ID.matcher(lowerName);
+        while (matcher.find()) {
+            if (!ids.contains(matcher.group(1))) {
+                ids.add(matcher.group(1));
+            }
+        }
+        return ids;
+    }
+
+    private static Entry entry(Path path) {
+        return new Entry(path, path.getFileName().toString().toLowerCase(Locale.ROOT));
+    }
+
+    /** Stable merge of two name-sorted lists; on equal names {@code first}'s entries come first. */
+    private static List<Entry> merge(List<Entry> first, List<Entry> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        List<Entry> out = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() && j < second.size()) {
+            if (BY_NAME.compare(second.get(j), first.get(i)) < 0) {
+                out.add(second.get(j++));
+            } else {
+                out.add(first.get(i++));
+            }
+        }
+        out.addAll(first.subList(i, first.size()));
+        out.addAll(second.subList(j, second.size()));
+        return out;
+    }
+
+    private static List<Path> toPaths(List<Entry> entries) {
+        List<Path> out = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            out.add(entry.path());
+        }
+        return out;
+    }
+
+    private static final class Base {
+        final List<Entry> entries;
+        final Set<Path> paths;
+        final Map<String, List<Entry>> byOrderId;
+        private volatile Map<String, int[]> grams;
+
+        Base(List<Entry> sortedEntries) {
+            this.entries = sortedEntries;
+            Set<Path> entryPaths = new HashSet<>(sortedEntries.size() * 2);
+            Map<String, List<Entry>> orders = new HashMap<>();
+            for (Entry entry : sortedEntries) {
+                entryPaths.add(entry.path());
+                for (String orderId : orderIds(entry.lowerName())) {
+                    orders.computeIfAbsent(orderId, id -> new ArrayList<>(2)).add(entry);
+                }
+            }
+            this.paths = Collections.unmodifiableSet(entryPaths);
+            this.byOrderId = Collections.unmodifiableMap(orders);
+        }
+
+        /** Positions of the names that have the rarest of {@code lowerText}'s trigrams. */
+        int[] candidates(String lowerText) {
+            Map<String, int[]> index = gramIndex();
+            int[] best = null;
+            for (int i = 0; i + GRAM <= lowerText.length(); i++) {
+                int[] postings = index.get(lowerText.substring(i, i + GRAM));
+                if (postings == null) {
+                    return new int[0];
+                }
+                if (best == null || postings.length < best.length) {
+                    best = postings;
+                }
+            }
+            return best;
+        }
+
+        private Map<String, int[]> gramIndex() {
+            Map<String, int[]> index = grams;
+            if (index == null) {
+                synchronized (this) {
+                    index = grams;
+                    if (index == null) {
+                        index = buildGramIndex();
+                        grams = index;
+                    }
+                }
+            }
+            return index;
+        }
+
+        private Map<String, int[]> buildGramIndex() {
+            Map<String, IntList> postings = new HashMap<>();
+            Set<String> seen = new HashSet<>();
+            for (int position = 0; position < entries.size(); position++) {
+                String name = entries.get(position).lowerName();
+                seen.clear();
+                for (int i = 0; i + GRAM <= name.length(); i++) {
+                    String gram = name.substring(i, i + GRAM);
+                    if (seen.add(gram)) {
+                        postings.computeIfAbsent(gram, g -> new IntList()).add(position);
+                    }
+                }
+            }
+            Map<String, int[]> index = new HashMap<>(postings.size() * 2);
+            postings.forEach((gram, list) -> index.put(gram, list.toArray()));
+            return Collections.unmodifiableMap(index);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.logging.AppLogger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Order photos decoded just large enough for the tile they are shown in.
+ * <p>
+ * Decoding runs on a dedicated pool and reads only every n-th pixel of every n-th row
+ * ({@link ImageReadParam#setSourceSubsampling}), with n picked so the decoded image still covers the tile; a 4000x3000
+ * phone photo shown in a 600 pixel tile is decoded at 666x500 instead of being inflated to 48 MB first. Thumbnails
+ * are kept in a byte-bounded LRU keyed by path and modification time, so a photo replaced on disk is decoded again.
+ * A cached thumbnail is reused for any tile it is large enough for. Printing still reads photos at full resolution.
+ */
+final class PhotoThumbnailCache {
+    private static final Logger LOGGER = AppLogger.get();
+    private static final long MB = 1024L * 1024L;
+
+    record Key(Path path, long modifiedMillis) {
+    }
+
+    record Stats(ByteBoundedCache.Stats cache, long decodes, long decodedPixels) {
+    }
+
+    private record Thumbnail(BufferedImage image, int subsampling, int sourceWidth, int sourceHeight) {
+        boolean covers(int tileWidth, int tileHeight) {
+            return subsampling <= PhotoThumbnailCache.subsampling(sourceWidth, sourceHeight, tileWidth, tileHeight);
+        }
+    }
+
+    private record Request(Path path, int tileWidth, int tileHeight) {
+    }
+
+    private final ByteBoundedCache<Key, Thumbnail> cache;
+    private final ExecutorService decoder;
+    private final ConcurrentHashMap<Request, CompletableFuture<BufferedImage>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong decodes = new AtomicLong();
+    private final AtomicLong decodedPixels = new AtomicLong();
+
+    PhotoThumbnailCache(long maxBytes, int threads) {
+        this.cache = new ByteBoundedCache<>(maxBytes, thumbnail -> ByteBoundedCache.estimateBytes(thumbnail.image()),
+            null);
+        AtomicInteger counter = new AtomicInteger();
+        this.decoder = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "LabelFinder-PhotoDecode-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Budget {@code -DphotoThumbCacheMb} (default 64) on {@code -DphotoDecodeThreads} threads (default up to 2). */
+    static PhotoThumbnailCache fromSystemProperties() {
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors()));
+        return new PhotoThumbnailCache(Long.getLong("photoThumbCacheMb", 64) * MB,
+            Integer.getInteger("photoDecodeThreads", threads));
+    }
+
+    /**
+     * {@code photo} decoded to cover a {@code tileWidth} x {@code tileHeight} tile when drawn scaled to fit, from the
+     * cache or the decode pool. Completes with {@code null} when the file is not a readable image.
+     */
+    CompletableFuture<BufferedImage> load(Path photo, int tileWidth, int tileHeight) {
+        Request request = new Request(photo, Math.max(1, tileWidth), Math.max(1, tileHeight));
+        CompletableFuture<BufferedImage> future = inFlight.computeIfAbsent(request, r ->
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return thumbnail(r.path(), r.tileWidth(), r.tileHeight());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, decoder));
+        future.whenComplete((image, error) -> inFlight.remove(request, future));
+        return future;
+    }
+
+    /** Loads on the calling thread; see {@link #load}. */
+    BufferedImage thumbnail(Path photo, int tileWidth, int tileHeight) throws IOException {
+        Key key = new Key(photo, Files.getLastModifiedTime(photo).toMillis());
+        Thumbnail cached = cache.get(key);
+        if (cached != null && cached.covers(tileWidth, tileHeight)) {
+            return cached.image();
+        }
+        Thumbnail decoded = decode(photo, tileWidth, tileHeight);
+        if (decoded == null) {
+            return null;
+        }
+        cache.put(key, decoded);
+        decodes.incrementAndGet();
+        decodedPixels.addAndGet((long) decoded.image().getWidth() * decoded.image().getHeight());
+        return decoded.image();
+    }
+
+    void clear() {
+        cache.clear();
+    }
+
+    Stats stats() {
+        return new Stats(cache.stats(), decodes.get(), decodedPixels.get());
+    }
+
+    /**
+     * The largest subsampling step that still leaves a {@code width} x {@code height} image at least as large as its
+     * scaled-to-fit size in the tile.
+     */
+    static int subsampling(int width, int height, int tileWidth, int tileHeight) {
+        double ratio = Math.max((double) width / Math.max(1, tileWidth), (double) height / Math.max(1, tileHeight));
+        return Math.max(1, (int) Math.floor(ratio));
+    }
+
+    private static Thumbnail decode(Path photo, int tileWidth, int tileHeight) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(photo.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int step = subsampling(width, height, tileWidth, tileHeight);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return new Thumbnail(reader.read(0, param), step, width, height);
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.FINE, "Subsampled decode failed, reading full image: " + photo, ex);
+            } finally {
+                reader.dispose();
+            }
+        }
+        BufferedImage full = ImageIO.read(photo.toFile());
+        return full == null ? null : new Thumbnail(full, 1, full.getWidth(), full.getHeight());
+    }
+}
@@ -0,0 +1,442 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.core.pdf.PdfDocumentPool;
+import com.osman.core.pdf.PdfOpenPolicy;
+import com.osman.logging.AppLogger;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Print-ready single-order PDFs, built in the background once LabelFinder's indices are ready so that a scan only
+ * has to send a small, finished file to the printer.
+ * <p>
+ * Each artifact holds the order's label pages followed by its packing slip pages, copied from the source PDFs as
+ * vector content, plus an optional photo strip page of the order's ready designs composed at the print DPI. Builds
+ * run on {@code -DprintArtifactThreads} (default one less than the number of cores) minimum-priority threads. Each
+ * thread keeps its own source documents open rather than borrowing them from {@link PdfDocumentPool#shared()}, so
+ * builds neither queue behind each other on the batch's label PDF nor hold up the renders of a live scan. An
+ * artifact is only used while the order still resolves to the same label and slip pages; otherwise, or when it has
+ * not been built yet, the caller prints the source pages directly.
+ * <p>
+ * Off unless {@code -DprintArtifacts=true}. Files go to a per-process folder under {@code -DprintArtifactDir}
+ * (default {@code <tmp>/osman-print-artifacts}); {@code -DprintArtifactPhotos=true} adds the photo strip.
+ */
+final class PrintArtifactCache {
+    private static final Logger LOGGER = AppLogger.get();
+    private static final int MAX_STRIP_PHOTOS = 3;
+    private static final Duration SOURCE_IDLE = Duration.ofSeconds(30);
+    private static final float STRIP_JPEG_QUALITY = 0.85f;
+
+    /** What to build for one order; {@code label} or {@code slip} may be {@code null}. */
+    record Job(String orderId, PageGroup label, PageGroup slip, List<Path> photos) {
+    }
+
+    record Artifact(Path pdf, int pages, PageGroup label, PageGroup slip) {
+        List<PageRenderSource> sources() {
+            List<PageRenderSource> sources = new ArrayList<>(pages);
+            for (int i = 0; i < pages; i++) {
+                sources.add(new PageRenderSource(pdf.toFile(), i));
+            }
+            return sources;
+        }
+    }
+
+    record Stats(long built, long failed, long hits, long misses, int artifacts) {
+    }
+
+    private final boolean enabled;
+    private final Path root;
+    private final int dpi;
+    private final boolean photoStrip;
+    private final PdfOpenPolicy policy;
+    private final ExecutorService workers;
+    /** Source documents of the worker thread it is set on; closed when the thread exits. */
+    private final ThreadLocal<PdfDocumentPool> workerSources = new ThreadLocal<>();
+    private final Map<String, Artifact> artifacts = new ConcurrentHashMap<>();
+    /**
+     * Makes checking the generation and publishing an artifact atomic with respect to {@link #clear()} and
+     * {@link #invalidate}.
+     */
+    private final Object publishLock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+    /** Counts {@link #invalidate} calls; a build remembers the count it started at. */
+    private final AtomicLong invalidations = new AtomicLong();
+    /** The {@link #invalidations} count at which each changed path was last invalidated; guarded by publishLock. */
+    private final Map<Path, Long> invalidatedAt = new HashMap<>();
+    private final AtomicLong built = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private Path directory;
+
+    PrintArtifactCache(boolean enabled, Path root, int dpi, boolean photoStrip, int threads, PdfOpenPolicy policy) {
+        this.enabled = enabled;
+        this.root = root;
+        this.dpi = dpi;
+        this.photoStrip = photoStrip;
+        this.policy = policy;
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, SOURCE_IDLE.toSeconds(), TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(() -> {
+                    try (PdfDocumentPool sources = newSourcePool()) {
+                        workerSources.set(sources);
+                        r.run();
+                    }
+                }, "LabelFinder-Artifacts-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        this.workers = executor;
+    }
+
+    static PrintArtifactCache fromSystemProperties(int dpi) {
+        String dir = System.getProperty("printArtifactDir");
+        Path root = (dir == null || dir.isBlank())
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "osman-print-artifacts")
+            : Paths.get(dir);
+        int threads = Integer.getInteger("printArtifactThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        return new PrintArtifactCache(Boolean.getBoolean("printArtifacts"), root, dpi,
+            Boolean.getBoolean("printArtifactPhotos"), threads, PdfOpenPolicy.shared());
+    }
+
+    boolean enabled() {
+        return enabled;
+    }
+
+    boolean photoStrip() {
+        return photoStrip;
+    }
+
+    /** Whether {@code file} is one of this cache's artifacts. */
+    boolean owns(File file) {
+        return file != null && file.toPath().toAbsolutePath().startsWith(root.toAbsolutePath());
+    }
+
+    /**
+     * The artifact for {@code orderId} if one was built from exactly these label and slip pages and is still on
+     * disk; {@code null} otherwise.
+     */
+    Artifact find(String orderId, PageGroup label, PageGroup slip) {
+        if (!enabled || orderId == null) {
+            return null;
+        }
+        Artifact artifact = artifacts.get(orderId);
+        if (artifact != null && Objects.equals(artifact.label(), label) && Objects.equals(artifact.slip(), slip)
+            && Files.isRegularFile(artifact.pdf())) {
+            hits.incrementAndGet();
+            return artifact;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /** Replaces any earlier batch with {@code jobs}, built in the given order. */
+    void start(List<Job> jobs) {
+        long ticket = generation.incrementAndGet();
+        if (!enabled || jobs.isEmpty()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        AtomicInteger remaining = new AtomicInteger(jobs.size());
+        AtomicInteger done = new AtomicInteger();
+        for (Job job : jobs) {
+            workers.execute(() -> {
+                try {
+                    if (generation.get() == ticket && build(job, ticket, workerSources.get()) != null) {
+                        done.incrementAndGet();
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    failed.incrementAndGet();
+                    LOGGER.log(Level.FINE, "Could not build print artifact for order " + job.orderId(), ex);
+                } finally {
+                    if (remaining.decrementAndGet() == 0 && generation.get() == ticket) {
+                        LOGGER.info(String.format("Print artifacts ready for %d of %d orders in %d ms.",
+                            done.get(), jobs.size(), (System.nanoTime() - startedAt) / 1_000_000));
+                    }
+                }
+            });
+        }
+    }
+
+    /** Drops queued builds; a build already running is discarded when it finishes. */
+    void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /** Cancels pending builds and deletes every artifact. */
+    void clear() {
+        synchronized (publishLock) {
+            cancel();
+            for (Artifact artifact : artifacts.values()) {
+                try {
+                    Files.deleteIfExists(artifact.pdf());
+                } catch (IOException ex) {
+                    LOGGER.log(Level.FINE, "Could not delete print artifact " + artifact.pdf(), ex);
+                }
+            }
+            artifacts.clear();
+        }
+    }
+
+    /**
+     * Deletes the artifacts built from a file at or under any of {@code changed}, e.g. a replaced label PDF. Builds
+     * from those files that are still running are discarded when they finish, since they may have read the old file.
+     */
+    void invalidate(Collection<Path> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        synchronized (publishLock) {
+            long tick = invalidations.incrementAndGet();
+            for (Path path : changed) {
+                invalidatedAt.put(path.toAbsolutePath(), tick);
+            }
+            for (Map.Entry<String, Artifact> entry : artifacts.entrySet()) {
+                Artifact artifact = entry.getValue();
+                if ((touches(artifact.label(), changed) || touches(artifact.slip(), changed))
+                    && artifacts.remove(entry.getKey(), artifact)) {
+                    try {
+                        Files.deleteIfExists(artifact.pdf());
+                    } catch (IOException ex) {
+                        LOGGER.log(Level.FINE, "Could not delete print artifact " + artifact.pdf(), ex);
+                    }
+                }
+            }
+        }
+    }
+
+    Stats stats() {
+        return new Stats(built.get(), failed.get(), hits.get(), misses.get(), artifacts.size());
+    }
+
+    /**
+     * Builds (or reuses) the artifact for {@code job} on the calling thread. Returns {@code null} when the job has
+     * nothing to print, or when the cache was cleared or cancelled while it was being built.
+     */
+    Artifact build(Job job) throws IOException {
+        long ticket = generation.get();
+        PdfDocumentPool sources = workerSources.get();
+        if (sources != null) {
+            return build(job, ticket, sources);
+        }
+        try (PdfDocumentPool once = newSourcePool()) {
+            return build(job, ticket, once);
+        }
+    }
+
+    private Artifact build(Job job, long ticket, PdfDocumentPool sources) throws IOException {
+        long seenInvalidations = invalidations.get();
+        Artifact existing = artifacts.get(job.orderId());
+        if (existing != null && Objects.equals(existing.label(), job.label())
+            && Objects.equals(existing.slip(), job.slip()) && Files.isRegularFile(existing.pdf())) {
+            return existing;
+        }
+        List<PageGroup> groups = new ArrayList<>(2);
+        if (hasPages(job.label())) {
+            groups.add(job.label());
+        }
+        if (hasPages(job.slip())) {
+            groups.add(job.slip());
+        }
+        if (groups.isEmpty()) {
+            return null;
+        }
+        BufferedImage strip = (photoStrip && job.photos() != null) ? composePhotoStrip(job.photos(), dpi) : null;
+
+        Path dir = directory();
+        Path target = dir.resolve(fileName(job.orderId()));
+        Path tmp = Files.createTempFile(dir, "build-", ".tmp");
+        try {
+            int pages = write(sources, groups, 0, new ArrayList<>(groups.size()), strip, tmp);
+            if (pages == 0) {
+                return null;
+            }
+            synchronized (publishLock) {
+                if (generation.get() != ticket || invalidatedSince(job, seenInvalidations)) {
+                    return null;
+                }
+                try {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Artifact artifact = new Artifact(target, pages, job.label(), job.slip());
+                artifacts.put(job.orderId(), artifact);
+                built.incrementAndGet();
+                return artifact;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Opens the source documents one inside the other, since imported pages still reference their source's
+     * resources until the artifact is saved.
+     */
+    private int write(PdfDocumentPool pool, List<PageGroup> groups, int index, List<PDDocument> sources,
+                      BufferedImage strip, Path tmp) throws IOException {
+        if (index < groups.size()) {
+            return pool.withDocument(groups.get(index).file(), doc -> {
+                sources.add(doc);
+                return write(pool, groups, index + 1, sources, strip, tmp);
+            });
+        }
+        try (PDDocument out = new PDDocument()) {
+            for (int i = 0; i < groups.size(); i++) {
+                PDDocument source = sources.get(i);
+                for (Integer page : groups.get(i).pages()) {
+                    if (page != null && page >= 1 && page <= source.getNumberOfPages()) {
+                        out.importPage(source.getPage(page - 1));
+                    }
+                }
+            }
+            if (out.getNumberOfPages() == 0) {
+                return 0;
+            }
+            if (strip != null) {
+                addImagePage(out, strip);
+            }
+            out.save(tmp.toFile());
+            return out.getNumberOfPages();
+        }
+    }
+
+    private void addImagePage(PDDocument out, BufferedImage image) throws IOException {
+        float width = image.getWidth() * 72f / dpi;
+        float height = image.getHeight() * 72f / dpi;
+        PDPage page = new PDPage(new PDRectangle(width, height));
+        out.addPage(page);
+        PDImageXObject xobject = JPEGFactory.createFromImage(out, image, STRIP_JPEG_QUALITY);
+        try (PDPageContentStream content = new PDPageContentStream(out, page)) {
+            content.drawImage(xobject, 0, 0, width, height);
+        }
+    }
+
+    /**
+     * A 4x6 inch portrait page at {@code dpi} with up to three of {@code photos} stacked top to bottom, each scaled
+     * to fit its band; {@code null} when none of them can be read.
+     */
+    static BufferedImage composePhotoStrip(List<Path> photos, int dpi) {
+        List<BufferedImage> images = new ArrayList<>(MAX_STRIP_PHOTOS);
+        for (Path photo : photos) {
+            if (images.size() == MAX_STRIP_PHOTOS) {
+                break;
+            }
+            try {
+                BufferedImage image = ImageIO.read(photo.toFile());
+                if (image != null) {
+                    images.add(image);
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Could not read photo for strip: " + photo, ex);
+            }
+        }
+        if (images.isEmpty()) {
+            return null;
+        }
+        int width = 4 * dpi;
+        int height = 6 * dpi;
+        int band = height / images.size();
+        BufferedImage strip = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = strip.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int i = 0; i < images.size(); i++) {
+                BufferedImage image = images.get(i);
+                double scale = Math.min((double) width / image.getWidth(), (double) band / image.getHeight());
+                int w = Math.max(1, (int) Math.round(image.getWidth() * scale));
+                int h = Math.max(1, (int) Math.round(image.getHeight() * scale));
+                g.drawImage(image, (width - w) / 2, i * band + (band - h) / 2, w, h, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        return strip;
+    }
+
+    /** Room for one order's label and slip PDFs. */
+    private PdfDocumentPool newSourcePool() {
+        return new PdfDocumentPool(policy, 2, SOURCE_IDLE);
+    }
+
+    private synchronized Path directory() throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            directory = PageImageCache.processDirectory(root);
+        }
+        return directory;
+    }
+
+    private static String fileName(String orderId) {
+        // The hash keeps IDs that differ only in replaced characters apart.
+        return orderId.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(orderId.hashCode()) + ".pdf";
+    }
+
+    /** Whether a source of {@code job} was invalidated after the count {@code seen}; called under publishLock. */
+    private boolean invalidatedSince(Job job, long seen) {
+        for (Map.Entry<Path, Long> entry : invalidatedAt.entrySet()) {
+            if (entry.getValue() > seen
+                && (touches(job.label(), List.of(entry.getKey())) || touches(job.slip(), List.of(entry.getKey())))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean touches(PageGroup group, Collection<Path> changed) {
+        if (group == null || group.file() == null) {
+            return false;
+        }
+        Path file = group.file().toPath().toAbsolutePath();
+        for (Path path : changed) {
+            if (file.startsWith(path.toAbsolutePath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasPages(PageGroup group) {
+        return group != null && group.file() != null && group.pages() != null && !group.pages().isEmpty();
+    }
+}
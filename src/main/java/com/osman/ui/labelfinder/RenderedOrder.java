@@ -3,10 +3,25 @@ package com.osman.ui.labelfinder;
 import java.awt.image.BufferedImage;
 import java.util.List;
 
+/** An order's preview pages rendered at {@code dpi}, composed for a screen with device {@code scale}. */
 record RenderedOrder(List<BufferedImage> labelPages,
                      List<BufferedImage> slipPages,
                      BufferedImage combinedPreview,
                      LabelLocation labelLocation,
                      PageGroup labelSource,
-                     PageGroup slipSource) {
+                     PageGroup slipSource,
+                     int dpi,
+                     double scale) {
+
+    /** Approximate heap held by the rendered images; pages shared with the page cache are counted again. */
+    long estimateBytes() {
+        long bytes = ByteBoundedCache.estimateBytes(combinedPreview);
+        for (BufferedImage page : labelPages) {
+            bytes += ByteBoundedCache.estimateBytes(page);
+        }
+        for (BufferedImage page : slipPages) {
+            bytes += ByteBoundedCache.estimateBytes(page);
+        }
+        return bytes;
+    }
 }
@@ -0,0 +1,64 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.core.pdf.PdfDocumentPool;
+import org.apache.pdfbox.printing.PDFPrintable;
+import org.apache.pdfbox.printing.Scaling;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Prints PDF pages as vector graphics through PDFBox's {@link PDFPrintable}, so the printer receives the page
+ * content instead of a full-page bitmap. Only the fallback image (the composed preview when there are no PDF pages)
+ * is sent as an image. Documents are borrowed from {@link PdfDocumentPool}.
+ */
+final class VectorPdfPrintable implements Printable {
+    private final List<PageRenderSource> sources;
+    private final BufferedImage fallback;
+
+    VectorPdfPrintable(List<PageRenderSource> sources, BufferedImage fallback) {
+        this.sources = (sources == null) ? List.of() : List.copyOf(sources);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int print(Graphics g, PageFormat pf, int pageIndex) throws PrinterException {
+        int extra = (fallback != null) ? 1 : 0;
+        if (pageIndex < 0 || pageIndex >= sources.size() + extra) {
+            return NO_SUCH_PAGE;
+        }
+        if (pageIndex >= sources.size()) {
+            PdfAndImagePrintable.drawFitted((Graphics2D) g, pf, fallback);
+            return PAGE_EXISTS;
+        }
+
+        PageRenderSource source = sources.get(pageIndex);
+        try {
+            return PdfDocumentPool.shared().withDocument(source.file(), doc -> {
+                if (source.pageIndexZeroBased() >= doc.getNumberOfPages()) {
+                    return NO_SUCH_PAGE;
+                }
+                // dpi 0: paint the page content itself rather than a rasterized copy.
+                PDFPrintable printable = new PDFPrintable(doc, Scaling.SCALE_TO_FIT, false, 0, true);
+                try {
+                    return printable.print(g, pf, source.pageIndexZeroBased());
+                } catch (PrinterException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+            });
+        } catch (IOException ex) {
+            if (ex.getCause() instanceof PrinterException printer) {
+                throw printer;
+            }
+            PrinterException printer = new PrinterException("Failed to print page: " + ex.getMessage());
+            printer.initCause(ex);
+            throw printer;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.osman.ui.main;
 
+import com.osman.core.fs.ZipOrderSource;
 import com.osman.core.render.MugRenderErrorLogger;
 import com.osman.core.render.MugRenderer;
 import com.osman.logging.AppLogger;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -42,6 +44,19 @@ final class LeafOrderProcessor {
                                     AtomicInteger orderSequence,
                                     String customerNameForFile,
                                     File contextFolder) {
+        List<Path> leafPaths = leafOrders.stream().map(File::toPath).toList();
+        return processLeafPaths(leafPaths, readyFolderProvider, orderSequence, customerNameForFile, contextFolder);
+    }
+
+    /**
+     * Renders leaf order folders addressed by {@link Path}; used directly when the orders live inside a mounted
+     * archive rather than an extracted folder.
+     */
+    ProcessingSummary processLeafPaths(List<Path> leafOrders,
+                                       IntFunction<File> readyFolderProvider,
+                                       AtomicInteger orderSequence,
+                                       String customerNameForFile,
+                                       File contextFolder) {
         if (leafOrders.isEmpty()) {
             return ProcessingSummary.empty();
         }
@@ -63,13 +78,13 @@ final class LeafOrderProcessor {
         ExecutorService pool = Executors.newFixedThreadPool(4, tf);
         List<Future<?>> futures = new ArrayList<>();
 
-        for (File subFolder : leafOrders) {
+        for (Path subFolder : leafOrders) {
             if (cancelRequested.getAsBoolean()) {
                 break;
             }
 
-            if (shouldSkip(subFolder.getName())) {
-                log.accept("    -> Container folder skipped: " + subFolder.getName());
+            if (shouldSkip(ZipOrderSource.nameOf(subFolder))) {
+                log.accept("    -> Container folder skipped: " + ZipOrderSource.nameOf(subFolder));
                 continue;
             }
 
@@ -95,9 +110,18 @@ final class LeafOrderProcessor {
                            AtomicInteger orderSequence,
                            String customerNameForFile,
                            File contextFolder) {
+        return processAsMulti(folder != null ? folder.toPath() : null, readyFolderProvider, orderSequence,
+            customerNameForFile, contextFolder);
+    }
+
+    boolean processAsMulti(Path folder,
+                           IntFunction<File> readyFolderProvider,
+                           AtomicInteger orderSequence,
+                           String customerNameForFile,
+                           File contextFolder) {
         try {
             File readyFolder = readyFolderProvider.apply(orderSequence.getAndIncrement());
-            List<String> results = MugRenderer.processOrderFolderMulti(folder, readyFolder, customerNameForFile, null);
+            List<String> results = MugRenderer.processOrderFolder(folder, readyFolder, customerNameForFile, null);
             for (String path : results) {
                 log.accept("  -> OK: " + new File(path).getName());
             }
@@ -111,7 +135,7 @@ final class LeafOrderProcessor {
             MugRenderErrorLogger.logFailure(
                 "multi",
                 contextFolder.toPath(),
-                folder != null ? folder.toPath() : null,
+                folder,
                 null,
                 customerNameForFile,
                 ex
@@ -120,28 +144,28 @@ final class LeafOrderProcessor {
         }
     }
 
-    private void processSingleLeaf(File subFolder,
+    private void processSingleLeaf(Path subFolder,
                                    File readyFolder,
                                    String customerNameForFile,
                                    File contextFolder,
                                    AtomicInteger okCounter,
                                    AtomicInteger failCounter) {
         try {
-            List<String> results = MugRenderer.processOrderFolderMulti(subFolder, readyFolder, customerNameForFile, null);
+            List<String> results = MugRenderer.processOrderFolder(subFolder, readyFolder, customerNameForFile, null);
             for (String path : results) {
-                log.accept("    -> OK: " + subFolder.getName() + " -> " + new File(path).getName());
+                log.accept("    -> OK: " + ZipOrderSource.nameOf(subFolder) + " -> " + new File(path).getName());
             }
             okCounter.incrementAndGet();
         } catch (Exception ex) {
-            String errorMsg = "    -> ERROR processing " + subFolder.getName() + ": " + ex.getMessage();
+            String errorMsg = "    -> ERROR processing " + ZipOrderSource.nameOf(subFolder) + ": " + ex.getMessage();
             log.accept(errorMsg);
-            String summary = contextFolder.getName() + "/" + subFolder.getName() + " - Reason: " + ex.getMessage();
+            String summary = contextFolder.getName() + "/" + ZipOrderSource.nameOf(subFolder) + " - Reason: " + ex.getMessage();
             failedItems.add(summary);
             LOGGER.log(Level.SEVERE, summary, ex);
             MugRenderErrorLogger.logFailure(
                 "leaf",
                 contextFolder != null ? contextFolder.toPath() : null,
-                subFolder != null ? subFolder.toPath() : null,
+                subFolder,
                 readyFolder != null ? readyFolder.toPath() : null,
                 customerNameForFile,
                 ex
@@ -2,9 +2,13 @@ package com.osman.ui.main;
 
 import com.osman.config.ConfigService;
 import com.osman.core.fs.OrderDiscoveryService;
+import com.osman.core.fs.OrderDiscoveryService.OrderPathSearchResult;
 import com.osman.core.fs.OrderDiscoveryService.OrderSearchResult;
 import com.osman.core.fs.ZipExtractor;
+import com.osman.core.fs.ZipOrderSource;
+import com.osman.core.pdf.PdfIndexCache;
 import com.osman.core.pdf.ShippingLabelExtractor;
+import com.osman.core.order.IndexedOrderManifest;
 import com.osman.core.order.OrderQuantitiesManifest;
 import com.osman.core.order.OrderQuantitiesManifestBuilder;
 import com.osman.core.render.FontRegistry;
@@ -70,12 +74,15 @@ public class MainUIView {
     private JLabel fontPathLabel;
     private JProgressBar progressBar;
     private JCheckBox expeditedProcessingCheckBox;
+    private JCheckBox renderZipInPlaceCheckBox;
 
     private volatile boolean cancelRequested = false;
     private volatile boolean expeditedProcessingEnabled = false;
+    private volatile boolean renderZipInPlaceEnabled = false;
     private String fontDirectory;
     private final List<String> failedItems = Collections.synchronizedList(new ArrayList<>());
     private final Set<String> unmatchedOrders = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final Set<Path> touchedManifests = Collections.synchronizedSet(new LinkedHashSet<>());
 
     /** Launches the window and triggers initial font scan. */
     public MainUIView() {
@@ -108,6 +115,9 @@ public class MainUIView {
         expeditedProcessingCheckBox = new JCheckBox("Process expedited orders (skip shipping label match)");
         expeditedProcessingCheckBox.setToolTipText("Render every order folder even if no matching shipping label is found.");
         expeditedRow.add(expeditedProcessingCheckBox);
+        renderZipInPlaceCheckBox = new JCheckBox("Render zip files without extracting");
+        renderZipInPlaceCheckBox.setToolTipText("Read order assets straight from selected zip files; only rendered designs are written to disk.");
+        expeditedRow.add(renderZipInPlaceCheckBox);
         topPanel.add(expeditedRow);
 
         // Center: log
@@ -155,45 +165,57 @@ public class MainUIView {
         if (leafOrders == null || leafOrders.isEmpty()) {
             return Collections.emptyList();
         }
+        List<Path> eligible = filterOrderPathsByShippingLabels(
+            leafOrders.stream().map(File::toPath).toList(),
+            incompleteOrderFolders == null ? List.of() : incompleteOrderFolders.stream().map(File::toPath).toList()
+        );
+        return eligible.stream().map(Path::toFile).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private List<Path> filterOrderPathsByShippingLabels(List<Path> leafOrders,
+                                                        Collection<Path> incompleteOrderFolders) {
+        if (leafOrders == null || leafOrders.isEmpty()) {
+            return Collections.emptyList();
+        }
 
         if (expeditedProcessingEnabled) {
             log("  -> Expedited mode active: skipping shipping label filtering for " + leafOrders.size() + " folder(s).");
             return new ArrayList<>(leafOrders);
         }
 
-        Map<File, ShippingLabelCacheEntry> cache = new LinkedHashMap<>();
-        Map<File, Set<String>> matchedOrdersByLabelFolder = new LinkedHashMap<>();
-        List<File> eligible = new ArrayList<>();
+        Map<Path, ShippingLabelCacheEntry> cache = new LinkedHashMap<>();
+        Map<Path, Set<String>> matchedOrdersByLabelFolder = new LinkedHashMap<>();
+        List<Path> eligible = new ArrayList<>();
 
-        for (File orderFolder : leafOrders) {
+        for (Path orderFolder : leafOrders) {
             if (orderFolder == null) {
                 continue;
             }
-            File shippingFolder = resolveShippingLabelFolder(orderFolder);
+            Path shippingFolder = resolveShippingLabelFolder(orderFolder);
             if (shippingFolder == null) {
                 recordUnmatched(orderFolder, "shipping label folder not found");
-                log("    -> Skipping " + orderFolder.getAbsolutePath() + " (shipping label folder not found).");
+                log("    -> Skipping " + describe(orderFolder) + " (shipping label folder not found).");
                 continue;
             }
-            File cacheKey = shippingFolder.getAbsoluteFile();
+            Path cacheKey = shippingFolder.toAbsolutePath();
             ShippingLabelCacheEntry entry = cache.computeIfAbsent(cacheKey, this::loadShippingLabelCacheEntry);
             if (entry.orderIds().isEmpty()) {
-                recordUnmatched(orderFolder, "no shipping label order IDs detected in " + shippingFolder.getAbsolutePath());
-                log("    -> Skipping " + orderFolder.getAbsolutePath()
-                    + " (no shipping label order IDs detected in " + shippingFolder.getAbsolutePath() + ").");
+                recordUnmatched(orderFolder, "no shipping label order IDs detected in " + describe(shippingFolder));
+                log("    -> Skipping " + describe(orderFolder)
+                    + " (no shipping label order IDs detected in " + describe(shippingFolder) + ").");
                 continue;
             }
-            String orderId = extractOrderIdFromName(orderFolder.getName());
+            String orderId = extractOrderIdFromName(ZipOrderSource.nameOf(orderFolder));
             if (orderId == null) {
                 recordUnmatched(orderFolder, "order ID not found in folder name");
-                log("    -> Skipping " + orderFolder.getAbsolutePath() + " (order ID not found in folder name).");
+                log("    -> Skipping " + describe(orderFolder) + " (order ID not found in folder name).");
                 continue;
             }
             if (!entry.orderIds().contains(orderId)) {
-                recordUnmatched(orderFolder, "order " + orderId + " not present in shipping labels under " + shippingFolder.getAbsolutePath());
-                log("    -> Skipping " + orderFolder.getAbsolutePath()
+                recordUnmatched(orderFolder, "order " + orderId + " not present in shipping labels under " + describe(shippingFolder));
+                log("    -> Skipping " + describe(orderFolder)
                     + " (order " + orderId + " not present in shipping labels under "
-                    + shippingFolder.getAbsolutePath() + ").");
+                    + describe(shippingFolder) + ").");
                 continue;
             }
             matchedOrdersByLabelFolder
@@ -202,19 +224,19 @@ public class MainUIView {
             eligible.add(orderFolder);
         }
 
-        for (Map.Entry<File, ShippingLabelCacheEntry> entry : cache.entrySet()) {
-            File shippingFolder = entry.getKey();
+        for (Map.Entry<Path, ShippingLabelCacheEntry> entry : cache.entrySet()) {
+            Path shippingFolder = entry.getKey();
             Set<String> declaredOrders = new LinkedHashSet<>(entry.getValue().orderIds());
             Set<String> matched = matchedOrdersByLabelFolder.getOrDefault(shippingFolder, Collections.emptySet());
             declaredOrders.removeAll(matched);
             if (!declaredOrders.isEmpty()) {
-                log("  -> ERROR: Shipping labels under " + shippingFolder.getAbsolutePath()
+                log("  -> ERROR: Shipping labels under " + describe(shippingFolder)
                     + " reference " + declaredOrders.size() + " order(s) with no eligible customer folder.");
                 for (String orphanOrderId : declaredOrders) {
-                    File incomplete = findIncompleteFolder(orphanOrderId, incompleteOrderFolders);
+                    Path incomplete = findIncompleteFolder(orphanOrderId, incompleteOrderFolders);
                     if (incomplete != null) {
-                        log("    -> ERROR: Missing design assets for folder " + incomplete.getAbsolutePath());
-                        String summary = incomplete.getName() + " - Missing required SVG/JSON assets";
+                        log("    -> ERROR: Missing design assets for folder " + describe(incomplete));
+                        String summary = ZipOrderSource.nameOf(incomplete) + " - Missing required SVG/JSON assets";
                         failedItems.add(summary);
                         LOGGER.log(Level.SEVERE, summary);
                     } else {
@@ -230,61 +252,61 @@ public class MainUIView {
         return eligible;
     }
 
-    private File findIncompleteFolder(String orderId, Collection<File> incompleteOrderFolders) {
+    private Path findIncompleteFolder(String orderId, Collection<Path> incompleteOrderFolders) {
         if (orderId == null || incompleteOrderFolders == null || incompleteOrderFolders.isEmpty()) {
             return null;
         }
-        for (File folder : incompleteOrderFolders) {
+        for (Path folder : incompleteOrderFolders) {
             if (folder == null) {
                 continue;
             }
-            String name = folder.getName();
-            if (name != null && name.contains(orderId)) {
+            String name = ZipOrderSource.nameOf(folder);
+            if (name.contains(orderId)) {
                 return folder;
             }
         }
         return null;
     }
 
-    private void recordUnmatched(File orderFolder, String reason) {
-        String descriptor = orderFolder != null ? orderFolder.getAbsolutePath() : "<unknown>";
+    private void recordUnmatched(Path orderFolder, String reason) {
+        String descriptor = orderFolder != null ? describe(orderFolder) : "<unknown>";
         unmatchedOrders.add(descriptor + " - " + reason);
     }
 
-    private File resolveShippingLabelFolder(File orderFolder) {
+    private Path resolveShippingLabelFolder(Path orderFolder) {
         if (orderFolder == null) {
             return null;
         }
-        File parent = orderFolder.getParentFile();
+        Path parent = orderFolder.getParent();
         if (parent == null) {
             return null;
         }
-        String parentName = parent.getName();
-        if (parentName != null && (parentName.equalsIgnoreCase("images") || parentName.equalsIgnoreCase("img"))) {
-            File grandParent = parent.getParentFile();
+        String parentName = ZipOrderSource.nameOf(parent);
+        if (parentName.equalsIgnoreCase("images") || parentName.equalsIgnoreCase("img")) {
+            Path grandParent = parent.getParent();
             return grandParent != null ? grandParent : parent;
         }
         return parent;
     }
 
-    private ShippingLabelCacheEntry loadShippingLabelCacheEntry(File shippingFolder) {
+    private ShippingLabelCacheEntry loadShippingLabelCacheEntry(Path shippingFolder) {
         try {
-            ShippingLabelExtractor.ScanResult result = ShippingLabelExtractor.scan(shippingFolder.toPath());
+            ShippingLabelExtractor.ScanResult result = ShippingLabelExtractor.scan(shippingFolder, PdfIndexCache.shared());
             Set<String> orderIds = new LinkedHashSet<>(result.labelsByOrder().keySet());
 
             if (orderIds.isEmpty()) {
-                log("  -> No shipping label order IDs found in " + shippingFolder.getAbsolutePath());
+                log("  -> No shipping label order IDs found in " + describe(shippingFolder));
             } else {
                 Set<String> labelFiles = result.labelsByOrder().values().stream()
                     .map(ShippingLabelExtractor.LabelEntry::pdfPath)
                     .map(path -> path.getFileName() != null ? path.getFileName().toString() : path.toString())
                     .collect(Collectors.toCollection(LinkedHashSet::new));
-                log("  -> Shipping labels in " + shippingFolder.getAbsolutePath()
+                log("  -> Shipping labels in " + describe(shippingFolder)
                     + ": " + orderIds.size() + " order(s) across " + labelFiles.size() + " PDF(s).");
             }
 
             result.duplicateLabels().forEach((orderId, duplicates) -> log(
-                "  -> Duplicate labels for order " + orderId + " in " + shippingFolder.getAbsolutePath() + ": "
+                "  -> Duplicate labels for order " + orderId + " in " + describe(shippingFolder) + ": "
                     + duplicates.stream()
                         .map(entry -> {
                             Path pdf = entry.pdfPath();
@@ -294,7 +316,7 @@ public class MainUIView {
             ));
 
             result.skippedPackingSlips().forEach(path ->
-                log("  -> Skipped packing slip while scanning " + shippingFolder.getAbsolutePath() + ": " + path)
+                log("  -> Skipped packing slip while scanning " + describe(shippingFolder) + ": " + path)
             );
 
             result.failures().forEach(failure ->
@@ -303,7 +325,7 @@ public class MainUIView {
 
             return new ShippingLabelCacheEntry(orderIds);
         } catch (IOException ex) {
-            log("  -> Failed to scan shipping labels in " + shippingFolder.getAbsolutePath() + ": " + ex.getMessage());
+            log("  -> Failed to scan shipping labels in " + describe(shippingFolder) + ": " + ex.getMessage());
             return new ShippingLabelCacheEntry(Collections.emptySet());
         }
     }
@@ -322,6 +344,10 @@ public class MainUIView {
     private record ShippingLabelCacheEntry(Set<String> orderIds) {
     }
 
+    private static String describe(Path path) {
+        return ZipOrderSource.isArchivePath(path) ? path.toUri().toString() : path.toAbsolutePath().toString();
+    }
+
     private File resolveScanRoot(File customerFolder) {
         File scanRoot = new File(customerFolder, "images");
         if (!scanRoot.isDirectory()) {
@@ -409,6 +435,10 @@ public class MainUIView {
         log(expeditedSelected
             ? ">>> Expedited processing enabled: all order folders will be rendered."
             : ">>> Standard processing: shipping label match required.");
+        renderZipInPlaceEnabled = renderZipInPlaceCheckBox != null && renderZipInPlaceCheckBox.isSelected();
+        if (renderZipInPlaceEnabled) {
+            log(">>> Zip files will be rendered in place without extraction.");
+        }
 
         failedItems.clear();
         unmatchedOrders.clear();
@@ -437,11 +467,16 @@ public class MainUIView {
                         File baseDir = item.getParentFile();
                         File outputDirectory = new File(baseDir, OUTPUT_FOLDER_NAME);
                         if (!outputDirectory.exists()) outputDirectory.mkdirs();
-                        handleZipFile(item, outputDirectory);
+                        if (renderZipInPlaceEnabled) {
+                            handleZipInPlace(item);
+                        } else {
+                            handleZipFile(item, outputDirectory);
+                        }
                     } else {
                         publish("Skipped unsupported file: " + item.getName());
                     }
                 }
+                compactTouchedManifests();
                 List<String> unmatchedSummary;
                 synchronized (unmatchedOrders) {
                     unmatchedSummary = new ArrayList<>(unmatchedOrders);
@@ -672,6 +707,72 @@ public class MainUIView {
         }
     }
 
+    /**
+     * Renders a standalone .zip without extracting it: order discovery, JSON/SVG loading and shipping label
+     * matching read through a mounted zip file system (nested zips included). Ready folders are still created
+     * next to the zip, exactly where {@link #handleZipFile(File, File)} would put them. The zip is kept.
+     */
+    private void handleZipInPlace(File zipFile) {
+        log("\n--- Rendering Zip in place: " + zipFile.getName() + " ---");
+
+        String baseName = zipFile.getName().replaceAll("(?i)\\.zip$", "");
+        File outputRoot = new File(zipFile.getParentFile(), baseName);
+        OrderQuantitiesManifestBuilder manifestBuilder = new OrderQuantitiesManifestBuilder();
+        LeafOrderProcessor leafProcessor = new LeafOrderProcessor(() -> cancelRequested, this::log, failedItems, OUTPUT_FOLDER_NAME);
+
+        try (ZipOrderSource source = ZipOrderSource.open(zipFile.toPath())) {
+            List<Path> leafOrders = new ArrayList<>();
+            List<Path> incomplete = new ArrayList<>();
+            for (Path root : source.roots()) {
+                OrderPathSearchResult discovery = orderDiscoveryService.discoverOrderFolders(root, 6);
+                leafOrders.addAll(discovery.orderFolders());
+                incomplete.addAll(discovery.incompleteOrderFolders());
+            }
+            log("  -> " + leafOrders.size() + " order folder(s) found inside the zip.");
+            reportIncompleteOrderPaths(incomplete, outputRoot);
+
+            List<Path> eligibleOrders = filterOrderPathsByShippingLabels(leafOrders, incomplete);
+            ReadyFolderAllocator readyAllocator = new ReadyFolderAllocator(outputRoot, baseName, READY_FOLDER_ORDER_LIMIT);
+            AtomicInteger orderSequence = new AtomicInteger();
+
+            if (!eligibleOrders.isEmpty()) {
+                for (Path eligibleOrder : eligibleOrders) {
+                    manifestBuilder.collectFromFolder(eligibleOrder);
+                }
+                log("  -> " + eligibleOrders.size() + " order folder(s) will be rendered after shipping label filtering.");
+                LeafOrderProcessor.ProcessingSummary summary = leafProcessor.processLeafPaths(
+                    eligibleOrders,
+                    index -> readyAllocator.folderForOrder(index),
+                    orderSequence,
+                    baseName,
+                    outputRoot
+                );
+                log("  -> Summary: " + summary.succeeded() + " succeeded, " + summary.failed() + " failed.");
+            } else if (!leafOrders.isEmpty()) {
+                log("  -> Shipping label filter removed all " + leafOrders.size() + " order folder(s); skipping rendering.");
+            } else {
+                log("  -> No leaf folder found; trying zip root as MULTI order…");
+                Path root = source.roots().get(0);
+                manifestBuilder.collectFromFolder(root);
+                leafProcessor.processAsMulti(
+                    root,
+                    index -> readyAllocator.folderForOrder(index),
+                    orderSequence,
+                    baseName,
+                    outputRoot
+                );
+            }
+        } catch (Exception ex) {
+            String errorMsg = "  -> CRITICAL (" + zipFile.getName() + "): " + ex.getMessage();
+            log(errorMsg);
+            String summary = zipFile.getName() + " - Reason: " + ex.getMessage();
+            failedItems.add(summary);
+            LOGGER.log(Level.SEVERE, summary, ex);
+        } finally {
+            mergeIntoGlobalManifest(outputRoot, Collections.emptyList(), manifestBuilder);
+        }
+    }
+
     private void mergeIntoGlobalManifest(File referenceFolder,
                                          List<File> leafOrders,
                                          OrderQuantitiesManifestBuilder builder) {
@@ -684,12 +785,29 @@ public class MainUIView {
                 return;
             }
             builder.mergeInto(manifestPath);
+            touchedManifests.add(manifestPath);
             log("  -> Updated order manifest: " + manifestPath.toAbsolutePath());
         } catch (IOException ex) {
             log("  -> WARNING: Failed to update order manifest for " + referenceFolder.getAbsolutePath() + ": " + ex.getMessage());
         }
     }
 
+    private void compactTouchedManifests() {
+        List<Path> manifests;
+        synchronized (touchedManifests) {
+            manifests = new ArrayList<>(touchedManifests);
+        }
+        for (Path manifestPath : manifests) {
+            try {
+                OrderQuantitiesManifestBuilder.compact(manifestPath);
+                IndexedOrderManifest.convert(manifestPath);
+            } catch (IOException ex) {
+                log("  -> WARNING: Failed to compact order manifest " + manifestPath.toAbsolutePath() + ": " + ex.getMessage());
+            }
+        }
+        touchedManifests.clear();
+    }
+
     private Path resolveGlobalManifestPath(File referenceFolder, List<File> leafOrders) {
         File sampleLeaf = (leafOrders != null && !leafOrders.isEmpty()) ? leafOrders.get(0) : null;
         File batchRoot = findDigitAncestor(sampleLeaf);
@@ -785,6 +903,20 @@ public class MainUIView {
         }
     }
 
+    private void reportIncompleteOrderPaths(List<Path> incomplete, File referenceFolder) {
+        if (incomplete.isEmpty()) {
+            return;
+        }
+        log("  -> WARNING: Detected " + incomplete.size() + " order folder(s) missing SVG/JSON assets.");
+        for (Path folder : incomplete) {
+            String message = "    -> Missing design assets: " + describe(folder);
+            log(message);
+            String summary = referenceFolder.getName() + " - " + message.trim();
+            failedItems.add(summary);
+            LOGGER.log(Level.SEVERE, summary);
+        }
+    }
+
     /** Appends a line to the UI log area and persists it via the shared logger. */
     private void log(String message) {
         if (message == null) {
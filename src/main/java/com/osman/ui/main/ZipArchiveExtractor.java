@@ -10,6 +10,12 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -19,6 +25,12 @@ import java.util.logging.Logger;
 final class ZipArchiveExtractor {
 
     private static final Logger LOGGER = AppLogger.get();
+    private static final int POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r, "ZipPool-Worker");
+        t.setDaemon(true);
+        return t;
+    };
 
     private final Consumer<String> log;
     private final List<String> failedItems;
@@ -36,7 +48,7 @@ final class ZipArchiveExtractor {
     }
 
     /**
-     * Scans the provided folder for nested zip files and extracts them in place.
+     * Scans the provided folder for nested zip files and extracts them in place, several archives at a time.
      *
      * @return {@code true} if processing should continue, {@code false} if it was cancelled.
      */
@@ -56,44 +68,74 @@ final class ZipArchiveExtractor {
         }
 
         log.accept("  -> Found " + zipFiles.size() + " zip file(s) inside folder. Extracting...");
-        for (File zip : zipFiles) {
-            if (cancelRequested.getAsBoolean()) {
-                return false;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(zipFiles.size(), POOL_SIZE), THREAD_FACTORY);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (File zip : zipFiles) {
+                if (cancelRequested.getAsBoolean()) {
+                    cancelled.set(true);
+                    break;
+                }
+                File parent = zip.getParentFile();
+                if (parent != null && parent.getName().equalsIgnoreCase(outputFolderName)) {
+                    continue;
+                }
+                if (ZipExtractor.isAlreadyExtracted(zip)) {
+                    log.accept("  -> Already extracted while downloading, kept as-is: " + zip.getName());
+                    continue;
+                }
+                futures.add(pool.submit(() -> extractSingle(zip, cancelled)));
             }
-
-            File parent = zip.getParentFile();
-            if (parent != null && parent.getName().equalsIgnoreCase(outputFolderName)) {
-                continue;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    LOGGER.log(Level.SEVERE, "Zip extraction task failed", ex.getCause());
+                }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cancelled.set(true);
+        } finally {
+            pool.shutdownNow();
+        }
+        return !cancelled.get();
+    }
 
-            String baseName = zip.getName().replaceAll("(?i)\\.zip$", "");
-            File extractDir = new File(parent, baseName);
+    private void extractSingle(File zip, AtomicBoolean cancelled) {
+        if (cancelled.get() || cancelRequested.getAsBoolean()) {
+            cancelled.set(true);
+            return;
+        }
 
-            if (!extractDir.exists() && !extractDir.mkdirs()) {
-                log.accept("  -> ERROR creating folder for zip: " + extractDir.getAbsolutePath());
-                continue;
-            }
+        File parent = zip.getParentFile();
+        String baseName = zip.getName().replaceAll("(?i)\\.zip$", "");
+        File extractDir = new File(parent, baseName);
 
-            log.accept("  -> Extracting zip: " + zip.getName());
-            try {
-                ZipExtractor.unzip(zip, extractDir, listenerFor(zip));
-                if (zip.delete()) {
-                    log.accept("    -> Extracted and deleted: " + zip.getName());
-                } else {
-                    log.accept("    -> WARNING: Extracted but could not delete zip: " + zip.getName());
-                }
-            } catch (ZipExtractionCancelledException cancelled) {
-                log.accept("    -> Extraction cancelled for zip: " + zip.getName());
-                return false;
-            } catch (Exception ex) {
-                String errorMsg = "  -> ERROR extracting " + zip.getName() + ": " + ex.getMessage();
-                log.accept(errorMsg);
-                String summary = zip.getName() + " - Reason: " + ex.getMessage();
-                failedItems.add(summary);
-                LOGGER.log(Level.SEVERE, summary, ex);
+        if (!extractDir.exists() && !extractDir.mkdirs()) {
+            log.accept("  -> ERROR creating folder for zip: " + extractDir.getAbsolutePath());
+            return;
+        }
+
+        log.accept("  -> Extracting zip: " + zip.getName());
+        try {
+            ZipExtractor.unzip(zip, extractDir, listenerFor(zip));
+            if (zip.delete()) {
+                log.accept("    -> Extracted and deleted: " + zip.getName());
+            } else {
+                log.accept("    -> WARNING: Extracted but could not delete zip: " + zip.getName());
             }
+        } catch (ZipExtractionCancelledException ex) {
+            log.accept("    -> Extraction cancelled for zip: " + zip.getName());
+            cancelled.set(true);
+        } catch (Exception ex) {
+            String errorMsg = "  -> ERROR extracting " + zip.getName() + ": " + ex.getMessage();
+            log.accept(errorMsg);
+            String summary = zip.getName() + " - Reason: " + ex.getMessage();
+            failedItems.add(summary);
+            LOGGER.log(Level.SEVERE, summary, ex);
         }
-        return true;
     }
 
     ZipExtractor.Listener listenerFor(File zipFile) {
@@ -109,6 +151,12 @@ final class ZipArchiveExtractor {
             public void onEntrySkipped(String name, String reason) {
                 log.accept("    -> SKIPPED entry '" + name + "' (" + zipFile.getName() + "): " + reason);
             }
+
+            @Override
+            public boolean shouldExpandNested(String name) {
+                String[] segments = name.split("/");
+                return segments.length < 2 || !segments[segments.length - 2].equalsIgnoreCase(outputFolderName);
+            }
         };
     }
 
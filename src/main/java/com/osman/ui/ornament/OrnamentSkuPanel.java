@@ -5,6 +5,7 @@ import com.osman.cli.OrnamentDebugLogger;
 import com.osman.cli.OrnamentSkuNormalizer;
 import com.osman.cli.OrnamentSkuPatterns;
 import com.osman.cli.OrnamentSkuSections;
+import com.osman.core.pdf.PdfOpenPolicy;
 import org.apache.pdfbox.multipdf.Splitter;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
@@ -162,7 +163,7 @@ public class OrnamentSkuPanel extends JPanel {
                         appendLog("Processing: " + input);
                         Path tmpDir = tmpRoot.resolve("doc_" + docId);
                         Files.createDirectories(tmpDir);
-                        try (PDDocument doc = PDDocument.load(input.toFile())) {
+                        try (PDDocument doc = PdfOpenPolicy.shared().load(input.toFile())) {
                             List<Path> singlePageFiles = splitToSinglePages(doc, tmpDir);
                             singlePagesPerDoc.add(singlePageFiles);
                             List<Bundle> bundles = buildBundles(doc, docId, debug);
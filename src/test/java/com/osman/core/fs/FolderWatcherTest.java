@@ -0,0 +1,102 @@
+package com.osman.core.fs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FolderWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reportsChangesToEverySubscriberWithinItsDepth() throws Exception {
+        Path shallow = Files.createDirectories(tempDir.resolve("a"));
+        Path existing = Files.writeString(shallow.resolve("existing.txt"), "old");
+        Recorder whole = new Recorder();
+        Recorder top = new Recorder();
+        FolderWatcher watcher = new FolderWatcher();
+
+        try (FolderWatcher.Subscription wholeTree = watcher.subscribe(List.of(tempDir), Integer.MAX_VALUE, whole);
+             FolderWatcher.Subscription twoLevels = watcher.subscribe(List.of(tempDir), 2, top)) {
+            assertEquals(List.of(existing), whole.found);
+            assertEquals(List.of(existing), top.found);
+
+            Files.writeString(existing, "new");
+            awaitTrue(() -> whole.changed.contains(existing) && top.changed.contains(existing));
+
+            // Files already in a new folder are reported; a subscriber only hears of folders within its depth.
+            Path deep = tempDir.resolve("a/b/c/deep.txt");
+            Files.createDirectories(deep.getParent());
+            Files.writeString(deep, "deep");
+            awaitTrue(() -> whole.changed.contains(deep));
+
+            Files.delete(existing);
+            awaitTrue(() -> whole.deleted.contains(existing) && top.deleted.contains(existing));
+            assertFalse(top.changed.contains(deep));
+            assertTrue(top.batches > 0);
+        }
+    }
+
+    @Test
+    void closedSubscriptionHearsNothingMore() throws Exception {
+        Recorder closed = new Recorder();
+        Recorder open = new Recorder();
+        FolderWatcher watcher = new FolderWatcher();
+
+        try (FolderWatcher.Subscription kept = watcher.subscribe(List.of(tempDir), Integer.MAX_VALUE, open)) {
+            watcher.subscribe(List.of(tempDir), Integer.MAX_VALUE, closed).close();
+
+            Path file = Files.writeString(tempDir.resolve("late.txt"), "late");
+            awaitTrue(() -> open.changed.contains(file));
+            assertEquals(Set.of(), Set.copyOf(closed.changed));
+        }
+    }
+
+    private static final class Recorder implements FolderWatcher.Listener {
+        final List<Path> found = new CopyOnWriteArrayList<>();
+        final List<Path> changed = new CopyOnWriteArrayList<>();
+        final List<Path> deleted = new CopyOnWriteArrayList<>();
+        volatile int batches;
+
+        @Override
+        public void fileFound(Path file) {
+            found.add(file);
+        }
+
+        @Override
+        public void fileChanged(Path file) {
+            changed.add(file);
+        }
+
+        @Override
+        public void deleted(Path path, boolean folder) {
+            deleted.add(path);
+        }
+
+        @Override
+        public void batchDone() {
+            batches++;
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10 s");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.osman.core.fs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ZipExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void expandsNestedArchivesInSinglePass() throws IOException {
+        byte[] inner = zipBytes(List.of(new Entry("111-1111111-1111111/design.json", "{}".getBytes(StandardCharsets.UTF_8))));
+        Path outer = tempDir.resolve("outer.zip");
+        writeZip(outer, List.of(
+            new Entry("customer/readme.txt", "hello".getBytes(StandardCharsets.UTF_8)),
+            new Entry("customer/orders.zip", inner)
+        ));
+
+        Path dest = tempDir.resolve("out");
+        List<File> extracted = new ArrayList<>();
+        ZipExtractor.unzip(outer.toFile(), dest.toFile(), listener(extracted, new ArrayList<>()));
+
+        assertEquals("hello", Files.readString(dest.resolve("customer/readme.txt")));
+        assertTrue(Files.isRegularFile(dest.resolve("customer/orders/111-1111111-1111111/design.json")));
+        assertFalse(Files.exists(dest.resolve("customer/orders.zip")), "Nested archive should not be written out");
+        assertEquals(2, extracted.size());
+    }
+
+    @Test
+    void rejectsEntriesEscapingDestination() throws IOException {
+        byte[] inner = zipBytes(List.of(new Entry("../../../nested-escape.txt", new byte[]{1})));
+        Path zip = tempDir.resolve("evil.zip");
+        writeZip(zip, List.of(
+            new Entry("../escape.txt", new byte[]{1}),
+            new Entry("ok/file.txt", new byte[]{2}),
+            new Entry("ok/inner.zip", inner)
+        ));
+
+        Path dest = tempDir.resolve("dest");
+        List<String> skipped = new ArrayList<>();
+        ZipExtractor.unzip(zip.toFile(), dest.toFile(), listener(new ArrayList<>(), skipped));
+
+        assertFalse(Files.exists(tempDir.resolve("escape.txt")));
+        assertFalse(Files.exists(tempDir.resolve("nested-escape.txt")));
+        assertTrue(Files.isRegularFile(dest.resolve("ok/file.txt")));
+        assertEquals(2, skipped.size(), "Both escaping entries should be reported: " + skipped);
+    }
+
+    @Test
+    void copiesEntriesLargerThanTheCopyBuffer() throws IOException {
+        byte[] payload = new byte[ZipExtractor.COPY_BUFFER_SIZE * 3 + 17];
+        new Random(42).nextBytes(payload);
+        Path zip = tempDir.resolve("large.zip");
+        writeZip(zip, List.of(new Entry("photo.jpg", payload)));
+
+        Path dest = tempDir.resolve("large");
+        ZipExtractor.unzip(zip.toFile(), dest.toFile(), null);
+
+        assertArrayEquals(payload, Files.readAllBytes(dest.resolve("photo.jpg")));
+    }
+
+    @Test
+    void benchmarkExtractionThroughput() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+
+        int archives = 200;
+        byte[] photo = new byte[512 * 1024];
+        new Random(7).nextBytes(photo);
+        List<Path> zips = new ArrayList<>();
+        for (int i = 0; i < archives; i++) {
+            Path zip = tempDir.resolve("bench-" + i + ".zip");
+            writeZip(zip, List.of(
+                new Entry("order-" + i + "/design.svg", "<svg/>".getBytes(StandardCharsets.UTF_8)),
+                new Entry("order-" + i + "/design.json", "{}".getBytes(StandardCharsets.UTF_8)),
+                new Entry("order-" + i + "/photo.jpg", photo)
+            ));
+            zips.add(zip);
+        }
+        long totalBytes = (long) archives * (photo.length + 8);
+
+        long sequential = time(() -> {
+            for (Path zip : zips) {
+                ZipExtractor.unzip(zip.toFile(), tempDir.resolve("seq").resolve(zip.getFileName().toString()).toFile(), null);
+            }
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        long parallel;
+        try {
+            parallel = time(() -> {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Path zip : zips) {
+                    futures.add(pool.submit(() -> {
+                        ZipExtractor.unzip(zip.toFile(), tempDir.resolve("par").resolve(zip.getFileName().toString()).toFile(), null);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+
+        System.out.printf("Zip extraction: %d archives, %.1f MB%n", archives, totalBytes / 1e6);
+        System.out.printf("  sequential: %d ms (%.1f MB/s)%n", sequential, totalBytes / 1e3 / Math.max(1, sequential));
+        System.out.printf("  4 workers:  %d ms (%.1f MB/s)%n", parallel, totalBytes / 1e3 / Math.max(1, parallel));
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static long time(Task task) throws Exception {
+        long start = System.nanoTime();
+        task.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static ZipExtractor.Listener listener(List<File> extracted, List<String> skipped) {
+        return new ZipExtractor.Listener() {
+            @Override
+            public void onFileExtracted(File file) {
+                extracted.add(file);
+            }
+
+            @Override
+            public void onEntrySkipped(String name, String reason) {
+                skipped.add(name + ": " + reason);
+            }
+        };
+    }
+
+    private record Entry(String name, byte[] data) {
+    }
+
+    private static byte[] zipBytes(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeEntries(bytes, entries);
+        return bytes.toByteArray();
+    }
+
+    private static void writeZip(Path target, List<Entry> entries) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            writeEntries(out, entries);
+        }
+    }
+
+    private static void writeEntries(OutputStream out, List<Entry> entries) throws IOException {
+        try (ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (Entry entry : entries) {
+                zos.putNextEntry(new ZipEntry(entry.name()));
+                zos.write(entry.data());
+                zos.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.osman.core.order;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class IndexedOrderManifestTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void lookupsMatchJsonManifest() throws IOException {
+        Path manifestPath = writeManifest(2000, new Random(11));
+        Path indexPath = IndexedOrderManifest.convert(manifestPath);
+
+        OrderQuantitiesManifest json = OrderQuantitiesManifest.load(manifestPath);
+        IndexedOrderManifest indexed = IndexedOrderManifest.open(indexPath);
+
+        assertEquals(json.orders().size(), indexed.size());
+        for (OrderQuantitiesManifest.OrderSummary expected : json.orders()) {
+            assertEquals(expected, indexed.find(expected.orderId()), "Mismatch for " + expected.orderId());
+        }
+        assertNull(indexed.find("999-9999999-9999999"));
+        assertNull(indexed.find(""));
+        assertNull(indexed.find("111-0000000-0000000-too-long-for-the-key-table"));
+        String stored = json.orders().iterator().next().orderId();
+        assertFalse(indexed.contains(stored.substring(0, stored.length() - 1)), "Prefixes of stored keys must not match");
+    }
+
+    @Test
+    void handlesNonAsciiIdsAndEmptyManifests() throws IOException {
+        OrderQuantitiesManifestBuilder builder = new OrderQuantitiesManifestBuilder();
+        builder.addContribution(new OrderContribution("ÖRDER-é", "ITEM-ü", 2));
+        builder.addContribution(new OrderContribution("ORDER-a", "ITEM-1", 1));
+        Path manifestPath = tempDir.resolve(OrderQuantitiesManifest.DEFAULT_FILENAME);
+        builder.writeTo(manifestPath);
+
+        IndexedOrderManifest indexed = IndexedOrderManifest.open(IndexedOrderManifest.convert(manifestPath));
+        assertEquals(2, indexed.find("ÖRDER-é").orderQuantity());
+        assertEquals("ITEM-ü", indexed.find("ÖRDER-é").items().get(0).orderItemId());
+        assertNotNull(indexed.find("ORDER-a"));
+
+        Path empty = tempDir.resolve("empty.idx");
+        IndexedOrderManifest.write(List.of(), empty);
+        assertNull(IndexedOrderManifest.open(empty).find("ORDER-a"));
+    }
+
+    @Test
+    void indexIsIgnoredWhileJournalHasPendingUpdates() throws IOException {
+        Path manifestPath = writeManifest(10, new Random(5));
+        IndexedOrderManifest.convert(manifestPath);
+        assertNotNull(IndexedOrderManifest.openIfCurrent(manifestPath));
+
+        OrderQuantitiesManifestBuilder update = new OrderQuantitiesManifestBuilder();
+        update.addContribution(new OrderContribution("555-5555555-5555555", "ITEM-5", 1));
+        update.mergeInto(manifestPath);
+
+        assertNull(IndexedOrderManifest.openIfCurrent(manifestPath), "Journaled updates make the index stale");
+    }
+
+    @Test
+    void rejectsFilesThatAreNotIndexes() throws IOException {
+        Path bogus = tempDir.resolve("bogus.idx");
+        Files.writeString(bogus, "{\"orders\":[]}");
+        assertThrows(IOException.class, () -> IndexedOrderManifest.open(bogus));
+    }
+
+    @Test
+    void benchmarkLookupAgainstJsonLoad() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+
+        int orders = 100_000;
+        Path manifestPath = writeManifest(orders, new Random(1));
+        Path indexPath = IndexedOrderManifest.convert(manifestPath);
+        System.out.printf("Manifest: %d orders, JSON %.1f MB, index %.1f MB%n", orders,
+            Files.size(manifestPath) / 1e6, Files.size(indexPath) / 1e6);
+
+        long start = System.nanoTime();
+        OrderQuantitiesManifest json = OrderQuantitiesManifest.load(manifestPath);
+        long jsonMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        IndexedOrderManifest indexed = IndexedOrderManifest.open(indexPath);
+        long openMicros = (System.nanoTime() - start) / 1_000;
+
+        int lookups = 0;
+        start = System.nanoTime();
+        for (OrderQuantitiesManifest.OrderSummary summary : json.orders()) {
+            if (indexed.find(summary.orderId()) != null) {
+                lookups++;
+            }
+        }
+        long lookupNanos = (System.nanoTime() - start) / Math.max(1, lookups);
+
+        System.out.printf("  JSON load: %d ms%n", jsonMillis);
+        System.out.printf("  index open: %d us, lookup: %d ns each%n", openMicros, lookupNanos);
+    }
+
+    private Path writeManifest(int orders, Random random) throws IOException {
+        OrderQuantitiesManifestBuilder builder = new OrderQuantitiesManifestBuilder();
+        for (int i = 0; i < orders; i++) {
+            String orderId = "%03d-%07d-%07d".formatted(random.nextInt(1000), random.nextInt(10_000_000), i);
+            int items = 1 + random.nextInt(3);
+            for (int j = 0; j < items; j++) {
+                builder.addContribution(new OrderContribution(orderId, String.valueOf(10_000_000_000_000L + random.nextInt(1_000_000)), 1 + random.nextInt(4)));
+            }
+        }
+        Path manifestPath = tempDir.resolve(OrderQuantitiesManifest.DEFAULT_FILENAME);
+        builder.writeTo(manifestPath);
+        return manifestPath;
+    }
+}
@@ -0,0 +1,90 @@
+package com.osman.core.order;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderExpectationStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadsOrderJsonFilesFromEveryBaseFolder() throws IOException {
+        Path first = tempDir.resolve("batch-1");
+        Path second = tempDir.resolve("batch-2");
+        write(first.resolve("order/b-item.json"), "114-0000000-0000001", "ITEM-2", 1);
+        write(first.resolve("order/a-item.json"), "114-0000000-0000001", "ITEM-1", 2);
+        write(second.resolve("x/y/z/other.json"), "114-0000000-0000002", "ITEM-3", 1);
+        write(second.resolve("1/2/3/4/5/6/7/8/too-deep.json"), "114-0000000-0000003", "ITEM-4", 1);
+        Files.writeString(Files.createDirectories(first).resolve(OrderQuantitiesManifest.DEFAULT_FILENAME), "{}");
+        Files.writeString(first.resolve("broken.json"), "not json");
+
+        try (OrderExpectationStore store = new OrderExpectationStore(3, false, null)) {
+            store.load(List.of(first, second));
+
+            assertEquals(List.of(
+                new OrderContribution("114-0000000-0000001", "ITEM-1", 2),
+                new OrderContribution("114-0000000-0000001", "ITEM-2", 1)), store.find("114-0000000-0000001"));
+            assertEquals(1, store.find("114-0000000-0000002").size());
+            assertEquals(List.of(), store.find("114-0000000-0000003"), "Deeper than the scans ever looked");
+            assertEquals(List.of(), store.find("999-9999999-9999999"));
+            assertEquals(2, store.size());
+
+            store.load(List.of(second));
+            assertEquals(Set.of("114-0000000-0000002"), store.orderIds());
+        }
+    }
+
+    @Test
+    void followsChangesOnDiskAfterLoading() throws Exception {
+        Path order = Files.createDirectories(tempDir.resolve("orders/114-0000000-0000001"));
+        write(order.resolve("item-1.json"), "114-0000000-0000001", "ITEM-1", 1);
+        Set<String> changed = new CopyOnWriteArraySet<>();
+
+        try (OrderExpectationStore store = new OrderExpectationStore(1, true, changed::addAll)) {
+            store.load(List.of(tempDir.resolve("orders")));
+
+            write(order.resolve("item-2.json"), "114-0000000-0000001", "ITEM-2", 3);
+            awaitTrue(() -> store.find("114-0000000-0000001").size() == 2);
+            assertTrue(changed.contains("114-0000000-0000001"));
+
+            write(order.resolve("item-1.json"), "114-0000000-0000001", "ITEM-1", 4);
+            awaitTrue(() -> store.find("114-0000000-0000001").get(0).itemQuantity() == 4);
+
+            Files.delete(order.resolve("item-2.json"));
+            awaitTrue(() -> store.find("114-0000000-0000001").size() == 1);
+
+            changed.clear();
+            write(tempDir.resolve("orders/new-folder/sub/item.json"), "114-0000000-0000002", "ITEM-9", 1);
+            awaitTrue(() -> store.find("114-0000000-0000002").size() == 1);
+            awaitTrue(() -> changed.contains("114-0000000-0000002"));
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10 s");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static void write(Path file, String orderId, String itemId, int quantity) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{\"orderId\":\"" + orderId + "\",\"orderItemId\":\"" + itemId
+            + "\",\"quantity\":" + quantity + "}");
+    }
+}
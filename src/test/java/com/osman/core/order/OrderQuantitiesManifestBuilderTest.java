@@ -6,10 +6,18 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 class OrderQuantitiesManifestBuilderTest {
 
@@ -66,6 +74,104 @@ class OrderQuantitiesManifestBuilderTest {
             .findFirst().orElseThrow().itemQuantity());
     }
 
+    @Test
+    void loadReplaysJournalOverSnapshotUntilCompacted() throws IOException {
+        Path manifestPath = tempDir.resolve(OrderQuantitiesManifest.DEFAULT_FILENAME);
+        Path journalPath = OrderQuantitiesJournal.journalFor(manifestPath);
+
+        builderFor("111-0000000-0000001", "ITEM-A", 1).mergeInto(manifestPath);
+        String firstSnapshot = Files.readString(manifestPath);
+        builderFor("111-0000000-0000002", "ITEM-B", 2).mergeInto(manifestPath);
+        builderFor("111-0000000-0000001", "ITEM-A", 4).mergeInto(manifestPath);
+
+        assertEquals(firstSnapshot, Files.readString(manifestPath), "Later merges should only append to the journal");
+        assertTrue(Files.size(journalPath) > 0);
+        OrderQuantitiesManifest replayed = OrderQuantitiesManifest.load(manifestPath);
+        assertEquals(2, replayed.orders().size());
+        assertEquals(4, replayed.find("111-0000000-0000001").orderQuantity());
+
+        OrderQuantitiesManifestBuilder.compact(manifestPath);
+
+        assertEquals(0, Files.size(journalPath));
+        OrderQuantitiesManifest compacted = OrderQuantitiesManifest.load(manifestPath);
+        assertEquals(2, compacted.orders().size());
+        assertEquals(4, compacted.find("111-0000000-0000001").orderQuantity());
+        assertEquals(2, compacted.find("111-0000000-0000002").orderQuantity());
+    }
+
+    @Test
+    void tornJournalRecordIsIgnoredAndDoesNotCorruptLaterAppends() throws IOException {
+        Path manifestPath = tempDir.resolve(OrderQuantitiesManifest.DEFAULT_FILENAME);
+        builderFor("111-0000000-0000001", "ITEM-A", 1).mergeInto(manifestPath);
+        Files.writeString(OrderQuantitiesJournal.journalFor(manifestPath), "{\"orderId\":\"111-0000000-00",
+            StandardOpenOption.APPEND);
+
+        assertEquals(1, OrderQuantitiesManifest.load(manifestPath).orders().size());
+
+        builderFor("111-0000000-0000003", "ITEM-C", 3).mergeInto(manifestPath);
+        OrderQuantitiesManifest manifest = OrderQuantitiesManifest.load(manifestPath);
+        assertEquals(2, manifest.orders().size());
+        assertEquals(3, manifest.find("111-0000000-0000003").orderQuantity());
+    }
+
+    @Test
+    void readOnlyJournalCanStillBeLoaded() throws IOException {
+        Path manifestPath = tempDir.resolve(OrderQuantitiesManifest.DEFAULT_FILENAME);
+        Path journalPath = OrderQuantitiesJournal.journalFor(manifestPath);
+        builderFor("111-0000000-0000001", "ITEM-A", 1).mergeInto(manifestPath);
+        builderFor("111-0000000-0000002", "ITEM-B", 2).mergeInto(manifestPath);
+        assertTrue(journalPath.toFile().setReadOnly());
+        try {
+            assumeFalse(Files.isWritable(journalPath), "Read-only files are writable for this user.");
+
+            OrderQuantitiesManifest manifest = OrderQuantitiesManifest.load(manifestPath);
+
+            assertEquals(2, manifest.orders().size());
+            assertEquals(2, manifest.find("111-0000000-0000002").orderQuantity());
+        } finally {
+            assertTrue(journalPath.toFile().setWritable(true));
+        }
+    }
+
+    @Test
+    void concurrentMergesAreAllRecorded() throws Exception {
+        Path manifestPath = tempDir.resolve(OrderQuantitiesManifest.DEFAULT_FILENAME);
+        int writers = 8;
+        int mergesPerWriter = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < mergesPerWriter; i++) {
+                        builderFor("%03d-%07d-0000000".formatted(writer, i), "ITEM-" + i, 1).mergeInto(manifestPath);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(writers * mergesPerWriter, OrderQuantitiesManifest.load(manifestPath).orders().size());
+        OrderQuantitiesManifestBuilder.compact(manifestPath);
+        assertEquals(writers * mergesPerWriter, OrderQuantitiesManifest.load(manifestPath).orders().size());
+        try (var listing = Files.list(tempDir)) {
+            assertFalse(listing.anyMatch(path -> path.getFileName().toString().endsWith(".tmp")),
+                "Compaction must not leave temporary snapshots behind");
+        }
+    }
+
+    private static OrderQuantitiesManifestBuilder builderFor(String orderId, String itemId, int quantity) {
+        OrderQuantitiesManifestBuilder builder = new OrderQuantitiesManifestBuilder();
+        builder.addContribution(new OrderContribution(orderId, itemId, quantity));
+        return builder;
+    }
+
     private String sampleJson(String orderId, String itemId, int quantity) {
         return "{"
             + "\"orderId\":\"" + orderId + "\","
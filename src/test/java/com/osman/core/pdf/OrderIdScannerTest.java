@@ -0,0 +1,152 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class OrderIdScannerTest {
+
+    @Test
+    void findsTheSameIdsAsTheLayoutRegex() throws IOException {
+        List<String> lines = List.of(
+            "Order 111-2222222-3333333 shipped",
+            "prefix 111-111-2222222-4444444",
+            "A111-2222222-3333333 glued to a letter",
+            "111-2222222-33333334 one digit too many",
+            "en dash 444–5555555—6666666 and em dash",
+            "chain 777-8888888-9999999-1234567",
+            "12-345-6789012-3456789",
+            "(222-3333333-4444444)"
+        );
+        try (PDDocument doc = new PDDocument()) {
+            addPage(doc, lines);
+
+            List<String> fast = new OrderIdScanner().scan(doc.getPage(0)).orderIds();
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            List<String> layout = ShippingLabelExtractor.PageScan.of(stripper.getText(doc)).orderIds();
+            assertEquals(layout, fast);
+            assertEquals(6, fast.size(), "Unexpected matches: " + fast);
+        }
+    }
+
+    @Test
+    void detectsIndexKeywordsAcrossPositionedWords() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA, 11);
+                cs.newLineAtOffset(72, 720);
+                for (String word : new String[]{"Successful", "Label", "Purchase"}) {
+                    cs.showText(word);
+                    cs.newLineAtOffset(70, 0);
+                }
+                cs.endText();
+            }
+
+            assertTrue(new OrderIdScanner().scan(page).indexKeyword());
+        }
+    }
+
+    @Test
+    void fallsBackToLayoutWhenIdIsDrawnOutOfOrder() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            doc.addPage(page);
+            String head = "111-2222222-";
+            float headWidth = PDType1Font.HELVETICA.getStringWidth(head) / 1000f * 11;
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                // The tail is drawn first, to the right of where the head ends up.
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA, 11);
+                cs.newLineAtOffset(72 + headWidth, 720);
+                cs.showText("3333333");
+                cs.endText();
+                cs.beginText();
+                cs.setFont(PDType1Font.HELVETICA, 11);
+                cs.newLineAtOffset(72, 720);
+                cs.showText(head);
+                cs.endText();
+            }
+
+            assertTrue(new OrderIdScanner().scan(page).orderIds().isEmpty(), "Content order hides the ID");
+            Map<String, List<Integer>> map = ShippingLabelExtractor.extractOrderIdToPages(doc);
+            assertEquals(Map.of("111-2222222-3333333", List.of(1)), map);
+        }
+    }
+
+    @Test
+    void benchmarkScannerAgainstLayoutExtraction() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+
+        int pages = 2000;
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                addPage(doc, List.of(
+                    "USPS PRIORITY MAIL",
+                    "SHIP TO CUSTOMER " + i,
+                    "1234 SOME STREET APT " + i,
+                    "REF " + String.format("%03d-%07d-%07d", 100 + i % 900, i * 31 % 10_000_000, i),
+                    "TRACKING 9400 1000 0000 0000 " + i
+                ));
+            }
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            long start = System.nanoTime();
+            int layoutIds = 0;
+            for (int p = 1; p <= pages; p++) {
+                stripper.setStartPage(p);
+                stripper.setEndPage(p);
+                layoutIds += ShippingLabelExtractor.PageScan.of(stripper.getText(doc)).orderIds().size();
+            }
+            long layoutMillis = (System.nanoTime() - start) / 1_000_000;
+
+            OrderIdScanner scanner = new OrderIdScanner();
+            start = System.nanoTime();
+            int fastIds = 0;
+            for (int p = 0; p < pages; p++) {
+                fastIds += scanner.scan(doc.getPage(p)).orderIds().size();
+            }
+            long fastMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(layoutIds, fastIds);
+            assertFalse(fastIds == 0);
+            System.out.printf("Order ID scan, %d pages:%n", pages);
+            System.out.printf("  layout (PDFTextStripper): %d ms%n", layoutMillis);
+            System.out.printf("  stream scanner:           %d ms (%.1fx)%n", fastMillis,
+                layoutMillis / (double) Math.max(1, fastMillis));
+        }
+    }
+
+    private static void addPage(PDDocument doc, List<String> lines) throws IOException {
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA, 11);
+            cs.newLineAtOffset(72, 720);
+            for (String line : lines) {
+                cs.showText(line);
+                cs.newLineAtOffset(0, -14);
+            }
+            cs.endText();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackingSlipIndexServiceTest {
+
+    private static final String CONTINUATION = "Continued item list for the order above with enough text to count as "
+        + "content rather than a blank separator page between packing slips.";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shipToPagesStartOrdersAndContinuationPagesJoinThem() throws IOException {
+        Path pdf = tempDir.resolve("Amazon.pdf");
+        try (PDDocument doc = new PDDocument()) {
+            addPage(doc, "Ship to: Jane Doe", "Order ID: 111-0000000-0000001");
+            addPage(doc, CONTINUATION);
+            // Under 120 characters and no header: a separator, not part of any order.
+            addPage(doc, "Thank you for your order");
+            List<String> lines = new ArrayList<>(List.of("Ship to: John Roe"));
+            for (int i = 1; i <= 30; i++) {
+                lines.add("Item line " + i);
+            }
+            // No "Order ID" label, but still within the first 40 lines of a "Ship to" page.
+            lines.add("Reference 111-0000000-0000002");
+            addPage(doc, lines.toArray(String[]::new));
+            addPage(doc, CONTINUATION);
+            addPage(doc, "Ship to: Sam Poe", "Order ID: 111-0000000-0000003");
+            doc.save(pdf.toFile());
+        }
+
+        PdfIndex index = PackingSlipIndexService.index(pdf);
+
+        assertEquals(6, index.pageCount());
+        assertEquals(Map.of(
+            "111-0000000-0000001", List.of(1, 2),
+            "111-0000000-0000002", List.of(4, 5),
+            "111-0000000-0000003", List.of(6)
+        ), index.orderPages());
+    }
+
+    @Test
+    void headerlessPageWithAnOrderIdStartsTheFirstOrder() throws IOException {
+        Path pdf = tempDir.resolve("Amazon (1).pdf");
+        try (PDDocument doc = new PDDocument()) {
+            addPage(doc, "Order 111-0000000-0000004");
+            addPage(doc, "Ship to: Jane Doe", "Order ID: 111-0000000-0000005");
+            doc.save(pdf.toFile());
+        }
+
+        assertEquals(Map.of(
+            "111-0000000-0000004", List.of(1),
+            "111-0000000-0000005", List.of(2)
+        ), PackingSlipIndexService.index(pdf).orderPages());
+    }
+
+    private static void addPage(PDDocument doc, String... lines) throws IOException {
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA, 9);
+            cs.setLeading(14);
+            cs.newLineAtOffset(36, 740);
+            for (String line : lines) {
+                cs.showText(line);
+                cs.newLine();
+            }
+            cs.endText();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PackingSlipIndexerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void extractsEachDistinctPdfOncePerSession() throws IOException {
+        Path first = writeSlips(tempDir.resolve("01 P/Amazon.pdf"),
+            "111-0000000-0000001", "111-0000000-0000002");
+        Path copy = Files.copy(first, Files.createDirectories(tempDir.resolve("mix")).resolve("Amazon.pdf"));
+        Path second = writeSlips(tempDir.resolve("02 R/Amazon (1).pdf"), "111-0000000-0000003");
+
+        Map<Path, AtomicInteger> extractions = new ConcurrentHashMap<>();
+        PackingSlipIndexer indexer = new PackingSlipIndexer(null, 3, path -> {
+            extractions.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            return PackingSlipIndexService.index(path);
+        });
+
+        PackingSlipIndex index = indexer.index(List.of(first, copy, second));
+        PackingSlipIndex again = indexer.index(List.of(second, copy, first));
+
+        assertEquals(2, extractions.values().stream().mapToInt(AtomicInteger::get).sum(),
+            "Identical copies and repeated scans must not re-extract: " + extractions);
+        assertEquals(3, index.files().size());
+        assertEquals(2, index.distinctFiles());
+        assertEquals(3, index.size());
+        assertEquals(new PackingSlipIndex.SlipLocation(first, List.of(1, 2)), index.find("111-0000000-0000001"));
+        assertEquals(new PackingSlipIndex.SlipLocation(second, List.of(1, 2)), index.find("111-0000000-0000003"));
+        assertEquals(copy, again.find("111-0000000-0000001").pdf(), "First file in scan order wins");
+        assertNull(index.find("111-0000000-0000009"));
+    }
+
+    @Test
+    void reportsUnreadableFilesAndRetriesThemLater() throws IOException {
+        Path good = writeSlips(tempDir.resolve("Amazon.pdf"), "111-0000000-0000001");
+        Path broken = Files.writeString(tempDir.resolve("Amazon (2).pdf"), "not a pdf");
+        AtomicInteger extractions = new AtomicInteger();
+        PackingSlipIndexer indexer = new PackingSlipIndexer(null, 2, path -> {
+            extractions.incrementAndGet();
+            return PackingSlipIndexService.index(path);
+        });
+
+        PackingSlipIndex index = indexer.index(List.of(broken, good));
+
+        assertEquals(1, index.failures().size());
+        assertEquals(broken, index.failures().get(0).pdfPath());
+        assertNotNull(index.find("111-0000000-0000001"));
+
+        indexer.index(List.of(broken, good));
+        assertEquals(3, extractions.get(), "Failures are retried, successes are not");
+    }
+
+    @Test
+    void indexIsImmutable() throws IOException {
+        Path slips = writeSlips(tempDir.resolve("Amazon.pdf"), "111-0000000-0000001");
+        PackingSlipIndex index = new PackingSlipIndexer(null).index(List.of(slips));
+
+        assertThrows(UnsupportedOperationException.class, () -> index.byOrder().clear());
+        assertThrows(UnsupportedOperationException.class,
+            () -> index.find("111-0000000-0000001").pages().add(9));
+    }
+
+    /** One two-page slip per order: a "Ship to" header page and a continuation page. */
+    private static Path writeSlips(Path pdf, String... orderIds) throws IOException {
+        Files.createDirectories(pdf.getParent());
+        try (PDDocument doc = new PDDocument()) {
+            for (String orderId : orderIds) {
+                addPage(doc, "Ship to: Jane Doe", "Order ID: " + orderId);
+                addPage(doc, "Continued item list for the order above with enough text to count as content "
+                    + "rather than a blank separator page between packing slips.");
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf;
+    }
+
+    private static void addPage(PDDocument doc, String... lines) throws IOException {
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA, 9);
+            cs.setLeading(14);
+            cs.newLineAtOffset(36, 740);
+            for (String line : lines) {
+                cs.showText(line);
+                cs.newLine();
+            }
+            cs.endText();
+        }
+    }
+}
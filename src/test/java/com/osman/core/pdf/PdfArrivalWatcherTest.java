@@ -0,0 +1,101 @@
+package com.osman.core.pdf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfArrivalWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reportsPdfsOnlyOnceTheyStopChanging() throws Exception {
+        Path labels = Files.createDirectories(tempDir.resolve("labels"));
+        Path existing = Files.writeString(labels.resolve("existing.pdf"), "%PDF-1.4 old");
+        List<Path> ready = new CopyOnWriteArrayList<>();
+        List<Path> removed = new CopyOnWriteArrayList<>();
+
+        try (PdfArrivalWatcher watcher = new PdfArrivalWatcher(Duration.ofMillis(600), (r, d) -> {
+            ready.addAll(r);
+            removed.addAll(d);
+        })) {
+            watcher.watch(List.of(tempDir));
+
+            Path growing = labels.resolve("growing.pdf");
+            Files.writeString(growing, "%PDF-1.4");
+            Files.writeString(labels.resolve("notes.txt"), "not a pdf");
+            for (int i = 0; i < 4; i++) {
+                Thread.sleep(250);
+                Files.writeString(growing, " more", StandardOpenOption.APPEND);
+                assertFalse(ready.contains(growing), "Reported while still being written");
+            }
+            awaitTrue(() -> ready.contains(growing));
+
+            Files.writeString(existing, "%PDF-1.4 replaced");
+            awaitTrue(() -> ready.contains(existing));
+
+            Path nested = tempDir.resolve("new-batch/slips/Amazon.pdf");
+            Files.createDirectories(nested.getParent());
+            Files.writeString(nested, "%PDF-1.4 slip");
+            awaitTrue(() -> ready.contains(nested));
+
+            Files.delete(growing);
+            awaitTrue(() -> removed.contains(growing));
+
+            assertEquals(Set.of(growing, existing, nested), Set.copyOf(ready));
+            assertTrue(ready.stream().noneMatch(p -> p.toString().endsWith(".txt")));
+        }
+    }
+
+    @Test
+    void announcesChangingPdfsBeforeTheyAreReady() throws Exception {
+        Path label = Files.writeString(tempDir.resolve("label.pdf"), "%PDF-1.4 old");
+        List<Path> changing = new CopyOnWriteArrayList<>();
+        List<Path> ready = new CopyOnWriteArrayList<>();
+
+        try (PdfArrivalWatcher watcher = new PdfArrivalWatcher(Duration.ofSeconds(30), new PdfArrivalWatcher.Listener() {
+            @Override
+            public void pdfsChanged(List<Path> r, List<Path> removed) {
+                ready.addAll(r);
+            }
+
+            @Override
+            public void pdfsChanging(List<Path> pdfs) {
+                changing.addAll(pdfs);
+            }
+        })) {
+            watcher.watch(List.of(tempDir));
+
+            Files.writeString(label, "%PDF-1.4 replaced");
+            awaitTrue(() -> changing.contains(label));
+            assertTrue(ready.isEmpty(), "Reported ready before its quiet period");
+
+            changing.clear();
+            Files.delete(label);
+            awaitTrue(() -> changing.contains(label));
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10 s");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PdfDocumentPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reusesOpenDocumentForFurtherPages() throws IOException {
+        File pdf = writePdf(tempDir.resolve("labels.pdf"), 3).toFile();
+        PdfDocumentPool pool = newPool(4, Duration.ofMinutes(1));
+
+        for (int page = 0; page < 3; page++) {
+            int index = page;
+            assertTrue(pool.withDocument(pdf, doc -> new PDFRenderer(doc).renderImageWithDPI(index, 36)).getWidth() > 0);
+        }
+        // Another spelling of the same file shares the handle.
+        pool.withDocument(new File(tempDir.toFile(), "./labels.pdf"), PDDocument::getNumberOfPages);
+
+        assertEquals(1, pool.opens());
+        assertEquals(1, pool.openCount());
+    }
+
+    @Test
+    void closesLeastRecentlyUsedBeyondCapacity() throws IOException {
+        File a = writePdf(tempDir.resolve("a.pdf"), 1).toFile();
+        File b = writePdf(tempDir.resolve("b.pdf"), 1).toFile();
+        File c = writePdf(tempDir.resolve("c.pdf"), 1).toFile();
+        PdfDocumentPool pool = newPool(2, Duration.ofMinutes(1));
+
+        pool.withDocument(a, PDDocument::getNumberOfPages);
+        pool.withDocument(b, PDDocument::getNumberOfPages);
+        pool.withDocument(c, PDDocument::getNumberOfPages);
+        assertEquals(2, pool.openCount());
+
+        pool.withDocument(b, PDDocument::getNumberOfPages);
+        assertEquals(3, pool.opens(), "b was used more recently than a and must still be open");
+        pool.withDocument(a, PDDocument::getNumberOfPages);
+        assertEquals(4, pool.opens(), "a was evicted and is reopened");
+        assertEquals(2, pool.openCount());
+    }
+
+    @Test
+    void closesIdleDocuments() throws Exception {
+        File a = writePdf(tempDir.resolve("a.pdf"), 1).toFile();
+        File b = writePdf(tempDir.resolve("b.pdf"), 1).toFile();
+        PdfDocumentPool pool = newPool(4, Duration.ofMillis(50));
+
+        pool.withDocument(a, PDDocument::getNumberOfPages);
+        Thread.sleep(120);
+        pool.withDocument(b, PDDocument::getNumberOfPages);
+
+        assertEquals(1, pool.openCount());
+        pool.close();
+        assertEquals(0, pool.openCount());
+    }
+
+    @Test
+    void reopensChangedFile() throws IOException {
+        Path path = writePdf(tempDir.resolve("labels.pdf"), 1);
+        PdfDocumentPool pool = newPool(4, Duration.ofMinutes(1));
+        assertEquals(1, pool.withDocument(path.toFile(), PDDocument::getNumberOfPages));
+
+        FileTime before = Files.getLastModifiedTime(path);
+        writePdf(path, 2);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(before.toMillis() + 2000));
+
+        assertEquals(2, pool.withDocument(path.toFile(), PDDocument::getNumberOfPages));
+        assertEquals(1, pool.openCount());
+    }
+
+    @Test
+    void serializesTasksOnTheSameDocument() throws Exception {
+        File pdf = writePdf(tempDir.resolve("labels.pdf"), 4).toFile();
+        PdfDocumentPool pool = newPool(4, Duration.ofMinutes(1));
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int page = i;
+                futures.add(executor.submit(() -> pool.withDocument(pdf, doc -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    try {
+                        return new PDFRenderer(doc).renderImageWithDPI(page, 36);
+                    } finally {
+                        inside.decrementAndGet();
+                    }
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, maxInside.get());
+        assertEquals(1, pool.opens());
+    }
+
+    /**
+     * Per-page preview latency on a 2,000-page label PDF: opening the file for every page (as before) against
+     * borrowing it from the pool.
+     */
+    @Test
+    void benchmarkPooledPageRendering() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        File pdf = writePdf(tempDir.resolve("bulk.pdf"), 2000).toFile();
+        int[] pages = {1200, 1201, 1202, 1500, 1501, 1800, 1801, 1802};
+        PdfOpenPolicy policy = PdfOpenPolicy.shared();
+        PdfDocumentPool pool = new PdfDocumentPool(policy, 4, Duration.ofMinutes(1));
+
+        long start = System.nanoTime();
+        for (int page : pages) {
+            try (PDDocument doc = policy.load(pdf)) {
+                new PDFRenderer(doc).renderImageWithDPI(page, 100);
+            }
+        }
+        double reopenMs = (System.nanoTime() - start) / 1e6 / pages.length;
+
+        start = System.nanoTime();
+        for (int page : pages) {
+            pool.withDocument(pdf, doc -> new PDFRenderer(doc).renderImageWithDPI(page, 100));
+        }
+        double pooledMs = (System.nanoTime() - start) / 1e6 / pages.length;
+        pool.close();
+
+        System.out.printf("Per-page render: reopen %.1f ms, pooled %.1f ms (%.1fx)%n",
+            reopenMs, pooledMs, reopenMs / pooledMs);
+        assertTrue(pooledMs < reopenMs);
+    }
+
+    private PdfDocumentPool newPool(int maxOpen, Duration idle) {
+        return new PdfDocumentPool(new PdfOpenPolicy(Long.MAX_VALUE, 0, tempDir.resolve("scratch")), maxOpen, idle);
+    }
+
+    private static Path writePdf(Path pdf, int pages) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 11);
+                    cs.newLineAtOffset(72, 720);
+                    cs.showText("UPS LABEL order " + String.format("111-0000000-%07d", i));
+                    cs.endText();
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf;
+    }
+}
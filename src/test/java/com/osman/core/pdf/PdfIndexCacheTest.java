@@ -0,0 +1,168 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PdfIndexCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reusesEntryForUnchangedPdf() throws IOException {
+        Path pdf = writeLabels(tempDir.resolve("labels.pdf"), List.of("111-1111111-1111111", "222-2222222-2222222"));
+        PdfIndexCache cache = new PdfIndexCache(tempDir.resolve("cache"));
+        AtomicInteger runs = new AtomicInteger();
+        PdfIndexCache.Indexer counting = path -> {
+            runs.incrementAndGet();
+            return ShippingLabelExtractor.index(path);
+        };
+
+        assertNull(cache.peek(pdf, PdfIndexCache.Kind.LABELS));
+        PdfIndex first = cache.get(pdf, PdfIndexCache.Kind.LABELS, counting);
+        PdfIndex second = cache.get(pdf, PdfIndexCache.Kind.LABELS, counting);
+
+        assertEquals(1, runs.get());
+        assertEquals(first, second);
+        assertEquals(2, second.pageCount());
+        assertEquals(Map.of("111-1111111-1111111", List.of(1), "222-2222222-2222222", List.of(2)), second.orderPages());
+        assertNotNull(cache.peek(pdf, PdfIndexCache.Kind.LABELS));
+        assertNull(cache.peek(pdf, PdfIndexCache.Kind.PACKING_SLIPS), "Kinds are cached separately");
+    }
+
+    @Test
+    void reindexesWhenContentChangesEvenWithSameSizeAndTime() throws IOException {
+        Path pdf = writeLabels(tempDir.resolve("labels.pdf"), List.of("111-1111111-1111111"), false);
+        PdfIndexCache cache = new PdfIndexCache(tempDir.resolve("cache"));
+        cache.labels(pdf);
+
+        // Rewrite the order ID in place: same size, same timestamp, different content.
+        FileTime modified = Files.getLastModifiedTime(pdf);
+        String raw = new String(Files.readAllBytes(pdf), StandardCharsets.ISO_8859_1);
+        assertTrue(raw.contains("111-1111111-1111111"));
+        Files.write(pdf, raw.replace("111-1111111-1111111", "999-9999999-9999999").getBytes(StandardCharsets.ISO_8859_1));
+        Files.setLastModifiedTime(pdf, modified);
+
+        assertNull(cache.peek(pdf, PdfIndexCache.Kind.LABELS));
+        assertEquals(Map.of("999-9999999-9999999", List.of(1)), cache.labels(pdf).orderPages());
+    }
+
+    @Test
+    void reindexesWhenFileIsTouched() throws IOException {
+        Path pdf = writeLabels(tempDir.resolve("labels.pdf"), List.of("111-1111111-1111111"));
+        PdfIndexCache cache = new PdfIndexCache(tempDir.resolve("cache"));
+        cache.labels(pdf);
+
+        Files.setLastModifiedTime(pdf, FileTime.fromMillis(Files.getLastModifiedTime(pdf).toMillis() + 5_000));
+
+        assertNull(cache.peek(pdf, PdfIndexCache.Kind.LABELS));
+        cache.labels(pdf);
+        assertNotNull(cache.peek(pdf, PdfIndexCache.Kind.LABELS));
+    }
+
+    @Test
+    void reindexesLabelsWhenRasterFallbackChanges() throws IOException {
+        Path pdf = writeLabels(tempDir.resolve("labels.pdf"), List.of("111-1111111-1111111"));
+        PdfIndexCache barcodesOnly = new PdfIndexCache(tempDir.resolve("cache"), () -> 1);
+        barcodesOnly.labels(pdf);
+        barcodesOnly.get(pdf, PdfIndexCache.Kind.PACKING_SLIPS, ShippingLabelExtractor::index);
+
+        PdfIndexCache withOcr = new PdfIndexCache(tempDir.resolve("cache"), () -> 2);
+        assertNull(withOcr.peek(pdf, PdfIndexCache.Kind.LABELS), "Indexed before OCR was available");
+        assertNotNull(withOcr.peek(pdf, PdfIndexCache.Kind.PACKING_SLIPS), "Slips do not use the fallback");
+        withOcr.labels(pdf);
+        assertNotNull(withOcr.peek(pdf, PdfIndexCache.Kind.LABELS));
+        assertNull(barcodesOnly.peek(pdf, PdfIndexCache.Kind.LABELS));
+    }
+
+    @Test
+    void treatsCorruptEntryAsMiss() throws IOException {
+        Path pdf = writeLabels(tempDir.resolve("labels.pdf"), List.of("111-1111111-1111111"));
+        PdfIndexCache cache = new PdfIndexCache(tempDir.resolve("cache"));
+        cache.labels(pdf);
+        Path entry = cache.entryPath(pdf.toAbsolutePath().normalize(), PdfIndexCache.Kind.LABELS);
+        byte[] bytes = Files.readAllBytes(entry);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(entry, bytes);
+
+        assertNull(cache.peek(pdf, PdfIndexCache.Kind.LABELS));
+        assertEquals(List.of(1), cache.labels(pdf).orderPages().get("111-1111111-1111111"));
+        assertNotNull(cache.peek(pdf, PdfIndexCache.Kind.LABELS), "Entry is rewritten after re-indexing");
+    }
+
+    @Test
+    void benchmarkWarmStartOnUnchangedBatch() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+
+        int files = 20;
+        int pagesPerFile = 150;
+        List<Path> pdfs = new ArrayList<>();
+        for (int f = 0; f < files; f++) {
+            List<String> ids = new ArrayList<>();
+            for (int p = 0; p < pagesPerFile; p++) {
+                ids.add(String.format("%03d-%07d-%07d", 100 + f, p, f * pagesPerFile + p));
+            }
+            pdfs.add(writeLabels(tempDir.resolve("batch-" + f + ".pdf"), ids));
+        }
+        PdfIndexCache cache = new PdfIndexCache(tempDir.resolve("cache"));
+
+        long start = System.nanoTime();
+        for (Path pdf : pdfs) {
+            cache.labels(pdf);
+        }
+        long coldMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        for (Path pdf : pdfs) {
+            cache.labels(pdf);
+        }
+        long warmMicros = (System.nanoTime() - start) / 1_000;
+
+        System.out.printf("PDF index cache, %d PDFs x %d pages:%n", files, pagesPerFile);
+        System.out.printf("  cold: %d ms%n", coldMillis);
+        System.out.printf("  warm: %d us (%.2f ms per PDF)%n", warmMicros, warmMicros / 1000.0 / files);
+    }
+
+    private static Path writeLabels(Path pdf, List<String> orderIds) throws IOException {
+        return writeLabels(pdf, orderIds, true);
+    }
+
+    private static Path writeLabels(Path pdf, List<String> orderIds, boolean compress) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            for (String orderId : orderIds) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page, PDPageContentStream.AppendMode.OVERWRITE, compress)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 11);
+                    cs.newLineAtOffset(72, 720);
+                    cs.showText("UPS LABEL order " + orderId);
+                    cs.endText();
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf;
+    }
+}
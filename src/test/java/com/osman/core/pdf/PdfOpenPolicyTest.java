@@ -0,0 +1,205 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDMetadata;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PdfOpenPolicyTest {
+    private static final long MB = 1024L * 1024L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void switchesToMixedAboveThreshold() {
+        PdfOpenPolicy policy = new PdfOpenPolicy(10 * MB, 2 * MB, tempDir);
+
+        MemoryUsageSetting small = policy.memoryUsageFor(10 * MB);
+        assertTrue(small.useMainMemory());
+        assertFalse(small.useTempFile());
+
+        MemoryUsageSetting large = policy.memoryUsageFor(10 * MB + 1);
+        assertTrue(large.useTempFile());
+        assertEquals(2 * MB, large.getMaxMainMemoryBytes());
+        assertEquals(tempDir.toFile(), large.getTempDir());
+    }
+
+    @Test
+    void spillsScratchToDiskAndReportsUsage() throws IOException {
+        Path pdf = writeLargePdf(tempDir.resolve("large.pdf"), 6, 256 * 1024, new Random(3));
+        Path scratch = tempDir.resolve("scratch");
+        PdfOpenPolicy policy = new PdfOpenPolicy(0, 256 * 1024, scratch);
+
+        PDDocument doc = policy.load(pdf.toFile());
+        PdfOpenPolicy.DocumentMemory memory;
+        try {
+            memory = policy.memoryOf(doc);
+            assertNotNull(memory);
+            assertTrue(memory.mixed());
+            assertTrue(memory.scratchBytes() > 6 * 256 * 1024, "Streams are copied into scratch: " + memory);
+            assertEquals(256 * 1024, memory.heapBytes());
+            assertTrue(fileCount(scratch) > 0, "Scratch beyond the cap goes to a temp file");
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            assertTrue(stripper.getText(doc).contains("111-0000000-0000005"));
+        } finally {
+            doc.close();
+        }
+        assertNull(policy.memoryOf(doc));
+        assertEquals(0, fileCount(scratch), "Scratch files are removed on close");
+        assertTrue(memory.peakScratchBytes() >= memory.scratchBytes());
+    }
+
+    @Test
+    void smallFilesStayOnHeap() throws IOException {
+        Path pdf = writeLargePdf(tempDir.resolve("small.pdf"), 2, 1024, new Random(4));
+        PdfOpenPolicy policy = new PdfOpenPolicy(MB, 64 * 1024, tempDir.resolve("scratch"));
+
+        try (PDDocument doc = policy.load(pdf)) {
+            PdfOpenPolicy.DocumentMemory memory = policy.memoryOf(doc);
+            assertFalse(memory.mixed());
+            assertEquals(memory.scratchBytes(), memory.heapBytes());
+        }
+        assertFalse(Files.exists(tempDir.resolve("scratch")));
+    }
+
+    /**
+     * Opens four 24 MB PDFs at once in a JVM limited to 64 MB of heap. With the mixed policy that works; keeping
+     * all scratch on the heap (threshold above the file size) runs out of memory. Writes about 100 MB and forks two
+     * JVMs, so it only runs with {@code -Dbenchmarks=true}.
+     */
+    @Test
+    void benchmarkConcurrentLargeOpensFitInSmallHeap() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        List<Path> pdfs = new ArrayList<>();
+        Random random = new Random(9);
+        for (int i = 0; i < 4; i++) {
+            pdfs.add(writeLargePdf(tempDir.resolve("carrier-" + i + ".pdf"), 24, (int) MB, random));
+        }
+        Path scratch = tempDir.resolve("stress-scratch");
+
+        Process mixed = startChild(pdfs, scratch, 8);
+        String mixedOutput = new String(mixed.getInputStream().readAllBytes());
+        assertTrue(mixed.waitFor(2, TimeUnit.MINUTES));
+        assertEquals(0, mixed.exitValue(), mixedOutput);
+        assertTrue(mixedOutput.contains("opened 4"), mixedOutput);
+
+        Process heapOnly = startChild(pdfs, scratch, 1024);
+        String heapOnlyOutput = new String(heapOnly.getInputStream().readAllBytes());
+        assertTrue(heapOnly.waitFor(2, TimeUnit.MINUTES));
+        assertNotEquals(0, heapOnly.exitValue(), "Expected heap-only scratch to exhaust -Xmx64m: " + heapOnlyOutput);
+        assertTrue(heapOnlyOutput.contains("OutOfMemoryError"), heapOnlyOutput);
+    }
+
+    private static Process startChild(List<Path> pdfs, Path scratch, int thresholdMb) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-Xmx64m",
+            "-DpdfMixedThresholdMb=" + thresholdMb,
+            "-DpdfMemoryCapMb=4",
+            "-DpdfScratchDir=" + scratch,
+            "-cp", System.getProperty("java.class.path"),
+            StressChild.class.getName()
+        ));
+        pdfs.forEach(pdf -> command.add(pdf.toString()));
+        return new ProcessBuilder(command).redirectErrorStream(true).start();
+    }
+
+    /** Child JVM entry point: opens every argument concurrently and holds them all open at once. */
+    static final class StressChild {
+        public static void main(String[] args) throws Exception {
+            PdfOpenPolicy policy = PdfOpenPolicy.shared();
+            CyclicBarrier allOpen = new CyclicBarrier(args.length);
+            ExecutorService pool = Executors.newFixedThreadPool(args.length);
+            List<Future<PdfOpenPolicy.DocumentMemory>> results = new ArrayList<>();
+            for (String arg : args) {
+                results.add(pool.submit(() -> {
+                    try (PDDocument doc = policy.load(new File(arg))) {
+                        PDFTextStripper stripper = new PDFTextStripper();
+                        stripper.setEndPage(1);
+                        if (!stripper.getText(doc).contains("111-")) {
+                            throw new IllegalStateException("No label text in " + arg);
+                        }
+                        allOpen.await(1, TimeUnit.MINUTES);
+                        PdfOpenPolicy.DocumentMemory memory = policy.memoryOf(doc);
+                        allOpen.await(1, TimeUnit.MINUTES);
+                        return memory;
+                    }
+                }));
+            }
+            try {
+                for (Future<PdfOpenPolicy.DocumentMemory> result : results) {
+                    PdfOpenPolicy.DocumentMemory memory = result.get();
+                    System.out.printf("%s: scratch %d MB, heap %d MB%n", memory.name(),
+                        memory.scratchBytes() / MB, memory.heapBytes() / MB);
+                }
+                System.out.println("opened " + results.size());
+            } catch (Throwable t) {
+                t.printStackTrace(System.out);
+                System.exit(3);
+            }
+            System.exit(0);
+        }
+    }
+
+    private static long fileCount(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    /** Label pages, each carrying an uncompressed random metadata stream of {@code payloadBytes}. */
+    private static Path writeLargePdf(Path pdf, int pages, int payloadBytes, Random random) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            byte[] payload = new byte[payloadBytes];
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 11);
+                    cs.newLineAtOffset(72, 720);
+                    cs.showText("UPS LABEL order " + String.format("111-0000000-%07d", i));
+                    cs.endText();
+                }
+                random.nextBytes(payload);
+                page.setMetadata(new PDMetadata(doc, new ByteArrayInputStream(payload)));
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf;
+    }
+}
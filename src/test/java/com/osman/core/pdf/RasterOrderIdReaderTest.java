@@ -0,0 +1,120 @@
+package com.osman.core.pdf;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.oned.Code128Writer;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RasterOrderIdReaderTest {
+
+    @Test
+    void readsOrderIdsFromBarcodesOnImageOnlyPages() throws Exception {
+        try (PDDocument doc = new PDDocument()) {
+            addTextPage(doc, "UPS LABEL order 111-1111111-1111111");
+            addImagePage(doc, MatrixToImageWriter.toBufferedImage(
+                new Code128Writer().encode("222-2222222-2222222", BarcodeFormat.CODE_128, 600, 120)));
+            addImagePage(doc, MatrixToImageWriter.toBufferedImage(
+                new QRCodeWriter().encode("Order: 333-3333333-3333333", BarcodeFormat.QR_CODE, 300, 300)));
+            addImagePage(doc, new BufferedImage(200, 200, BufferedImage.TYPE_BYTE_GRAY));
+
+            ShippingLabelExtractor.FallbackStats before = ShippingLabelExtractor.fallbackStats();
+            Map<String, List<Integer>> map = ShippingLabelExtractor.extractOrderIdToPages(doc);
+            ShippingLabelExtractor.FallbackStats stats = ShippingLabelExtractor.fallbackStats().since(before);
+
+            assertEquals(List.of("111-1111111-1111111", "222-2222222-2222222", "333-3333333-3333333"),
+                List.copyOf(map.keySet()));
+            assertEquals(List.of(2), map.get("222-2222222-2222222"));
+            assertEquals(List.of(3), map.get("333-3333333-3333333"));
+            assertEquals(3, stats.pagesTried());
+            assertEquals(2, stats.barcodeHits());
+        }
+    }
+
+    @Test
+    void barcodeWithoutOrderIdIsIgnored() throws WriterException {
+        BufferedImage tracking = MatrixToImageWriter.toBufferedImage(
+            new Code128Writer().encode("1Z999AA10123456784", BarcodeFormat.CODE_128, 600, 120));
+        BufferedImage page = onPage(tracking);
+
+        assertNull(RasterOrderIdReader.read(page), "Tracking barcodes carry no order ID");
+    }
+
+    @Test
+    void readsPrintedOrderIdWithOcr() {
+        assumeTrue(RasterOrderIdReader.ocrAvailable(), "Tesseract and eng.traineddata are not installed.");
+
+        BufferedImage page = new BufferedImage(1275, 400, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = page.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, page.getWidth(), page.getHeight());
+            g.setColor(Color.BLACK);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 36));
+            g.drawString("Order ID: 444-4444444-4444444", 60, 200);
+        } finally {
+            g.dispose();
+        }
+
+        RasterOrderIdReader.PageResult result = RasterOrderIdReader.read(page);
+        assertNotNull(result);
+        assertEquals(List.of("444-4444444-4444444"), result.orderIds());
+    }
+
+    private static BufferedImage onPage(BufferedImage content) {
+        BufferedImage page = new BufferedImage(content.getWidth() + 200, content.getHeight() + 200, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = page.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, page.getWidth(), page.getHeight());
+            g.drawImage(content, 100, 100, null);
+        } finally {
+            g.dispose();
+        }
+        return page;
+    }
+
+    private static void addTextPage(PDDocument doc, String text) throws IOException {
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA, 11);
+            cs.newLineAtOffset(72, 720);
+            cs.showText(text);
+            cs.endText();
+        }
+    }
+
+    private static void addImagePage(PDDocument doc, BufferedImage image) throws IOException {
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        doc.addPage(page);
+        PDImageXObject xObject = LosslessFactory.createFromImage(doc, image);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            cs.drawImage(xObject, 72, 500, image.getWidth() / 2f, image.getHeight() / 2f);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ShippingLabelExtractorParallelTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelIndexingMatchesSequentialWithoutIndexPages() throws IOException {
+        List<String> pages = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String text = "UPS LABEL order " + orderId(i);
+            if (i % 17 == 0) {
+                // Same order on several pages, plus a second order and a unicode dash variant on one page.
+                text = "UPS LABEL order " + orderId(i / 17) + "\nalso 114–0000000—" + String.format("%07d", i);
+            }
+            pages.add(text);
+        }
+        Path pdf = writePdf("labels-no-index.pdf", pages);
+
+        assertParallelMatchesSequential(pdf);
+    }
+
+    @Test
+    void parallelIndexingMatchesSequentialWithIndexBeforeTrailingPages() throws IOException {
+        List<String> pages = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            pages.add("FEDEX LABEL " + orderId(i));
+        }
+        StringBuilder index = new StringBuilder("Successful Label Purchase\nList of Orders");
+        for (int i = 0; i < 40; i++) {
+            index.append('\n').append(orderId(i));
+        }
+        pages.add(index.toString());
+        for (int chunk = 40; chunk < 150; chunk += 20) {
+            StringBuilder continuation = new StringBuilder("continued");
+            for (int i = chunk; i < Math.min(150, chunk + 20); i++) {
+                continuation.append('\n').append(orderId(i));
+            }
+            pages.add(continuation.toString());
+        }
+        Path pdf = writePdf("labels-long-index.pdf", pages);
+
+        Map<String, List<Integer>> parallel = assertParallelMatchesSequential(pdf);
+        assertEquals(150, parallel.size());
+        assertEquals(List.of(1), parallel.get(orderId(0)));
+        assertEquals(List.of(150), parallel.get(orderId(149)));
+    }
+
+    @Test
+    void benchmarkParallelIndexing() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+
+        List<String> pages = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            pages.add("USPS PRIORITY MAIL\nSHIP TO CUSTOMER " + i + "\nREF " + orderId(i) + "\nTRACKING 9400 1000 0000 0000 " + i);
+        }
+        Path pdf = writePdf("benchmark-labels.pdf", pages);
+
+        long start = System.nanoTime();
+        Map<String, List<Integer>> sequential;
+        try (PDDocument doc = PDDocument.load(pdf.toFile())) {
+            sequential = ShippingLabelExtractor.extractOrderIdToPages(doc);
+        }
+        long sequentialMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int workers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        start = System.nanoTime();
+        Map<String, List<Integer>> parallel = ShippingLabelExtractor.extractOrderIdToPages(PdfFileSource.of(pdf), workers);
+        long parallelMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(sequential, parallel);
+        System.out.printf("Label indexing, %d pages:%n", pages.size());
+        System.out.printf("  sequential: %d ms%n", sequentialMillis);
+        System.out.printf("  %d workers:  %d ms%n", workers, parallelMillis);
+    }
+
+    private static Map<String, List<Integer>> assertParallelMatchesSequential(Path pdf) throws IOException {
+        Map<String, List<Integer>> sequential;
+        try (PDDocument doc = PDDocument.load(pdf.toFile())) {
+            sequential = ShippingLabelExtractor.extractOrderIdToPages(doc);
+        }
+        Map<String, List<Integer>> parallel = null;
+        for (int workers : new int[]{2, 3, 7}) {
+            parallel = ShippingLabelExtractor.extractOrderIdToPages(PdfFileSource.of(pdf), workers);
+            // LinkedHashMap equality ignores order, so compare the iteration order explicitly too.
+            assertEquals(sequential, parallel, "Result differs with " + workers + " workers");
+            assertEquals(new ArrayList<>(sequential.keySet()), new ArrayList<>(parallel.keySet()));
+        }
+        return parallel;
+    }
+
+    private static String orderId(int i) {
+        return String.format("%03d-%07d-%07d", 100 + i % 900, i * 7919 % 10_000_000, i);
+    }
+
+    private Path writePdf(String name, List<String> pages) throws IOException {
+        Path pdf = tempDir.resolve(name);
+        try (PDDocument doc = new PDDocument()) {
+            for (String text : pages) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 11);
+                    cs.newLineAtOffset(72, 720);
+                    for (String line : text.split("\\R")) {
+                        cs.showText(line);
+                        cs.newLineAtOffset(0, -14);
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf;
+    }
+}
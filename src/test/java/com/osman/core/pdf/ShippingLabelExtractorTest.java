@@ -0,0 +1,93 @@
+package com.osman.core.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ShippingLabelExtractorTest {
+
+    private static final int LABELS = 70;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void indexPageDrawnOutOfVisualOrderMapsLabelsInReadingOrder() throws IOException {
+        assertLabelsMapInReadingOrder(writeBundle("labels-reversed-index.pdf", false));
+    }
+
+    @Test
+    void indexKeywordDrawnOutOfOrderIsStillFound() throws IOException {
+        assertLabelsMapInReadingOrder(writeBundle("labels-scrambled-heading.pdf", true));
+    }
+
+    private static void assertLabelsMapInReadingOrder(Path pdf) throws IOException {
+        Map<String, List<Integer>> sequential;
+        try (PDDocument doc = PDDocument.load(pdf.toFile())) {
+            sequential = ShippingLabelExtractor.extractOrderIdToPages(doc);
+        }
+        Map<String, List<Integer>> parallel = ShippingLabelExtractor.extractOrderIdToPages(PdfFileSource.of(pdf), 2);
+
+        assertEquals(LABELS, sequential.size());
+        for (int i = 0; i < LABELS; i++) {
+            assertEquals(List.of(i + 1), sequential.get(orderId(i)), orderId(i));
+        }
+        assertEquals(sequential, parallel);
+    }
+
+    private static String orderId(int i) {
+        return String.format("%03d-%07d-%07d", 111 + i, i * 7919 % 10_000_000, i);
+    }
+
+    /**
+     * Label pages without text of their own, then an index page whose order list is drawn bottom-up. With
+     * {@code scrambledHeading} the "Successful Label Purchase" heading is drawn last word first as well.
+     */
+    private Path writeBundle(String name, boolean scrambledHeading) throws IOException {
+        Path pdf = tempDir.resolve(name);
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < LABELS; i++) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    showText(cs, 72, 720, "LABEL " + (i + 1));
+                }
+            }
+            PDPage index = new PDPage(PDRectangle.LETTER);
+            doc.addPage(index);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, index)) {
+                if (scrambledHeading) {
+                    float width = PDType1Font.HELVETICA.getStringWidth("Successful Label ") / 1000 * 10;
+                    showText(cs, 72 + width, 750, "Purchase");
+                    showText(cs, 72, 750, "Successful Label");
+                } else {
+                    showText(cs, 72, 750, "Successful Label Purchase");
+                }
+                for (int i = LABELS - 1; i >= 0; i--) {
+                    showText(cs, 72, 735 - 10 * i, orderId(i));
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf;
+    }
+
+    private static void showText(PDPageContentStream cs, float x, float y, String text) throws IOException {
+        cs.beginText();
+        cs.setFont(PDType1Font.HELVETICA, 10);
+        cs.newLineAtOffset(x, y);
+        cs.showText(text);
+        cs.endText();
+    }
+}
@@ -1,13 +1,20 @@
 package com.osman.core.render;
 
+import com.osman.core.fs.OrderDiscoveryService;
+import com.osman.core.fs.ZipOrderSource;
 import org.junit.jupiter.api.Test;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -49,6 +56,54 @@ class MugRendererTest {
         }
     }
 
+    @Test
+    void rendersOrderStraightFromNestedZip() throws Exception {
+        Path workDir = Files.createTempDirectory("mug-zip");
+        Path outputDir = Files.createTempDirectory("mug-zip-output");
+
+        try {
+            ByteArrayOutputStream inner = new ByteArrayOutputStream();
+            try (ZipOutputStream zos = new ZipOutputStream(inner)) {
+                putEntry(zos, "Jane_111-0000000-0000000/design.svg", simpleSvg());
+                putEntry(zos, "Jane_111-0000000-0000000/order.json", simpleOrderJson());
+            }
+            Path outerZip = workDir.resolve("batch.zip");
+            try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(outerZip))) {
+                zos.putNextEntry(new ZipEntry("customer/orders.zip"));
+                zos.write(inner.toByteArray());
+                zos.closeEntry();
+            }
+
+            List<String> outputs = new ArrayList<>();
+            try (ZipOrderSource source = ZipOrderSource.open(outerZip)) {
+                assertEquals(2, source.roots().size(), "Outer and nested archive should both be mounted");
+                OrderDiscoveryService discovery = new OrderDiscoveryService();
+                for (Path root : source.roots()) {
+                    for (Path order : discovery.discoverOrderFolders(root, 6).orderFolders()) {
+                        outputs.addAll(MugRenderer.processOrderFolder(order, outputDir.toFile(), "Jane", "zip"));
+                    }
+                }
+            }
+
+            assertEquals(1, outputs.size(), "Expected the nested order to be rendered once");
+            Path rendered = Path.of(outputs.get(0));
+            assertEquals(outputDir, rendered.getParent(), "Rendered output must land in the output folder");
+            assertNotNull(ImageIO.read(rendered.toFile()));
+            try (var listing = Files.list(workDir)) {
+                assertEquals(1, listing.count(), "Nothing should be extracted next to the archive");
+            }
+        } finally {
+            deleteQuietly(workDir);
+            deleteQuietly(outputDir);
+        }
+    }
+
+    private static void putEntry(ZipOutputStream zos, String name, String content) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(content.getBytes(StandardCharsets.UTF_8));
+        zos.closeEntry();
+    }
+
     private static String simpleOrderJson() {
         return "{\n" +
             "  \"orderId\": \"111-0000000-0000000\",\n" +
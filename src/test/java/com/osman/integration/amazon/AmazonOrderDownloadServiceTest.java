@@ -1,17 +1,31 @@
 package com.osman.integration.amazon;
 
+import com.osman.core.fs.ZipExtractor;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AmazonOrderDownloadServiceTest {
@@ -147,6 +161,91 @@ class AmazonOrderDownloadServiceTest {
             "Legacy Mugs folder should not be created");
     }
 
+    @Test
+    void extractsWhileDownloadingAndRetriesTruncatedBody() throws Exception {
+        byte[] photo = new byte[300 * 1024];
+        new java.util.Random(3).nextBytes(photo);
+        byte[] archive = zipBytes(photo);
+        HttpServer server = startServer(archive, exchangeNumber -> exchangeNumber == 1);
+        try {
+            AmazonOrderDownloadService service = new AmazonOrderDownloadService(HttpClient.newHttpClient(), tempDir);
+            service.setExtractWhileDownloading(true);
+            Path orderFolder = Files.createDirectories(tempDir.resolve("order"));
+            CustomerOrderItem item = new CustomerOrderItem("140273890772121", urlOf(server), null);
+
+            Path extracted = service.downloadSingleItem(orderFolder, item);
+
+            assertEquals(orderFolder.resolve("140273890772121"), extracted);
+            assertArrayEquals(photo, Files.readAllBytes(extracted.resolve("design/photo.jpg")));
+            assertArrayEquals(archive, Files.readAllBytes(orderFolder.resolve("140273890772121.zip")));
+            assertTrue(ZipExtractor.isAlreadyExtracted(orderFolder.resolve("140273890772121.zip").toFile()));
+            try (var listing = Files.list(orderFolder)) {
+                assertEquals(2, listing.count(), "No partial files should be left behind");
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void givesUpOnPersistentlyTruncatedBody() throws Exception {
+        byte[] archive = zipBytes(new byte[64 * 1024]);
+        HttpServer server = startServer(archive, exchangeNumber -> true);
+        try {
+            AmazonOrderDownloadService service = new AmazonOrderDownloadService(HttpClient.newHttpClient(), tempDir);
+            service.setExtractWhileDownloading(true);
+            service.setKeepArchives(false);
+            service.setMaxAttempts(2);
+            Path orderFolder = Files.createDirectories(tempDir.resolve("order"));
+            CustomerOrderItem item = new CustomerOrderItem("240278395364561", urlOf(server), null);
+
+            assertThrows(IOException.class, () -> service.downloadSingleItem(orderFolder, item));
+            try (var listing = Files.list(orderFolder)) {
+                assertEquals(0, listing.count(), "Failed downloads must not leave folders or partial files");
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private interface TruncationPolicy {
+        boolean truncate(int exchangeNumber);
+    }
+
+    /** Serves the archive with chunked encoding so a truncated body still ends cleanly at the HTTP level. */
+    private static HttpServer startServer(byte[] archive, TruncationPolicy policy) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        AtomicInteger exchanges = new AtomicInteger();
+        server.createContext("/item", exchange -> {
+            byte[] body = policy.truncate(exchanges.incrementAndGet())
+                ? Arrays.copyOf(archive, archive.length - 40)
+                : archive;
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static String urlOf(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/item";
+    }
+
+    private static byte[] zipBytes(byte[] photo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            zos.putNextEntry(new ZipEntry("design/order.json"));
+            zos.write("{}".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("design/photo.jpg"));
+            zos.write(photo);
+            zos.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
     private static final class TestableDownloadService extends AmazonOrderDownloadService {
         private TestableDownloadService(Path baseDirectory) {
             super(java.net.http.HttpClient.newBuilder().build(), baseDirectory);
@@ -0,0 +1,159 @@
+package com.osman.ui.labelfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ImageCompositionTest {
+    private static final Color BG = ImageComposition.COMBINED_BACKGROUND;
+
+    @Test
+    void planDrawsTheSamePixelsAsTheChainedHelpers() {
+        Random random = new Random(3);
+        List<BufferedImage> labels = Arrays.asList(
+            page(random, 120, 180, BufferedImage.TYPE_BYTE_GRAY), null, page(random, 90, 200, BufferedImage.TYPE_INT_RGB));
+        List<BufferedImage> slips = List.of(page(random, 150, 100, BufferedImage.TYPE_BYTE_GRAY));
+        List<BufferedImage> photos = List.of(
+            page(random, 60, 60, BufferedImage.TYPE_INT_ARGB), page(random, 200, 40, BufferedImage.TYPE_INT_RGB));
+
+        assertSamePixels(chained(labels, slips, photos), planned(labels, slips, photos));
+        assertSamePixels(chained(labels, List.of(), List.of()), planned(labels, List.of(), List.of()));
+        assertSamePixels(chained(List.of(), slips, List.of()), planned(List.of(), slips, List.of()));
+        assertNull(planned(List.of(), Arrays.asList((BufferedImage) null), null));
+    }
+
+    @Test
+    void staysGrayUntilSomethingInColourIsComposited() {
+        BufferedImage page = new BufferedImage(40, 60, BufferedImage.TYPE_BYTE_GRAY);
+        BufferedImage photo = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, ImageComposition.Plan.builder(12, BG)
+            .group(List.of(page, page), Color.BLACK, 4, 12).build().render().getType());
+        assertEquals(BufferedImage.TYPE_INT_RGB, ImageComposition.Plan.builder(12, BG)
+            .group(List.of(page), ImageComposition.LABEL_BORDER, 4, 12).build().render().getType());
+        assertEquals(BufferedImage.TYPE_INT_RGB, ImageComposition.Plan.builder(12, BG)
+            .group(List.of(page), Color.BLACK, 4, 12)
+            .group(List.of(photo), Color.BLACK, 4, 12).build().render().getType());
+    }
+
+    @Test
+    void layoutComesFromTheSourceSizesAlone() {
+        BufferedImage label = new BufferedImage(100, 50, BufferedImage.TYPE_BYTE_GRAY);
+        BufferedImage slip = new BufferedImage(80, 30, BufferedImage.TYPE_BYTE_GRAY);
+        ImageComposition.Plan plan = ImageComposition.Plan.builder(12, BG)
+            .group(List.of(label, label), Color.RED, 8, 4)
+            .group(List.of(slip), Color.BLUE, 2, 4)
+            .build();
+
+        assertEquals(116, plan.width());
+        assertEquals(66 + 4 + 66 + 12 + 34, plan.height());
+        assertEquals(List.of(0, 70, 148), plan.placements().stream().map(ImageComposition.Plan.Placement::y).toList());
+    }
+
+    @Test
+    void benchmarkLabelSlipAndFourPhotos() {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "Needs per-thread allocation counters.");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Random random = new Random(5);
+        // 4x6 in label and letter slip at the 75 dpi preview resolution, four phone photos scaled for the view.
+        List<BufferedImage> labels = List.of(page(random, 300, 450, BufferedImage.TYPE_BYTE_GRAY));
+        List<BufferedImage> slips = List.of(page(random, 638, 825, BufferedImage.TYPE_BYTE_GRAY));
+        List<BufferedImage> photos = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            photos.add(page(random, 400, 300, BufferedImage.TYPE_INT_RGB));
+        }
+        int sources = labels.size() + slips.size() + photos.size();
+        int rounds = 200;
+        for (int i = 0; i < 20; i++) {
+            chained(labels, slips, photos);
+            planned(labels, slips, photos);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = allocations.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            chained(labels, slips, photos);
+        }
+        long chainNanos = System.nanoTime() - start;
+        long chainBytes = allocations.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        bytesBefore = allocations.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            planned(labels, slips, photos);
+        }
+        long planNanos = System.nanoTime() - start;
+        long planBytes = allocations.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        // One bordered copy per source, one stack per group and one per join of groups, against one target.
+        int chainImages = sources + 3 + 2;
+        System.out.printf(Locale.ROOT,
+            "label + slip + 4 photos: chained %d images, %.2f MB, %.2f ms; plan 1 image, %.2f MB, %.2f ms%n",
+            chainImages, chainBytes / 1e6 / rounds, chainNanos / 1e6 / rounds,
+            planBytes / 1e6 / rounds, planNanos / 1e6 / rounds);
+    }
+
+    private static BufferedImage chained(List<BufferedImage> labels, List<BufferedImage> slips,
+                                         List<BufferedImage> photos) {
+        BufferedImage labelImg = ImageComposition.stackMany(
+            ImageComposition.withBorder(labels, ImageComposition.LABEL_BORDER, 8), 12, BG);
+        BufferedImage slipImg = ImageComposition.stackMany(
+            ImageComposition.withBorder(slips, ImageComposition.SLIP_BORDER, 8), 12, BG);
+        BufferedImage photoImg = ImageComposition.stackMany(
+            ImageComposition.withBorder(photos, Color.GRAY, 4), 6, BG);
+        return ImageComposition.stackImagesVertically(
+            ImageComposition.stackImagesVertically(labelImg, slipImg, 12, BG), photoImg, 12, BG);
+    }
+
+    private static BufferedImage planned(List<BufferedImage> labels, List<BufferedImage> slips,
+                                         List<BufferedImage> photos) {
+        return ImageComposition.Plan.builder(12, BG)
+            .group(labels, ImageComposition.LABEL_BORDER, 8, 12)
+            .group(slips, ImageComposition.SLIP_BORDER, 8, 12)
+            .group(photos, Color.GRAY, 4, 6)
+            .build()
+            .render();
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertArrayEquals(
+            expected.getRGB(0, 0, expected.getWidth(), expected.getHeight(), null, 0, expected.getWidth()),
+            actual.getRGB(0, 0, actual.getWidth(), actual.getHeight(), null, 0, actual.getWidth()));
+    }
+
+    private static BufferedImage page(Random random, int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 40 + random.nextInt(200)));
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < 20; i++) {
+                g.setColor(new Color(random.nextInt(0x1000000)));
+                g.fillRect(random.nextInt(width), random.nextInt(height), 1 + random.nextInt(width / 2),
+                    1 + random.nextInt(height / 2));
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+}
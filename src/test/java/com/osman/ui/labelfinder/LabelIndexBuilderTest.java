@@ -0,0 +1,154 @@
+package com.osman.ui.labelfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LabelIndexBuilderTest {
+
+    @Test
+    void parallelBuildMatchesSequentialBuild() throws IOException {
+        List<File> pdfs = new ArrayList<>();
+        Map<Path, Map<String, List<Integer>>> contents = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int f = 0; f < 24; f++) {
+            File pdf = new File("batch-" + f + ".pdf").getAbsoluteFile();
+            Map<String, List<Integer>> pages = new LinkedHashMap<>();
+            for (int page = 1; page <= 30; page++) {
+                // A small ID space so many orders appear in several files.
+                pages.put("ORDER-" + random.nextInt(200), List.of(page));
+            }
+            pdfs.add(pdf);
+            contents.put(pdf.toPath(), pages);
+        }
+        LabelIndexBuilder.LabelSource source = pdf -> {
+            sleepQuietly(delayMillis(pdf));
+            return contents.get(pdf);
+        };
+
+        Map<String, PageGroup> parallel = new LabelIndexBuilder(source, 4).build(pdfs, () -> false, null);
+
+        assertEquals(sequential(pdfs, contents), parallel);
+    }
+
+    @Test
+    void replacedFileKeepsItsWalkPosition() throws IOException {
+        File first = new File("base-a").getAbsoluteFile();
+        File second = new File("base-b").getAbsoluteFile();
+        File early = new File(first, "labels-1.pdf");
+        File replaced = new File(first, "labels-2.pdf");
+        File late = new File(second, "labels-0.pdf");
+        File outside = new File("elsewhere/labels.pdf").getAbsoluteFile();
+        List<File> roots = List.of(first, second);
+        Map<Path, Map<String, List<Integer>>> contents = Map.of(
+            early.toPath(), Map.of("A", List.of(1)),
+            replaced.toPath(), Map.of("A", List.of(2), "B", List.of(1)),
+            late.toPath(), Map.of("B", List.of(3)));
+
+        // The untouched files first, then the replaced one, as a live update collects them.
+        List<File> ordered = LabelIndexBuilder.inWalkOrder(List.of(early, late, outside, replaced), roots);
+        Map<String, PageGroup> merged = new LabelIndexBuilder(pdf -> contents.getOrDefault(pdf, Map.of()), 2)
+            .build(ordered, () -> false, null);
+
+        assertEquals(List.of(early, replaced, late, outside), ordered);
+        assertEquals(new PageGroup(replaced, List.of(2)), merged.get("A"));
+        assertEquals(new PageGroup(late, List.of(3)), merged.get("B"), "A later root still wins");
+    }
+
+    @Test
+    void publishesPartialIndexesAndEndsWithTheFullOne() throws IOException {
+        List<File> pdfs = List.of(new File("a.pdf"), new File("b.pdf"), new File("c.pdf"));
+        LabelIndexBuilder.LabelSource source = pdf -> {
+            sleepQuietly(LabelIndexBuilder.PUBLISH_INTERVAL_MS + 20);
+            return Map.of(pdf.getFileName().toString(), List.of(1));
+        };
+        List<Integer> progress = new CopyOnWriteArrayList<>();
+        List<Map<String, PageGroup>> snapshots = new CopyOnWriteArrayList<>();
+
+        Map<String, PageGroup> index = new LabelIndexBuilder(source, 1).build(pdfs, () -> false,
+            (done, total, pdf, partial) -> {
+                assertEquals(3, total);
+                progress.add(done);
+                if (partial != null) {
+                    snapshots.add(partial);
+                }
+            });
+
+        assertEquals(List.of(1, 2, 3), progress);
+        assertEquals(3, snapshots.size());
+        assertEquals(1, snapshots.get(0).size(), "The first file is usable before the others finish");
+        assertEquals(index, snapshots.get(2));
+    }
+
+    @Test
+    void cancellationStopsTheBuild() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        LabelIndexBuilder.LabelSource source = pdf -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        };
+        List<File> pdfs = List.of(new File("a.pdf"), new File("b.pdf"));
+        Thread canceller = new Thread(() -> {
+            try {
+                started.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            cancelled.set(true);
+        });
+        canceller.start();
+
+        long start = System.nanoTime();
+        assertThrows(InterruptedIOException.class,
+            () -> new LabelIndexBuilder(source, 2).build(pdfs, cancelled::get, null));
+        release.countDown();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    /** The original one-file-after-another build: later files replace earlier ones. */
+    private static Map<String, PageGroup> sequential(List<File> pdfs, Map<Path, Map<String, List<Integer>>> contents) {
+        Map<String, PageGroup> index = new HashMap<>();
+        for (File pdf : pdfs) {
+            for (Map.Entry<String, List<Integer>> e : contents.get(pdf.toPath()).entrySet()) {
+                index.put(e.getKey(), new PageGroup(pdf, new ArrayList<>(e.getValue())));
+            }
+        }
+        return index;
+    }
+
+    private static long delayMillis(Path pdf) {
+        return Math.floorMod(pdf.hashCode(), 15);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
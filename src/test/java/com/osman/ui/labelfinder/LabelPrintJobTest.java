@@ -0,0 +1,318 @@
+package com.osman.ui.labelfinder;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.print.DocFlavor;
+import javax.print.StreamPrintService;
+import javax.print.StreamPrintServiceFactory;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.Paper;
+import java.awt.print.Printable;
+import java.awt.print.PrinterAbortException;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LabelPrintJobTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void picksRasterOnlyWhenForcedOrListed() {
+        assertEquals(LabelPrintJob.Mode.VECTOR, LabelPrintJob.modeFor("Zebra", null, ""));
+        assertEquals(LabelPrintJob.Mode.RASTER, LabelPrintJob.modeFor("Zebra", null, "Office, Zebra"));
+        assertEquals(LabelPrintJob.Mode.VECTOR, LabelPrintJob.modeFor("Zebra 2", null, "Office, Zebra"));
+        assertEquals(LabelPrintJob.Mode.RASTER, LabelPrintJob.modeFor("Zebra", "raster", ""));
+        assertEquals(LabelPrintJob.Mode.VECTOR, LabelPrintJob.modeFor("Zebra", "vector", "Zebra"));
+    }
+
+    @Test
+    void vectorPrintablePaintsPdfPagesAndFallbackImage() throws Exception {
+        File pdf = writeLabels(tempDir.resolve("labels.pdf"), 2);
+        BufferedImage fallback = new BufferedImage(40, 60, BufferedImage.TYPE_INT_RGB);
+        Printable printable = new VectorPdfPrintable(
+            List.of(new PageRenderSource(pdf, 1), new PageRenderSource(pdf, 0)), fallback);
+        PageFormat pf = fourBySix();
+
+        for (int page = 0; page < 3; page++) {
+            BufferedImage canvas = blankCanvas();
+            Graphics2D g = canvas.createGraphics();
+            try {
+                assertEquals(Printable.PAGE_EXISTS, printable.print(g, pf, page));
+            } finally {
+                g.dispose();
+            }
+            assertTrue(hasInk(canvas), "Page " + page + " painted nothing");
+        }
+        assertEquals(Printable.NO_SUCH_PAGE, printable.print(blankCanvas().createGraphics(), pf, 3));
+    }
+
+    @Test
+    void vectorFailureBeforeTheFirstPageIsRetriedAsRaster() throws Exception {
+        List<PageRenderSource> sources = sources(2);
+        ScriptedJob job = new ScriptedJob(0, new PrinterException("no PDF support"));
+        List<String> remembered = new ArrayList<>();
+
+        LabelPrintJob.Outcome outcome = LabelPrintJob.print(job, fourBySix(), LabelPrintJob.Mode.VECTOR, "Zebra",
+            sources, null, 150, remembered::add);
+
+        assertEquals(LabelPrintJob.Mode.RASTER, outcome.mode());
+        assertTrue(outcome.fellBack());
+        assertEquals(2, outcome.pages());
+        assertEquals(List.of("Zebra"), remembered);
+        assertEquals(2, job.jobs);
+    }
+
+    @Test
+    void cancelledVectorJobIsNotRetried() throws Exception {
+        List<PageRenderSource> sources = sources(2);
+        ScriptedJob job = new ScriptedJob(0, new PrinterAbortException("cancelled"));
+        List<String> remembered = new ArrayList<>();
+
+        assertThrows(PrinterAbortException.class, () -> LabelPrintJob.print(job, fourBySix(),
+            LabelPrintJob.Mode.VECTOR, "Zebra", sources, null, 150, remembered::add));
+
+        assertEquals(List.of(), remembered);
+        assertEquals(1, job.jobs);
+    }
+
+    @Test
+    void vectorFailureAfterAPageWentOutIsNotReprinted() throws Exception {
+        List<PageRenderSource> sources = sources(2);
+        ScriptedJob job = new ScriptedJob(1, new PrinterException("connection lost"));
+        List<String> remembered = new ArrayList<>();
+
+        PrinterException thrown = assertThrows(PrinterException.class, () -> LabelPrintJob.print(job, fourBySix(),
+            LabelPrintJob.Mode.VECTOR, "Zebra", sources, null, 150, remembered::add));
+
+        assertEquals("connection lost", thrown.getMessage());
+        assertEquals(List.of(), remembered);
+        assertEquals(1, job.jobs);
+        assertEquals(1, job.pagesPrinted);
+    }
+
+    /**
+     * Spools the same two label pages to PostScript through both paths and reports spool size and time to first
+     * page.
+     */
+    @Test
+    void benchmarkVectorAgainstRasterSpool() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        StreamPrintServiceFactory[] factories = StreamPrintServiceFactory.lookupStreamPrintServiceFactories(
+            DocFlavor.SERVICE_FORMATTED.PRINTABLE, "application/postscript");
+        assumeTrue(factories.length > 0, "No PostScript stream print service.");
+        File pdf = writeLabels(tempDir.resolve("labels.pdf"), 2);
+        List<PageRenderSource> sources = List.of(new PageRenderSource(pdf, 0), new PageRenderSource(pdf, 1));
+
+        for (LabelPrintJob.Mode mode : LabelPrintJob.Mode.values()) {
+            CountingStream spool = new CountingStream();
+            StreamPrintService service = factories[0].getPrintService(spool);
+            PrinterJob job = PrinterJob.getPrinterJob();
+            job.setPrintService(service);
+            LabelPrintJob.Outcome outcome = LabelPrintJob.run(job, fourBySix(), mode, service.getName(), sources, null, 150, false);
+            service.dispose();
+            System.out.printf("%s: spool %d KB, %s%n", mode, spool.count / 1024, outcome.describe());
+            assertEquals(2, outcome.pages());
+        }
+    }
+
+    private List<PageRenderSource> sources(int pages) throws IOException {
+        File pdf = writeLabels(tempDir.resolve("labels.pdf"), pages);
+        List<PageRenderSource> sources = new ArrayList<>();
+        for (int i = 0; i < pages; i++) {
+            sources.add(new PageRenderSource(pdf, i));
+        }
+        return sources;
+    }
+
+    private static PageFormat fourBySix() {
+        Paper paper = new Paper();
+        paper.setSize(4 * 72, 6 * 72);
+        paper.setImageableArea(0, 0, 4 * 72, 6 * 72);
+        PageFormat pf = new PageFormat();
+        pf.setPaper(paper);
+        return pf;
+    }
+
+    private static BufferedImage blankCanvas() {
+        BufferedImage canvas = new BufferedImage(4 * 72, 6 * 72, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = canvas.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        g.dispose();
+        return canvas;
+    }
+
+    private static boolean hasInk(BufferedImage canvas) {
+        for (int y = 0; y < canvas.getHeight(); y++) {
+            for (int x = 0; x < canvas.getWidth(); x++) {
+                if ((canvas.getRGB(x, y) & 0xFFFFFF) != 0xFFFFFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static File writeLabels(Path pdf, int pages) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(new PDRectangle(4 * 72, 6 * 72));
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA_BOLD, 14);
+                    cs.newLineAtOffset(20, 380);
+                    cs.showText("UPS GROUND 111-0000000-000000" + i);
+                    cs.endText();
+                    for (int bar = 0; bar < 60; bar++) {
+                        cs.addRect(20 + bar * 4, 100, (bar % 3) + 1, 80);
+                    }
+                    cs.fill();
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf.toFile();
+    }
+
+    /**
+     * Paints every page onto a scratch canvas like a printer driver would. The first job throws {@code failure}
+     * when it reaches page {@code failAt}; later jobs succeed.
+     */
+    private static final class ScriptedJob extends PrinterJob {
+        private final int failAt;
+        private final PrinterException failure;
+        private Printable printable;
+        private PageFormat format;
+        int jobs;
+        int pagesPrinted;
+
+        ScriptedJob(int failAt, PrinterException failure) {
+            this.failAt = failAt;
+            this.failure = failure;
+        }
+
+        @Override
+        public void print() throws PrinterException {
+            jobs++;
+            for (int page = 0; ; page++) {
+                if (jobs == 1 && page == failAt) {
+                    throw failure;
+                }
+                Graphics2D g = blankCanvas().createGraphics();
+                try {
+                    if (printable.print(g, format, page) != Printable.PAGE_EXISTS) {
+                        return;
+                    }
+                } finally {
+                    g.dispose();
+                }
+                pagesPrinted++;
+            }
+        }
+
+        @Override
+        public void setPrintable(Printable painter) {
+            setPrintable(painter, defaultPage());
+        }
+
+        @Override
+        public void setPrintable(Printable painter, PageFormat format) {
+            this.printable = painter;
+            this.format = format;
+        }
+
+        @Override
+        public void setPageable(Pageable document) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean printDialog() {
+            return true;
+        }
+
+        @Override
+        public PageFormat pageDialog(PageFormat page) {
+            return page;
+        }
+
+        @Override
+        public PageFormat defaultPage(PageFormat page) {
+            return (PageFormat) page.clone();
+        }
+
+        @Override
+        public PageFormat validatePage(PageFormat page) {
+            return page;
+        }
+
+        @Override
+        public void setCopies(int copies) {
+        }
+
+        @Override
+        public int getCopies() {
+            return 1;
+        }
+
+        @Override
+        public String getUserName() {
+            return "test";
+        }
+
+        @Override
+        public void setJobName(String jobName) {
+        }
+
+        @Override
+        public String getJobName() {
+            return "test";
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    }
+
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.osman.ui.labelfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderPrefetcherTest {
+
+    @Test
+    void predictsNextWantedOrdersInLabelOrder() {
+        List<String> labelOrder = List.of("A", "B", "C", "D", "E", "F");
+        Set<String> done = Set.of("C", "E");
+
+        assertEquals(List.of("D", "F"), OrderPrefetcher.predict(labelOrder, "B", id -> !done.contains(id), 2));
+        assertEquals(List.of("D"), OrderPrefetcher.predict(labelOrder, "B", id -> !done.contains(id), 1));
+        assertEquals(List.of("A", "B"), OrderPrefetcher.predict(labelOrder, "unknown", id -> true, 2));
+        assertEquals(List.of(), OrderPrefetcher.predict(labelOrder, "F", id -> true, 3));
+    }
+
+    @Test
+    void rendersPredictedOrdersIntoTheCacheAndCountsHits() throws Exception {
+        Map<String, RenderedOrder> cache = new ConcurrentHashMap<>();
+        CountDownLatch rendered = new CountDownLatch(2);
+        OrderPrefetcher prefetcher = new OrderPrefetcher((orderId, cancelled) -> render(), (orderId, render) -> {
+            cache.put(orderId, render);
+            rendered.countDown();
+        }, 2);
+
+        prefetcher.prefetch(List.of("B", "C", "D"));
+        assertTrue(rendered.await(10, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(Set.of("B", "C"), cache.keySet(), "Only the first depth orders are rendered");
+
+        prefetcher.recordScan("B", cache.containsKey("B"));
+        prefetcher.recordDisplay(TimeUnit.MILLISECONDS.toNanos(5));
+        prefetcher.recordScan("X", false);
+        prefetcher.recordDisplay(TimeUnit.MILLISECONDS.toNanos(200));
+        prefetcher.recordScan("C", cache.containsKey("C"));
+        prefetcher.recordDisplay(TimeUnit.MILLISECONDS.toNanos(6));
+
+        OrderPrefetcher.Stats stats = prefetcher.stats();
+        assertEquals(3, stats.scans());
+        assertEquals(2, stats.prefetchHits());
+        assertEquals(2, stats.prefetched());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+        assertEquals(6.0, stats.medianLatencyMs(), 1e-9);
+    }
+
+    @Test
+    void realScanCancelsQueuedPrefetches() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> attempted = new CopyOnWriteArrayList<>();
+        List<String> cached = new CopyOnWriteArrayList<>();
+        OrderPrefetcher prefetcher = new OrderPrefetcher((orderId, cancelled) -> {
+            attempted.add(orderId);
+            firstStarted.countDown();
+            awaitQuietly(release);
+            // A renderer checks between pages and gives up once cancelled.
+            return cancelled.getAsBoolean() ? null : render();
+        }, (orderId, render) -> cached.add(orderId), 3);
+
+        prefetcher.prefetch(List.of("B", "C", "D"));
+        assertTrue(firstStarted.await(10, TimeUnit.SECONDS));
+        prefetcher.cancel();
+        release.countDown();
+        Thread.sleep(200);
+
+        assertEquals(List.of("B"), attempted, "Orders after the running one are dropped");
+        assertEquals(List.of(), cached);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RenderedOrder render() {
+        BufferedImage page = new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_GRAY);
+        PageGroup group = new PageGroup(new File("labels.pdf"), List.of(1));
+        return new RenderedOrder(List.of(page), List.of(page), page, null, group, group, 75, 1.0);
+    }
+}
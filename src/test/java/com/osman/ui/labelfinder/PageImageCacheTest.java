@@ -0,0 +1,172 @@
+package com.osman.ui.labelfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PageImageCacheTest {
+    private static final long KB = 1024L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void evictsLeastRecentlyUsedByBytes() {
+        // 100x100 gray = 10,000 bytes; three fit in 32 KB.
+        PageImageCache<String> cache = new PageImageCache<>(32 * KB, null, 0);
+        BufferedImage a = page(100, 100, 1);
+        cache.put("a", a);
+        cache.put("b", page(100, 100, 2));
+        cache.put("c", page(100, 100, 3));
+        assertSame(a, cache.get("a"));
+        cache.put("d", page(100, 100, 4));
+
+        assertNull(cache.get("b"), "b was least recently used");
+        assertNotNull(cache.get("a"));
+        PageImageCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.evictions());
+        assertEquals(30_000, stats.memory().bytes());
+    }
+
+    @Test
+    void estimatesBytesFromPixelFormat() {
+        assertEquals(10_000, ByteBoundedCache.estimateBytes(new BufferedImage(100, 100, BufferedImage.TYPE_BYTE_GRAY)));
+        assertEquals(40_000, ByteBoundedCache.estimateBytes(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB)));
+        assertEquals(30_000, ByteBoundedCache.estimateBytes(new BufferedImage(100, 100, BufferedImage.TYPE_3BYTE_BGR)));
+    }
+
+    @Test
+    void spillsEvictedGrayPagesToDiskAndReadsThemBack() throws IOException {
+        PageImageCache<String> cache = new PageImageCache<>(20 * KB, tempDir, 10 * 1024 * KB);
+        BufferedImage first = page(100, 100, 7);
+        cache.put("first", first);
+        cache.put("second", page(100, 100, 8));
+        cache.put("color", new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB));
+
+        PageImageCache.Stats stats = cache.stats();
+        assertEquals(1, stats.spillWrites(), "Only the gray page is spilled: " + stats);
+        assertEquals(1, pngCount());
+
+        BufferedImage restored = cache.get("first");
+        assertNotNull(restored);
+        assertArrayEquals(pixels(first), pixels(restored));
+        assertEquals(1, cache.stats().spillHits());
+        assertEquals(1, cache.stats().hits());
+
+        cache.clear();
+        assertEquals(0, pngCount());
+    }
+
+    @Test
+    void spillTierIsBoundedToo() throws IOException {
+        PageImageCache<Integer> cache = new PageImageCache<>(15 * KB, tempDir, 8 * KB);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, noisyPage(100, 100, i));
+        }
+        PageImageCache.Stats stats = cache.stats();
+        assertTrue(stats.spillBytes() <= 8 * KB, stats.toString());
+        assertTrue(stats.spillEvictions() > 0, stats.toString());
+        assertEquals(stats.spilledPages(), pngCount());
+    }
+
+    /**
+     * Eight hours at one scan every 15 seconds, two pages per order and one in ten orders scanned again later.
+     * Cached bytes stay within budget and heap after each simulated hour stays flat, where an unbounded map would
+     * hold every page ever rendered. Takes a while and measures heap after {@code System.gc()}, so it only runs with
+     * {@code -Dbenchmarks=true}.
+     */
+    @Test
+    void benchmarkSimulatedShiftKeepsMemoryFlat() {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        long budget = 8 * 1024 * KB;
+        PageImageCache<String> cache = new PageImageCache<>(budget, tempDir, 16 * 1024 * KB);
+        Random random = new Random(42);
+        int ordersPerHour = 240;
+        List<Long> heapByHour = new ArrayList<>();
+        for (int hour = 0; hour < 8; hour++) {
+            for (int i = 0; i < ordersPerHour; i++) {
+                int order = hour * ordersPerHour + i;
+                if (order > 20 && random.nextInt(10) == 0) {
+                    order = random.nextInt(order);
+                }
+                for (int p = 0; p < 2; p++) {
+                    String key = order + "/" + p;
+                    if (cache.get(key) == null) {
+                        cache.put(key, page(400, 500, order * 2 + p));
+                    }
+                }
+                assertTrue(cache.stats().memory().bytes() <= budget);
+            }
+            heapByHour.add(usedHeapAfterGc());
+        }
+        PageImageCache.Stats stats = cache.stats();
+        System.out.printf("Simulated shift: %s, heap by hour (MB) %s%n", stats,
+            heapByHour.stream().map(b -> b / (1024 * KB)).toList());
+        assertTrue(stats.evictions() > 3000, stats.toString());
+        assertTrue(stats.spillHits() > 0, stats.toString());
+        long growth = heapByHour.get(heapByHour.size() - 1) - heapByHour.get(0);
+        // 3,840 pages of 200 KB would be about 750 MB if nothing were evicted.
+        assertTrue(growth < 2 * budget, "Heap grew by " + growth / (1024 * KB) + " MB: " + heapByHour);
+    }
+
+    private long pngCount() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            return files.filter(f -> f.toString().endsWith(".png")).count();
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Mostly white page with a dark bar whose position depends on {@code seed}, like a label. */
+    private static BufferedImage page(int width, int height, int seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.BLACK);
+            g.fillRect(seed % Math.max(1, width - 10), 10, 10, height / 3);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static BufferedImage noisyPage(int width, int height, int seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = new byte[width * height];
+        new Random(seed).nextBytes(data);
+        image.getRaster().setDataElements(0, 0, width, height, data);
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRaster().getPixels(0, 0, image.getWidth(), image.getHeight(), (int[]) null);
+    }
+}
@@ -2,20 +2,29 @@ package com.osman.ui.labelfinder;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class PdfPageRenderCacheTest {
 
@@ -51,6 +60,126 @@ class PdfPageRenderCacheTest {
         assertEquals(1, pages.size(), "Only valid 1-based indexes should be rendered");
     }
 
+    @Test
+    void rendersGrayscalePagesStraightToOneBytePerPixel() throws Exception {
+        Path pdfPath = createLabelPdf("gray.pdf");
+
+        BufferedImage gray = PdfPageRenderCache.getOrRenderPage(pdfPath.toFile(), 0, 100, true);
+        BufferedImage color = PdfPageRenderCache.getOrRenderPage(pdfPath.toFile(), 0, 100, false);
+
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, gray.getType());
+        assertEquals(color.getWidth(), gray.getWidth());
+        assertEquals(4 * ByteBoundedCache.estimateBytes(gray), ByteBoundedCache.estimateBytes(color));
+    }
+
+    @Test
+    void previewPagesAreScaledFromTheNearestSharperRender() throws Exception {
+        Path pdfPath = createLabelPdf("preview.pdf");
+        BufferedImage print = PdfPageRenderCache.getOrRenderPage(pdfPath.toFile(), 0, 150, true);
+        BufferedImage sharper = PdfPageRenderCache.getOrRenderPage(pdfPath.toFile(), 0, 300, true);
+
+        BufferedImage preview = PdfPageRenderCache.getOrScalePage(pdfPath.toFile(), 0, 100);
+
+        // Scaled from the 150 dpi render, the nearest one at least as sharp: 600 x 100 / 150.
+        assertEquals(print.getWidth() * 100 / 150, preview.getWidth());
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, preview.getType());
+        assertSame(preview, PdfPageRenderCache.renderPreviewPages(pdfPath.toFile(), List.of(1), 100).get(0));
+
+        BufferedImage finer = PdfPageRenderCache.getOrScalePage(pdfPath.toFile(), 0, 200);
+        assertEquals(sharper.getWidth() * 200 / 300, finer.getWidth());
+
+        PdfPageRenderCache.clear();
+        BufferedImage rendered = PdfPageRenderCache.getOrScalePage(pdfPath.toFile(), 0, 100);
+        assertSame(rendered, PdfPageRenderCache.getOrRenderPage(pdfPath.toFile(), 0, 100, true),
+            "Rendered at the requested DPI when nothing sharper is cached");
+    }
+
+    @Test
+    void benchmarkGrayscaleRenderAgainstRgbThenConvert() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "Needs per-thread allocation counters.");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        long threadId = Thread.currentThread().getId();
+        Path pdfPath = createLabelPdf("bench.pdf");
+        int rounds = 20;
+        try (PDDocument document = PDDocument.load(pdfPath.toFile())) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int dpi : new int[] {75, 150, 203}) {
+                for (int i = 0; i < 3; i++) {
+                    toGray(renderer.renderImageWithDPI(0, dpi, ImageType.RGB));
+                    renderer.renderImageWithDPI(0, dpi, ImageType.GRAY);
+                }
+                long bytes = allocations.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                BufferedImage converted = null;
+                for (int i = 0; i < rounds; i++) {
+                    converted = toGray(renderer.renderImageWithDPI(0, dpi, ImageType.RGB));
+                }
+                long convertNanos = System.nanoTime() - start;
+                long convertBytes = allocations.getThreadAllocatedBytes(threadId) - bytes;
+
+                bytes = allocations.getThreadAllocatedBytes(threadId);
+                start = System.nanoTime();
+                BufferedImage direct = null;
+                for (int i = 0; i < rounds; i++) {
+                    direct = renderer.renderImageWithDPI(0, dpi, ImageType.GRAY);
+                }
+                long directNanos = System.nanoTime() - start;
+                long directBytes = allocations.getThreadAllocatedBytes(threadId) - bytes;
+
+                System.out.printf(Locale.ROOT,
+                    "4x6 label at %d dpi: RGB + convert %.1f ms, %.2f MB allocated; GRAY %.1f ms, %.2f MB allocated;"
+                        + " cached %.2f MB either way%n",
+                    dpi, convertNanos / 1e6 / rounds, convertBytes / 1e6 / rounds, directNanos / 1e6 / rounds,
+                    directBytes / 1e6 / rounds, ByteBoundedCache.estimateBytes(direct) / 1e6);
+                assertEquals(ByteBoundedCache.estimateBytes(converted), ByteBoundedCache.estimateBytes(direct));
+            }
+        }
+    }
+
+    /** The conversion the render cache used to do after an RGB render. */
+    private static BufferedImage toGray(BufferedImage source) {
+        BufferedImage gray = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g2 = gray.createGraphics();
+        try {
+            g2.drawImage(source, 0, 0, null);
+        } finally {
+            g2.dispose();
+        }
+        return gray;
+    }
+
+    /** A 4x6 inch page with text, rules and a barcode-like run of bars. */
+    private Path createLabelPdf(String name) throws IOException {
+        Path pdf = tempDir.resolve(name);
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(new PDRectangle(4 * 72, 6 * 72));
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.setLineWidth(2);
+                content.addRect(10, 10, 268, 412);
+                content.stroke();
+                for (int i = 0; i < 60; i++) {
+                    content.addRect(30 + i * 3.5f, 40, (i % 3 == 0) ? 2.5f : 1.2f, 90);
+                }
+                content.fill();
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA_BOLD, 14);
+                content.newLineAtOffset(24, 390);
+                content.showText("USPS PRIORITY MAIL");
+                content.setFont(PDType1Font.HELVETICA, 10);
+                for (int line = 0; line < 12; line++) {
+                    content.newLineAtOffset(0, -16);
+                    content.showText("SHIP TO LINE " + line + " 114-1234567-7654321");
+                }
+                content.endText();
+            }
+            document.save(pdf.toFile());
+        }
+        return pdf;
+    }
+
     private Path createSinglePagePdf(String name) throws IOException {
         Path pdf = tempDir.resolve(name);
         try (PDDocument document = new PDDocument()) {
@@ -0,0 +1,133 @@
+package com.osman.ui.labelfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PhotoIndexTest {
+    private static final Path ROOT = Paths.get("/orders").toAbsolutePath();
+
+    @Test
+    void matchesExactlyWhatASubstringScanFinds() {
+        Random random = new Random(7);
+        List<Path> photos = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            photos.add(photo(random, i));
+        }
+        List<Path> added = new ArrayList<>();
+        for (int i = 2_000; i < 2_600; i++) {
+            added.add(photo(random, i));
+        }
+
+        PhotoIndex index = PhotoIndex.of(photos);
+        List<Path> all = new ArrayList<>(photos);
+        // Batches small enough to stay in the delta at first, then large enough to be folded in.
+        for (int from = 0; from < added.size(); from += 50) {
+            List<Path> batch = added.subList(from, Math.min(added.size(), from + 50));
+            index = index.withAdded(batch);
+            all.addAll(batch);
+            assertLookupsMatch(index, all, random);
+        }
+        assertEquals(all.size(), index.size());
+        assertEquals(scan(all, ""), index.all());
+    }
+
+    @Test
+    void keepsFirstAddedPhotoFirstForEqualNames() {
+        Path first = ROOT.resolve("a").resolve("111-2222222-3333333.png");
+        Path second = ROOT.resolve("b").resolve("111-2222222-3333333.png");
+        PhotoIndex index = PhotoIndex.of(List.of(first)).withAdded(List.of(second));
+
+        assertEquals(List.of(first, second), index.matching("111-2222222-3333333"));
+        assertTrue(index.contains(second));
+        assertEquals(index, index.withAdded(List.of(second)), "Known photos do not make a new snapshot");
+    }
+
+    @Test
+    void benchmarkLookupFrom1kTo100kPhotos() {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        Random random = new Random(1);
+        for (int size : new int[] {1_000, 10_000, 100_000}) {
+            List<Path> photos = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                photos.add(photo(random, i));
+            }
+            long buildStart = System.nanoTime();
+            PhotoIndex index = PhotoIndex.of(photos);
+            long buildNanos = System.nanoTime() - buildStart;
+
+            List<String> queries = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                queries.add(orderId(random.nextInt(size)));
+            }
+            long indexed = time(() -> queries.forEach(index::matching));
+            long scanned = time(() -> queries.forEach(q -> scan(photos, q)));
+
+            long addStart = System.nanoTime();
+            PhotoIndex grown = index;
+            for (int i = 0; i < 100; i++) {
+                grown = grown.withAdded(List.of(photo(random, size + i)));
+            }
+            long addNanos = System.nanoTime() - addStart;
+
+            System.out.printf(Locale.ROOT,
+                "%,7d photos: build %.1f ms, lookup %.3f ms indexed vs %.3f ms scanned, add %.3f ms%n",
+                size, buildNanos / 1e6, indexed / 1e6 / queries.size(), scanned / 1e6 / queries.size(),
+                addNanos / 1e6 / 100);
+        }
+    }
+
+    private static void assertLookupsMatch(PhotoIndex index, List<Path> all, Random random) {
+        for (int i = 0; i < 20; i++) {
+            String id = orderId(random.nextInt(2_600));
+            assertEquals(scan(all, id), index.matching(id), id);
+            assertEquals(scan(all, "(" + id + ")"), index.matching("(" + id + ")"), id);
+        }
+        for (String text : List.of("x1-", "mug", "ready", "zz", ".png", "qqq", "1")) {
+            assertEquals(scan(all, text), index.matching(text), text);
+        }
+    }
+
+    /** The lookup the index replaces: every name containing {@code text}, stably sorted by name. */
+    private static List<Path> scan(List<Path> photos, String text) {
+        List<Path> out = new ArrayList<>();
+        for (Path photo : photos) {
+            if (photo.getFileName().toString().toLowerCase(Locale.ROOT).contains(text)) {
+                out.add(photo);
+            }
+        }
+        out.sort(Comparator.comparing(p -> p.getFileName().toString().toLowerCase(Locale.ROOT)));
+        return out;
+    }
+
+    private static Path photo(Random random, int n) {
+        String id = orderId(n);
+        String name = switch (random.nextInt(4)) {
+            case 0 -> "x" + (1 + random.nextInt(3)) + "-Mug (" + id + ").png";
+            case 1 -> id + "-" + random.nextInt(3) + ".JPG";
+            case 2 -> "Ready Design " + id + ".png";
+            default -> "photo_" + n + ".jpeg";
+        };
+        return ROOT.resolve("batch" + (n % 7)).resolve(name);
+    }
+
+    private static String orderId(int n) {
+        return String.format(Locale.ROOT, "%03d-%07d-%07d", 100 + n % 900, n * 7919 % 10_000_000, n);
+    }
+
+    private static long time(Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,113 @@
+package com.osman.ui.labelfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PhotoThumbnailCacheTest {
+    private static final long MB = 1024L * 1024L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void decodesJustLargeEnoughToFillTheTile() throws Exception {
+        Path photo = photo("photo.png", 1200, 900, "png");
+        PhotoThumbnailCache cache = new PhotoThumbnailCache(16 * MB, 1);
+
+        BufferedImage thumbnail = cache.load(photo, 300, 300).get(10, TimeUnit.SECONDS);
+
+        // Fitted into 300x300 the photo is drawn at 300x225, so every 4th pixel is enough.
+        assertEquals(300, thumbnail.getWidth());
+        assertEquals(225, thumbnail.getHeight());
+        assertEquals(1, PhotoThumbnailCache.subsampling(1200, 900, 2000, 2000));
+        assertEquals(6, PhotoThumbnailCache.subsampling(4000, 3000, 600, 600));
+    }
+
+    @Test
+    void reusesThumbnailsUntilATileNeedsMoreOrTheFileChanges() throws IOException {
+        Path photo = photo("photo.jpg", 1200, 900, "jpg");
+        PhotoThumbnailCache cache = new PhotoThumbnailCache(16 * MB, 1);
+
+        BufferedImage small = cache.thumbnail(photo, 300, 300);
+        assertSame(small, cache.thumbnail(photo, 300, 300));
+        assertSame(small, cache.thumbnail(photo, 150, 200), "Large enough for a smaller tile");
+
+        BufferedImage larger = cache.thumbnail(photo, 600, 600);
+        assertEquals(600, larger.getWidth());
+        assertSame(larger, cache.thumbnail(photo, 300, 300));
+
+        Files.setLastModifiedTime(photo, FileTime.fromMillis(Files.getLastModifiedTime(photo).toMillis() + 5_000));
+        assertNotSame(larger, cache.thumbnail(photo, 600, 600));
+        assertEquals(3, cache.stats().decodes());
+
+        Path notAnImage = Files.writeString(tempDir.resolve("notes.png"), "not an image");
+        assertNull(cache.thumbnail(notAnImage, 300, 300));
+    }
+
+    @Test
+    void benchmarkFullVersusSubsampledDecode() throws IOException {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "Needs per-thread allocation counters.");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Path photo = photo("phone.jpg", 4000, 3000, "jpg");
+        long threadId = Thread.currentThread().getId();
+        int rounds = 5;
+
+        long bytes = allocations.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            ImageIO.read(photo.toFile());
+        }
+        long fullNanos = System.nanoTime() - start;
+        long fullBytes = allocations.getThreadAllocatedBytes(threadId) - bytes;
+
+        bytes = allocations.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            // A fresh cache each round, so every round decodes.
+            new PhotoThumbnailCache(16 * MB, 1).thumbnail(photo, 450, 600);
+        }
+        long thumbNanos = System.nanoTime() - start;
+        long thumbBytes = allocations.getThreadAllocatedBytes(threadId) - bytes;
+
+        System.out.printf(Locale.ROOT,
+            "4000x3000 JPEG for a 450x600 tile: full decode %.1f ms, %.1f MB; subsampled %.1f ms, %.1f MB%n",
+            fullNanos / 1e6 / rounds, fullBytes / 1e6 / rounds, thumbNanos / 1e6 / rounds, thumbBytes / 1e6 / rounds);
+    }
+
+    private Path photo(String name, int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(new Color(30, 90, 160));
+            g.fillOval(width / 4, height / 4, width / 2, height / 2);
+        } finally {
+            g.dispose();
+        }
+        Path file = tempDir.resolve(name);
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+}
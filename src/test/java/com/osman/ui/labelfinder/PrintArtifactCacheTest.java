@@ -0,0 +1,190 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.core.pdf.PdfOpenPolicy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrintArtifactCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void buildsSingleOrderPdfFromLabelAndSlipPages() throws IOException {
+        PageGroup label = new PageGroup(writePdf(tempDir.resolve("labels.pdf"), "LABEL", 3).toFile(), List.of(2));
+        PageGroup slip = new PageGroup(writePdf(tempDir.resolve("slips.pdf"), "SLIP", 2).toFile(), List.of(1, 2));
+        PrintArtifactCache cache = newCache(true, false);
+
+        PrintArtifactCache.Artifact artifact = cache.build(new PrintArtifactCache.Job("A-1", label, slip, List.of()));
+
+        assertNotNull(artifact);
+        assertEquals(3, artifact.pages());
+        assertEquals(3, artifact.sources().size());
+        try (PDDocument doc = PDDocument.load(artifact.pdf().toFile())) {
+            assertEquals(3, doc.getNumberOfPages());
+            assertEquals("LABEL 2", pageText(doc, 1));
+            assertEquals("SLIP 1", pageText(doc, 2));
+            assertEquals("SLIP 2", pageText(doc, 3));
+        }
+        assertTrue(cache.owns(artifact.pdf().toFile()));
+        assertFalse(cache.owns(label.file()));
+    }
+
+    @Test
+    void findOnlyReturnsArtifactsForTheSamePages() throws IOException {
+        PageGroup label = new PageGroup(writePdf(tempDir.resolve("labels.pdf"), "LABEL", 2).toFile(), List.of(1));
+        PrintArtifactCache cache = newCache(true, false);
+        cache.build(new PrintArtifactCache.Job("A-1", label, null, List.of()));
+
+        assertNotNull(cache.find("A-1", label, null));
+        assertNull(cache.find("A-1", new PageGroup(label.file(), List.of(2)), null), "Label moved to another page");
+        assertNull(cache.find("B-2", label, null));
+        assertEquals(1, cache.stats().hits());
+        assertEquals(2, cache.stats().misses());
+
+        cache.clear();
+        assertNull(cache.find("A-1", label, null));
+        assertEquals(0, cache.stats().artifacts());
+    }
+
+    @Test
+    void buildFinishingAfterClearIsDiscarded() throws IOException {
+        PageGroup label = new PageGroup(writePdf(tempDir.resolve("labels.pdf"), "LABEL", 1).toFile(), List.of(1));
+        Path photo = tempDir.resolve("design.png");
+        ImageIO.write(new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB), "png", photo.toFile());
+        PrintArtifactCache cache = newCache(true, true);
+        // Reading the photo list happens mid-build, so the cache is cleared while the artifact is being written.
+        List<Path> clearingPhotos = new AbstractList<>() {
+            @Override
+            public Path get(int index) {
+                cache.clear();
+                return photo;
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+
+        assertNull(cache.build(new PrintArtifactCache.Job("A-1", label, null, clearingPhotos)));
+
+        assertNull(cache.find("A-1", label, null));
+        assertEquals(0, cache.stats().built());
+        assertEquals(0, cache.stats().artifacts());
+    }
+
+    @Test
+    void buildFromAnInvalidatedSourceIsDiscarded() throws IOException {
+        Path labels = writePdf(tempDir.resolve("labels.pdf"), "LABEL", 1);
+        PageGroup label = new PageGroup(labels.toFile(), List.of(1));
+        Path photo = tempDir.resolve("design.png");
+        ImageIO.write(new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB), "png", photo.toFile());
+        PrintArtifactCache cache = newCache(true, true);
+        // The label PDF is replaced while the build is under way, after it may already have read the old one.
+        List<Path> invalidatingPhotos = new AbstractList<>() {
+            @Override
+            public Path get(int index) {
+                cache.invalidate(List.of(labels));
+                return photo;
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+
+        assertNull(cache.build(new PrintArtifactCache.Job("A-1", label, null, invalidatingPhotos)));
+        assertNull(cache.find("A-1", label, null));
+
+        // A build started after the replacement reads the new file and is kept.
+        assertNotNull(cache.build(new PrintArtifactCache.Job("A-1", label, null, List.of())));
+        assertNotNull(cache.find("A-1", label, null));
+    }
+
+    @Test
+    void disabledCacheNeverBuildsOrFinds() throws Exception {
+        PageGroup label = new PageGroup(writePdf(tempDir.resolve("labels.pdf"), "LABEL", 1).toFile(), List.of(1));
+        PrintArtifactCache cache = newCache(false, false);
+
+        cache.start(List.of(new PrintArtifactCache.Job("A-1", label, null, List.of())));
+        Thread.sleep(100);
+
+        assertNull(cache.find("A-1", label, null));
+        assertEquals(0, cache.stats().built());
+    }
+
+    @Test
+    void buildsBatchInBackgroundWithPhotoStrip() throws Exception {
+        PageGroup label = new PageGroup(writePdf(tempDir.resolve("labels.pdf"), "LABEL", 2).toFile(), List.of(1));
+        PageGroup other = new PageGroup(label.file(), List.of(2));
+        Path photo = tempDir.resolve("design.png");
+        ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png", photo.toFile());
+        PrintArtifactCache cache = newCache(true, true);
+
+        cache.start(List.of(
+            new PrintArtifactCache.Job("A-1", label, null, List.of(photo)),
+            new PrintArtifactCache.Job("B-2", other, null, List.of()),
+            new PrintArtifactCache.Job("C-3", null, null, List.of(photo))));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.stats().built() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(2, cache.find("A-1", label, null).pages(), "Label page plus photo strip");
+        assertEquals(1, cache.find("B-2", other, null).pages(), "No readable photos, no strip");
+        assertNull(cache.find("C-3", null, null), "Nothing to print without a label or slip");
+        assertTrue(Files.size(cache.find("A-1", label, null).pdf()) > 0);
+    }
+
+    private PrintArtifactCache newCache(boolean enabled, boolean photoStrip) {
+        return new PrintArtifactCache(enabled, tempDir.resolve("artifacts"), 72, photoStrip, 1,
+            new PdfOpenPolicy(Long.MAX_VALUE, 0, tempDir.resolve("scratch")));
+    }
+
+    private static String pageText(PDDocument doc, int page) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(doc).trim();
+    }
+
+    private static Path writePdf(Path pdf, String prefix, int pages) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage(new PDRectangle(288, 432));
+                doc.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 18);
+                    content.newLineAtOffset(40, 300);
+                    content.showText(prefix + " " + i);
+                    content.endText();
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+        return pdf;
+    }
+}
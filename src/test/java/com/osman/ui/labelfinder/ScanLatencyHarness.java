@@ -0,0 +1,598 @@
+package com.osman.ui.labelfinder;
+
+import com.osman.core.order.OrderExpectationStore;
+import com.osman.core.pdf.PackingSlipIndex;
+import com.osman.core.pdf.PackingSlipIndexer;
+import com.osman.core.pdf.PdfDocumentPool;
+import com.osman.core.pdf.PdfIndexCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import javax.imageio.ImageIO;
+import javax.print.DocFlavor;
+import javax.print.StreamPrintService;
+import javax.print.StreamPrintServiceFactory;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Replays barcode scans against a synthetic batch the way {@link LabelFinderPanel} handles them, without Swing.
+ * <p>
+ * {@link #generate} writes label PDFs, packing slip PDFs, photos and order JSONs for a number of orders. The harness
+ * indexes them with the panel's own indexers, then {@link #replay} types each scan as a scanner would, one key every
+ * {@link Config#keyMillis}, and presses Enter. The find debounce of {@link LabelFinderPanel#FIND_DELAY_MS} runs on a
+ * single thread standing in for the EDT, so a scan arriving within it drops the earlier one. From there the harness
+ * calls the panel's own scan path: {@link LabelFinderPanel#lookUpScan}, {@link LabelFinderPanel#renderFastPreview},
+ * {@link LabelFinderPanel#prefetchAfter}, the refinement check, and the print sources with their print artifact and
+ * photo strip. Photo thumbnails load alongside, and prints run on a single print thread. Prints go through
+ * {@link LabelPrintJob} to a PostScript spool that is thrown away, or are painted onto a scratch page when the JVM
+ * has no PostScript stream service.
+ * <p>
+ * Latencies run from the first keystroke of a scan. Scans are replayed at a fixed rate whether or not the previous
+ * one has finished, so a rate above what the machine keeps up with shows up as queueing.
+ */
+final class ScanLatencyHarness implements Closeable {
+
+    /**
+     * @param keyMillis       delay between the scanner's keystrokes
+     * @param previewDpi      DPI of the refined preview, standing in for the viewport-sized DPI
+     * @param photoWidth      width of each generated photo; 0 for no photos
+     */
+    record Config(int orders, int ordersPerLabelPdf, int ordersPerSlipPdf, int photoWidth, int keyMillis,
+                  int findDelayMillis, int previewDpi, int prefetchDepth, long seed) {
+
+        /** Defaults overridable with {@code -DscanOrders}, {@code -DscanKeyMillis} and so on. */
+        static Config fromSystemProperties() {
+            return new Config(
+                Integer.getInteger("scanOrders", 200),
+                Integer.getInteger("scanOrdersPerLabelPdf", 50),
+                Integer.getInteger("scanOrdersPerSlipPdf", 100),
+                Integer.getInteger("scanPhotoWidth", 1600),
+                Integer.getInteger("scanKeyMillis", 2),
+                Integer.getInteger("scanFindDelayMillis", LabelFinderPanel.FIND_DELAY_MS),
+                Integer.getInteger("scanPreviewDpi", 100),
+                Integer.getInteger("prefetchOrders", 3),
+                Long.getLong("scanSeed", 7));
+        }
+    }
+
+    /** One scan; times are milliseconds from its first keystroke, -1 when that step did not happen. */
+    record Sample(String orderId, String status, boolean cacheHit, long startMillis, long composedMillis,
+                  long refinedMillis, long photosMillis, long printedMillis) {
+    }
+
+    record Run(double scansPerMinute, String sink, List<Sample> samples) {
+        long dropped() {
+            return samples.stream().filter(s -> s.status().equals("dropped")).count();
+        }
+    }
+
+    static final List<String> METRICS = List.of("composed", "refined", "photos", "printed");
+
+    private final Config config;
+    private final LabelFinderWorkflow workflow = new LabelFinderWorkflow();
+    private final OrderExpectationStore expectations = new OrderExpectationStore(false, null);
+    private final Map<String, PageGroup> labelGroups;
+    private final List<String> labelOrder;
+    private final PackingSlipIndex slipIndex;
+    private final ByteBoundedCache<String, RenderedOrder> renderCache =
+        new ByteBoundedCache<>(128L * 1024L * 1024L, RenderedOrder::estimateBytes, null);
+    private final PhotoThumbnailCache photoThumbnails = PhotoThumbnailCache.fromSystemProperties();
+    private final PrintArtifactCache printArtifacts = PrintArtifactCache.fromSystemProperties(LabelFinderPanel.PRINT_DPI);
+    private final OrderPrefetcher prefetcher;
+    private final Set<String> scanned = ConcurrentHashMap.newKeySet();
+    private final AtomicLong refinement = new AtomicLong();
+    private final StreamPrintServiceFactory spoolFactory;
+
+    /** Indexes the batch under {@code root}; the PDF index cache goes next to it. */
+    ScanLatencyHarness(Path root, Config config) throws IOException {
+        this.config = config;
+        PdfIndexCache indexCache = new PdfIndexCache(root.resolveSibling(root.getFileName() + "-index"));
+        List<File> labelPdfs = new ArrayList<>();
+        List<Path> slipPdfs = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                .sorted()
+                .forEach(p -> {
+                    if (LabelFinderPanel.isPackingSlipPdf(p.toFile())) {
+                        slipPdfs.add(p);
+                    } else {
+                        labelPdfs.add(p.toFile());
+                    }
+                });
+        }
+        this.slipIndex = new PackingSlipIndexer(indexCache).index(slipPdfs);
+        this.labelGroups = new LabelIndexBuilder(pdf -> indexCache.labels(pdf).orderPages(), 2)
+            .build(labelPdfs, () -> false, null);
+        this.labelOrder = LabelFinderPanel.sortedLabelOrder(labelGroups);
+        workflow.setBaseFolders(List.of(root.toFile()));
+        workflow.rebuildPhotoIndex();
+        expectations.load(List.of(root));
+        this.prefetcher = new OrderPrefetcher((orderId, cancelled) -> LabelFinderPanel.renderPreview(
+            labelGroups.get(orderId), LabelFinderPanel.toPageGroup(slipIndex.find(orderId)), config.previewDpi(), 1.0,
+            cancelled), renderCache::put, config.prefetchDepth());
+        // Built after indexing, as the panel does; a no-op unless -DprintArtifacts=true.
+        LabelFinderPanel.startPrintArtifacts(printArtifacts, labelOrder, labelGroups, slipIndex, workflow,
+            orderId -> false);
+        StreamPrintServiceFactory[] factories = StreamPrintServiceFactory.lookupStreamPrintServiceFactories(
+            DocFlavor.SERVICE_FORMATTED.PRINTABLE, "application/postscript");
+        this.spoolFactory = (factories.length > 0) ? factories[0] : null;
+    }
+
+    /** Order IDs in label order, the order packers usually scan in. */
+    List<String> labelOrder() {
+        return labelOrder;
+    }
+
+    /** What a scanner sends for the first item of {@code orderId}. */
+    static String scanText(String orderId) {
+        return orderId + "^" + itemId(orderId);
+    }
+
+    /**
+     * Types {@code scans} at {@code scansPerMinute} against cold preview, page and photo caches, and waits up to
+     * {@code timeoutMillis} after the last scan for everything to finish.
+     */
+    Run replay(List<String> scans, double scansPerMinute, long timeoutMillis) throws InterruptedException {
+        PdfPageRenderCache.clear();
+        renderCache.clear();
+        photoThumbnails.clear();
+        prefetcher.clear();
+        scanned.clear();
+        ScheduledExecutorService keyboard =
+            Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "ScanHarness-Keyboard"));
+        ScheduledExecutorService edt = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "ScanHarness-EDT"));
+        ExecutorService printer = Executors.newSingleThreadExecutor(r -> daemon(r, "ScanHarness-Print"));
+        // Stands in for the SwingWorker threads the panel renders its fast preview on.
+        ExecutorService workers = Executors.newCachedThreadPool(r -> daemon(r, "ScanHarness-Worker"));
+        try {
+            long intervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / scansPerMinute);
+            long origin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+            Replay replay = new Replay(scans.size(), origin, edt, printer, workers);
+            for (int i = 0; i < scans.size(); i++) {
+                Scan scan = new Scan(i, scans.get(i), origin + i * intervalNanos);
+                long typingNanos = TimeUnit.MILLISECONDS.toNanos((long) config.keyMillis() * scan.text().length());
+                long enterAt = scan.startNanos() + typingNanos;
+                keyboard.schedule(() -> edt.execute(() -> replay.enter(scan)),
+                    enterAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            long lastScan = origin + (scans.size() - 1) * intervalNanos;
+            long deadline = lastScan + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            if (!replay.await(deadline)) {
+                throw new IllegalStateException("Scans still running " + timeoutMillis + " ms after the last one");
+            }
+            return new Run(scansPerMinute, sinkName(), replay.samples());
+        } finally {
+            keyboard.shutdownNow();
+            edt.shutdownNow();
+            printer.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    String sinkName() {
+        return (spoolFactory != null) ? "postscript-spool" : "canvas";
+    }
+
+    @Override
+    public void close() throws IOException {
+        prefetcher.clear();
+        printArtifacts.clear();
+        expectations.close();
+        PdfPageRenderCache.clear();
+        for (PageGroup group : labelGroups.values()) {
+            PdfDocumentPool.shared().invalidate(group.file());
+        }
+        for (PackingSlipIndex.SlipLocation slip : slipIndex.byOrder().values()) {
+            PdfDocumentPool.shared().invalidate(slip.pdf().toFile());
+        }
+    }
+
+    private record Scan(int index, String text, long startNanos) {
+    }
+
+    /** State of one replay, touched only on its EDT thread apart from the completion counters. */
+    private final class Replay {
+        private final long origin;
+        private final ScheduledExecutorService edt;
+        private final ExecutorService printer;
+        private final ExecutorService workers;
+        private final Sample[] samples;
+        private final CompletableFuture<?>[] finished;
+        private ScheduledFuture<?> pendingFind;
+        private Scan pendingScan;
+
+        Replay(int scans, long origin, ScheduledExecutorService edt, ExecutorService printer, ExecutorService workers) {
+            this.origin = origin;
+            this.edt = edt;
+            this.printer = printer;
+            this.workers = workers;
+            this.samples = new Sample[scans];
+            this.finished = new CompletableFuture<?>[scans];
+            for (int i = 0; i < scans; i++) {
+                finished[i] = new CompletableFuture<>();
+            }
+        }
+
+        /** The scanner's Enter: restarts the find debounce, dropping a scan still waiting on it. */
+        void enter(Scan scan) {
+            if (pendingFind != null && pendingFind.cancel(false)) {
+                finish(pendingScan, new Sample(orderIdOf(pendingScan), "dropped", false, offset(pendingScan), -1, -1,
+                    -1, -1));
+            }
+            pendingScan = scan;
+            pendingFind = edt.schedule(() -> {
+                try {
+                    find(scan);
+                } catch (RuntimeException ex) {
+                    finish(scan, new Sample(orderIdOf(scan), "error", false, offset(scan), -1, -1, -1, -1));
+                }
+            }, config.findDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * {@code findSingleOrderFlow} and what follows it in the panel, through the panel's own lookup, fast preview,
+         * prefetch, refinement and print-source methods. Only the Swing parts and the per-item quantity tracking are
+         * left out: an order with quantity data is printed on its first scan, one without is held, as in the panel.
+         */
+        private void find(Scan scan) {
+            pendingFind = null;
+            LabelFinderPanel.ScanInput input = LabelFinderPanel.parseScanInput(scan.text());
+            String orderId = input.orderId();
+            LabelFinderPanel.ScanLookup lookup = LabelFinderPanel.lookUpScan(input, labelGroups, slipIndex, workflow,
+                renderCache, prefetcher);
+            long generation = refinement.incrementAndGet();
+            long findStarted = System.nanoTime();
+            if (lookup.labelGroup() == null) {
+                finish(scan, new Sample(orderId, "no-label", false, offset(scan), -1, -1, -1, -1));
+                return;
+            }
+            boolean hasQuantity = !expectations.find(orderId).isEmpty();
+            List<Path> photos = lookup.photos();
+            CompletableFuture<Long> photosShown = photos.isEmpty()
+                ? CompletableFuture.completedFuture(-1L)
+                : photoThumbnails.load(photos.get(0), 400, 400).handle((image, error) -> since(scan));
+            RenderedOrder cached = lookup.cached();
+            CompletableFuture<RenderedOrder> preview;
+            if (cached != null) {
+                preview = CompletableFuture.completedFuture(cached);
+            } else {
+                int fastDpi = Math.min(LabelFinderPanel.PREVIEW_FAST_DPI, config.previewDpi());
+                preview = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return LabelFinderPanel.renderFastPreview(orderId, lookup.labelGroup(), lookup.slipGroup(),
+                            slipIndex, fastDpi, 1.0, () -> false);
+                    } catch (Exception ex) {
+                        throw new CompletionException(ex);
+                    }
+                }, workers);
+            }
+            preview.whenCompleteAsync((render, error) -> {
+                if (render == null) {
+                    boolean noSlip = error == null || error.getCause() instanceof MissingPackingSlipException;
+                    finish(scan, new Sample(orderId, noSlip ? "no-slip" : "error", cached != null, offset(scan), -1,
+                        -1, -1, -1));
+                    return;
+                }
+                renderCache.put(orderId, render);
+                long composed = since(scan);
+                prefetcher.recordDisplay(System.nanoTime() - findStarted);
+                scanned.add(orderId);
+                LabelFinderPanel.prefetchAfter(orderId, labelOrder, next -> !scanned.contains(next), renderCache,
+                    prefetcher);
+                CompletableFuture<Long> printed = CompletableFuture.completedFuture(-1L);
+                if (hasQuantity) {
+                    List<PageRenderSource> sources = LabelFinderPanel.printSources(printArtifacts, orderId,
+                        render.labelSource(), render.slipSource());
+                    List<Path> strip = LabelFinderPanel.livePhotoStrip(printArtifacts, workflow, orderId, sources);
+                    printed = CompletableFuture.supplyAsync(() -> {
+                        print(sources, LabelFinderPanel.lastPrintPage(null, strip));
+                        return since(scan);
+                    }, printer);
+                }
+                CompletableFuture<Long> refined = refine(orderId, render, generation, scan);
+                CompletableFuture<Long> printedAt = printed;
+                String status = hasQuantity ? "ok" : "no-quantity";
+                CompletableFuture.allOf(printedAt, refined, photosShown).whenComplete((ignored, failure) ->
+                    finish(scan, new Sample(orderId, failure != null ? "error" : status, cached != null, offset(scan),
+                        composed, refined.getNow(-1L), photosShown.getNow(-1L), printedAt.getNow(-1L))));
+            }, edt);
+        }
+
+        /** The background pass at the target DPI, skipped when the shown preview is already close enough. */
+        private CompletableFuture<Long> refine(String orderId, RenderedOrder shown, long generation, Scan scan) {
+            int dpi = config.previewDpi();
+            if (!LabelFinderPanel.needsRefinement(shown, dpi, 1.0)) {
+                return CompletableFuture.completedFuture(-1L);
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                RenderedOrder refined = LabelFinderPanel.renderPreview(shown.labelSource(), shown.slipSource(), dpi,
+                    1.0, () -> generation != refinement.get());
+                if (refined == null) {
+                    return -1L;
+                }
+                renderCache.put(orderId, refined);
+                return since(scan);
+            }, LabelFinderPanel.RENDER_EXECUTOR);
+        }
+
+        /** When {@code scan} started, from the start of the replay. */
+        private long offset(Scan scan) {
+            return TimeUnit.NANOSECONDS.toMillis(scan.startNanos() - origin);
+        }
+
+        private void finish(Scan scan, Sample sample) {
+            samples[scan.index()] = sample;
+            finished[scan.index()].complete(null);
+        }
+
+        boolean await(long deadlineNanos) throws InterruptedException {
+            try {
+                CompletableFuture.allOf(finished).get(Math.max(0, deadlineNanos - System.nanoTime()),
+                    TimeUnit.NANOSECONDS);
+                return true;
+            } catch (ExecutionException | TimeoutException ex) {
+                return false;
+            }
+        }
+
+        List<Sample> samples() {
+            return List.of(samples);
+        }
+    }
+
+    /** Prints {@code sources} then {@code lastPage} as the panel would, into a spool nobody reads. */
+    private void print(List<PageRenderSource> sources, BufferedImage lastPage) {
+        LabelPrintJob.Mode mode = LabelPrintJob.modeFor("", System.getProperty("labelPrintMode"), "");
+        try {
+            if (spoolFactory != null) {
+                StreamPrintService service = spoolFactory.getPrintService(OutputStream.nullOutputStream());
+                try {
+                    PrinterJob job = PrinterJob.getPrinterJob();
+                    job.setPrintService(service);
+                    LabelPrintJob.run(job, fourBySix(), mode, service.getName(), sources, lastPage,
+                        LabelFinderPanel.PRINT_DPI, false);
+                } finally {
+                    service.dispose();
+                }
+                return;
+            }
+            Printable printable = LabelPrintJob.printable(mode, sources, lastPage, LabelFinderPanel.PRINT_DPI);
+            BufferedImage page = new BufferedImage(4 * 72, 6 * 72, BufferedImage.TYPE_BYTE_GRAY);
+            for (int i = 0; ; i++) {
+                Graphics2D g = page.createGraphics();
+                try {
+                    if (printable.print(g, fourBySix(), i) != Printable.PAGE_EXISTS) {
+                        return;
+                    }
+                } finally {
+                    g.dispose();
+                }
+            }
+        } catch (PrinterException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes {@code config.orders()} orders under {@code root}: 4x6 label PDFs, {@code Amazon.pdf} style packing slip
+     * PDFs, one JPEG photo and one order JSON per order. Returns the order IDs in label order.
+     */
+    static List<String> generate(Path root, Config config) throws IOException {
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < config.orders(); i++) {
+            orderIds.add(String.format(Locale.ROOT, "%03d-%07d-%07d", 111 + i % 800, i * 7919 % 10_000_000, i));
+        }
+        Path labels = Files.createDirectories(root.resolve("labels"));
+        for (int start = 0, file = 1; start < orderIds.size(); start += config.ordersPerLabelPdf(), file++) {
+            writeLabels(labels.resolve("labels-" + file + ".pdf"),
+                orderIds.subList(start, Math.min(orderIds.size(), start + config.ordersPerLabelPdf())));
+        }
+        Path slips = Files.createDirectories(root.resolve("slips"));
+        for (int start = 0, file = 0; start < orderIds.size(); start += config.ordersPerSlipPdf(), file++) {
+            String name = (file == 0) ? "Amazon.pdf" : "Amazon (" + file + ").pdf";
+            writeSlips(slips.resolve(name),
+                orderIds.subList(start, Math.min(orderIds.size(), start + config.ordersPerSlipPdf())));
+        }
+        Random random = new Random(config.seed());
+        for (String orderId : orderIds) {
+            Path order = Files.createDirectories(root.resolve("orders").resolve(orderId));
+            Files.writeString(order.resolve("item-1.json"), "{\"orderId\":\"" + orderId + "\",\"orderItemId\":\""
+                + itemId(orderId) + "\",\"quantity\":1}");
+            if (config.photoWidth() > 0) {
+                writePhoto(order.resolve(orderId + ".jpg"), config.photoWidth(), config.photoWidth() * 3 / 4, random);
+            }
+        }
+        return orderIds;
+    }
+
+    /**
+     * Appends one row per metric and run to {@code summaryCsv}, writing its header first if it is new, and writes
+     * every scan of {@code runs} to {@code detailCsv}. {@code label} names the build, e.g. a release tag.
+     */
+    static void writeCsv(Path summaryCsv, Path detailCsv, String label, List<Run> runs) throws IOException {
+        String when = Instant.now().toString();
+        String java = System.getProperty("java.version");
+        int cpus = Runtime.getRuntime().availableProcessors();
+        List<String> summary = new ArrayList<>();
+        if (!Files.exists(summaryCsv)) {
+            summary.add("label,timestamp,java,cpus,sink,scans_per_min,scans,dropped,metric,count,p50_ms,p90_ms,p99_ms,"
+                + "max_ms,mean_ms");
+        }
+        List<String> detail = new ArrayList<>();
+        detail.add("label,scans_per_min,order_id,status,cache_hit,start_ms,composed_ms,refined_ms,photos_ms,"
+            + "printed_ms");
+        for (Run run : runs) {
+            for (String metric : METRICS) {
+                long[] values = run.samples().stream().mapToLong(s -> metric(s, metric)).filter(v -> v >= 0).sorted()
+                    .toArray();
+                summary.add(String.format(Locale.ROOT, "%s,%s,%s,%d,%s,%.1f,%d,%d,%s,%d,%d,%d,%d,%d,%.1f",
+                    csv(label), when, java, cpus, run.sink(), run.scansPerMinute(), run.samples().size(),
+                    run.dropped(), metric, values.length, percentile(values, 50), percentile(values, 90),
+                    percentile(values, 99), values.length == 0 ? -1 : values[values.length - 1],
+                    Arrays.stream(values).average().orElse(-1)));
+            }
+            for (Sample s : run.samples()) {
+                detail.add(String.format(Locale.ROOT, "%s,%.1f,%s,%s,%b,%d,%d,%d,%d,%d", csv(label),
+                    run.scansPerMinute(), s.orderId(), s.status(), s.cacheHit(), s.startMillis(), s.composedMillis(),
+                    s.refinedMillis(), s.photosMillis(), s.printedMillis()));
+            }
+        }
+        Files.createDirectories(summaryCsv.toAbsolutePath().getParent());
+        Files.write(summaryCsv, summary, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        Files.createDirectories(detailCsv.toAbsolutePath().getParent());
+        Files.write(detailCsv, detail);
+    }
+
+    /** Nearest-rank percentile of sorted {@code values}, -1 when there are none. */
+    static long percentile(long[] values, int percent) {
+        if (values.length == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * values.length);
+        return values[Math.max(0, Math.min(values.length, rank) - 1)];
+    }
+
+    /** The time of {@code metric}, one of {@link #METRICS}, in {@code sample}. */
+    static long metric(Sample sample, String metric) {
+        return switch (metric) {
+            case "composed" -> sample.composedMillis();
+            case "refined" -> sample.refinedMillis();
+            case "photos" -> sample.photosMillis();
+            default -> sample.printedMillis();
+        };
+    }
+
+    private static String csv(String value) {
+        return value.replace(',', ' ');
+    }
+
+    private static String itemId(String orderId) {
+        return "ITEM-" + orderId.substring(orderId.length() - 7);
+    }
+
+    private static String orderIdOf(Scan scan) {
+        return LabelFinderPanel.parseScanInput(scan.text()).orderId();
+    }
+
+    private static long since(Scan scan) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scan.startNanos());
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private static PageFormat fourBySix() {
+        Paper paper = new Paper();
+        paper.setSize(4 * 72, 6 * 72);
+        paper.setImageableArea(0, 0, 4 * 72, 6 * 72);
+        PageFormat pf = new PageFormat();
+        pf.setPaper(paper);
+        return pf;
+    }
+
+    private static void writeLabels(Path pdf, List<String> orderIds) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < orderIds.size(); i++) {
+                PDPage page = new PDPage(new PDRectangle(4 * 72, 6 * 72));
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA_BOLD, 12);
+                    cs.setLeading(16);
+                    cs.newLineAtOffset(20, 390);
+                    cs.showText("USPS PRIORITY MAIL");
+                    cs.newLine();
+                    cs.showText("SHIP TO CUSTOMER " + i);
+                    cs.newLine();
+                    cs.showText("REF " + orderIds.get(i));
+                    cs.endText();
+                    for (int bar = 0; bar < 60; bar++) {
+                        cs.addRect(20 + bar * 4, 100, (bar + i) % 3 + 1, 80);
+                    }
+                    cs.fill();
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+    }
+
+    private static void writeSlips(Path pdf, List<String> orderIds) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            for (String orderId : orderIds) {
+                PDPage page = new PDPage(PDRectangle.LETTER);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 9);
+                    cs.setLeading(14);
+                    cs.newLineAtOffset(36, 740);
+                    cs.showText("Ship to: Jane Doe");
+                    cs.newLine();
+                    cs.showText("Order ID: " + orderId);
+                    cs.newLine();
+                    cs.showText("1 x Personalised ornament, item " + itemId(orderId));
+                    cs.endText();
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+    }
+
+    private static void writePhoto(Path file, int width, int height, Random random) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(new Color(random.nextInt(0x1000000)));
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < 12; i++) {
+                g.setColor(new Color(random.nextInt(0x1000000)));
+                g.fillOval(random.nextInt(width), random.nextInt(height), width / 4, height / 4);
+            }
+        } finally {
+            g.dispose();
+        }
+        if (!ImageIO.write(image, "jpg", file.toFile())) {
+            throw new IOException("No JPEG writer");
+        }
+    }
+}
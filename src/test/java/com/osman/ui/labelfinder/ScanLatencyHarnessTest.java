@@ -0,0 +1,110 @@
+package com.osman.ui.labelfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ScanLatencyHarnessTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replaysScansFromKeystrokeToPrintAndWritesCsv() throws Exception {
+        ScanLatencyHarness.Config config = new ScanLatencyHarness.Config(6, 2, 3, 320, 1, 50, 100, 2, 1);
+        List<String> orderIds = ScanLatencyHarness.generate(tempDir.resolve("batch"), config);
+
+        try (ScanLatencyHarness harness = new ScanLatencyHarness(tempDir.resolve("batch"), config)) {
+            assertEquals(orderIds, harness.labelOrder());
+            List<String> scans = new ArrayList<>(orderIds.stream().map(ScanLatencyHarness::scanText).toList());
+            scans.add(ScanLatencyHarness.scanText("999-9999999-9999999"));
+
+            ScanLatencyHarness.Run run = harness.replay(scans, 300, 60_000);
+
+            assertEquals(7, run.samples().size());
+            for (ScanLatencyHarness.Sample sample : run.samples().subList(0, 6)) {
+                assertEquals("ok", sample.status(), sample.orderId());
+                assertTrue(sample.composedMillis() >= 0, sample.orderId());
+                assertTrue(sample.printedMillis() >= sample.composedMillis(), sample.orderId());
+                assertTrue(sample.photosMillis() >= 0, sample.orderId());
+            }
+            assertEquals("no-label", run.samples().get(6).status());
+            assertEquals(0, run.dropped());
+
+            // A scan every 10 ms never outlasts the 50 ms find debounce, so only the last one is looked up.
+            ScanLatencyHarness.Run burst = harness.replay(scans.subList(0, 3), 6000, 60_000);
+            assertEquals(2, burst.dropped());
+            assertEquals("ok", burst.samples().get(2).status());
+
+            Path summary = tempDir.resolve("out/summary.csv");
+            Path detail = tempDir.resolve("out/detail.csv");
+            ScanLatencyHarness.writeCsv(summary, detail, "test", List.of(run));
+            ScanLatencyHarness.writeCsv(summary, detail, "test", List.of(run, burst));
+            List<String> rows = Files.readAllLines(summary);
+            assertEquals(1 + 4 + 8, rows.size(), "One header, then a row per metric and run");
+            assertTrue(rows.get(0).startsWith("label,"));
+            assertTrue(rows.get(1).startsWith("test,"));
+            assertEquals(1 + 7 + 3, Files.readAllLines(detail).size());
+        }
+    }
+
+    @Test
+    void percentilesUseTheNearestRank() {
+        long[] values = {10, 20, 30, 40, 50, 60, 70, 80, 90, 100};
+
+        assertEquals(50, ScanLatencyHarness.percentile(values, 50));
+        assertEquals(90, ScanLatencyHarness.percentile(values, 90));
+        assertEquals(100, ScanLatencyHarness.percentile(values, 99));
+        assertEquals(-1, ScanLatencyHarness.percentile(new long[0], 50));
+    }
+
+    /**
+     * Replays {@code -DscanCount} scans (default 30) in label order at each of {@code -DscanRates} scans per minute
+     * (default 30,60,120) and appends the percentiles to {@code -DscanLatencyCsv} (default
+     * {@code target/scan-latency.csv}) under {@code -DscanLatencyLabel} (default {@code dev}). Every scan goes to
+     * {@code scan-latency-detail.csv} next to it.
+     */
+    @Test
+    void benchmarkScanToPrintLatency() throws Exception {
+        assumeTrue(Boolean.getBoolean("benchmarks"), "Run with -Dbenchmarks=true to enable.");
+        ScanLatencyHarness.Config config = ScanLatencyHarness.Config.fromSystemProperties();
+        double[] rates = Arrays.stream(System.getProperty("scanRates", "30,60,120").split(","))
+            .mapToDouble(rate -> Double.parseDouble(rate.trim())).toArray();
+        int count = Integer.getInteger("scanCount", 30);
+        Path summary = Path.of(System.getProperty("scanLatencyCsv", "target/scan-latency.csv"));
+        Path detail = summary.toAbsolutePath().resolveSibling("scan-latency-detail.csv");
+        String label = System.getProperty("scanLatencyLabel", "dev");
+
+        List<String> orderIds = ScanLatencyHarness.generate(tempDir.resolve("batch"), config);
+        List<ScanLatencyHarness.Run> runs = new ArrayList<>();
+        try (ScanLatencyHarness harness = new ScanLatencyHarness(tempDir.resolve("batch"), config)) {
+            List<String> scans = orderIds.subList(0, Math.min(count, orderIds.size())).stream()
+                .map(ScanLatencyHarness::scanText).toList();
+            for (double rate : rates) {
+                ScanLatencyHarness.Run run = harness.replay(scans, rate, 120_000);
+                runs.add(run);
+                System.out.printf(Locale.ROOT, "%.0f scans/min, %d scans, %d dropped, %s:%n", rate, scans.size(),
+                    run.dropped(), run.sink());
+                for (String metric : ScanLatencyHarness.METRICS) {
+                    long[] values = run.samples().stream().mapToLong(s -> ScanLatencyHarness.metric(s, metric))
+                        .filter(v -> v >= 0).sorted().toArray();
+                    System.out.printf(Locale.ROOT, "  scan to %-8s p50 %5d ms, p90 %5d ms, p99 %5d ms (%d)%n", metric,
+                        ScanLatencyHarness.percentile(values, 50), ScanLatencyHarness.percentile(values, 90),
+                        ScanLatencyHarness.percentile(values, 99), values.length);
+                }
+            }
+        }
+        ScanLatencyHarness.writeCsv(summary, detail, label, runs);
+        System.out.println("Appended to " + summary.toAbsolutePath());
+    }
+}